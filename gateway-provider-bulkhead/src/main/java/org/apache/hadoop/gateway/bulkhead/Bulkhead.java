@@ -0,0 +1,170 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.bulkhead;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the number of in-flight requests to one service of a topology.
+ * Requests that find the service at its limit may wait in a bounded queue for up to the configured time,
+ * otherwise they are rejected immediately so that a slow service can not consume every gateway thread.
+ * An optional per user limit stops a single user from taking every slot of the service.
+ */
+public class Bulkhead {
+
+  private final String role;
+  private final BulkheadConfig config;
+  private final Semaphore permits;
+  private final AtomicInteger queued = new AtomicInteger();
+  private final ConcurrentMap<String,Integer> userInFlight = new ConcurrentHashMap<String,Integer>();
+  private final AtomicLong acceptedCount = new AtomicLong();
+  private final AtomicLong rejectedCount = new AtomicLong();
+
+  public Bulkhead( String role, BulkheadConfig config ) {
+    this.role = role;
+    this.config = config;
+    this.permits = config.getMaxConcurrent() > 0 ? new Semaphore( config.getMaxConcurrent(), true ) : null;
+  }
+
+  public String getRole() {
+    return role;
+  }
+
+  public BulkheadConfig getConfig() {
+    return config;
+  }
+
+  /**
+   * Attempts to obtain a slot for a request.
+   * A successful call must be followed by exactly one call to {@link #release(String)} with the same user.
+   *
+   * @param user The effective user of the request, may be null
+   * @return true if the request may proceed, false if it must be rejected
+   */
+  public boolean acquire( String user ) {
+    if( !acquireUser( user ) ) {
+      rejectedCount.incrementAndGet();
+      return false;
+    }
+    if( !acquireService() ) {
+      releaseUser( user );
+      rejectedCount.incrementAndGet();
+      return false;
+    }
+    acceptedCount.incrementAndGet();
+    return true;
+  }
+
+  public void release( String user ) {
+    if( permits != null ) {
+      permits.release();
+    }
+    releaseUser( user );
+  }
+
+  /**
+   * @return The number of requests currently holding a slot.
+   */
+  public int getInFlight() {
+    if( permits == null ) {
+      int total = 0;
+      for( Integer count : userInFlight.values() ) {
+        total += count;
+      }
+      return total;
+    }
+    return config.getMaxConcurrent() - permits.availablePermits();
+  }
+
+  public int getQueued() {
+    return queued.get();
+  }
+
+  public long getAcceptedCount() {
+    return acceptedCount.get();
+  }
+
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
+  private boolean acquireService() {
+    if( permits == null || permits.tryAcquire() ) {
+      return true;
+    }
+    if( config.getMaxQueued() <= 0 || config.getMaxWait() <= 0 ) {
+      return false;
+    }
+    try {
+      if( queued.incrementAndGet() > config.getMaxQueued() ) {
+        return false;
+      }
+      return permits.tryAcquire( config.getMaxWait(), TimeUnit.MILLISECONDS );
+    } catch( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      queued.decrementAndGet();
+    }
+  }
+
+  // The counts are replaced rather than updated in place so that a user's entry can be removed
+  // once its last request completes without racing a request of the same user that is starting.
+  private boolean acquireUser( String user ) {
+    if( user == null || config.getMaxConcurrentPerUser() <= 0 ) {
+      return true;
+    }
+    while( true ) {
+      Integer count = userInFlight.get( user );
+      if( count == null ) {
+        if( userInFlight.putIfAbsent( user, 1 ) == null ) {
+          return true;
+        }
+      } else if( count >= config.getMaxConcurrentPerUser() ) {
+        return false;
+      } else if( userInFlight.replace( user, count, count + 1 ) ) {
+        return true;
+      }
+    }
+  }
+
+  private void releaseUser( String user ) {
+    if( user == null || config.getMaxConcurrentPerUser() <= 0 ) {
+      return;
+    }
+    while( true ) {
+      Integer count = userInFlight.get( user );
+      if( count == null ) {
+        return;
+      }
+      if( count <= 1 ? userInFlight.remove( user, count ) : userInFlight.replace( user, count, count - 1 ) ) {
+        return;
+      }
+    }
+  }
+
+  int getUserCount() {
+    return userInFlight.size();
+  }
+
+}
@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.bulkhead;
+
+import javax.servlet.FilterConfig;
+
+/**
+ * Limits for the bulkhead of a single topology service.
+ * Each limit can be set for all services of the topology (e.g. <code>maxConcurrent</code>)
+ * and overridden for a service role (e.g. <code>WEBHDFS.maxConcurrent</code>).
+ * Param names are case insensitive.
+ */
+public class BulkheadConfig {
+
+  public static final String RESOURCE_ROLE_PARAM = "resource.role";
+  public static final String MAX_CONCURRENT_PARAM = "maxConcurrent";
+  public static final String MAX_CONCURRENT_PER_USER_PARAM = "maxConcurrentPerUser";
+  public static final String MAX_QUEUED_PARAM = "maxQueued";
+  public static final String MAX_WAIT_PARAM = "maxWait";
+  public static final String REJECT_STATUS_PARAM = "rejectStatus";
+  public static final String RETRY_AFTER_PARAM = "retryAfter";
+
+  public static final int DEFAULT_REJECT_STATUS = 503;
+  public static final int DEFAULT_RETRY_AFTER = 1;
+
+  private int maxConcurrent = 0;
+  private int maxConcurrentPerUser = 0;
+  private int maxQueued = 0;
+  private long maxWait = 0;
+  private int rejectStatus = DEFAULT_REJECT_STATUS;
+  private int retryAfter = DEFAULT_RETRY_AFTER;
+
+  public static BulkheadConfig load( FilterConfig filterConfig, String role ) {
+    BulkheadConfig config = new BulkheadConfig();
+    config.setMaxConcurrent( getInt( filterConfig, role, MAX_CONCURRENT_PARAM, 0 ) );
+    config.setMaxConcurrentPerUser( getInt( filterConfig, role, MAX_CONCURRENT_PER_USER_PARAM, 0 ) );
+    config.setMaxQueued( getInt( filterConfig, role, MAX_QUEUED_PARAM, 0 ) );
+    config.setMaxWait( getInt( filterConfig, role, MAX_WAIT_PARAM, 0 ) );
+    config.setRejectStatus( getInt( filterConfig, role, REJECT_STATUS_PARAM, DEFAULT_REJECT_STATUS ) );
+    config.setRetryAfter( getInt( filterConfig, role, RETRY_AFTER_PARAM, DEFAULT_RETRY_AFTER ) );
+    return config;
+  }
+
+  private static int getInt( FilterConfig filterConfig, String role, String name, int defaultValue ) {
+    String value = null;
+    if( role != null ) {
+      value = filterConfig.getInitParameter( ( role + "." + name ).toLowerCase() );
+    }
+    if( value == null ) {
+      value = filterConfig.getInitParameter( name.toLowerCase() );
+    }
+    return value == null ? defaultValue : Integer.parseInt( value.trim() );
+  }
+
+  /**
+   * @return The maximum number of requests to the service in flight at once, zero or less for no limit.
+   */
+  public int getMaxConcurrent() {
+    return maxConcurrent;
+  }
+
+  public void setMaxConcurrent( int maxConcurrent ) {
+    this.maxConcurrent = maxConcurrent;
+  }
+
+  /**
+   * @return The maximum number of requests to the service a single user may have in flight, zero or less for no limit.
+   */
+  public int getMaxConcurrentPerUser() {
+    return maxConcurrentPerUser;
+  }
+
+  public void setMaxConcurrentPerUser( int maxConcurrentPerUser ) {
+    this.maxConcurrentPerUser = maxConcurrentPerUser;
+  }
+
+  /**
+   * @return The maximum number of requests allowed to wait for a slot when the service is at its limit.
+   */
+  public int getMaxQueued() {
+    return maxQueued;
+  }
+
+  public void setMaxQueued( int maxQueued ) {
+    this.maxQueued = maxQueued;
+  }
+
+  /**
+   * @return The time in milliseconds a queued request waits for a slot before it is rejected.
+   */
+  public long getMaxWait() {
+    return maxWait;
+  }
+
+  public void setMaxWait( long maxWait ) {
+    this.maxWait = maxWait;
+  }
+
+  /**
+   * @return The HTTP status returned for rejected requests, typically 503 or 429.
+   */
+  public int getRejectStatus() {
+    return rejectStatus;
+  }
+
+  public void setRejectStatus( int rejectStatus ) {
+    this.rejectStatus = rejectStatus;
+  }
+
+  /**
+   * @return The value in seconds of the Retry-After header returned with rejected requests.
+   */
+  public int getRetryAfter() {
+    return retryAfter;
+  }
+
+  public void setRetryAfter( int retryAfter ) {
+    this.retryAfter = retryAfter;
+  }
+
+  public boolean isEnabled() {
+    return maxConcurrent > 0 || maxConcurrentPerUser > 0;
+  }
+
+}
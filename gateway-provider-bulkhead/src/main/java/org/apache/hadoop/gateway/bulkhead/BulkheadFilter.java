@@ -0,0 +1,100 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.bulkhead;
+
+import org.apache.hadoop.gateway.audit.api.Action;
+import org.apache.hadoop.gateway.audit.api.ActionOutcome;
+import org.apache.hadoop.gateway.audit.api.AuditServiceFactory;
+import org.apache.hadoop.gateway.audit.api.Auditor;
+import org.apache.hadoop.gateway.audit.api.ResourceType;
+import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
+import org.apache.hadoop.gateway.bulkhead.i18n.BulkheadMessages;
+import org.apache.hadoop.gateway.filter.AbstractGatewayFilter;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.security.SecurityContext;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.Principal;
+
+public class BulkheadFilter implements Filter {
+
+  private static final String RETRY_AFTER = "Retry-After";
+
+  private static BulkheadMessages log = MessagesFactory.get( BulkheadMessages.class );
+  private static Auditor auditor = AuditServiceFactory.getAuditService().getAuditor( AuditConstants.DEFAULT_AUDITOR_NAME,
+      AuditConstants.KNOX_SERVICE_NAME, AuditConstants.KNOX_COMPONENT_NAME );
+
+  private String resourceRole;
+  private Bulkhead bulkhead;
+
+  @Override
+  public void init( FilterConfig filterConfig ) throws ServletException {
+    resourceRole = filterConfig.getInitParameter( BulkheadConfig.RESOURCE_ROLE_PARAM );
+    BulkheadConfig config = BulkheadConfig.load( filterConfig, resourceRole );
+    log.initializingForResourceRole( resourceRole, config.getMaxConcurrent(), config.getMaxConcurrentPerUser(), config.getMaxQueued() );
+    if( config.isEnabled() ) {
+      bulkhead = BulkheadServletContextListener.getBulkheads( filterConfig.getServletContext() ).getBulkhead( resourceRole, config );
+    }
+  }
+
+  @Override
+  public void destroy() {
+  }
+
+  @Override
+  public void doFilter( ServletRequest request, ServletResponse response, FilterChain chain )
+      throws IOException, ServletException {
+    if( bulkhead == null ) {
+      chain.doFilter( request, response );
+      return;
+    }
+    String user = getEffectiveUser( (HttpServletRequest)request );
+    if( bulkhead.acquire( user ) ) {
+      try {
+        chain.doFilter( request, response );
+      } finally {
+        bulkhead.release( user );
+      }
+    } else {
+      log.requestRejected( resourceRole, user, bulkhead.getInFlight() );
+      String sourceUrl = (String)request.getAttribute( AbstractGatewayFilter.SOURCE_REQUEST_CONTEXT_URL_ATTRIBUTE_NAME );
+      auditor.audit( Action.ACCESS, sourceUrl, ResourceType.URI, ActionOutcome.UNAVAILABLE );
+      HttpServletResponse httpResponse = (HttpServletResponse)response;
+      httpResponse.setHeader( RETRY_AFTER, Integer.toString( bulkhead.getConfig().getRetryAfter() ) );
+      httpResponse.sendError( bulkhead.getConfig().getRejectStatus() );
+    }
+  }
+
+  private static String getEffectiveUser( HttpServletRequest request ) {
+    SecurityContext context = SecurityContext.current();
+    if( context != null && context.getPrimaryPrincipal() != null ) {
+      return context.getPrimaryPrincipal().getName();
+    }
+    Principal principal = request.getUserPrincipal();
+    return principal == null ? null : principal.getName();
+  }
+
+}
@@ -0,0 +1,62 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.bulkhead;
+
+import org.apache.hadoop.gateway.services.GatewayServices;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+public class BulkheadServletContextListener implements ServletContextListener {
+
+  public static final String BULKHEADS_ATTRIBUTE_NAME = TopologyBulkheads.class.getName();
+
+  @Override
+  public void contextInitialized( ServletContextEvent event ) {
+    ServletContext context = event.getServletContext();
+    String topology = (String)context.getAttribute( GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE );
+    TopologyBulkheads bulkheads = new TopologyBulkheads( topology );
+    context.setAttribute( BULKHEADS_ATTRIBUTE_NAME, bulkheads );
+    if( topology != null ) {
+      TopologyBulkheads.REGISTRY.register( topology, bulkheads );
+    }
+  }
+
+  @Override
+  public void contextDestroyed( ServletContextEvent event ) {
+    ServletContext context = event.getServletContext();
+    TopologyBulkheads bulkheads = (TopologyBulkheads)context.getAttribute( BULKHEADS_ATTRIBUTE_NAME );
+    if( bulkheads != null ) {
+      TopologyBulkheads.REGISTRY.unregister( bulkheads.getTopology(), bulkheads );
+      context.removeAttribute( BULKHEADS_ATTRIBUTE_NAME );
+    }
+  }
+
+  public static TopologyBulkheads getBulkheads( ServletContext context ) {
+    synchronized( context ) {
+      TopologyBulkheads bulkheads = (TopologyBulkheads)context.getAttribute( BULKHEADS_ATTRIBUTE_NAME );
+      if( bulkheads == null ) {
+        bulkheads = new TopologyBulkheads( (String)context.getAttribute( GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE ) );
+        context.setAttribute( BULKHEADS_ATTRIBUTE_NAME, bulkheads );
+      }
+      return bulkheads;
+    }
+  }
+
+}
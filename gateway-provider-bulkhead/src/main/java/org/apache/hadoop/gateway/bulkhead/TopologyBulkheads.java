@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.bulkhead;
+
+import org.apache.hadoop.gateway.deploy.TopologyRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The bulkheads of one deployed topology keyed by service role.
+ * All the resources of a service share the same bulkhead.
+ */
+public class TopologyBulkheads {
+
+  /**
+   * The bulkheads of every deployed topology.
+   */
+  public static final TopologyRegistry<TopologyBulkheads> REGISTRY = new TopologyRegistry<TopologyBulkheads>();
+
+  private final String topology;
+  private final ConcurrentMap<String,Bulkhead> bulkheads = new ConcurrentHashMap<String,Bulkhead>();
+
+  public TopologyBulkheads( String topology ) {
+    this.topology = topology;
+  }
+
+  public String getTopology() {
+    return topology;
+  }
+
+  public Bulkhead getBulkhead( String role, BulkheadConfig config ) {
+    Bulkhead bulkhead = bulkheads.get( role );
+    if( bulkhead == null ) {
+      bulkhead = new Bulkhead( role, config );
+      Bulkhead existing = bulkheads.putIfAbsent( role, bulkhead );
+      if( existing != null ) {
+        bulkhead = existing;
+      }
+    }
+    return bulkhead;
+  }
+
+  public List<Bulkhead> getBulkheads() {
+    return Collections.unmodifiableList( new ArrayList<Bulkhead>( bulkheads.values() ) );
+  }
+
+}
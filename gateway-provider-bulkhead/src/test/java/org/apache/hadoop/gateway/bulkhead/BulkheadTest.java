@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.bulkhead;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BulkheadTest {
+
+  @Test
+  public void testRejectsWhenServiceAtLimit() {
+    BulkheadConfig config = new BulkheadConfig();
+    config.setMaxConcurrent( 2 );
+    Bulkhead bulkhead = new Bulkhead( "WEBHDFS", config );
+
+    assertTrue( bulkhead.acquire( "alice" ) );
+    assertTrue( bulkhead.acquire( "bob" ) );
+    assertEquals( 2, bulkhead.getInFlight() );
+    assertFalse( bulkhead.acquire( "carol" ) );
+    assertEquals( 1, bulkhead.getRejectedCount() );
+
+    bulkhead.release( "alice" );
+    assertEquals( 1, bulkhead.getInFlight() );
+    assertTrue( bulkhead.acquire( "carol" ) );
+    assertEquals( 3, bulkhead.getAcceptedCount() );
+  }
+
+  @Test
+  public void testRejectsWhenUserAtLimit() {
+    BulkheadConfig config = new BulkheadConfig();
+    config.setMaxConcurrent( 10 );
+    config.setMaxConcurrentPerUser( 1 );
+    Bulkhead bulkhead = new Bulkhead( "WEBHDFS", config );
+
+    assertTrue( bulkhead.acquire( "alice" ) );
+    assertFalse( bulkhead.acquire( "alice" ) );
+    assertTrue( bulkhead.acquire( "bob" ) );
+    // The rejected user request must not leak a service slot.
+    assertEquals( 2, bulkhead.getInFlight() );
+    bulkhead.release( "alice" );
+    assertTrue( bulkhead.acquire( "alice" ) );
+  }
+
+  @Test
+  public void testPerUserLimitWithoutServiceLimit() {
+    BulkheadConfig config = new BulkheadConfig();
+    config.setMaxConcurrentPerUser( 1 );
+    Bulkhead bulkhead = new Bulkhead( "HIVE", config );
+
+    assertTrue( bulkhead.acquire( "alice" ) );
+    assertFalse( bulkhead.acquire( "alice" ) );
+    assertTrue( bulkhead.acquire( null ) );
+    assertEquals( 1, bulkhead.getInFlight() );
+  }
+
+  @Test
+  public void testUserForgottenWhenIdle() throws Exception {
+    BulkheadConfig config = new BulkheadConfig();
+    config.setMaxConcurrentPerUser( 2 );
+    final Bulkhead bulkhead = new Bulkhead( "WEBHDFS", config );
+
+    assertTrue( bulkhead.acquire( "alice" ) );
+    assertTrue( bulkhead.acquire( "alice" ) );
+    bulkhead.release( "alice" );
+    assertEquals( 1, bulkhead.getUserCount() );
+    bulkhead.release( "alice" );
+    assertEquals( 0, bulkhead.getUserCount() );
+
+    Thread[] threads = new Thread[ 4 ];
+    for( int i = 0; i < threads.length; i++ ) {
+      threads[ i ] = new Thread() {
+        @Override
+        public void run() {
+          for( int j = 0; j < 10000; j++ ) {
+            if( bulkhead.acquire( "bob" ) ) {
+              bulkhead.release( "bob" );
+            }
+          }
+        }
+      };
+      threads[ i ].start();
+    }
+    for( Thread thread : threads ) {
+      thread.join();
+    }
+    assertEquals( 0, bulkhead.getUserCount() );
+    assertEquals( 0, bulkhead.getInFlight() );
+  }
+
+  @Test
+  public void testQueuedRequestGetsReleasedSlot() throws Exception {
+    BulkheadConfig config = new BulkheadConfig();
+    config.setMaxConcurrent( 1 );
+    config.setMaxQueued( 1 );
+    config.setMaxWait( 10000 );
+    final Bulkhead bulkhead = new Bulkhead( "OOZIE", config );
+    assertTrue( bulkhead.acquire( "alice" ) );
+
+    final CountDownLatch done = new CountDownLatch( 1 );
+    final AtomicBoolean acquired = new AtomicBoolean();
+    Thread waiter = new Thread() {
+      @Override
+      public void run() {
+        acquired.set( bulkhead.acquire( "bob" ) );
+        done.countDown();
+      }
+    };
+    waiter.start();
+    long deadline = System.currentTimeMillis() + 10000;
+    while( bulkhead.getQueued() == 0 && System.currentTimeMillis() < deadline ) {
+      Thread.sleep( 10 );
+    }
+    assertEquals( 1, bulkhead.getQueued() );
+    // The queue is full so this one is rejected immediately.
+    assertFalse( bulkhead.acquire( "carol" ) );
+
+    bulkhead.release( "alice" );
+    assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+    assertTrue( acquired.get() );
+    assertEquals( 0, bulkhead.getQueued() );
+    assertEquals( 1, bulkhead.getInFlight() );
+  }
+
+  @Test
+  public void testQueuedRequestTimesOut() {
+    BulkheadConfig config = new BulkheadConfig();
+    config.setMaxConcurrent( 1 );
+    config.setMaxQueued( 1 );
+    config.setMaxWait( 50 );
+    Bulkhead bulkhead = new Bulkhead( "OOZIE", config );
+    assertTrue( bulkhead.acquire( "alice" ) );
+    assertFalse( bulkhead.acquire( "bob" ) );
+    assertEquals( 0, bulkhead.getQueued() );
+    assertEquals( 1, bulkhead.getRejectedCount() );
+  }
+
+}
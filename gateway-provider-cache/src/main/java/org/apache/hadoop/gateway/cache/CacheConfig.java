@@ -0,0 +1,234 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.cache;
+
+import javax.servlet.FilterConfig;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Settings for the response cache of a topology.
+ * Cached URLs are selected by numbered rules, each a regular expression matched against the
+ * rewritten target URL and an optional time to live in seconds, for example
+ * <code>pattern.1=.*&#47;ws/v1/cluster/info</code> and <code>ttl.1=30</code>.
+ * Rules are tried in the order of their numbers and rules without a ttl use the <code>ttl</code> param.
+ * Bodies up to <code>heapMaxEntrySize</code> bytes are kept on the heap and larger ones,
+ * up to <code>maxEntrySize</code>, in memory mapped files below <code>directory</code>.
+ */
+public class CacheConfig {
+
+  public static final String RESOURCE_ROLE_PARAM = "resource.role";
+  public static final String PATTERN_PARAM_PREFIX = "pattern.";
+  public static final String TTL_PARAM_PREFIX = "ttl.";
+  public static final String TTL_PARAM = "ttl";
+  public static final String HEAP_MAX_BYTES_PARAM = "heapMaxBytes";
+  public static final String HEAP_MAX_ENTRY_SIZE_PARAM = "heapMaxEntrySize";
+  public static final String FILE_MAX_BYTES_PARAM = "fileMaxBytes";
+  public static final String MAX_ENTRY_SIZE_PARAM = "maxEntrySize";
+  public static final String DIRECTORY_PARAM = "directory";
+
+  public static final long DEFAULT_TTL = 60;
+  public static final long DEFAULT_HEAP_MAX_BYTES = 16L * 1024 * 1024;
+  public static final int DEFAULT_HEAP_MAX_ENTRY_SIZE = 64 * 1024;
+  public static final long DEFAULT_FILE_MAX_BYTES = 256L * 1024 * 1024;
+  public static final int DEFAULT_MAX_ENTRY_SIZE = 8 * 1024 * 1024;
+
+  private List<Rule> rules = new ArrayList<Rule>();
+  private long heapMaxBytes = DEFAULT_HEAP_MAX_BYTES;
+  private int heapMaxEntrySize = DEFAULT_HEAP_MAX_ENTRY_SIZE;
+  private long fileMaxBytes = DEFAULT_FILE_MAX_BYTES;
+  private int maxEntrySize = DEFAULT_MAX_ENTRY_SIZE;
+  private File directory;
+
+  public static CacheConfig load( FilterConfig filterConfig ) {
+    CacheConfig config = new CacheConfig();
+    long defaultTtl = getLong( filterConfig, TTL_PARAM, DEFAULT_TTL );
+    List<Rule> rules = new ArrayList<Rule>();
+    Enumeration names = filterConfig.getInitParameterNames();
+    while( names.hasMoreElements() ) {
+      String name = (String)names.nextElement();
+      if( name.startsWith( PATTERN_PARAM_PREFIX ) ) {
+        String id = name.substring( PATTERN_PARAM_PREFIX.length() );
+        long ttl = getLong( filterConfig, TTL_PARAM_PREFIX + id, defaultTtl );
+        rules.add( new Rule( id, Pattern.compile( filterConfig.getInitParameter( name ).trim() ), ttl * 1000 ) );
+      }
+    }
+    // init params come in no particular order
+    Collections.sort( rules, RULE_ORDER );
+    for( Rule rule : rules ) {
+      config.addRule( rule );
+    }
+    config.setHeapMaxBytes( getLong( filterConfig, HEAP_MAX_BYTES_PARAM, DEFAULT_HEAP_MAX_BYTES ) );
+    config.setHeapMaxEntrySize( (int)getLong( filterConfig, HEAP_MAX_ENTRY_SIZE_PARAM, DEFAULT_HEAP_MAX_ENTRY_SIZE ) );
+    config.setFileMaxBytes( getLong( filterConfig, FILE_MAX_BYTES_PARAM, DEFAULT_FILE_MAX_BYTES ) );
+    config.setMaxEntrySize( (int)getLong( filterConfig, MAX_ENTRY_SIZE_PARAM, DEFAULT_MAX_ENTRY_SIZE ) );
+    String directory = filterConfig.getInitParameter( DIRECTORY_PARAM );
+    if( directory != null ) {
+      config.setDirectory( new File( directory.trim() ) );
+    }
+    return config;
+  }
+
+  private static final Comparator<Rule> RULE_ORDER = new Comparator<Rule>() {
+    @Override
+    public int compare( Rule left, Rule right ) {
+      Long leftIndex = getIndex( left );
+      Long rightIndex = getIndex( right );
+      if( leftIndex != null && rightIndex != null ) {
+        return leftIndex.compareTo( rightIndex );
+      } else if( leftIndex != null ) {
+        return -1;
+      } else if( rightIndex != null ) {
+        return 1;
+      } else {
+        return left.getId().compareTo( right.getId() );
+      }
+    }
+  };
+
+  /**
+   * @return The number of a rule or null if its id is not a number, these rules are tried last.
+   */
+  private static Long getIndex( Rule rule ) {
+    try {
+      return Long.valueOf( rule.getId().trim() );
+    } catch( NumberFormatException e ) {
+      return null;
+    }
+  }
+
+  private static long getLong( FilterConfig filterConfig, String name, long defaultValue ) {
+    String value = filterConfig.getInitParameter( name );
+    return value == null ? defaultValue : Long.parseLong( value.trim() );
+  }
+
+  /**
+   * @param url The rewritten target URL of a GET request
+   * @return The first rule matching the URL or null if responses for the URL are not cached
+   */
+  public Rule getRule( String url ) {
+    for( Rule rule : rules ) {
+      if( rule.getPattern().matcher( url ).matches() ) {
+        return rule;
+      }
+    }
+    return null;
+  }
+
+  public List<Rule> getRules() {
+    return rules;
+  }
+
+  public void addRule( Rule rule ) {
+    rules.add( rule );
+  }
+
+  /**
+   * @return The total size in bytes of the bodies kept on the heap.
+   */
+  public long getHeapMaxBytes() {
+    return heapMaxBytes;
+  }
+
+  public void setHeapMaxBytes( long heapMaxBytes ) {
+    this.heapMaxBytes = heapMaxBytes;
+  }
+
+  /**
+   * @return The largest body in bytes kept on the heap, larger bodies go to the file tier.
+   */
+  public int getHeapMaxEntrySize() {
+    return heapMaxEntrySize;
+  }
+
+  public void setHeapMaxEntrySize( int heapMaxEntrySize ) {
+    this.heapMaxEntrySize = heapMaxEntrySize;
+  }
+
+  /**
+   * @return The total size in bytes of the bodies kept in memory mapped files, zero to disable the file tier.
+   */
+  public long getFileMaxBytes() {
+    return fileMaxBytes;
+  }
+
+  public void setFileMaxBytes( long fileMaxBytes ) {
+    this.fileMaxBytes = fileMaxBytes;
+  }
+
+  /**
+   * @return The largest body in bytes that is cached at all.
+   */
+  public int getMaxEntrySize() {
+    return maxEntrySize;
+  }
+
+  public void setMaxEntrySize( int maxEntrySize ) {
+    this.maxEntrySize = maxEntrySize;
+  }
+
+  /**
+   * @return The directory holding the files of the file tier, null for a temporary directory.
+   */
+  public File getDirectory() {
+    return directory;
+  }
+
+  public void setDirectory( File directory ) {
+    this.directory = directory;
+  }
+
+  public boolean isEnabled() {
+    return !rules.isEmpty();
+  }
+
+  public static class Rule {
+
+    private final String id;
+    private final Pattern pattern;
+    private final long ttl;
+
+    public Rule( String id, Pattern pattern, long ttl ) {
+      this.id = id;
+      this.pattern = pattern;
+      this.ttl = ttl;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public Pattern getPattern() {
+      return pattern;
+    }
+
+    /**
+     * @return The time to live in milliseconds of the responses matched by the rule.
+     */
+    public long getTtl() {
+      return ttl;
+    }
+
+  }
+
+}
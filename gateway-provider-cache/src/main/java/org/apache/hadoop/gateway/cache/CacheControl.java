@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.cache;
+
+import java.util.Enumeration;
+
+/**
+ * The directives of Cache-Control headers that affect the response cache.
+ */
+public class CacheControl {
+
+  public static final String HEADER = "Cache-Control";
+
+  private boolean noStore;
+  private boolean noCache;
+  private boolean privateOnly;
+  private long maxAge = -1;
+
+  public static CacheControl parse( Enumeration values ) {
+    CacheControl cacheControl = new CacheControl();
+    while( values != null && values.hasMoreElements() ) {
+      cacheControl.add( (String)values.nextElement() );
+    }
+    return cacheControl;
+  }
+
+  public static CacheControl parse( String... values ) {
+    CacheControl cacheControl = new CacheControl();
+    for( String value : values ) {
+      cacheControl.add( value );
+    }
+    return cacheControl;
+  }
+
+  private void add( String value ) {
+    if( value == null ) {
+      return;
+    }
+    for( String directive : value.split( "," ) ) {
+      directive = directive.trim().toLowerCase();
+      if( directive.equals( "no-store" ) ) {
+        noStore = true;
+      } else if( directive.startsWith( "no-cache" ) ) {
+        noCache = true;
+      } else if( directive.startsWith( "private" ) ) {
+        privateOnly = true;
+      } else if( directive.startsWith( "s-maxage=" ) ) {
+        // s-maxage is meant for shared caches and takes precedence over max-age
+        maxAge = parseSeconds( directive.substring( 9 ) );
+      } else if( directive.startsWith( "max-age=" ) && maxAge < 0 ) {
+        maxAge = parseSeconds( directive.substring( 8 ) );
+      }
+    }
+  }
+
+  private static long parseSeconds( String value ) {
+    try {
+      return Math.max( 0, Long.parseLong( value.replace( "\"", "" ).trim() ) );
+    } catch( NumberFormatException e ) {
+      return 0;
+    }
+  }
+
+  public boolean isNoStore() {
+    return noStore;
+  }
+
+  public boolean isNoCache() {
+    return noCache;
+  }
+
+  /**
+   * @return true if the response is meant for a single user and must not be kept by a shared cache like the gateway
+   */
+  public boolean isPrivate() {
+    return privateOnly;
+  }
+
+  /**
+   * @return The max-age, or s-maxage when present, in seconds or -1 if absent.
+   */
+  public long getMaxAge() {
+    return maxAge;
+  }
+
+}
@@ -0,0 +1,167 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * A cached response.
+ * The body is held in a {@link ByteBuffer}, either a heap buffer or a read only mapping of a file.
+ */
+public class CacheEntry {
+
+  private static final int HEADER_OVERHEAD = 256;
+
+  private final String key;
+  private final String baseKey;
+  private final int status;
+  private final List<String[]> headers;
+  private final String contentType;
+  private final ByteBuffer body;
+  private final String eTag;
+  private final String lastModified;
+  private final long size;
+  private volatile long storedAt;
+  private volatile long expiresAt;
+
+  public CacheEntry( String key, String baseKey, int status, List<String[]> headers, String contentType, ByteBuffer body,
+      String eTag, String lastModified, long storedAt, long expiresAt ) {
+    this.key = key;
+    this.baseKey = baseKey;
+    this.status = status;
+    this.headers = headers;
+    this.contentType = contentType;
+    this.body = body;
+    this.eTag = eTag;
+    this.lastModified = lastModified;
+    this.storedAt = storedAt;
+    this.expiresAt = expiresAt;
+    long size = HEADER_OVERHEAD + body.capacity();
+    for( String[] header : headers ) {
+      size += 2 * ( header[ 0 ].length() + header[ 1 ].length() );
+    }
+    this.size = size;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * @return The key made of the target URL and principal shared by all the variants of the response.
+   */
+  public String getBaseKey() {
+    return baseKey;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public List<String[]> getHeaders() {
+    return headers;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public String getETag() {
+    return eTag;
+  }
+
+  public String getLastModified() {
+    return lastModified;
+  }
+
+  public boolean hasValidators() {
+    return eTag != null || lastModified != null;
+  }
+
+  /**
+   * @return The approximate memory used by the entry in bytes.
+   */
+  public long getSize() {
+    return size;
+  }
+
+  public int getBodyLength() {
+    return body.capacity();
+  }
+
+  public boolean isFresh( long now ) {
+    return now < expiresAt;
+  }
+
+  /**
+   * @return The age of the entry in seconds as reported in the Age header.
+   */
+  public long getAge( long now ) {
+    return Math.max( 0, ( now - storedAt ) / 1000 );
+  }
+
+  /**
+   * Marks the entry as fresh again after the backend confirmed it is unchanged.
+   */
+  public void revalidated( long now, long expiresAt ) {
+    this.storedAt = now;
+    this.expiresAt = expiresAt;
+  }
+
+  /**
+   * @return A new stream over the body, safe to use concurrently with other streams.
+   */
+  public InputStream openBody() {
+    return new BufferInputStream( body.duplicate() );
+  }
+
+  private static class BufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    BufferInputStream( ByteBuffer buffer ) {
+      this.buffer = buffer;
+      buffer.rewind();
+    }
+
+    @Override
+    public int read() throws IOException {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read( byte[] bytes, int offset, int length ) throws IOException {
+      if( !buffer.hasRemaining() ) {
+        return -1;
+      }
+      length = Math.min( length, buffer.remaining() );
+      buffer.get( bytes, offset, length );
+      return length;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return buffer.remaining();
+    }
+
+  }
+
+}
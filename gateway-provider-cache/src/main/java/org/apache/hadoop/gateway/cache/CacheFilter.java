@@ -0,0 +1,281 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.cache;
+
+import org.apache.hadoop.gateway.cache.i18n.CacheMessages;
+import org.apache.hadoop.gateway.filter.GatewayResponse;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.security.SecurityContext;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serves GET requests matching the cache rules from the topology's {@link ResponseCache}.
+ * The filter sits directly in front of the dispatch so the request URL it sees is the rewritten target URL,
+ * including any user.name or doAs param added by identity assertion, and the response it stores is the raw
+ * backend response.  Cached responses are still rewritten on their way out.
+ */
+public class CacheFilter implements Filter {
+
+  static final String AGE = "Age";
+  static final String VARY = "Vary";
+  static final String SET_COOKIE = "Set-Cookie";
+
+  private static final int STREAM_COPY_BUFFER_SIZE = 4096;
+
+  private static CacheMessages log = MessagesFactory.get( CacheMessages.class );
+
+  private CacheConfig config;
+  private ResponseCache cache;
+
+  @Override
+  public void init( FilterConfig filterConfig ) throws ServletException {
+    config = CacheConfig.load( filterConfig );
+    log.initializingForResourceRole( filterConfig.getInitParameter( CacheConfig.RESOURCE_ROLE_PARAM ), config.getRules().size() );
+    if( config.isEnabled() ) {
+      cache = CacheServletContextListener.getCache( filterConfig.getServletContext(), config );
+    }
+  }
+
+  @Override
+  public void destroy() {
+  }
+
+  @Override
+  public void doFilter( ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain )
+      throws IOException, ServletException {
+    HttpServletRequest request = (HttpServletRequest)servletRequest;
+    HttpServletResponse response = (HttpServletResponse)servletResponse;
+    if( cache == null || !"GET".equalsIgnoreCase( request.getMethod() ) || !isCacheableRequest( request ) ) {
+      chain.doFilter( request, response );
+      return;
+    }
+    String url = getTargetUrl( request );
+    CacheConfig.Rule rule = config.getRule( url );
+    if( rule == null ) {
+      chain.doFilter( request, response );
+      return;
+    }
+    final HttpServletRequest headerRequest = request;
+    ResponseCache.HeaderSource headers = new ResponseCache.HeaderSource() {
+      @Override
+      public String getHeader( String name ) {
+        return headerRequest.getHeader( name );
+      }
+    };
+    String baseKey = getBaseKey( url, request );
+    CacheControl requestCacheControl = CacheControl.parse( request.getHeaders( CacheControl.HEADER ) );
+    CacheEntry entry = cache.get( baseKey, headers );
+    long now = System.currentTimeMillis();
+    if( entry != null && entry.isFresh( now ) && !requestCacheControl.isNoCache() && requestCacheControl.getMaxAge() != 0 ) {
+      log.cacheHit( url );
+      cache.recordHit();
+      writeEntry( response, entry, now );
+      return;
+    }
+
+    HttpServletRequest dispatchRequest = request;
+    if( entry != null && entry.hasValidators() ) {
+      dispatchRequest = new ConditionalRequestWrapper( request, entry );
+    } else {
+      entry = null;
+    }
+    CachingResponseWrapper wrapper = new CachingResponseWrapper( response, config.getMaxEntrySize() );
+    chain.doFilter( dispatchRequest, wrapper );
+    if( wrapper.isPassedThrough() ) {
+      cache.recordMiss();
+      return;
+    }
+
+    CachedResponse captured = wrapper.getCaptured();
+    now = System.currentTimeMillis();
+    if( entry != null && captured.getStatus() == HttpServletResponse.SC_NOT_MODIFIED ) {
+      log.cacheRevalidated( url );
+      cache.recordHit();
+      cache.recordRevalidated();
+      CacheControl cacheControl = CacheControl.parse( captured.getHeader( CacheControl.HEADER ) );
+      if( cacheControl.getMaxAge() < 0 ) {
+        cacheControl = CacheControl.parse( getHeaderValues( entry.getHeaders(), CacheControl.HEADER ) );
+      }
+      entry.revalidated( now, now + getTtl( rule, cacheControl ) );
+      writeEntry( response, entry, now );
+      return;
+    }
+
+    cache.recordMiss();
+    if( entry != null ) {
+      cache.remove( entry );
+    }
+    log.cacheMiss( url );
+    if( wrapper.isBodyCaptured() && captured.getStatus() == HttpServletResponse.SC_OK ) {
+      store( url, baseKey, headers, rule, captured, now );
+    }
+    writeHead( response, captured.getStatus(), captured.getHeaders(), captured.getContentType() );
+    if( wrapper.isBodyCaptured() ) {
+      streamBody( response, new ByteArrayInputStream( captured.getBody(), 0, captured.getBodyLength() ) );
+    }
+  }
+
+  private void store( String url, String baseKey, ResponseCache.HeaderSource headers, CacheConfig.Rule rule,
+      CachedResponse captured, long now ) {
+    if( captured.getHeader( SET_COOKIE ) != null ) {
+      return;
+    }
+    CacheControl cacheControl = CacheControl.parse( captured.getHeaderValues( CacheControl.HEADER ).toArray( new String[ 0 ] ) );
+    if( cacheControl.isNoStore() || cacheControl.isPrivate() ) {
+      return;
+    }
+    String[] vary = getVary( captured );
+    if( vary == null ) {
+      return;
+    }
+    long ttl = getTtl( rule, cacheControl );
+    if( ttl <= 0 && captured.getHeader( "ETag" ) == null && captured.getHeader( "Last-Modified" ) == null ) {
+      return;
+    }
+    if( cache.put( baseKey, vary, headers, captured, now, now + ttl ) != null ) {
+      log.cacheStored( url, ttl );
+    }
+  }
+
+  /**
+   * @return The request headers the response varies by or null if it varies by everything.
+   */
+  private static String[] getVary( CachedResponse captured ) {
+    List<String> names = new ArrayList<String>();
+    for( String value : captured.getHeaderValues( VARY ) ) {
+      for( String name : value.split( "," ) ) {
+        name = name.trim();
+        if( name.equals( "*" ) ) {
+          return null;
+        }
+        if( name.length() > 0 ) {
+          names.add( name.toLowerCase() );
+        }
+      }
+    }
+    return names.toArray( new String[ names.size() ] );
+  }
+
+  /**
+   * The rule's time to live is an upper bound, the backend can only shorten it.
+   */
+  private static long getTtl( CacheConfig.Rule rule, CacheControl cacheControl ) {
+    if( cacheControl.isNoCache() ) {
+      return 0;
+    }
+    if( cacheControl.getMaxAge() >= 0 ) {
+      return Math.min( rule.getTtl(), cacheControl.getMaxAge() * 1000 );
+    }
+    return rule.getTtl();
+  }
+
+  /**
+   * Requests that carry their own validators or ask for part of a resource are passed straight through.
+   */
+  private static boolean isCacheableRequest( HttpServletRequest request ) {
+    return request.getHeader( ConditionalRequestWrapper.IF_NONE_MATCH ) == null
+        && request.getHeader( ConditionalRequestWrapper.IF_MODIFIED_SINCE ) == null
+        && request.getHeader( "Range" ) == null
+        && !CacheControl.parse( request.getHeaders( CacheControl.HEADER ) ).isNoStore();
+  }
+
+  static String getTargetUrl( HttpServletRequest request ) {
+    StringBuffer url = request.getRequestURL();
+    String query = request.getQueryString();
+    if( query != null ) {
+      url.append( '?' ).append( query );
+    }
+    return url.toString();
+  }
+
+  /**
+   * Responses are never shared between principals, even when the backend does not vary by user.
+   */
+  static String getBaseKey( String url, HttpServletRequest request ) {
+    StringBuilder key = new StringBuilder( url );
+    SecurityContext context = SecurityContext.current();
+    if( context != null ) {
+      if( context.getPrimaryPrincipal() != null ) {
+        key.append( "\nprimary:" ).append( context.getPrimaryPrincipal().getName() );
+      }
+      if( context.getImpersonatedPrincipal() != null ) {
+        key.append( "\nimpersonated:" ).append( context.getImpersonatedPrincipal().getName() );
+      }
+    } else if( request.getUserPrincipal() != null ) {
+      key.append( "\nprimary:" ).append( request.getUserPrincipal().getName() );
+    }
+    return key.toString();
+  }
+
+  private static void writeEntry( HttpServletResponse response, CacheEntry entry, long now ) throws IOException {
+    writeHead( response, entry.getStatus(), entry.getHeaders(), entry.getContentType() );
+    response.setHeader( AGE, Long.toString( entry.getAge( now ) ) );
+    streamBody( response, entry.openBody() );
+  }
+
+  static void writeHead( HttpServletResponse response, int status, List<String[]> headers, String contentType ) {
+    response.setStatus( status );
+    for( String[] header : headers ) {
+      if( !AGE.equalsIgnoreCase( header[ 0 ] ) ) {
+        response.addHeader( header[ 0 ], header[ 1 ] );
+      }
+    }
+    if( contentType != null ) {
+      response.setContentType( contentType );
+    }
+  }
+
+  static void streamBody( HttpServletResponse response, InputStream body ) throws IOException {
+    if( response instanceof GatewayResponse ) {
+      ( (GatewayResponse)response ).streamResponse( body );
+    } else {
+      OutputStream output = response.getOutputStream();
+      byte[] buffer = new byte[ STREAM_COPY_BUFFER_SIZE ];
+      int count;
+      while( ( count = body.read( buffer ) ) >= 0 ) {
+        output.write( buffer, 0, count );
+      }
+      output.close();
+    }
+  }
+
+  private static String[] getHeaderValues( List<String[]> headers, String name ) {
+    List<String> values = new ArrayList<String>();
+    for( String[] header : headers ) {
+      if( header[ 0 ].equalsIgnoreCase( name ) ) {
+        values.add( header[ 1 ] );
+      }
+    }
+    return values.toArray( new String[ values.size() ] );
+  }
+
+}
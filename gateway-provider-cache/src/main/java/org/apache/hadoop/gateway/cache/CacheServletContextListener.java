@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.cache;
+
+import org.apache.hadoop.gateway.services.GatewayServices;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+/**
+ * Owns the {@link ResponseCache} shared by all the cache filters of a topology.
+ * The cache is created by the first filter to initialize since its settings come from the provider params.
+ */
+public class CacheServletContextListener implements ServletContextListener {
+
+  public static final String CACHE_ATTRIBUTE_NAME = ResponseCache.class.getName();
+
+  @Override
+  public void contextInitialized( ServletContextEvent event ) {
+  }
+
+  @Override
+  public void contextDestroyed( ServletContextEvent event ) {
+    ServletContext context = event.getServletContext();
+    synchronized( context ) {
+      ResponseCache cache = (ResponseCache)context.getAttribute( CACHE_ATTRIBUTE_NAME );
+      if( cache != null ) {
+        context.removeAttribute( CACHE_ATTRIBUTE_NAME );
+        ResponseCache.REGISTRY.unregister( cache.getTopology(), cache );
+        cache.destroy();
+      }
+    }
+  }
+
+  public static ResponseCache getCache( ServletContext context, CacheConfig config ) {
+    synchronized( context ) {
+      ResponseCache cache = (ResponseCache)context.getAttribute( CACHE_ATTRIBUTE_NAME );
+      if( cache == null ) {
+        String topology = (String)context.getAttribute( GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE );
+        cache = new ResponseCache( topology, config );
+        context.setAttribute( CACHE_ATTRIBUTE_NAME, cache );
+        if( topology != null ) {
+          ResponseCache.REGISTRY.register( topology, cache );
+        }
+      }
+      return cache;
+    }
+  }
+
+}
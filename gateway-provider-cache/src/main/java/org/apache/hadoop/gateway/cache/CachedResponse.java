@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The status, headers and body of a response as captured on its way from the dispatch to the client.
+ */
+public class CachedResponse {
+
+  private int status = 200;
+  private final List<String[]> headers = new ArrayList<String[]>();
+  private String contentType;
+  private byte[] body = new byte[ 0 ];
+  private int bodyLength = 0;
+
+  public int getStatus() {
+    return status;
+  }
+
+  public void setStatus( int status ) {
+    this.status = status;
+  }
+
+  public List<String[]> getHeaders() {
+    return headers;
+  }
+
+  public void addHeader( String name, String value ) {
+    headers.add( new String[]{ name, value } );
+  }
+
+  public void setHeader( String name, String value ) {
+    removeHeader( name );
+    addHeader( name, value );
+  }
+
+  public void removeHeader( String name ) {
+    for( int i = headers.size() - 1; i >= 0; i-- ) {
+      if( headers.get( i )[ 0 ].equalsIgnoreCase( name ) ) {
+        headers.remove( i );
+      }
+    }
+  }
+
+  public String getHeader( String name ) {
+    for( String[] header : headers ) {
+      if( header[ 0 ].equalsIgnoreCase( name ) ) {
+        return header[ 1 ];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return All the values of a header, including comma separated values of repeated headers.
+   */
+  public List<String> getHeaderValues( String name ) {
+    List<String> values = new ArrayList<String>();
+    for( String[] header : headers ) {
+      if( header[ 0 ].equalsIgnoreCase( name ) ) {
+        values.add( header[ 1 ] );
+      }
+    }
+    return values;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public void setContentType( String contentType ) {
+    this.contentType = contentType;
+  }
+
+  /**
+   * @return The body buffer, only the first {@link #getBodyLength()} bytes are valid.
+   */
+  public byte[] getBody() {
+    return body;
+  }
+
+  public int getBodyLength() {
+    return bodyLength;
+  }
+
+  public void setBody( byte[] body, int length ) {
+    this.body = body;
+    this.bodyLength = length;
+  }
+
+}
@@ -0,0 +1,206 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.cache;
+
+import org.apache.hadoop.gateway.filter.GatewayResponseWrapper;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+
+/**
+ * Holds back the response written by the dispatch so that it can be stored before it reaches the client,
+ * or replaced by a cached response when the backend answers a revalidation with 304.
+ * Bodies larger than the limit, errors and anything written directly to the output stream are passed
+ * through to the client as they are and are not cached.
+ */
+class CachingResponseWrapper extends GatewayResponseWrapper {
+
+  private static final int CHUNK_SIZE = 4096;
+
+  private final int maxBodySize;
+  private final CachedResponse captured = new CachedResponse();
+  private boolean passedThrough = false;
+  private boolean bodyCaptured = false;
+
+  CachingResponseWrapper( HttpServletResponse response, int maxBodySize ) {
+    super( response );
+    this.maxBodySize = maxBodySize;
+  }
+
+  CachedResponse getCaptured() {
+    return captured;
+  }
+
+  boolean isPassedThrough() {
+    return passedThrough;
+  }
+
+  boolean isBodyCaptured() {
+    return bodyCaptured;
+  }
+
+  @Override
+  public void streamResponse( InputStream input ) throws IOException {
+    if( passedThrough ) {
+      CacheFilter.streamBody( (HttpServletResponse)getResponse(), input );
+      return;
+    }
+    byte[] body = new byte[ CHUNK_SIZE ];
+    int length = 0;
+    int count;
+    while( ( count = input.read( body, length, body.length - length ) ) >= 0 ) {
+      length += count;
+      if( length > maxBodySize ) {
+        passThrough();
+        InputStream replay = new SequenceInputStream( new ByteArrayInputStream( body, 0, length ), input );
+        CacheFilter.streamBody( (HttpServletResponse)getResponse(), replay );
+        return;
+      }
+      if( length == body.length ) {
+        body = Arrays.copyOf( body, Math.min( body.length * 2, maxBodySize + 1 ) );
+      }
+    }
+    input.close();
+    captured.setBody( body, length );
+    bodyCaptured = true;
+  }
+
+  @Override
+  public OutputStream getRawOutputStream() throws IOException {
+    passThrough();
+    return getResponse().getOutputStream();
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() throws IOException {
+    passThrough();
+    return super.getOutputStream();
+  }
+
+  @Override
+  public PrintWriter getWriter() throws IOException {
+    passThrough();
+    return super.getWriter();
+  }
+
+  @Override
+  public void sendError( int sc ) throws IOException {
+    passThrough();
+    super.sendError( sc );
+  }
+
+  @Override
+  public void sendError( int sc, String msg ) throws IOException {
+    passThrough();
+    super.sendError( sc, msg );
+  }
+
+  @Override
+  public void sendRedirect( String location ) throws IOException {
+    passThrough();
+    super.sendRedirect( location );
+  }
+
+  @Override
+  public void setStatus( int sc ) {
+    if( passedThrough ) {
+      super.setStatus( sc );
+    } else {
+      captured.setStatus( sc );
+    }
+  }
+
+  @Override
+  @SuppressWarnings("deprecation")
+  public void setStatus( int sc, String sm ) {
+    setStatus( sc );
+  }
+
+  @Override
+  public int getStatus() {
+    return passedThrough ? super.getStatus() : captured.getStatus();
+  }
+
+  @Override
+  public void setContentType( String type ) {
+    if( passedThrough ) {
+      super.setContentType( type );
+    } else {
+      captured.setContentType( type );
+    }
+  }
+
+  @Override
+  public String getContentType() {
+    return passedThrough ? super.getContentType() : captured.getContentType();
+  }
+
+  @Override
+  public void addHeader( String name, String value ) {
+    if( passedThrough ) {
+      super.addHeader( name, value );
+    } else {
+      captured.addHeader( name, value );
+    }
+  }
+
+  @Override
+  public void setHeader( String name, String value ) {
+    if( passedThrough ) {
+      super.setHeader( name, value );
+    } else {
+      captured.setHeader( name, value );
+    }
+  }
+
+  @Override
+  public void addIntHeader( String name, int value ) {
+    addHeader( name, Integer.toString( value ) );
+  }
+
+  @Override
+  public void setIntHeader( String name, int value ) {
+    setHeader( name, Integer.toString( value ) );
+  }
+
+  @Override
+  public boolean containsHeader( String name ) {
+    return passedThrough ? super.containsHeader( name ) : captured.getHeader( name ) != null;
+  }
+
+  @Override
+  public String getHeader( String name ) {
+    return passedThrough ? super.getHeader( name ) : captured.getHeader( name );
+  }
+
+  private void passThrough() {
+    if( !passedThrough ) {
+      passedThrough = true;
+      CacheFilter.writeHead( (HttpServletResponse)getResponse(), captured.getStatus(), captured.getHeaders(),
+          captured.getContentType() );
+    }
+  }
+
+}
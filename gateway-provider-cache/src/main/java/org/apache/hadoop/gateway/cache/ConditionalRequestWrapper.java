@@ -0,0 +1,82 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.cache;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds the validators of a stale cache entry to a request so that the backend can answer with 304.
+ */
+class ConditionalRequestWrapper extends HttpServletRequestWrapper {
+
+  static final String IF_NONE_MATCH = "If-None-Match";
+  static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+
+  private final Map<String,String> conditions = new LinkedHashMap<String,String>();
+
+  ConditionalRequestWrapper( HttpServletRequest request, CacheEntry entry ) {
+    super( request );
+    if( entry.getETag() != null ) {
+      conditions.put( IF_NONE_MATCH, entry.getETag() );
+    }
+    if( entry.getLastModified() != null ) {
+      conditions.put( IF_MODIFIED_SINCE, entry.getLastModified() );
+    }
+  }
+
+  @Override
+  public String getHeader( String name ) {
+    for( Map.Entry<String,String> condition : conditions.entrySet() ) {
+      if( condition.getKey().equalsIgnoreCase( name ) ) {
+        return condition.getValue();
+      }
+    }
+    return super.getHeader( name );
+  }
+
+  @Override
+  public Enumeration<String> getHeaders( String name ) {
+    for( Map.Entry<String,String> condition : conditions.entrySet() ) {
+      if( condition.getKey().equalsIgnoreCase( name ) ) {
+        return Collections.enumeration( Collections.singletonList( condition.getValue() ) );
+      }
+    }
+    return super.getHeaders( name );
+  }
+
+  @Override
+  public Enumeration<String> getHeaderNames() {
+    List<String> names = new ArrayList<String>( conditions.keySet() );
+    Enumeration<String> enumeration = super.getHeaderNames();
+    while( enumeration != null && enumeration.hasMoreElements() ) {
+      String name = enumeration.nextElement();
+      if( !conditions.containsKey( name ) ) {
+        names.add( name );
+      }
+    }
+    return Collections.enumeration( names );
+  }
+
+}
@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A tier of the response cache that evicts its least recently used entries once their total size exceeds a limit.
+ */
+class LruTier {
+
+  interface EvictionListener {
+    void evicted( CacheEntry entry );
+
+    /**
+     * Called for an entry that was replaced by a newer one with the same key, which is not an eviction.
+     */
+    void replaced( CacheEntry entry );
+  }
+
+  private final String name;
+  private final long maxBytes;
+  private final EvictionListener listener;
+  private final LinkedHashMap<String,CacheEntry> entries = new LinkedHashMap<String,CacheEntry>( 64, 0.75f, true );
+  private long bytes = 0;
+
+  LruTier( String name, long maxBytes, EvictionListener listener ) {
+    this.name = name;
+    this.maxBytes = maxBytes;
+    this.listener = listener;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  long getMaxBytes() {
+    return maxBytes;
+  }
+
+  synchronized CacheEntry get( String key ) {
+    return entries.get( key );
+  }
+
+  void put( CacheEntry entry ) {
+    List<CacheEntry> evicted = new ArrayList<CacheEntry>();
+    CacheEntry previous;
+    synchronized( this ) {
+      previous = entries.put( entry.getKey(), entry );
+      if( previous != null ) {
+        bytes -= previous.getSize();
+      }
+      bytes += entry.getSize();
+      Iterator<Map.Entry<String,CacheEntry>> iterator = entries.entrySet().iterator();
+      while( bytes > maxBytes && iterator.hasNext() ) {
+        CacheEntry eldest = iterator.next().getValue();
+        iterator.remove();
+        bytes -= eldest.getSize();
+        evicted.add( eldest );
+      }
+    }
+    if( previous != null ) {
+      listener.replaced( previous );
+    }
+    notifyEvicted( evicted );
+  }
+
+  CacheEntry remove( String key ) {
+    CacheEntry entry;
+    synchronized( this ) {
+      entry = entries.remove( key );
+      if( entry != null ) {
+        bytes -= entry.getSize();
+      }
+    }
+    return entry;
+  }
+
+  void clear() {
+    List<CacheEntry> evicted;
+    synchronized( this ) {
+      evicted = new ArrayList<CacheEntry>( entries.values() );
+      entries.clear();
+      bytes = 0;
+    }
+    notifyEvicted( evicted );
+  }
+
+  synchronized long getBytes() {
+    return bytes;
+  }
+
+  synchronized int getCount() {
+    return entries.size();
+  }
+
+  private void notifyEvicted( List<CacheEntry> evicted ) {
+    for( CacheEntry entry : evicted ) {
+      listener.evicted( entry );
+    }
+  }
+
+}
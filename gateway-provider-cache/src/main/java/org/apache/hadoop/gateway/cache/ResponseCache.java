@@ -0,0 +1,323 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.cache;
+
+import org.apache.hadoop.gateway.cache.i18n.CacheMessages;
+import org.apache.hadoop.gateway.deploy.TopologyRegistry;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The response cache of a topology.
+ * Small bodies are held on the heap and larger ones in memory mapped files so that they take no heap space
+ * and are paged in and out by the operating system.  Each tier evicts its least recently used entries
+ * to stay within its byte budget.
+ * Entries are found in two steps: the base key (target URL and principal) leads to the names of the request
+ * headers the response varies by, and the values of those headers complete the key of the entry.
+ */
+public class ResponseCache implements LruTier.EvictionListener {
+
+  private static CacheMessages log = MessagesFactory.get( CacheMessages.class );
+
+  /**
+   * The response caches of every deployed topology.
+   */
+  public static final TopologyRegistry<ResponseCache> REGISTRY = new TopologyRegistry<ResponseCache>();
+
+  private final String topology;
+  private final CacheConfig config;
+  private final File directory;
+  private final LruTier heapTier;
+  private final LruTier fileTier;
+  private final ConcurrentMap<String,Variants> varyIndex = new ConcurrentHashMap<String,Variants>();
+  private final ConcurrentMap<CacheEntry,File> files = new ConcurrentHashMap<CacheEntry,File>();
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong revalidatedCount = new AtomicLong();
+  private final AtomicLong storedCount = new AtomicLong();
+  private final AtomicLong evictedCount = new AtomicLong();
+
+  public ResponseCache( String topology, CacheConfig config ) {
+    this.topology = topology;
+    this.config = config;
+    this.heapTier = new LruTier( "heap", config.getHeapMaxBytes(), this );
+    this.fileTier = new LruTier( "file", config.getFileMaxBytes(), this );
+    File directory = config.getDirectory();
+    if( directory == null ) {
+      directory = new File( System.getProperty( "java.io.tmpdir" ), "gateway-cache-" + topology );
+    }
+    this.directory = directory;
+  }
+
+  public String getTopology() {
+    return topology;
+  }
+
+  public CacheConfig getConfig() {
+    return config;
+  }
+
+  /**
+   * @param baseKey The key made of the target URL and principal
+   * @param headers The request headers
+   * @return The entry for the request or null if there is none
+   */
+  public CacheEntry get( String baseKey, HeaderSource headers ) {
+    Variants variants = varyIndex.get( baseKey );
+    if( variants == null ) {
+      return null;
+    }
+    String key = getKey( baseKey, variants.vary, headers );
+    CacheEntry entry = heapTier.get( key );
+    if( entry == null ) {
+      entry = fileTier.get( key );
+    }
+    return entry;
+  }
+
+  /**
+   * Creates and stores an entry, choosing the tier by body size.
+   *
+   * @return The stored entry or null if it could not be stored
+   */
+  public CacheEntry put( String baseKey, String[] vary, HeaderSource headers, CachedResponse response,
+      long now, long expiresAt ) {
+    if( response.getBodyLength() > config.getMaxEntrySize() ) {
+      return null;
+    }
+    String key = getKey( baseKey, vary, headers );
+    LruTier tier = heapTier;
+    ByteBuffer body;
+    File file = null;
+    if( response.getBodyLength() > config.getHeapMaxEntrySize() && config.getFileMaxBytes() > 0 ) {
+      try {
+        file = writeFile( response );
+        body = mapFile( file );
+        tier = fileTier;
+      } catch( IOException e ) {
+        log.failedToWriteCacheFile( directory.getAbsolutePath(), e );
+        if( file != null ) {
+          file.delete();
+        }
+        return null;
+      }
+    } else if( response.getBodyLength() > config.getHeapMaxEntrySize() ) {
+      return null;
+    } else {
+      body = ByteBuffer.wrap( response.getBody(), 0, response.getBodyLength() ).slice();
+    }
+    CacheEntry entry = new CacheEntry( key, baseKey, response.getStatus(), response.getHeaders(), response.getContentType(),
+        body, response.getHeader( "ETag" ), response.getHeader( "Last-Modified" ), now, expiresAt );
+    if( file != null ) {
+      files.put( entry, file );
+    }
+    addVariant( baseKey, vary );
+    // the body may have moved between tiers since it was last stored
+    CacheEntry previous = ( tier == heapTier ? fileTier : heapTier ).remove( key );
+    if( previous != null ) {
+      release( previous );
+    }
+    tier.put( entry );
+    storedCount.incrementAndGet();
+    return entry;
+  }
+
+  public void remove( CacheEntry entry ) {
+    CacheEntry removed = heapTier.remove( entry.getKey() );
+    if( removed == null ) {
+      removed = fileTier.remove( entry.getKey() );
+    }
+    if( removed != null ) {
+      release( removed );
+    }
+  }
+
+  public void clear() {
+    synchronized( varyIndex ) {
+      heapTier.clear();
+      fileTier.clear();
+      varyIndex.clear();
+    }
+  }
+
+  public void destroy() {
+    clear();
+    directory.delete();
+  }
+
+  @Override
+  public void evicted( CacheEntry entry ) {
+    evictedCount.incrementAndGet();
+    release( entry );
+  }
+
+  @Override
+  public void replaced( CacheEntry entry ) {
+    release( entry );
+  }
+
+  public void recordHit() {
+    hitCount.incrementAndGet();
+  }
+
+  public void recordMiss() {
+    missCount.incrementAndGet();
+  }
+
+  public void recordRevalidated() {
+    revalidatedCount.incrementAndGet();
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * @return The number of stale entries the backend confirmed as unchanged, these are counted as hits as well.
+   */
+  public long getRevalidatedCount() {
+    return revalidatedCount.get();
+  }
+
+  public long getStoredCount() {
+    return storedCount.get();
+  }
+
+  public long getEvictedCount() {
+    return evictedCount.get();
+  }
+
+  /**
+   * @return The fraction of lookups served from the cache, zero if there were none.
+   */
+  public double getHitRatio() {
+    long hits = hitCount.get();
+    long total = hits + missCount.get();
+    return total == 0 ? 0 : (double)hits / total;
+  }
+
+  public long getHeapBytes() {
+    return heapTier.getBytes();
+  }
+
+  public long getFileBytes() {
+    return fileTier.getBytes();
+  }
+
+  public int getEntryCount() {
+    return heapTier.getCount() + fileTier.getCount();
+  }
+
+  int getBaseKeyCount() {
+    return varyIndex.size();
+  }
+
+  static String getKey( String baseKey, String[] vary, HeaderSource headers ) {
+    if( vary.length == 0 ) {
+      return baseKey;
+    }
+    StringBuilder key = new StringBuilder( baseKey );
+    for( String name : vary ) {
+      String value = headers.getHeader( name );
+      key.append( '\n' ).append( name ).append( ':' ).append( value == null ? "" : value );
+    }
+    return key.toString();
+  }
+
+  private File writeFile( CachedResponse response ) throws IOException {
+    if( !directory.isDirectory() && !directory.mkdirs() ) {
+      throw new IOException( directory.getAbsolutePath() );
+    }
+    File file = File.createTempFile( "entry", ".bin", directory );
+    FileOutputStream output = new FileOutputStream( file );
+    try {
+      output.write( response.getBody(), 0, response.getBodyLength() );
+    } finally {
+      output.close();
+    }
+    return file;
+  }
+
+  private static ByteBuffer mapFile( File file ) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile( file, "r" );
+    try {
+      // the mapping stays valid once the channel is closed
+      return raf.getChannel().map( FileChannel.MapMode.READ_ONLY, 0, raf.length() );
+    } finally {
+      raf.close();
+    }
+  }
+
+  private void addVariant( String baseKey, String[] vary ) {
+    synchronized( varyIndex ) {
+      Variants variants = varyIndex.get( baseKey );
+      if( variants == null ) {
+        variants = new Variants();
+        varyIndex.put( baseKey, variants );
+      }
+      variants.vary = vary;
+      variants.count++;
+    }
+  }
+
+  private void release( CacheEntry entry ) {
+    synchronized( varyIndex ) {
+      Variants variants = varyIndex.get( entry.getBaseKey() );
+      if( variants != null && --variants.count <= 0 ) {
+        varyIndex.remove( entry.getBaseKey() );
+      }
+    }
+    File file = files.remove( entry );
+    if( file != null && !file.delete() ) {
+      // still mapped on some platforms, the mapping is released by the garbage collector
+      file.deleteOnExit();
+    }
+  }
+
+  /**
+   * The request headers the responses for a base key vary by and the number of variants stored.
+   * Every stored entry is released exactly once, when it is replaced, removed or evicted,
+   * so the base key is dropped along with its last variant.
+   */
+  private static class Variants {
+    private volatile String[] vary;
+    private int count;
+  }
+
+  /**
+   * Access to the headers of a request.
+   */
+  public interface HeaderSource {
+    String getHeader( String name );
+  }
+
+}
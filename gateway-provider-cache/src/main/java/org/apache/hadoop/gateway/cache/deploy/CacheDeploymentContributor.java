@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.cache.deploy;
+
+import org.apache.hadoop.gateway.cache.CacheConfig;
+import org.apache.hadoop.gateway.cache.CacheFilter;
+import org.apache.hadoop.gateway.cache.CacheServletContextListener;
+import org.apache.hadoop.gateway.deploy.DeploymentContext;
+import org.apache.hadoop.gateway.deploy.ProviderDeploymentContributorBase;
+import org.apache.hadoop.gateway.descriptor.FilterParamDescriptor;
+import org.apache.hadoop.gateway.descriptor.ResourceDescriptor;
+import org.apache.hadoop.gateway.topology.Provider;
+import org.apache.hadoop.gateway.topology.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class CacheDeploymentContributor extends ProviderDeploymentContributorBase {
+
+  public static final String ROLE = "cache";
+
+  public static final String NAME = "ResponseCache";
+
+  private static final String CACHE_ENABLED_DESCRIPTOR = "cache.enabled";
+
+  @Override
+  public String getRole() {
+    return ROLE;
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public void contributeProvider( DeploymentContext context, Provider provider ) {
+    context.addDescriptor( CACHE_ENABLED_DESCRIPTOR, Boolean.TRUE );
+  }
+
+  @Override
+  public void finalizeContribution( DeploymentContext context ) {
+    if( context.getDescriptor( CACHE_ENABLED_DESCRIPTOR ) != null ) {
+      context.getWebAppDescriptor().createListener().listenerClass( CacheServletContextListener.class.getName() );
+    }
+  }
+
+  @Override
+  public void contributeFilter( DeploymentContext context, Provider provider, Service service,
+      ResourceDescriptor resource, List<FilterParamDescriptor> params ) {
+    if( params == null ) {
+      params = new ArrayList<FilterParamDescriptor>();
+    }
+    params.add( resource.createFilterParam().name( CacheConfig.RESOURCE_ROLE_PARAM ).value( resource.role() ) );
+    // names are kept as they are since the rule ids are chosen by the administrator
+    for( Map.Entry<String,String> entry : provider.getParams().entrySet() ) {
+      params.add( resource.createFilterParam().name( entry.getKey() ).value( entry.getValue() ) );
+    }
+    resource.addFilter().name( getName() ).role( getRole() ).impl( CacheFilter.class ).params( params );
+  }
+
+}
@@ -0,0 +1,46 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.cache.i18n;
+
+import org.apache.hadoop.gateway.i18n.messages.Message;
+import org.apache.hadoop.gateway.i18n.messages.MessageLevel;
+import org.apache.hadoop.gateway.i18n.messages.Messages;
+import org.apache.hadoop.gateway.i18n.messages.StackTrace;
+
+@Messages(logger="org.apache.hadoop.gateway")
+public interface CacheMessages {
+
+  @Message( level = MessageLevel.INFO, text = "Initializing Response Cache Provider for: {0} with {1} rules" )
+  void initializingForResourceRole( String resourceRole, int rules );
+
+  @Message( level = MessageLevel.DEBUG, text = "Response cache hit: {0}" )
+  void cacheHit( String url );
+
+  @Message( level = MessageLevel.DEBUG, text = "Response cache entry revalidated: {0}" )
+  void cacheRevalidated( String url );
+
+  @Message( level = MessageLevel.DEBUG, text = "Response cache miss: {0}" )
+  void cacheMiss( String url );
+
+  @Message( level = MessageLevel.DEBUG, text = "Response cached for {1}ms: {0}" )
+  void cacheStored( String url, long ttl );
+
+  @Message( level = MessageLevel.WARN, text = "Failed to write response cache file in {0}: {1}" )
+  void failedToWriteCacheFile( String directory, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+}
@@ -0,0 +1,412 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.cache;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.gateway.filter.GatewayResponse;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CacheFilterTest {
+
+  private static final String WEBHDFS_URL = "http://localhost:50070/webhdfs/v1/tmp/file";
+  private static final String QUERY = "op=GETFILESTATUS";
+  private static final String KEY = WEBHDFS_URL + "?" + QUERY;
+
+  private static final ResponseCache.HeaderSource NO_HEADERS = new ResponseCache.HeaderSource() {
+    @Override
+    public String getHeader( String name ) {
+      return null;
+    }
+  };
+
+  private File directory;
+  private Map<String,Object> attributes;
+  private CacheFilter filter;
+  private Backend backend;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = new File( System.getProperty( "java.io.tmpdir" ), "cache-filter-test-" + System.nanoTime() );
+    attributes = new HashMap<String,Object>();
+    Map<String,String> params = new HashMap<String,String>();
+    params.put( "pattern.1", ".*/webhdfs/v1/.*" );
+    params.put( "ttl.1", "60" );
+    params.put( CacheConfig.DIRECTORY_PARAM, directory.getAbsolutePath() );
+    filter = new CacheFilter();
+    filter.init( createFilterConfig( params, createServletContext( attributes ) ) );
+    backend = new Backend();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    filter.destroy();
+    getCache().destroy();
+    FileUtils.deleteQuietly( directory );
+  }
+
+  @Test
+  public void testHitServedFromCache() throws Exception {
+    backend.addHeader( "ETag", "\"1\"" );
+
+    Client first = get( WEBHDFS_URL, new HashMap<String,String>() );
+    assertThat( first.status, is( HttpServletResponse.SC_OK ) );
+    assertThat( first.getBody(), is( Backend.BODY ) );
+    assertThat( first.getHeader( CacheFilter.AGE ), nullValue() );
+
+    Client second = get( WEBHDFS_URL, new HashMap<String,String>() );
+    assertThat( backend.calls, is( 1 ) );
+    assertThat( second.status, is( HttpServletResponse.SC_OK ) );
+    assertThat( second.getBody(), is( Backend.BODY ) );
+    assertThat( second.getHeader( "ETag" ), is( "\"1\"" ) );
+    assertThat( second.getHeader( CacheFilter.AGE ), is( "0" ) );
+    assertThat( second.contentType, is( "application/json" ) );
+    assertThat( getCache().getHitCount(), is( 1L ) );
+    assertThat( getCache().getMissCount(), is( 1L ) );
+  }
+
+  @Test
+  public void testStaleEntryRevalidated() throws Exception {
+    backend.addHeader( "ETag", "\"1\"" );
+    backend.addHeader( CacheControl.HEADER, "max-age=0" );
+    get( WEBHDFS_URL, new HashMap<String,String>() );
+    assertThat( backend.ifNoneMatch, nullValue() );
+    assertThat( getCache().get( KEY, NO_HEADERS ), notNullValue() );
+
+    // The stale entry's validators are sent along and a 304 is answered from the cache.
+    backend.status = HttpServletResponse.SC_NOT_MODIFIED;
+    backend.headers.clear();
+    Client revalidated = get( WEBHDFS_URL, new HashMap<String,String>() );
+    assertThat( backend.calls, is( 2 ) );
+    assertThat( backend.ifNoneMatch, is( "\"1\"" ) );
+    assertThat( revalidated.status, is( HttpServletResponse.SC_OK ) );
+    assertThat( revalidated.getBody(), is( Backend.BODY ) );
+    assertThat( getCache().getRevalidatedCount(), is( 1L ) );
+
+    // A changed resource replaces the stale entry.
+    backend.status = HttpServletResponse.SC_OK;
+    backend.body = "{\"changed\":true}";
+    backend.addHeader( "ETag", "\"2\"" );
+    Client changed = get( WEBHDFS_URL, new HashMap<String,String>() );
+    assertThat( backend.calls, is( 3 ) );
+    assertThat( changed.getBody(), is( "{\"changed\":true}" ) );
+    assertThat( getCache().get( KEY, NO_HEADERS ).getETag(), is( "\"2\"" ) );
+    assertThat( getCache().getEntryCount(), is( 1 ) );
+  }
+
+  @Test
+  public void testBackendMaxAgeLimitsRuleTtl() throws Exception {
+    backend.addHeader( CacheControl.HEADER, "max-age=5" );
+    long now = System.currentTimeMillis();
+    get( WEBHDFS_URL, new HashMap<String,String>() );
+    CacheEntry entry = getCache().get( KEY, NO_HEADERS );
+    assertThat( entry.isFresh( now + 4000 ), is( true ) );
+    assertThat( entry.isFresh( now + 6000 ), is( false ) );
+
+    // The backend can only shorten the rule's time to live.
+    getCache().clear();
+    backend.headers.clear();
+    backend.addHeader( CacheControl.HEADER, "max-age=600" );
+    now = System.currentTimeMillis();
+    get( WEBHDFS_URL, new HashMap<String,String>() );
+    entry = getCache().get( KEY, NO_HEADERS );
+    assertThat( entry.isFresh( now + 59000 ), is( true ) );
+    assertThat( entry.isFresh( now + 62000 ), is( false ) );
+  }
+
+  @Test
+  public void testNoStoreAndPrivateResponsesNotCached() throws Exception {
+    String[] directives = { "no-store", "private", "private, max-age=60", "no-cache" };
+    for( String directive : directives ) {
+      backend.calls = 0;
+      backend.headers.clear();
+      backend.addHeader( CacheControl.HEADER, directive );
+      get( WEBHDFS_URL, new HashMap<String,String>() );
+      Client second = get( WEBHDFS_URL, new HashMap<String,String>() );
+      assertThat( directive, backend.calls, is( 2 ) );
+      assertThat( directive, second.getBody(), is( Backend.BODY ) );
+      assertThat( directive, getCache().getEntryCount(), is( 0 ) );
+    }
+  }
+
+  @Test
+  public void testResponsesWithCookiesOrErrorsNotCached() throws Exception {
+    backend.addHeader( CacheFilter.SET_COOKIE, "hadoop.auth=secret" );
+    get( WEBHDFS_URL, new HashMap<String,String>() );
+    get( WEBHDFS_URL, new HashMap<String,String>() );
+    assertThat( backend.calls, is( 2 ) );
+    assertThat( getCache().getEntryCount(), is( 0 ) );
+
+    backend.calls = 0;
+    backend.headers.clear();
+    backend.status = HttpServletResponse.SC_NOT_FOUND;
+    backend.body = "{\"RemoteException\":{}}";
+    get( WEBHDFS_URL, new HashMap<String,String>() );
+    Client second = get( WEBHDFS_URL, new HashMap<String,String>() );
+    assertThat( backend.calls, is( 2 ) );
+    assertThat( second.status, is( HttpServletResponse.SC_NOT_FOUND ) );
+    assertThat( second.getBody(), is( "{\"RemoteException\":{}}" ) );
+    assertThat( getCache().getEntryCount(), is( 0 ) );
+  }
+
+  @Test
+  public void testVaryHeadersSelectVariant() throws Exception {
+    backend.addHeader( CacheFilter.VARY, "Accept" );
+    Map<String,String> json = Collections.singletonMap( "Accept", "application/json" );
+    Map<String,String> xml = Collections.singletonMap( "Accept", "application/xml" );
+    get( WEBHDFS_URL, json );
+    get( WEBHDFS_URL, xml );
+    assertThat( backend.calls, is( 2 ) );
+    get( WEBHDFS_URL, json );
+    get( WEBHDFS_URL, xml );
+    assertThat( backend.calls, is( 2 ) );
+    assertThat( getCache().getEntryCount(), is( 2 ) );
+
+    getCache().clear();
+    backend.calls = 0;
+    backend.headers.clear();
+    backend.addHeader( CacheFilter.VARY, "*" );
+    get( WEBHDFS_URL, json );
+    get( WEBHDFS_URL, json );
+    assertThat( backend.calls, is( 2 ) );
+    assertThat( getCache().getEntryCount(), is( 0 ) );
+  }
+
+  @Test
+  public void testRequestsOutsideRulesOrWithValidatorsPassThrough() throws Exception {
+    get( "http://localhost:11000/oozie/v1/jobs", new HashMap<String,String>() );
+    get( "http://localhost:11000/oozie/v1/jobs", new HashMap<String,String>() );
+    assertThat( backend.calls, is( 2 ) );
+
+    // The client's own validators are left for the backend to answer.
+    Map<String,String> conditional = Collections.singletonMap( "If-None-Match", "\"1\"" );
+    get( WEBHDFS_URL, conditional );
+    get( WEBHDFS_URL, conditional );
+    assertThat( backend.calls, is( 4 ) );
+    assertThat( backend.ifNoneMatch, is( "\"1\"" ) );
+    assertThat( getCache().getEntryCount(), is( 0 ) );
+  }
+
+  private ResponseCache getCache() {
+    return (ResponseCache)attributes.get( CacheServletContextListener.CACHE_ATTRIBUTE_NAME );
+  }
+
+  private Client get( String url, Map<String,String> headers ) throws Exception {
+    Client client = new Client();
+    filter.doFilter( createRequest( url, headers ), client.createResponse(), backend );
+    return client;
+  }
+
+  private static FilterConfig createFilterConfig( final Map<String,String> params, ServletContext context ) {
+    FilterConfig config = EasyMock.createNiceMock( FilterConfig.class );
+    EasyMock.expect( config.getInitParameterNames() ).andAnswer( new IAnswer<Enumeration<String>>() {
+      @Override
+      public Enumeration<String> answer() throws Throwable {
+        return Collections.enumeration( params.keySet() );
+      }
+    } ).anyTimes();
+    EasyMock.expect( config.getInitParameter( EasyMock.<String>anyObject() ) ).andAnswer( new IAnswer<String>() {
+      @Override
+      public String answer() throws Throwable {
+        return params.get( EasyMock.getCurrentArguments()[ 0 ] );
+      }
+    } ).anyTimes();
+    EasyMock.expect( config.getServletContext() ).andReturn( context ).anyTimes();
+    EasyMock.replay( config );
+    return config;
+  }
+
+  private static ServletContext createServletContext( final Map<String,Object> attributes ) {
+    ServletContext context = EasyMock.createNiceMock( ServletContext.class );
+    EasyMock.expect( context.getAttribute( EasyMock.<String>anyObject() ) ).andAnswer( new IAnswer<Object>() {
+      @Override
+      public Object answer() throws Throwable {
+        return attributes.get( EasyMock.getCurrentArguments()[ 0 ] );
+      }
+    } ).anyTimes();
+    context.setAttribute( EasyMock.<String>anyObject(), EasyMock.anyObject() );
+    EasyMock.expectLastCall().andAnswer( new IAnswer<Object>() {
+      @Override
+      public Object answer() throws Throwable {
+        attributes.put( (String)EasyMock.getCurrentArguments()[ 0 ], EasyMock.getCurrentArguments()[ 1 ] );
+        return null;
+      }
+    } ).anyTimes();
+    EasyMock.replay( context );
+    return context;
+  }
+
+  private static HttpServletRequest createRequest( final String url, Map<String,String> headers ) {
+    final Map<String,String> names = new HashMap<String,String>();
+    for( Map.Entry<String,String> header : headers.entrySet() ) {
+      names.put( header.getKey().toLowerCase(), header.getValue() );
+    }
+    HttpServletRequest request = EasyMock.createNiceMock( HttpServletRequest.class );
+    EasyMock.expect( request.getMethod() ).andReturn( "GET" ).anyTimes();
+    EasyMock.expect( request.getRequestURL() ).andAnswer( new IAnswer<StringBuffer>() {
+      @Override
+      public StringBuffer answer() throws Throwable {
+        return new StringBuffer( url );
+      }
+    } ).anyTimes();
+    EasyMock.expect( request.getQueryString() ).andReturn( QUERY ).anyTimes();
+    EasyMock.expect( request.getHeader( EasyMock.<String>anyObject() ) ).andAnswer( new IAnswer<String>() {
+      @Override
+      public String answer() throws Throwable {
+        return names.get( ( (String)EasyMock.getCurrentArguments()[ 0 ] ).toLowerCase() );
+      }
+    } ).anyTimes();
+    EasyMock.expect( request.getHeaders( EasyMock.<String>anyObject() ) ).andAnswer( new IAnswer<Enumeration<String>>() {
+      @Override
+      public Enumeration<String> answer() throws Throwable {
+        String value = names.get( ( (String)EasyMock.getCurrentArguments()[ 0 ] ).toLowerCase() );
+        return Collections.enumeration( value == null ? Collections.<String>emptyList() : Collections.singletonList( value ) );
+      }
+    } ).anyTimes();
+    EasyMock.replay( request );
+    return request;
+  }
+
+  /**
+   * Answers like the dispatch does, streaming the body through the gateway response.
+   */
+  private static class Backend implements FilterChain {
+
+    static final String BODY = "{\"FileStatus\":{}}";
+
+    private int status = HttpServletResponse.SC_OK;
+    private String body = BODY;
+    private final List<String[]> headers = new ArrayList<String[]>();
+    private int calls = 0;
+    private String ifNoneMatch;
+
+    void addHeader( String name, String value ) {
+      headers.add( new String[]{ name, value } );
+    }
+
+    @Override
+    public void doFilter( ServletRequest servletRequest, ServletResponse servletResponse )
+        throws IOException, ServletException {
+      calls++;
+      ifNoneMatch = ( (HttpServletRequest)servletRequest ).getHeader( "If-None-Match" );
+      HttpServletResponse response = (HttpServletResponse)servletResponse;
+      response.setStatus( status );
+      for( String[] header : headers ) {
+        response.addHeader( header[ 0 ], header[ 1 ] );
+      }
+      if( status != HttpServletResponse.SC_NOT_MODIFIED ) {
+        response.setContentType( "application/json" );
+        if( response instanceof GatewayResponse ) {
+          ( (GatewayResponse)response ).streamResponse( new ByteArrayInputStream( body.getBytes( "UTF-8" ) ) );
+        } else {
+          response.getOutputStream().write( body.getBytes( "UTF-8" ) );
+        }
+      }
+    }
+
+  }
+
+  /**
+   * Records what the filter writes to the client.
+   */
+  private static class Client {
+
+    private int status;
+    private String contentType;
+    private final Map<String,String> headers = new HashMap<String,String>();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    String getHeader( String name ) {
+      return headers.get( name.toLowerCase() );
+    }
+
+    String getBody() throws IOException {
+      return body.toString( "UTF-8" );
+    }
+
+    HttpServletResponse createResponse() throws IOException {
+      IAnswer<Object> header = new IAnswer<Object>() {
+        @Override
+        public Object answer() throws Throwable {
+          headers.put( ( (String)EasyMock.getCurrentArguments()[ 0 ] ).toLowerCase(),
+              (String)EasyMock.getCurrentArguments()[ 1 ] );
+          return null;
+        }
+      };
+      HttpServletResponse response = EasyMock.createNiceMock( HttpServletResponse.class );
+      response.setStatus( EasyMock.anyInt() );
+      EasyMock.expectLastCall().andAnswer( new IAnswer<Object>() {
+        @Override
+        public Object answer() throws Throwable {
+          status = (Integer)EasyMock.getCurrentArguments()[ 0 ];
+          return null;
+        }
+      } ).anyTimes();
+      response.setContentType( EasyMock.<String>anyObject() );
+      EasyMock.expectLastCall().andAnswer( new IAnswer<Object>() {
+        @Override
+        public Object answer() throws Throwable {
+          contentType = (String)EasyMock.getCurrentArguments()[ 0 ];
+          return null;
+        }
+      } ).anyTimes();
+      response.addHeader( EasyMock.<String>anyObject(), EasyMock.<String>anyObject() );
+      EasyMock.expectLastCall().andAnswer( header ).anyTimes();
+      response.setHeader( EasyMock.<String>anyObject(), EasyMock.<String>anyObject() );
+      EasyMock.expectLastCall().andAnswer( header ).anyTimes();
+      EasyMock.expect( response.getOutputStream() ).andReturn( new ServletOutputStream() {
+        @Override
+        public void write( int b ) throws IOException {
+          body.write( b );
+        }
+      } ).anyTimes();
+      EasyMock.replay( response );
+      return response;
+    }
+
+  }
+
+}
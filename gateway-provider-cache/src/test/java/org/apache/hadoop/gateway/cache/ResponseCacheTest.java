@@ -0,0 +1,242 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.cache;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ResponseCacheTest {
+
+  private File directory;
+  private CacheConfig config;
+  private Map<String,String> requestHeaders;
+  private ResponseCache.HeaderSource headers;
+
+  @Before
+  public void setUp() {
+    directory = new File( System.getProperty( "java.io.tmpdir" ), "response-cache-test-" + System.nanoTime() );
+    config = new CacheConfig();
+    config.setDirectory( directory );
+    config.setHeapMaxEntrySize( 100 );
+    requestHeaders = new HashMap<String,String>();
+    headers = new ResponseCache.HeaderSource() {
+      @Override
+      public String getHeader( String name ) {
+        return requestHeaders.get( name.toLowerCase() );
+      }
+    };
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    FileUtils.deleteQuietly( directory );
+  }
+
+  @Test
+  public void testSmallBodiesOnHeapLargeBodiesInFiles() throws Exception {
+    ResponseCache cache = new ResponseCache( "sandbox", config );
+    cache.put( "small", new String[ 0 ], headers, createResponse( 10 ), 0, 1000 );
+    cache.put( "large", new String[ 0 ], headers, createResponse( 1000 ), 0, 1000 );
+    assertThat( cache.getHeapBytes() > 0, is( true ) );
+    assertThat( cache.getFileBytes() > 1000, is( true ) );
+    assertThat( directory.list().length, is( 1 ) );
+
+    CacheEntry large = cache.get( "large", headers );
+    assertThat( IOUtils.toByteArray( large.openBody() ), is( createResponse( 1000 ).getBody() ) );
+    // Streams over the same entry are independent.
+    assertThat( IOUtils.toByteArray( large.openBody() ).length, is( 1000 ) );
+
+    cache.destroy();
+    assertThat( cache.getEntryCount(), is( 0 ) );
+    assertThat( directory.exists(), is( false ) );
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEvictedBySize() throws Exception {
+    CachedResponse response = createResponse( 100 );
+    long entrySize = new CacheEntry( "x", "x", 200, response.getHeaders(), null, ByteBuffer.allocate( 100 ),
+        null, null, 0, 0 ).getSize();
+    config.setHeapMaxBytes( 3 * entrySize );
+    ResponseCache cache = new ResponseCache( "sandbox", config );
+    cache.put( "a", new String[ 0 ], headers, createResponse( 100 ), 0, 1000 );
+    cache.put( "b", new String[ 0 ], headers, createResponse( 100 ), 0, 1000 );
+    cache.put( "c", new String[ 0 ], headers, createResponse( 100 ), 0, 1000 );
+    assertThat( cache.get( "a", headers ), notNullValue() );
+    cache.put( "d", new String[ 0 ], headers, createResponse( 100 ), 0, 1000 );
+    assertThat( cache.get( "b", headers ), nullValue() );
+    assertThat( cache.get( "a", headers ), notNullValue() );
+    assertThat( cache.get( "c", headers ), notNullValue() );
+    assertThat( cache.get( "d", headers ), notNullValue() );
+    assertThat( cache.getEvictedCount(), is( 1L ) );
+  }
+
+  @Test
+  public void testReplacedEntryNotCountedAsEvicted() throws Exception {
+    ResponseCache cache = new ResponseCache( "sandbox", config );
+    cache.put( "url", new String[ 0 ], headers, createResponse( 10 ), 0, 1000 );
+    cache.put( "url", new String[ 0 ], headers, createResponse( 10 ), 0, 1000 );
+    // Moving between tiers replaces the entry as well.
+    cache.put( "url", new String[ 0 ], headers, createResponse( 1000 ), 0, 1000 );
+    cache.put( "url", new String[ 0 ], headers, createResponse( 10 ), 0, 1000 );
+    assertThat( cache.getEntryCount(), is( 1 ) );
+    assertThat( cache.getStoredCount(), is( 4L ) );
+    assertThat( cache.getEvictedCount(), is( 0L ) );
+    assertThat( cache.getBaseKeyCount(), is( 1 ) );
+  }
+
+  @Test
+  public void testVaryHeadersArePartOfKey() throws Exception {
+    ResponseCache cache = new ResponseCache( "sandbox", config );
+    requestHeaders.put( "accept", "application/json" );
+    cache.put( "url", new String[]{ "accept" }, headers, createResponse( 10 ), 0, 1000 );
+    assertThat( cache.get( "url", headers ), notNullValue() );
+    requestHeaders.put( "accept", "application/xml" );
+    assertThat( cache.get( "url", headers ), nullValue() );
+  }
+
+  @Test
+  public void testBaseKeyReleasedWithLastVariant() throws Exception {
+    CachedResponse response = createResponse( 10 );
+    long entrySize = new CacheEntry( "x", "x", 200, response.getHeaders(), null, ByteBuffer.allocate( 10 ),
+        null, null, 0, 0 ).getSize();
+    config.setHeapMaxBytes( 2 * entrySize + 100 );
+    ResponseCache cache = new ResponseCache( "sandbox", config );
+    requestHeaders.put( "accept", "application/json" );
+    CacheEntry json = cache.put( "url", new String[]{ "accept" }, headers, createResponse( 10 ), 0, 1000 );
+    requestHeaders.put( "accept", "application/xml" );
+    cache.put( "url", new String[]{ "accept" }, headers, createResponse( 10 ), 0, 1000 );
+    // Replacing a variant keeps the base key.
+    cache.put( "url", new String[]{ "accept" }, headers, createResponse( 10 ), 0, 1000 );
+    assertThat( cache.getBaseKeyCount(), is( 1 ) );
+
+    cache.remove( json );
+    assertThat( cache.getBaseKeyCount(), is( 1 ) );
+    assertThat( cache.get( "url", headers ), notNullValue() );
+
+    // Evicting the last variant drops the base key.
+    cache.put( "a", new String[ 0 ], headers, createResponse( 10 ), 0, 1000 );
+    cache.put( "b", new String[ 0 ], headers, createResponse( 10 ), 0, 1000 );
+    assertThat( cache.get( "url", headers ), nullValue() );
+    assertThat( cache.getBaseKeyCount(), is( 2 ) );
+
+    cache.clear();
+    assertThat( cache.getBaseKeyCount(), is( 0 ) );
+  }
+
+  @Test
+  public void testTooLargeNotCached() throws Exception {
+    config.setMaxEntrySize( 500 );
+    ResponseCache cache = new ResponseCache( "sandbox", config );
+    assertThat( cache.put( "url", new String[ 0 ], headers, createResponse( 1000 ), 0, 1000 ), nullValue() );
+    assertThat( cache.getEntryCount(), is( 0 ) );
+  }
+
+  @Test
+  public void testFreshnessAndHitRatio() throws Exception {
+    ResponseCache cache = new ResponseCache( "sandbox", config );
+    CacheEntry entry = cache.put( "url", new String[ 0 ], headers, createResponse( 10 ), 0, 1000 );
+    assertThat( entry.isFresh( 999 ), is( true ) );
+    assertThat( entry.isFresh( 1000 ), is( false ) );
+    entry.revalidated( 1000, 2000 );
+    assertThat( entry.isFresh( 1500 ), is( true ) );
+    cache.recordHit();
+    cache.recordHit();
+    cache.recordHit();
+    cache.recordMiss();
+    assertThat( cache.getHitRatio(), is( 0.75 ) );
+  }
+
+  @Test
+  public void testRulesOrderedByNumber() throws Exception {
+    final Map<String,String> params = new HashMap<String,String>();
+    params.put( "pattern.10", ".*/ten" );
+    params.put( "pattern.2", ".*" );
+    params.put( "pattern.1", ".*/one" );
+    params.put( "ttl.1", "5" );
+    FilterConfig filterConfig = new FilterConfig() {
+      @Override
+      public String getFilterName() {
+        return "cache";
+      }
+      @Override
+      public ServletContext getServletContext() {
+        return null;
+      }
+      @Override
+      public String getInitParameter( String name ) {
+        return params.get( name );
+      }
+      @Override
+      public Enumeration<String> getInitParameterNames() {
+        return Collections.enumeration( Arrays.asList( "pattern.10", "pattern.2", "ttl.1", "pattern.1" ) );
+      }
+    };
+
+    CacheConfig loaded = CacheConfig.load( filterConfig );
+    assertThat( loaded.getRules().size(), is( 3 ) );
+    assertThat( loaded.getRules().get( 0 ).getId(), is( "1" ) );
+    assertThat( loaded.getRules().get( 1 ).getId(), is( "2" ) );
+    assertThat( loaded.getRules().get( 2 ).getId(), is( "10" ) );
+    assertThat( loaded.getRule( "http://host/one" ).getTtl(), is( 5000L ) );
+    assertThat( loaded.getRule( "http://host/ten" ).getId(), is( "2" ) );
+  }
+
+  @Test
+  public void testCacheControl() {
+    CacheControl cacheControl = CacheControl.parse( "public, max-age=30", "s-maxage=10" );
+    assertThat( cacheControl.getMaxAge(), is( 10L ) );
+    assertThat( cacheControl.isNoStore(), is( false ) );
+    assertThat( CacheControl.parse( "no-store" ).isNoStore(), is( true ) );
+    assertThat( CacheControl.parse( "no-cache=\"Set-Cookie\"" ).isNoCache(), is( true ) );
+    assertThat( CacheControl.parse( "private, max-age=60" ).isPrivate(), is( true ) );
+    assertThat( cacheControl.isPrivate(), is( false ) );
+    assertThat( CacheControl.parse( (String)null ).getMaxAge(), is( -1L ) );
+  }
+
+  private static CachedResponse createResponse( int size ) {
+    CachedResponse response = new CachedResponse();
+    response.setStatus( 200 );
+    response.setContentType( "application/json" );
+    response.addHeader( "ETag", "\"1\"" );
+    byte[] body = new byte[ size ];
+    for( int i = 0; i < size; i++ ) {
+      body[ i ] = (byte)i;
+    }
+    response.setBody( body, size );
+    return response;
+  }
+
+}
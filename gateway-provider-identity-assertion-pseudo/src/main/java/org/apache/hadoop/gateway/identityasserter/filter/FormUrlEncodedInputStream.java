@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.identityasserter.filter;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+
+/**
+ * Re-encodes an application/x-www-form-urlencoded body while it is read.
+ * The output is what decoding every name and value with {@link java.net.URLDecoder} and encoding it again
+ * with {@link java.net.URLEncoder} in the same character encoding would produce, but the body is never
+ * held in memory as a whole: at most one pending escape sequence is buffered.
+ * Parameters keep their order, a malformed escape sequence is treated as a literal '%'.
+ * The number of bytes read from the original body is capped.
+ */
+class FormUrlEncodedInputStream extends InputStream {
+
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+  private final PushbackInputStream in;
+  private final long maxLength;
+  private long length = 0;
+  private final byte[] pending = new byte[ 2 ];
+  private int pendingPos = 0;
+  private int pendingLen = 0;
+  private boolean inValue = false;
+
+  /**
+   * @param in The original body
+   * @param maxLength The maximum number of bytes to read from the original body, negative for no limit
+   */
+  FormUrlEncodedInputStream( InputStream in, long maxLength ) {
+    this.in = new PushbackInputStream( new BufferedInputStream( in ), 2 );
+    this.maxLength = maxLength;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if( pendingPos < pendingLen ) {
+      return pending[ pendingPos++ ];
+    }
+    int b = next();
+    switch( b ) {
+      case -1:
+        return -1;
+      case '&':
+        inValue = false;
+        return b;
+      case '=':
+        if( inValue ) {
+          return encode( b );
+        }
+        inValue = true;
+        return b;
+      case '+':
+        return b;
+      case '%':
+        int h1 = next();
+        int h2 = h1 < 0 ? -1 : next();
+        int d1 = Character.digit( h1, 16 );
+        int d2 = Character.digit( h2, 16 );
+        if( h1 >= 0 && h2 >= 0 && d1 >= 0 && d2 >= 0 ) {
+          return encode( ( d1 << 4 ) | d2 );
+        }
+        if( h2 >= 0 ) {
+          unread( h2 );
+        }
+        if( h1 >= 0 ) {
+          unread( h1 );
+        }
+        return encode( b );
+      default:
+        return encode( b );
+    }
+  }
+
+  @Override
+  public int read( byte[] buffer, int offset, int count ) throws IOException {
+    if( count == 0 ) {
+      return 0;
+    }
+    int n = 0;
+    while( n < count ) {
+      int b = read();
+      if( b < 0 ) {
+        return n == 0 ? -1 : n;
+      }
+      buffer[ offset + n++ ] = (byte)b;
+      if( pendingPos >= pendingLen && in.available() == 0 ) {
+        break;
+      }
+    }
+    return n;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  private int next() throws IOException {
+    int b = in.read();
+    if( b >= 0 && maxLength >= 0 && ++length > maxLength ) {
+      throw new IOException( "Form body exceeds the maximum of " + maxLength + " bytes." );
+    }
+    return b;
+  }
+
+  private void unread( int b ) throws IOException {
+    in.unread( b );
+    length--;
+  }
+
+  // Mirrors the safe characters of URLEncoder.
+  private int encode( int b ) {
+    if( b == ' ' ) {
+      return '+';
+    }
+    if( ( b >= 'a' && b <= 'z' ) || ( b >= 'A' && b <= 'Z' ) || ( b >= '0' && b <= '9' )
+        || b == '.' || b == '-' || b == '*' || b == '_' ) {
+      return b;
+    }
+    pending[ 0 ] = (byte)HEX[ ( b >> 4 ) & 0xF ];
+    pending[ 1 ] = (byte)HEX[ b & 0xF ];
+    pendingPos = 0;
+    pendingLen = 2;
+    return '%';
+  }
+
+}
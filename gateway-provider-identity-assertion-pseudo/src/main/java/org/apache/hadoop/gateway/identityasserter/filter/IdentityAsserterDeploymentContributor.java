@@ -31,6 +31,9 @@ public class IdentityAsserterDeploymentContributor extends ProviderDeploymentCon
   private static final String FILTER_CLASSNAME = IdentityAsserterFilter.class.getName();
   private static final String PRINCIPAL_MAPPING_PARAM_NAME = "principal.mapping";
   private static final String GROUP_PRINCIPAL_MAPPING_PARAM_NAME = "group.principal.mapping";
+  private static final String PRINCIPAL_MAPPING_FILE_PARAM_NAME = "principal.mapping.file";
+  private static final String PRINCIPAL_MAPPING_FILE_CHECK_INTERVAL_PARAM_NAME = "principal.mapping.file.check.interval";
+  private static final String FORM_MAX_SIZE_PARAM_NAME = IdentityAsserterFilter.FORM_MAX_SIZE_PARAM;
 
   @Override
   public String getRole() {
@@ -54,6 +57,18 @@ public class IdentityAsserterDeploymentContributor extends ProviderDeploymentCon
     
     context.getWebAppDescriptor().createContextParam().paramName(PRINCIPAL_MAPPING_PARAM_NAME).paramValue(mappings);
     context.getWebAppDescriptor().createContextParam().paramName(GROUP_PRINCIPAL_MAPPING_PARAM_NAME).paramValue(groupMappings);
+    String mappingFile = provider.getParams().get(PRINCIPAL_MAPPING_FILE_PARAM_NAME);
+    if (mappingFile != null) {
+      context.getWebAppDescriptor().createContextParam().paramName(PRINCIPAL_MAPPING_FILE_PARAM_NAME).paramValue(mappingFile);
+      String checkInterval = provider.getParams().get(PRINCIPAL_MAPPING_FILE_CHECK_INTERVAL_PARAM_NAME);
+      if (checkInterval != null) {
+        context.getWebAppDescriptor().createContextParam().paramName(PRINCIPAL_MAPPING_FILE_CHECK_INTERVAL_PARAM_NAME).paramValue(checkInterval);
+      }
+    }
+    String maxFormSize = provider.getParams().get(FORM_MAX_SIZE_PARAM_NAME);
+    if (maxFormSize != null) {
+      context.getWebAppDescriptor().createContextParam().paramName(FORM_MAX_SIZE_PARAM_NAME).paramValue(maxFormSize);
+    }
   }
 
   @Override
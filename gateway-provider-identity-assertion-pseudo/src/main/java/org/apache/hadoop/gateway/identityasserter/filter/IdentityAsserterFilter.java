@@ -20,18 +20,32 @@ package org.apache.hadoop.gateway.identityasserter.filter;
 
 import javax.security.auth.Subject;
 import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.hadoop.gateway.filter.security.AbstractIdentityAssertionFilter;
+import org.apache.hadoop.gateway.security.SubjectUtils;
 
 import java.io.IOException;
-import java.security.AccessController;
 
 public class IdentityAsserterFilter extends AbstractIdentityAssertionFilter {
 
+  public static final String FORM_MAX_SIZE_PARAM = "form.max.size";
+
+  private long maxFormLength = -1;
+
+  @Override
+  public void init(FilterConfig filterConfig) throws ServletException {
+    super.init(filterConfig);
+    String maxFormSize = filterConfig.getServletContext().getInitParameter(FORM_MAX_SIZE_PARAM);
+    if (maxFormSize != null) {
+      maxFormLength = Long.parseLong(maxFormSize.trim());
+    }
+  }
+
   /**
    * Obtain the standard javax.security.auth.Subject, retrieve the caller principal, map
    * to the identity to be asserted as appropriate and create the provider specific
@@ -40,7 +54,7 @@ public class IdentityAsserterFilter extends AbstractIdentityAssertionFilter {
   public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) 
       throws IOException, ServletException {
 //    System.out.println("+++++++++++++ Identity Assertion Filtering");
-    Subject subject = Subject.getSubject(AccessController.getContext());
+    Subject subject = SubjectUtils.getCurrentSubject();
 
     String principalName = getPrincipalName(subject);
     String mappedPrincipalName = mapper.mapUserPrincipal(principalName);
@@ -50,7 +64,8 @@ public class IdentityAsserterFilter extends AbstractIdentityAssertionFilter {
     IdentityAsserterHttpServletRequestWrapper wrapper =
         new IdentityAsserterHttpServletRequestWrapper(
         (HttpServletRequest)request, 
-        mappedPrincipalName);
+        mappedPrincipalName,
+        maxFormLength);
 
     continueChainAsPrincipal(wrapper, response, chain, mappedPrincipalName);
   }
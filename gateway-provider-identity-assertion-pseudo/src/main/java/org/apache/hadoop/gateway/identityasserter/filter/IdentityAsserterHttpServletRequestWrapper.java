@@ -17,7 +17,6 @@
  */
 package org.apache.hadoop.gateway.identityasserter.filter;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.hadoop.gateway.IdentityAsserterMessages;
 import org.apache.hadoop.gateway.config.GatewayConfig;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
@@ -25,31 +24,47 @@ import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Presents the request as made by the asserted principal.
+ * The query parameters are parsed once into an immutable map and the rewritten query string is built once,
+ * both lazily, since the rewrite and dispatch layers ask for them several times per request.
+ * Form bodies are re-encoded while they are streamed to the backend instead of being read into memory.
+ */
 public class IdentityAsserterHttpServletRequestWrapper extends HttpServletRequestWrapper {
 
   private static IdentityAsserterMessages log = MessagesFactory.get( IdentityAsserterMessages.class );
 
   private static final String PRINCIPAL_PARAM = "user.name";
   private static final String DOAS_PRINCIPAL_PARAM = "doAs";
+  private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
   
   String username = null;
+  private final long maxFormLength;
+  private boolean paramsParsed = false;
+  private Map<String, String[]> params = null;
+  private String queryString = null;
 
   public IdentityAsserterHttpServletRequestWrapper( HttpServletRequest request, String principal ) {
+    this( request, principal, -1 );
+  }
+
+  /**
+   * @param maxFormLength The maximum size in bytes of a form body, negative for no limit
+   */
+  public IdentityAsserterHttpServletRequestWrapper( HttpServletRequest request, String principal, long maxFormLength ) {
     super(request);
     username = principal;
+    this.maxFormLength = maxFormLength;
   }
 
   @Override
@@ -66,81 +81,76 @@ public class IdentityAsserterHttpServletRequestWrapper extends HttpServletReques
     return getParams();
   }
 
-  @SuppressWarnings({ "unchecked", "rawtypes" })
+  @SuppressWarnings("rawtypes")
   @Override
   public Enumeration getParameterNames() {
     Map<String, String[]> params = getParams();
-    Enumeration<String> e = Collections.enumeration((Collection<String>) params);
-
-    return e;
+    if (params == null) {
+      return Collections.enumeration(Collections.<String>emptySet());
+    }
+    return Collections.enumeration(params.keySet());
   }
 
   @Override
   public String[] getParameterValues(String name) {
     Map<String, String[]> params = getParams();
-
+    if (params == null) {
+      return null;
+    }
     return params.get(name);
   }
 
-  private Map<String, String[]> getParams( String qString ) {
-    Map<String, String[]> params = null;
-    if (getMethod().equals("GET")) {
+  private Map<String, String[]> getParams() {
+    if (!paramsParsed) {
+      String qString = super.getQueryString();
       if (qString != null && qString.length() > 0) {
-        params = parseQueryString(qString);
+        params = Collections.unmodifiableMap(parseQueryString(qString));
       }
-      else {
-        params = new HashMap<String, String[]>();
+      else if (getMethod().equals("GET")) {
+        params = Collections.emptyMap();
       }
+      paramsParsed = true;
     }
-    else {
-      if (qString == null || qString.length() == 0) {
-        return null;
-      }
-      else {
-        params = parseQueryString(qString);
-      }
-    }  
     return params;
   }
-
-  private Map<String, String[]> getParams() {
-    return getParams( super.getQueryString() );
-  }
   
   @Override
   public String getQueryString() {
-    String q = null;
-    Map<String, String[]> params = getParams();
-
-    if (params == null) {
-      params = new HashMap<String, String[]>();
-    }
-    
-    ArrayList<String> al = new ArrayList<String>();
-    al.add(username);
-    String[] a = { "" };
-
-    if ("true".equals(System.getProperty(GatewayConfig.HADOOP_KERBEROS_SECURED))) {
-      params.put(DOAS_PRINCIPAL_PARAM, al.toArray(a));
-      params.remove(PRINCIPAL_PARAM);
-    } else {
-      params.put(PRINCIPAL_PARAM, al.toArray(a));
+    if (queryString == null) {
+      Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+      if (getParams() != null) {
+        params.putAll(getParams());
+      }
+      String[] user = { username };
+      if ("true".equals(System.getProperty(GatewayConfig.HADOOP_KERBEROS_SECURED))) {
+        params.put(DOAS_PRINCIPAL_PARAM, user);
+        params.remove(PRINCIPAL_PARAM);
+      } else {
+        params.put(PRINCIPAL_PARAM, user);
+      }
+      queryString = urlEncode(params, getEncoding());
     }
-    
+    return queryString;
+  }
+
+  private String getEncoding() {
     String encoding = getCharacterEncoding();
     if (encoding == null) {
       encoding = Charset.defaultCharset().name();
     }
-    q = urlEncode(params, encoding);
-    return q;
+    return encoding;
+  }
+
+  private boolean isForm() {
+    String contentType = getContentType();
+    return contentType != null && contentType.startsWith( FORM_CONTENT_TYPE );
   }
 
   @Override
   public int getContentLength() {
     int len;
-    String contentType = getContentType();
     // If the content type is a form we might rewrite the body so default it to -1.
-    if( contentType != null && contentType.startsWith( "application/x-www-form-urlencoded" ) ) {
+    if( isForm() ) {
       len = -1;
     } else {
       len = super.getContentLength();
@@ -150,17 +160,9 @@ public class IdentityAsserterHttpServletRequestWrapper extends HttpServletReques
 
   @Override
   public ServletInputStream getInputStream() throws java.io.IOException {
-    String contentType = getContentType();
-    if( contentType != null && contentType.startsWith( "application/x-www-form-urlencoded" ) ) {
-      String encoding = getCharacterEncoding();
-      if( encoding == null ) {
-        encoding = Charset.defaultCharset().name();
-      }
-      String body = IOUtils.toString( super.getInputStream(), encoding );
-      Map<String, String[]> params = getParams( body );
-      body = urlEncode( params, encoding );
-      // ASCII is OK here because the urlEncode about should have already escaped
-      return new ServletInputStreamWrapper( new ByteArrayInputStream( body.getBytes( "US-ASCII" ) ) );
+    if( isForm() ) {
+      // Escapes are re-encoded byte by byte so the original encoding carries over unchanged.
+      return new ServletInputStreamWrapper( new FormUrlEncodedInputStream( super.getInputStream(), maxFormLength ) );
     } else {
       return super.getInputStream();
     }
@@ -222,6 +224,16 @@ public class IdentityAsserterHttpServletRequestWrapper extends HttpServletReques
       return stream.read();
     }
 
+    @Override
+    public int read( byte[] buffer, int offset, int count ) throws IOException {
+      return stream.read( buffer, offset, count );
+    }
+
+    @Override
+    public void close() throws IOException {
+      stream.close();
+    }
+
   }
 
 }
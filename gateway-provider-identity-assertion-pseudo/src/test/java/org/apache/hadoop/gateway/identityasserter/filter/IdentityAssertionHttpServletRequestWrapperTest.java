@@ -27,12 +27,17 @@ import org.junit.experimental.categories.Category;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
 
 @Category( { UnitTests.class, FastTests.class } )
 public class IdentityAssertionHttpServletRequestWrapperTest {
@@ -230,4 +235,84 @@ public class IdentityAssertionHttpServletRequestWrapperTest {
     assertThat( s, is( "two-values=value1&two-values=value2" ) );
   }
 
+  @Test
+  public void testFormBodyReEncodedInOrder() throws IOException {
+    String inputBody = "b=x+y&a=%2f%2Fq%20r&e=1=2&p=100%&n=%E2%82%AC&s=a*b.c-d_e~&b=%2B";
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setInputStream( new MockServletInputStream( new ByteArrayInputStream( inputBody.getBytes( "UTF-8" ) ) ) );
+    request.setCharacterEncoding( "UTF-8" );
+    request.setContentType( "application/x-www-form-urlencoded" );
+    request.setMethod("POST");
+
+    IdentityAsserterHttpServletRequestWrapper wrapper
+        = new IdentityAsserterHttpServletRequestWrapper( request, "output-user" );
+
+    String outputBody = IOUtils.toString( wrapper.getInputStream(), "UTF-8" );
+    assertThat( outputBody, is( "b=x+y&a=%2F%2Fq+r&e=1%3D2&p=100%25&n=%E2%82%AC&s=a*b.c-d_e%7E&b=%2B" ) );
+    assertThat( wrapper.getContentLength(), is( -1 ) );
+  }
+
+  @Test
+  public void testLargeFormBodyIsStreamed() throws IOException {
+    final long size = 8L * 1024 * 1024;
+    InputStream body = new InputStream() {
+      private long count = 0;
+      @Override
+      public int read() {
+        return count < size ? "a=b&".charAt( (int)( count++ % 4 ) ) : -1;
+      }
+    };
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setInputStream( new MockServletInputStream( body ) );
+    request.setContentType( "application/x-www-form-urlencoded" );
+    request.setMethod("POST");
+
+    IdentityAsserterHttpServletRequestWrapper wrapper
+        = new IdentityAsserterHttpServletRequestWrapper( request, "output-user" );
+
+    InputStream output = wrapper.getInputStream();
+    byte[] buffer = new byte[ 8192 ];
+    long total = 0;
+    int n;
+    while( ( n = output.read( buffer ) ) >= 0 ) {
+      total += n;
+    }
+    assertThat( total, is( size ) );
+  }
+
+  @Test
+  public void testFormBodyMaxSize() throws IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setInputStream( new MockServletInputStream( new ByteArrayInputStream( "a=1&b=2&c=3".getBytes( "UTF-8" ) ) ) );
+    request.setContentType( "application/x-www-form-urlencoded" );
+    request.setMethod("POST");
+
+    IdentityAsserterHttpServletRequestWrapper wrapper
+        = new IdentityAsserterHttpServletRequestWrapper( request, "output-user", 8 );
+
+    try {
+      IOUtils.toString( wrapper.getInputStream(), "UTF-8" );
+      fail( "Expected the form body to exceed the maximum size." );
+    } catch( IOException e ) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testQueryParsedOnce() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setQueryString( "param=value&user.name=input-user" );
+
+    IdentityAsserterHttpServletRequestWrapper wrapper
+        = new IdentityAsserterHttpServletRequestWrapper( request, "output-user" );
+
+    assertThat( wrapper.getParameterMap(), sameInstance( wrapper.getParameterMap() ) );
+    assertThat( wrapper.getQueryString(), sameInstance( wrapper.getQueryString() ) );
+    assertThat( wrapper.getParameterValues( "param" )[ 0 ], is( "value" ) );
+    assertThat( Collections.list( wrapper.getParameterNames() ).containsAll( Arrays.asList( "param", "user.name" ) ), is( true ) );
+    assertThat( wrapper.getQueryString(), not( containsString( "input-user" ) ) );
+  }
+
 }
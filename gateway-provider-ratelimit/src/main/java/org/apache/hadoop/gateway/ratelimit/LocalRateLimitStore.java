@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ratelimit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in memory {@link RateLimitStore}.
+ * Buckets are spread over a power of two number of stripes by key hash.
+ * Each bucket is a single {@link AtomicLong} so taking a token never blocks.
+ * Every so many acquisitions one stripe is swept and buckets that have fully refilled are dropped,
+ * which bounds the memory used by keys such as client addresses that are seen only once.
+ */
+public class LocalRateLimitStore implements RateLimitStore {
+
+  private static final int SWEEP_INTERVAL = 1024;
+
+  private Stripe[] stripes;
+  private int mask;
+  private final AtomicInteger operations = new AtomicInteger();
+
+  @Override
+  public void init( RateLimitConfig config ) {
+    int count = 1;
+    while( count < config.getStripes() ) {
+      count <<= 1;
+    }
+    stripes = new Stripe[ count ];
+    for( int i = 0; i < count; i++ ) {
+      stripes[ i ] = new Stripe();
+    }
+    mask = count - 1;
+  }
+
+  @Override
+  public long acquire( String key, RateLimit limit, long now ) {
+    if( ( operations.incrementAndGet() & ( SWEEP_INTERVAL - 1 ) ) == 0 ) {
+      sweep( now );
+    }
+    AtomicLong bucket = getBucket( key, now );
+    while( true ) {
+      long tat = bucket.get();
+      long next = Math.max( tat, now ) + limit.getInterval();
+      long wait = next - now - limit.getTolerance();
+      if( wait > 0 ) {
+        return wait;
+      }
+      if( bucket.compareAndSet( tat, next ) ) {
+        return 0;
+      }
+    }
+  }
+
+  @Override
+  public void release( String key, RateLimit limit ) {
+    AtomicLong bucket = getStripe( key ).buckets.get( key );
+    if( bucket != null ) {
+      bucket.addAndGet( -limit.getInterval() );
+    }
+  }
+
+  @Override
+  public void destroy() {
+    for( Stripe stripe : stripes ) {
+      stripe.buckets.clear();
+    }
+  }
+
+  int getBucketCount() {
+    int count = 0;
+    for( Stripe stripe : stripes ) {
+      count += stripe.buckets.size();
+    }
+    return count;
+  }
+
+  void sweep( long now ) {
+    Stripe stripe = stripes[ ( operations.get() / SWEEP_INTERVAL ) & mask ];
+    Iterator<Map.Entry<String,AtomicLong>> iterator = stripe.buckets.entrySet().iterator();
+    while( iterator.hasNext() ) {
+      // A full bucket holds no state worth keeping.
+      // Losing a concurrent update to a bucket being dropped can only ever grant one extra token.
+      if( iterator.next().getValue().get() <= now ) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private AtomicLong getBucket( String key, long now ) {
+    ConcurrentMap<String,AtomicLong> buckets = getStripe( key ).buckets;
+    AtomicLong bucket = buckets.get( key );
+    if( bucket == null ) {
+      AtomicLong created = new AtomicLong( now );
+      bucket = buckets.putIfAbsent( key, created );
+      if( bucket == null ) {
+        bucket = created;
+      }
+    }
+    return bucket;
+  }
+
+  private Stripe getStripe( String key ) {
+    int hash = key.hashCode();
+    hash ^= ( hash >>> 16 );
+    return stripes[ hash & mask ];
+  }
+
+  private static class Stripe {
+    final ConcurrentMap<String,AtomicLong> buckets = new ConcurrentHashMap<String,AtomicLong>( 16, 0.75f, 1 );
+  }
+
+}
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ratelimit;
+
+/**
+ * A token bucket limit: a sustained rate of requests per second plus the number of requests that may burst above it.
+ * The limit is evaluated as a generic cell rate algorithm so that the state of a bucket is a single timestamp,
+ * the theoretical arrival time of the next request, which can be updated with compare-and-set.
+ */
+public class RateLimit {
+
+  private static final long NANOS_PER_SECOND = 1000000000L;
+
+  private final double rate;
+  private final int burst;
+  private final long interval;
+  private final long tolerance;
+
+  /**
+   * @param rate The sustained number of requests permitted per second
+   * @param burst The number of requests that may be made at once by an idle client, at least one
+   */
+  public RateLimit( double rate, int burst ) {
+    if( rate <= 0 ) {
+      throw new IllegalArgumentException( "rate must be positive" );
+    }
+    this.rate = rate;
+    this.burst = Math.max( 1, burst );
+    this.interval = Math.max( 1L, (long)( NANOS_PER_SECOND / rate ) );
+    this.tolerance = interval * this.burst;
+  }
+
+  public double getRate() {
+    return rate;
+  }
+
+  public int getBurst() {
+    return burst;
+  }
+
+  /**
+   * @return The time in nanoseconds it takes to earn one token.
+   */
+  public long getInterval() {
+    return interval;
+  }
+
+  /**
+   * @return The time in nanoseconds the theoretical arrival time may run ahead of the current time.
+   */
+  public long getTolerance() {
+    return tolerance;
+  }
+
+  @Override
+  public String toString() {
+    return rate + "/s burst " + burst;
+  }
+
+}
@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ratelimit;
+
+import javax.servlet.FilterConfig;
+
+/**
+ * Limits for the rate limit filter of a single topology service.
+ * A limit is made of a rate in requests per second and an optional burst, for example
+ * <code>user.rate=10</code> and <code>user.burst=50</code>.
+ * Limits can be set for each user, each group, each client address and for the service as a whole
+ * using the <code>user</code>, <code>group</code>, <code>ip</code> and <code>service</code> prefixes.
+ * Each limit can be set for all services of the topology and overridden for a service role
+ * (e.g. <code>WEBHDFS.user.rate</code>).
+ * Param names are case insensitive.
+ */
+public class RateLimitConfig {
+
+  public static final String RESOURCE_ROLE_PARAM = "resource.role";
+  public static final String USER_PREFIX = "user";
+  public static final String GROUP_PREFIX = "group";
+  public static final String IP_PREFIX = "ip";
+  public static final String SERVICE_PREFIX = "service";
+  public static final String RATE_PARAM = "rate";
+  public static final String BURST_PARAM = "burst";
+  public static final String STORE_PARAM = "store";
+  public static final String STRIPES_PARAM = "stripes";
+
+  public static final int DEFAULT_STRIPES = 64;
+
+  private RateLimit userLimit;
+  private RateLimit groupLimit;
+  private RateLimit ipLimit;
+  private RateLimit serviceLimit;
+  private String storeClassName = LocalRateLimitStore.class.getName();
+  private int stripes = DEFAULT_STRIPES;
+
+  public static RateLimitConfig load( FilterConfig filterConfig, String role ) {
+    RateLimitConfig config = new RateLimitConfig();
+    config.setUserLimit( getLimit( filterConfig, role, USER_PREFIX ) );
+    config.setGroupLimit( getLimit( filterConfig, role, GROUP_PREFIX ) );
+    config.setIpLimit( getLimit( filterConfig, role, IP_PREFIX ) );
+    config.setServiceLimit( getLimit( filterConfig, role, SERVICE_PREFIX ) );
+    String store = filterConfig.getInitParameter( STORE_PARAM );
+    if( store != null ) {
+      config.setStoreClassName( store.trim() );
+    }
+    String stripes = filterConfig.getInitParameter( STRIPES_PARAM );
+    if( stripes != null ) {
+      config.setStripes( Integer.parseInt( stripes.trim() ) );
+    }
+    return config;
+  }
+
+  private static RateLimit getLimit( FilterConfig filterConfig, String role, String prefix ) {
+    String rate = getParam( filterConfig, role, prefix + "." + RATE_PARAM );
+    if( rate == null ) {
+      return null;
+    }
+    String burst = getParam( filterConfig, role, prefix + "." + BURST_PARAM );
+    return new RateLimit( Double.parseDouble( rate.trim() ), burst == null ? 1 : Integer.parseInt( burst.trim() ) );
+  }
+
+  private static String getParam( FilterConfig filterConfig, String role, String name ) {
+    String value = null;
+    if( role != null ) {
+      value = filterConfig.getInitParameter( ( role + "." + name ).toLowerCase() );
+    }
+    if( value == null ) {
+      value = filterConfig.getInitParameter( name.toLowerCase() );
+    }
+    return value;
+  }
+
+  /**
+   * @return The limit applied to each authenticated user, or null if users are not limited.
+   */
+  public RateLimit getUserLimit() {
+    return userLimit;
+  }
+
+  public void setUserLimit( RateLimit userLimit ) {
+    this.userLimit = userLimit;
+  }
+
+  /**
+   * @return The limit shared by all members of each group, or null if groups are not limited.
+   */
+  public RateLimit getGroupLimit() {
+    return groupLimit;
+  }
+
+  public void setGroupLimit( RateLimit groupLimit ) {
+    this.groupLimit = groupLimit;
+  }
+
+  /**
+   * @return The limit applied to each client address, or null if addresses are not limited.
+   */
+  public RateLimit getIpLimit() {
+    return ipLimit;
+  }
+
+  public void setIpLimit( RateLimit ipLimit ) {
+    this.ipLimit = ipLimit;
+  }
+
+  /**
+   * @return The limit shared by all requests to the service, or null if the service is not limited.
+   */
+  public RateLimit getServiceLimit() {
+    return serviceLimit;
+  }
+
+  public void setServiceLimit( RateLimit serviceLimit ) {
+    this.serviceLimit = serviceLimit;
+  }
+
+  public String getStoreClassName() {
+    return storeClassName;
+  }
+
+  public void setStoreClassName( String storeClassName ) {
+    this.storeClassName = storeClassName;
+  }
+
+  /**
+   * @return The number of stripes the local store spreads its buckets over.
+   */
+  public int getStripes() {
+    return stripes;
+  }
+
+  public void setStripes( int stripes ) {
+    this.stripes = stripes;
+  }
+
+  public boolean isEnabled() {
+    return userLimit != null || groupLimit != null || ipLimit != null || serviceLimit != null;
+  }
+
+}
@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ratelimit;
+
+import org.apache.hadoop.gateway.audit.api.Action;
+import org.apache.hadoop.gateway.audit.api.ActionOutcome;
+import org.apache.hadoop.gateway.audit.api.AuditServiceFactory;
+import org.apache.hadoop.gateway.audit.api.Auditor;
+import org.apache.hadoop.gateway.audit.api.ResourceType;
+import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
+import org.apache.hadoop.gateway.filter.AbstractGatewayFilter;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.ratelimit.i18n.RateLimitMessages;
+import org.apache.hadoop.gateway.security.SecurityContext;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies the token bucket limits of a service to each request.
+ * The filter is placed after authentication so that users and groups can be taken from the Subject.
+ * A request takes a token from every bucket that applies to it and is rejected with a 429
+ * if any of them is empty, in which case the tokens already taken are returned.
+ */
+public class RateLimitFilter implements Filter {
+
+  public static final int SC_TOO_MANY_REQUESTS = 429;
+
+  private static final String RETRY_AFTER = "Retry-After";
+  private static final long NANOS_PER_SECOND = 1000000000L;
+
+  private static RateLimitMessages log = MessagesFactory.get( RateLimitMessages.class );
+  private static Auditor auditor = AuditServiceFactory.getAuditService().getAuditor( AuditConstants.DEFAULT_AUDITOR_NAME,
+      AuditConstants.KNOX_SERVICE_NAME, AuditConstants.KNOX_COMPONENT_NAME );
+
+  private String resourceRole;
+  private RateLimitConfig config;
+  private RateLimitStore store;
+
+  @Override
+  public void init( FilterConfig filterConfig ) throws ServletException {
+    resourceRole = filterConfig.getInitParameter( RateLimitConfig.RESOURCE_ROLE_PARAM );
+    config = RateLimitConfig.load( filterConfig, resourceRole );
+    log.initializingForResourceRole( resourceRole,
+        config.getUserLimit(), config.getGroupLimit(), config.getIpLimit(), config.getServiceLimit() );
+    if( config.isEnabled() ) {
+      store = RateLimitServletContextListener.getStore( filterConfig.getServletContext(), config );
+    }
+  }
+
+  @Override
+  public void destroy() {
+  }
+
+  @Override
+  public void doFilter( ServletRequest request, ServletResponse response, FilterChain chain )
+      throws IOException, ServletException {
+    if( store == null ) {
+      chain.doFilter( request, response );
+      return;
+    }
+    List<String> keys = new ArrayList<String>( 4 );
+    List<RateLimit> limits = new ArrayList<RateLimit>( 4 );
+    addKeys( (HttpServletRequest)request, keys, limits );
+    long now = System.nanoTime();
+    for( int i = 0, n = keys.size(); i < n; i++ ) {
+      long wait = store.acquire( keys.get( i ), limits.get( i ), now );
+      if( wait > 0 ) {
+        for( int j = 0; j < i; j++ ) {
+          store.release( keys.get( j ), limits.get( j ) );
+        }
+        reject( request, (HttpServletResponse)response, keys.get( i ), wait );
+        return;
+      }
+    }
+    chain.doFilter( request, response );
+  }
+
+  private void addKeys( HttpServletRequest request, List<String> keys, List<RateLimit> limits ) {
+    // Narrow keys first so that a single heavy user is rejected before it drains the shared buckets.
+    if( config.getUserLimit() != null || config.getGroupLimit() != null ) {
+      SecurityContext context = SecurityContext.current();
+      String user = getUser( context, request );
+      if( user != null && config.getUserLimit() != null ) {
+        addKey( keys, limits, RateLimitConfig.USER_PREFIX, user, config.getUserLimit() );
+      }
+      if( context != null && config.getGroupLimit() != null ) {
+        for( String group : context.getGroupNames() ) {
+          addKey( keys, limits, RateLimitConfig.GROUP_PREFIX, group, config.getGroupLimit() );
+        }
+      }
+    }
+    if( config.getIpLimit() != null ) {
+      addKey( keys, limits, RateLimitConfig.IP_PREFIX, request.getRemoteAddr(), config.getIpLimit() );
+    }
+    if( config.getServiceLimit() != null ) {
+      addKey( keys, limits, RateLimitConfig.SERVICE_PREFIX, "", config.getServiceLimit() );
+    }
+  }
+
+  private void addKey( List<String> keys, List<RateLimit> limits, String type, String name, RateLimit limit ) {
+    keys.add( resourceRole + "/" + type + "/" + name );
+    limits.add( limit );
+  }
+
+  private void reject( ServletRequest request, HttpServletResponse response, String key, long wait ) throws IOException {
+    long retryAfter = Math.max( 1, ( wait + NANOS_PER_SECOND - 1 ) / NANOS_PER_SECOND );
+    log.requestRateLimited( resourceRole, key, retryAfter );
+    String sourceUrl = (String)request.getAttribute( AbstractGatewayFilter.SOURCE_REQUEST_CONTEXT_URL_ATTRIBUTE_NAME );
+    auditor.audit( Action.ACCESS, sourceUrl, ResourceType.URI, ActionOutcome.UNAVAILABLE );
+    response.setHeader( RETRY_AFTER, Long.toString( retryAfter ) );
+    response.sendError( SC_TOO_MANY_REQUESTS );
+  }
+
+  private static String getUser( SecurityContext context, HttpServletRequest request ) {
+    if( context != null && context.getPrimaryPrincipal() != null ) {
+      return context.getPrimaryPrincipal().getName();
+    }
+    Principal principal = request.getUserPrincipal();
+    return principal == null ? null : principal.getName();
+  }
+
+}
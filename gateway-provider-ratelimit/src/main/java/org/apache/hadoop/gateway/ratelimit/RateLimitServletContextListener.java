@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ratelimit;
+
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.ratelimit.i18n.RateLimitMessages;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+/**
+ * Owns the {@link RateLimitStore} shared by all the rate limit filters of a topology.
+ * The store is created by the first filter to initialize since its settings come from the provider params.
+ */
+public class RateLimitServletContextListener implements ServletContextListener {
+
+  public static final String STORE_ATTRIBUTE_NAME = RateLimitStore.class.getName();
+
+  private static RateLimitMessages log = MessagesFactory.get( RateLimitMessages.class );
+
+  @Override
+  public void contextInitialized( ServletContextEvent event ) {
+  }
+
+  @Override
+  public void contextDestroyed( ServletContextEvent event ) {
+    ServletContext context = event.getServletContext();
+    synchronized( context ) {
+      RateLimitStore store = (RateLimitStore)context.getAttribute( STORE_ATTRIBUTE_NAME );
+      if( store != null ) {
+        context.removeAttribute( STORE_ATTRIBUTE_NAME );
+        store.destroy();
+      }
+    }
+  }
+
+  public static RateLimitStore getStore( ServletContext context, RateLimitConfig config ) {
+    synchronized( context ) {
+      RateLimitStore store = (RateLimitStore)context.getAttribute( STORE_ATTRIBUTE_NAME );
+      if( store == null ) {
+        store = createStore( config );
+        context.setAttribute( STORE_ATTRIBUTE_NAME, store );
+      }
+      return store;
+    }
+  }
+
+  private static RateLimitStore createStore( RateLimitConfig config ) {
+    String className = config.getStoreClassName();
+    RateLimitStore store;
+    try {
+      store = (RateLimitStore)Class.forName( className ).newInstance();
+    } catch( Exception e ) {
+      log.failedToCreateStore( className, e );
+      className = LocalRateLimitStore.class.getName();
+      store = new LocalRateLimitStore();
+    }
+    log.usingStore( className );
+    store.init( config );
+    return store;
+  }
+
+}
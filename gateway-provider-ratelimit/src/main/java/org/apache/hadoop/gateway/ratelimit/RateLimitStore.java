@@ -0,0 +1,49 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ratelimit;
+
+/**
+ * Holds the token bucket state for the rate limited keys of a topology.
+ * The default {@link LocalRateLimitStore} keeps the state in the memory of this gateway instance.
+ * Implementations backed by a shared store can be configured with the <code>store</code> provider param
+ * so that a limit is enforced across a cluster of gateways.
+ * Implementations must be thread safe and have a public no-arg constructor.
+ */
+public interface RateLimitStore {
+
+  void init( RateLimitConfig config );
+
+  /**
+   * Takes a token from the bucket of a key.
+   *
+   * @param key The bucket key
+   * @param limit The limit applied to the bucket
+   * @param now The current time as reported by {@link System#nanoTime()}
+   * @return Zero if a token was taken, otherwise the time in nanoseconds until one is available
+   */
+  long acquire( String key, RateLimit limit, long now );
+
+  /**
+   * Returns a token taken by {@link #acquire(String, RateLimit, long)}.
+   * Used when a request is rejected by a later key so that it is not charged against the earlier ones.
+   */
+  void release( String key, RateLimit limit );
+
+  void destroy();
+
+}
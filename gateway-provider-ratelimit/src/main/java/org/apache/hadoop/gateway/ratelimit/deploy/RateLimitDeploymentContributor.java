@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ratelimit.deploy;
+
+import org.apache.hadoop.gateway.deploy.DeploymentContext;
+import org.apache.hadoop.gateway.deploy.ProviderDeploymentContributorBase;
+import org.apache.hadoop.gateway.descriptor.FilterParamDescriptor;
+import org.apache.hadoop.gateway.descriptor.ResourceDescriptor;
+import org.apache.hadoop.gateway.ratelimit.RateLimitConfig;
+import org.apache.hadoop.gateway.ratelimit.RateLimitFilter;
+import org.apache.hadoop.gateway.ratelimit.RateLimitServletContextListener;
+import org.apache.hadoop.gateway.topology.Provider;
+import org.apache.hadoop.gateway.topology.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class RateLimitDeploymentContributor extends ProviderDeploymentContributorBase {
+
+  public static final String ROLE = "ratelimit";
+
+  public static final String NAME = "TokenBucket";
+
+  private static final String RATELIMIT_ENABLED_DESCRIPTOR = "ratelimit.enabled";
+
+  @Override
+  public String getRole() {
+    return ROLE;
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public void contributeProvider( DeploymentContext context, Provider provider ) {
+    context.addDescriptor( RATELIMIT_ENABLED_DESCRIPTOR, Boolean.TRUE );
+  }
+
+  @Override
+  public void finalizeContribution( DeploymentContext context ) {
+    if( context.getDescriptor( RATELIMIT_ENABLED_DESCRIPTOR ) != null ) {
+      context.getWebAppDescriptor().createListener().listenerClass( RateLimitServletContextListener.class.getName() );
+    }
+  }
+
+  @Override
+  public void contributeFilter( DeploymentContext context, Provider provider, Service service,
+      ResourceDescriptor resource, List<FilterParamDescriptor> params ) {
+    if( params == null ) {
+      params = new ArrayList<FilterParamDescriptor>();
+    }
+    params.add( resource.createFilterParam().name( RateLimitConfig.RESOURCE_ROLE_PARAM ).value( resource.role() ) );
+    // the provider params hold both the topology wide limits and the {resource.role}.* overrides
+    for( Map.Entry<String,String> entry : provider.getParams().entrySet() ) {
+      params.add( resource.createFilterParam().name( entry.getKey().toLowerCase() ).value( entry.getValue() ) );
+    }
+    resource.addFilter().name( getName() ).role( getRole() ).impl( RateLimitFilter.class ).params( params );
+  }
+
+}
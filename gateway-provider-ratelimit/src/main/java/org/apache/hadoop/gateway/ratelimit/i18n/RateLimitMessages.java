@@ -0,0 +1,40 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ratelimit.i18n;
+
+import org.apache.hadoop.gateway.i18n.messages.Message;
+import org.apache.hadoop.gateway.i18n.messages.MessageLevel;
+import org.apache.hadoop.gateway.i18n.messages.Messages;
+import org.apache.hadoop.gateway.i18n.messages.StackTrace;
+
+@Messages(logger="org.apache.hadoop.gateway")
+public interface RateLimitMessages {
+
+  @Message( level = MessageLevel.INFO, text = "Initializing RateLimit Provider for: {0} user={1} group={2} ip={3} service={4}" )
+  void initializingForResourceRole( String resourceRole, Object userLimit, Object groupLimit, Object ipLimit, Object serviceLimit );
+
+  @Message( level = MessageLevel.INFO, text = "Using rate limit store {0}" )
+  void usingStore( String storeClassName );
+
+  @Message( level = MessageLevel.ERROR, text = "Failed to create rate limit store {0}: {1}" )
+  void failedToCreateStore( String storeClassName, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+  @Message( level = MessageLevel.DEBUG, text = "Request rate limited for {0} by {1}, retry in {2} seconds" )
+  void requestRateLimited( String resourceRole, String key, long retryAfter );
+
+}
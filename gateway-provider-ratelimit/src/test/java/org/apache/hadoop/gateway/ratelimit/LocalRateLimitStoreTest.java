@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ratelimit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LocalRateLimitStoreTest {
+
+  private static final long SECOND = 1000000000L;
+
+  private LocalRateLimitStore store;
+
+  @Before
+  public void setUp() {
+    store = new LocalRateLimitStore();
+    store.init( new RateLimitConfig() );
+  }
+
+  @Test
+  public void testBurstThenSustainedRate() {
+    RateLimit limit = new RateLimit( 2, 3 );
+    long now = 100 * SECOND;
+    for( int i = 0; i < 3; i++ ) {
+      assertEquals( 0, store.acquire( "WEBHDFS/user/alice", limit, now ) );
+    }
+    long wait = store.acquire( "WEBHDFS/user/alice", limit, now );
+    assertEquals( SECOND / 2, wait );
+    // One token is earned every half second.
+    assertEquals( 0, store.acquire( "WEBHDFS/user/alice", limit, now + SECOND / 2 ) );
+    assertTrue( store.acquire( "WEBHDFS/user/alice", limit, now + SECOND / 2 ) > 0 );
+  }
+
+  @Test
+  public void testKeysAreIndependent() {
+    RateLimit limit = new RateLimit( 1, 1 );
+    long now = 100 * SECOND;
+    assertEquals( 0, store.acquire( "WEBHDFS/user/alice", limit, now ) );
+    assertTrue( store.acquire( "WEBHDFS/user/alice", limit, now ) > 0 );
+    assertEquals( 0, store.acquire( "WEBHDFS/user/bob", limit, now ) );
+    assertEquals( 0, store.acquire( "HIVE/user/alice", limit, now ) );
+  }
+
+  @Test
+  public void testReleaseReturnsToken() {
+    RateLimit limit = new RateLimit( 1, 1 );
+    long now = 100 * SECOND;
+    assertEquals( 0, store.acquire( "WEBHDFS/service/", limit, now ) );
+    store.release( "WEBHDFS/service/", limit );
+    assertEquals( 0, store.acquire( "WEBHDFS/service/", limit, now ) );
+  }
+
+  @Test
+  public void testIdleBucketsAreSwept() {
+    RateLimitConfig config = new RateLimitConfig();
+    config.setStripes( 1 );
+    store = new LocalRateLimitStore();
+    store.init( config );
+    RateLimit limit = new RateLimit( 10, 1 );
+    long now = 100 * SECOND;
+    for( int i = 0; i < 100; i++ ) {
+      store.acquire( "WEBHDFS/ip/10.0.0." + i, limit, now );
+    }
+    assertEquals( 100, store.getBucketCount() );
+    store.sweep( now );
+    assertEquals( 100, store.getBucketCount() );
+    store.sweep( now + SECOND );
+    assertEquals( 0, store.getBucketCount() );
+  }
+
+}
@@ -0,0 +1,288 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ratelimit;
+
+import org.apache.hadoop.gateway.filter.AbstractGatewayFilter;
+import org.apache.hadoop.gateway.security.GroupPrincipal;
+import org.apache.hadoop.gateway.security.PrimaryPrincipal;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.Test;
+
+import javax.security.auth.Subject;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.Principal;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RateLimitFilterTest {
+
+  private Map<String,Object> attributes = new HashMap<String,Object>();
+  private Map<String,String> params = new HashMap<String,String>();
+  private RecordingStore store = new RecordingStore();
+  private Backend backend = new Backend();
+  private RateLimitFilter filter;
+
+  @Test
+  public void testNoLimitsPassThrough() throws Exception {
+    init();
+    for( int i = 0; i < 5; i++ ) {
+      Client client = send( createRequest( "alice", "10.0.0.1" ) );
+      assertThat( client.status, is( 0 ) );
+    }
+    assertThat( backend.calls, is( 5 ) );
+    assertThat( store.acquired.isEmpty(), is( true ) );
+    assertThat( attributes.containsKey( RateLimitServletContextListener.STORE_ATTRIBUTE_NAME ), is( true ) );
+  }
+
+  @Test
+  public void testLimitsOfOtherServicesNotApplied() throws Exception {
+    params.put( "hive.user.rate", "1" );
+    init();
+    send( createRequest( "alice", "10.0.0.1" ) );
+    send( createRequest( "alice", "10.0.0.1" ) );
+    assertThat( backend.calls, is( 2 ) );
+    assertThat( store.acquired.isEmpty(), is( true ) );
+  }
+
+  @Test
+  public void testUserKeyedByRequestPrincipal() throws Exception {
+    params.put( "user.rate", "1" );
+    init();
+    assertThat( send( createRequest( "alice", "10.0.0.1" ) ).status, is( 0 ) );
+    assertThat( send( createRequest( "bob", "10.0.0.1" ) ).status, is( 0 ) );
+    Client rejected = send( createRequest( "alice", "10.0.0.2" ) );
+    assertThat( rejected.status, is( RateLimitFilter.SC_TOO_MANY_REQUESTS ) );
+    assertThat( backend.calls, is( 2 ) );
+    assertThat( store.acquired, is( Arrays.asList( "WEBHDFS/user/alice", "WEBHDFS/user/bob", "WEBHDFS/user/alice" ) ) );
+
+    // Anonymous requests have no user bucket.
+    assertThat( send( createRequest( null, "10.0.0.1" ) ).status, is( 0 ) );
+    assertThat( store.acquired.size(), is( 3 ) );
+  }
+
+  @Test
+  public void testUserAndGroupsTakenFromSubject() throws Exception {
+    params.put( "user.rate", "1" );
+    params.put( "group.rate", "1" );
+    params.put( "group.burst", "2" );
+    init();
+    Subject subject = new Subject();
+    subject.getPrincipals().add( new PrimaryPrincipal( "alice" ) );
+    subject.getPrincipals().add( new GroupPrincipal( "analysts" ) );
+    // The authenticated principal wins over the one reported by the container.
+    Client client = sendAs( subject, createRequest( "guest", "10.0.0.1" ) );
+    assertThat( client.status, is( 0 ) );
+    assertThat( store.acquired, is( Arrays.asList( "WEBHDFS/user/alice", "WEBHDFS/group/analysts" ) ) );
+  }
+
+  @Test
+  public void testIpKeyedByRemoteAddress() throws Exception {
+    params.put( "webhdfs.ip.rate", "1" );
+    init();
+    assertThat( send( createRequest( "alice", "10.0.0.1" ) ).status, is( 0 ) );
+    assertThat( send( createRequest( "alice", "10.0.0.2" ) ).status, is( 0 ) );
+    assertThat( send( createRequest( "bob", "10.0.0.1" ) ).status, is( RateLimitFilter.SC_TOO_MANY_REQUESTS ) );
+    assertThat( backend.calls, is( 2 ) );
+    assertThat( store.acquired, is( Arrays.asList( "WEBHDFS/ip/10.0.0.1", "WEBHDFS/ip/10.0.0.2", "WEBHDFS/ip/10.0.0.1" ) ) );
+  }
+
+  @Test
+  public void testRejectionSetsRetryAfter() throws Exception {
+    params.put( "service.rate", "0.5" );
+    init();
+    Client accepted = send( createRequest( null, "10.0.0.1" ) );
+    assertThat( accepted.status, is( 0 ) );
+    assertThat( accepted.retryAfter, nullValue() );
+    Client rejected = send( createRequest( null, "10.0.0.1" ) );
+    assertThat( rejected.status, is( RateLimitFilter.SC_TOO_MANY_REQUESTS ) );
+    // A token is earned every two seconds.
+    assertThat( rejected.retryAfter, is( "2" ) );
+    assertThat( store.acquired, is( Arrays.asList( "WEBHDFS/service/", "WEBHDFS/service/" ) ) );
+  }
+
+  @Test
+  public void testRetryAfterRoundedUpToOneSecond() throws Exception {
+    params.put( "service.rate", "100" );
+    init();
+    send( createRequest( null, "10.0.0.1" ) );
+    Client rejected = send( createRequest( null, "10.0.0.1" ) );
+    assertThat( rejected.status, is( RateLimitFilter.SC_TOO_MANY_REQUESTS ) );
+    assertThat( rejected.retryAfter, is( "1" ) );
+  }
+
+  @Test
+  public void testRejectedRequestReturnsEarlierTokens() throws Exception {
+    params.put( "user.rate", "1" );
+    params.put( "ip.rate", "1" );
+    init();
+    assertThat( send( createRequest( "alice", "10.0.0.1" ) ).status, is( 0 ) );
+    // The ip bucket rejects bob after his user token was taken, the token is given back.
+    assertThat( send( createRequest( "bob", "10.0.0.1" ) ).status, is( RateLimitFilter.SC_TOO_MANY_REQUESTS ) );
+    assertThat( store.released, is( Arrays.asList( "WEBHDFS/user/bob" ) ) );
+    assertThat( send( createRequest( "bob", "10.0.0.2" ) ).status, is( 0 ) );
+    assertThat( backend.calls, is( 2 ) );
+  }
+
+  private void init() throws ServletException {
+    params.put( RateLimitConfig.RESOURCE_ROLE_PARAM, "WEBHDFS" );
+    store.init( new RateLimitConfig() );
+    attributes.put( RateLimitServletContextListener.STORE_ATTRIBUTE_NAME, store );
+    filter = new RateLimitFilter();
+    filter.init( createFilterConfig( params, createServletContext( attributes ) ) );
+  }
+
+  private Client send( HttpServletRequest request ) throws Exception {
+    Client client = new Client();
+    filter.doFilter( request, client.createResponse(), backend );
+    return client;
+  }
+
+  private Client sendAs( Subject subject, final HttpServletRequest request ) throws Exception {
+    return Subject.doAs( subject, new PrivilegedExceptionAction<Client>() {
+      @Override
+      public Client run() throws Exception {
+        return send( request );
+      }
+    } );
+  }
+
+  private static FilterConfig createFilterConfig( final Map<String,String> params, ServletContext context ) {
+    FilterConfig config = EasyMock.createNiceMock( FilterConfig.class );
+    EasyMock.expect( config.getInitParameter( EasyMock.<String>anyObject() ) ).andAnswer( new IAnswer<String>() {
+      @Override
+      public String answer() throws Throwable {
+        return params.get( EasyMock.getCurrentArguments()[ 0 ] );
+      }
+    } ).anyTimes();
+    EasyMock.expect( config.getServletContext() ).andReturn( context ).anyTimes();
+    EasyMock.replay( config );
+    return config;
+  }
+
+  private static ServletContext createServletContext( final Map<String,Object> attributes ) {
+    ServletContext context = EasyMock.createNiceMock( ServletContext.class );
+    EasyMock.expect( context.getAttribute( EasyMock.<String>anyObject() ) ).andAnswer( new IAnswer<Object>() {
+      @Override
+      public Object answer() throws Throwable {
+        return attributes.get( EasyMock.getCurrentArguments()[ 0 ] );
+      }
+    } ).anyTimes();
+    EasyMock.replay( context );
+    return context;
+  }
+
+  private static HttpServletRequest createRequest( final String user, String address ) {
+    HttpServletRequest request = EasyMock.createNiceMock( HttpServletRequest.class );
+    EasyMock.expect( request.getRemoteAddr() ).andReturn( address ).anyTimes();
+    EasyMock.expect( request.getAttribute( AbstractGatewayFilter.SOURCE_REQUEST_CONTEXT_URL_ATTRIBUTE_NAME ) )
+        .andReturn( "https://localhost:8443/gateway/sandbox/webhdfs/v1/tmp" ).anyTimes();
+    if( user != null ) {
+      EasyMock.expect( request.getUserPrincipal() ).andReturn( new Principal() {
+        @Override
+        public String getName() {
+          return user;
+        }
+      } ).anyTimes();
+    }
+    EasyMock.replay( request );
+    return request;
+  }
+
+  /**
+   * Records the keys the filter asks for while keeping the local token buckets.
+   */
+  private static class RecordingStore extends LocalRateLimitStore {
+
+    private final List<String> acquired = new ArrayList<String>();
+    private final List<String> released = new ArrayList<String>();
+
+    @Override
+    public long acquire( String key, RateLimit limit, long now ) {
+      acquired.add( key );
+      return super.acquire( key, limit, now );
+    }
+
+    @Override
+    public void release( String key, RateLimit limit ) {
+      released.add( key );
+      super.release( key, limit );
+    }
+
+  }
+
+  private static class Backend implements FilterChain {
+
+    private int calls = 0;
+
+    @Override
+    public void doFilter( ServletRequest request, ServletResponse response ) throws IOException, ServletException {
+      calls++;
+    }
+
+  }
+
+  /**
+   * Records the status and Retry-After header sent to the client.
+   */
+  private static class Client {
+
+    private int status;
+    private String retryAfter;
+
+    HttpServletResponse createResponse() throws IOException {
+      HttpServletResponse response = EasyMock.createNiceMock( HttpServletResponse.class );
+      response.setHeader( EasyMock.eq( "Retry-After" ), EasyMock.<String>anyObject() );
+      EasyMock.expectLastCall().andAnswer( new IAnswer<Object>() {
+        @Override
+        public Object answer() throws Throwable {
+          retryAfter = (String)EasyMock.getCurrentArguments()[ 1 ];
+          return null;
+        }
+      } ).anyTimes();
+      response.sendError( EasyMock.anyInt() );
+      EasyMock.expectLastCall().andAnswer( new IAnswer<Object>() {
+        @Override
+        public Object answer() throws Throwable {
+          status = (Integer)EasyMock.getCurrentArguments()[ 0 ];
+          return null;
+        }
+      } ).anyTimes();
+      EasyMock.replay( response );
+      return response;
+    }
+
+  }
+
+}
@@ -30,8 +30,10 @@ import org.apache.hadoop.gateway.util.urltemplate.Matcher;
 import org.apache.hadoop.gateway.util.urltemplate.Resolver;
 import org.apache.hadoop.gateway.util.urltemplate.Template;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter.Direction.IN;
@@ -47,6 +49,8 @@ public class UrlRewriteProcessor implements UrlRewriter {
   Matcher<UrlRewriteRuleProcessorHolder> inbound = new Matcher<UrlRewriteRuleProcessorHolder>();
   Matcher<UrlRewriteRuleProcessorHolder> outbound = new Matcher<UrlRewriteRuleProcessorHolder>();
   Map<String,UrlRewriteFunctionProcessor> functions = new HashMap<String,UrlRewriteFunctionProcessor>();
+  List<UrlRewriteRuleProcessorHolder> shared = new ArrayList<UrlRewriteRuleProcessorHolder>();
+  List<UrlRewriteRuleProcessorHolder> exclusive = new ArrayList<UrlRewriteRuleProcessorHolder>();
 
   public UrlRewriteProcessor() {
   }
@@ -81,8 +85,15 @@ public class UrlRewriteProcessor implements UrlRewriter {
   private void initializeRules( UrlRewriteRulesDescriptor descriptor ) {
     for( UrlRewriteRuleDescriptor ruleDescriptor : descriptor.getRules() ) {
       try {
-        UrlRewriteRuleProcessorHolder ruleProcessor = new UrlRewriteRuleProcessorHolder();
-        ruleProcessor.initialize( environment, ruleDescriptor );
+        // Identical rules are compiled once and shared with the other topologies.
+        UrlRewriteRuleProcessorHolder ruleProcessor = UrlRewriteRulesCache.acquireRule( environment, ruleDescriptor );
+        if( ruleProcessor != null ) {
+          shared.add( ruleProcessor );
+        } else {
+          ruleProcessor = new UrlRewriteRuleProcessorHolder();
+          ruleProcessor.initialize( environment, ruleDescriptor );
+          exclusive.add( ruleProcessor );
+        }
         if( !rules.containsKey( ruleDescriptor.name() ) ) {
           rules.put( ruleDescriptor.name(), ruleProcessor );
         }
@@ -105,7 +116,14 @@ public class UrlRewriteProcessor implements UrlRewriter {
   }
 
   public void destroy() {
-    for( UrlRewriteStepProcessorHolder rule : rules.values() ) {
+    for( UrlRewriteRuleProcessorHolder rule : shared ) {
+      try {
+        UrlRewriteRulesCache.releaseRule( rule );
+      } catch ( Exception e ) {
+        LOG.failedToDestroyRewriteStepProcessor( e );
+      }
+    }
+    for( UrlRewriteStepProcessorHolder rule : exclusive ) {
       try {
         rule.destroy();
       } catch ( Exception e ) {
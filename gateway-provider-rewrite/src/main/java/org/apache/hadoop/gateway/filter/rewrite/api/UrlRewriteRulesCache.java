@@ -0,0 +1,329 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.filter.rewrite.api;
+
+import org.apache.hadoop.gateway.deploy.TopologyRegistry;
+import org.apache.hadoop.gateway.filter.rewrite.ext.UrlRewriteActionRewriteDescriptorExt;
+import org.apache.hadoop.gateway.filter.rewrite.ext.UrlRewriteCheckDescriptorExt;
+import org.apache.hadoop.gateway.filter.rewrite.ext.UrlRewriteControlDescriptorExt;
+import org.apache.hadoop.gateway.filter.rewrite.ext.UrlRewriteMatchDescriptorExt;
+import org.apache.hadoop.gateway.filter.rewrite.impl.UrlRewriteRuleDescriptorImpl;
+import org.apache.hadoop.gateway.filter.rewrite.impl.UrlRewriteRuleProcessorHolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gateway wide cache of parsed rewrite rules shared by the deployed topologies.
+ * Rules descriptors are interned by the digest of their content so topologies deployed with the same
+ * rewrite.xml share one descriptor, including its filter content descriptors.
+ * Compiled rules are interned by their content so a rule contributed by the same service to many topologies
+ * is only compiled once, whatever the rest of the rules of each topology.
+ * Only rules made up of the built in steps are shared because other steps may depend on their topology.
+ * Both are reference counted and dropped when the last topology using them is undeployed.
+ */
+public abstract class UrlRewriteRulesCache {
+
+  private static final Object LOCK = new Object();
+
+  private static final Map<String,DescriptorEntry> DESCRIPTORS = new HashMap<String,DescriptorEntry>();
+  private static final Map<UrlRewriteRulesDescriptor,DescriptorEntry> DESCRIPTOR_ENTRIES
+      = new IdentityHashMap<UrlRewriteRulesDescriptor,DescriptorEntry>();
+  private static final Map<String,RuleEntry> RULES = new HashMap<String,RuleEntry>();
+  private static final Map<UrlRewriteRuleProcessorHolder,RuleEntry> RULE_ENTRIES
+      = new IdentityHashMap<UrlRewriteRuleProcessorHolder,RuleEntry>();
+  private static final TopologyRegistry<UrlRewriteProcessor> TOPOLOGIES = new TopologyRegistry<UrlRewriteProcessor>();
+
+  private UrlRewriteRulesCache() {
+  }
+
+  /**
+   * Returns the rules descriptor for the content of a rewrite.xml, parsing it only if no deployed topology uses it.
+   * The descriptor is shared and must not be modified.
+   * Every descriptor acquired must be released with {@link #releaseDescriptor(UrlRewriteRulesDescriptor)}.
+   */
+  public static UrlRewriteRulesDescriptor acquireDescriptor( byte[] content ) throws IOException {
+    String digest = digest( content );
+    synchronized( LOCK ) {
+      DescriptorEntry entry = DESCRIPTORS.get( digest );
+      if( entry != null ) {
+        entry.references++;
+        return entry.descriptor;
+      }
+    }
+    // Parse outside of the lock so topologies with different rules are not deployed one at a time.
+    Reader reader = new InputStreamReader( new ByteArrayInputStream( content ), "UTF-8" );
+    UrlRewriteRulesDescriptor descriptor = UrlRewriteRulesDescriptorFactory.load( "xml", reader );
+    synchronized( LOCK ) {
+      DescriptorEntry entry = DESCRIPTORS.get( digest );
+      if( entry == null ) {
+        entry = new DescriptorEntry( digest, descriptor, content.length );
+        DESCRIPTORS.put( digest, entry );
+        DESCRIPTOR_ENTRIES.put( descriptor, entry );
+      }
+      entry.references++;
+      return entry.descriptor;
+    }
+  }
+
+  public static void releaseDescriptor( UrlRewriteRulesDescriptor descriptor ) {
+    synchronized( LOCK ) {
+      DescriptorEntry entry = DESCRIPTOR_ENTRIES.get( descriptor );
+      if( entry != null && --entry.references == 0 ) {
+        DESCRIPTORS.remove( entry.digest );
+        DESCRIPTOR_ENTRIES.remove( descriptor );
+      }
+    }
+  }
+
+  /**
+   * Returns the compiled processor for a rule, compiling it only if no deployed topology uses an identical rule.
+   * Every processor acquired must be released with {@link #releaseRule(UrlRewriteRuleProcessorHolder)}.
+   * @return The shared processor or null if the rule can not be shared and must be compiled by the caller.
+   */
+  public static UrlRewriteRuleProcessorHolder acquireRule( UrlRewriteEnvironment environment, UrlRewriteRuleDescriptor descriptor ) throws Exception {
+    StringBuilder key = new StringBuilder();
+    if( !appendStep( key, descriptor ) ) {
+      return null;
+    }
+    synchronized( LOCK ) {
+      RuleEntry entry = RULES.get( key.toString() );
+      if( entry == null ) {
+        UrlRewriteRuleProcessorHolder processor = new UrlRewriteRuleProcessorHolder();
+        processor.initialize( environment, descriptor );
+        entry = new RuleEntry( key.toString(), processor );
+        RULES.put( entry.key, entry );
+        RULE_ENTRIES.put( processor, entry );
+      }
+      entry.references++;
+      return entry.processor;
+    }
+  }
+
+  public static void releaseRule( UrlRewriteRuleProcessorHolder processor ) throws Exception {
+    UrlRewriteRuleProcessorHolder destroyed = null;
+    synchronized( LOCK ) {
+      RuleEntry entry = RULE_ENTRIES.get( processor );
+      if( entry != null && --entry.references == 0 ) {
+        RULES.remove( entry.key );
+        RULE_ENTRIES.remove( processor );
+        destroyed = processor;
+      }
+    }
+    if( destroyed != null ) {
+      destroyed.destroy();
+    }
+  }
+
+  public static void register( String topology, UrlRewriteProcessor processor ) {
+    TOPOLOGIES.register( topology, processor );
+  }
+
+  public static void unregister( String topology, UrlRewriteProcessor processor ) {
+    TOPOLOGIES.unregister( topology, processor );
+  }
+
+  public static List<TopologyUsage> getTopologies() {
+    List<TopologyUsage> usages = new ArrayList<TopologyUsage>();
+    synchronized( LOCK ) {
+      for( Map.Entry<String,UrlRewriteProcessor> topology : TOPOLOGIES.getEntries().entrySet() ) {
+        usages.add( new TopologyUsage( topology.getKey(), topology.getValue() ) );
+      }
+    }
+    return Collections.unmodifiableList( usages );
+  }
+
+  public static int getDescriptorCount() {
+    synchronized( LOCK ) {
+      return DESCRIPTORS.size();
+    }
+  }
+
+  public static int getRuleCount() {
+    synchronized( LOCK ) {
+      return RULES.size();
+    }
+  }
+
+  private static String digest( byte[] content ) {
+    try {
+      StringBuilder hex = new StringBuilder();
+      for( byte b : MessageDigest.getInstance( "SHA-256" ).digest( content ) ) {
+        hex.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+      }
+      return hex.toString();
+    } catch( NoSuchAlgorithmException e ) {
+      throw new IllegalStateException( e );
+    }
+  }
+
+  // Builds the key of a rule from everything its built in steps are compiled from.
+  // Each value is prefixed by its length so adjacent values can not run into each other.
+  private static boolean appendStep( StringBuilder key, UrlRewriteStepDescriptor<?> step ) {
+    Class<?> type = step.getClass();
+    append( key, step.type() );
+    if( type == UrlRewriteRuleDescriptorImpl.class ) {
+      UrlRewriteRuleDescriptor rule = (UrlRewriteRuleDescriptor)step;
+      append( key, rule.name() );
+      append( key, rule.template() == null ? null : rule.template().toString() );
+      append( key, rule.directions() == null ? null : rule.directions().toString() );
+    } else if( type == UrlRewriteMatchDescriptorExt.class ) {
+      UrlRewriteMatchDescriptorExt match = (UrlRewriteMatchDescriptorExt)step;
+      append( key, match.operation() );
+      append( key, match.template() == null ? null : match.template().toString() );
+    } else if( type == UrlRewriteCheckDescriptorExt.class ) {
+      UrlRewriteCheckDescriptorExt check = (UrlRewriteCheckDescriptorExt)step;
+      append( key, check.operation() );
+      append( key, check.input() );
+      append( key, check.value() );
+    } else if( type == UrlRewriteActionRewriteDescriptorExt.class ) {
+      UrlRewriteActionRewriteDescriptorExt rewrite = (UrlRewriteActionRewriteDescriptorExt)step;
+      append( key, rewrite.operation() );
+      append( key, rewrite.parameter() );
+    } else if( type != UrlRewriteControlDescriptorExt.class ) {
+      return false;
+    }
+    if( step instanceof UrlRewriteFlowDescriptor ) {
+      UrlRewriteFlowDescriptor<?> flow = (UrlRewriteFlowDescriptor<?>)step;
+      append( key, flow.flow() == null ? null : flow.flow().name() );
+      List<UrlRewriteStepDescriptor> steps = flow.steps();
+      append( key, Integer.toString( steps == null ? 0 : steps.size() ) );
+      if( steps != null ) {
+        for( UrlRewriteStepDescriptor<?> child : steps ) {
+          if( !appendStep( key, child ) ) {
+            return false;
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  private static void append( StringBuilder key, String value ) {
+    if( value == null ) {
+      key.append( "-1;" );
+    } else {
+      key.append( value.length() ).append( ':' ).append( value ).append( ';' );
+    }
+  }
+
+  private static class DescriptorEntry {
+    private final String digest;
+    private final UrlRewriteRulesDescriptor descriptor;
+    private final int size;
+    private int references;
+
+    private DescriptorEntry( String digest, UrlRewriteRulesDescriptor descriptor, int size ) {
+      this.digest = digest;
+      this.descriptor = descriptor;
+      this.size = size;
+    }
+  }
+
+  private static class RuleEntry {
+    private final String key;
+    private final UrlRewriteRuleProcessorHolder processor;
+    private int references;
+
+    private RuleEntry( String key, UrlRewriteRuleProcessorHolder processor ) {
+      this.key = key;
+      this.processor = processor;
+    }
+  }
+
+  /**
+   * A snapshot of the rewrite rules held for a deployed topology.
+   * The heap used by the rules is not measured directly.
+   * The size of the rules source and the split between shared and exclusive rules indicate
+   * how much would be freed by undeploying the topology.
+   */
+  public static class TopologyUsage {
+
+    private final String topology;
+    private final boolean descriptorShared;
+    private final int descriptorBytes;
+    private final int ruleCount;
+    private final int sharedRuleCount;
+    private final int exclusiveRuleCount;
+
+    // Must be called while holding the lock.
+    private TopologyUsage( String topology, UrlRewriteProcessor processor ) {
+      this.topology = topology;
+      DescriptorEntry descriptor = DESCRIPTOR_ENTRIES.get( processor.getConfig() );
+      this.descriptorShared = descriptor != null && descriptor.references > 1;
+      this.descriptorBytes = descriptor == null ? 0 : descriptor.size;
+      int shared = 0;
+      for( UrlRewriteRuleProcessorHolder rule : processor.shared ) {
+        RuleEntry entry = RULE_ENTRIES.get( rule );
+        if( entry != null && entry.references > 1 ) {
+          shared++;
+        }
+      }
+      this.ruleCount = processor.shared.size() + processor.exclusive.size();
+      this.sharedRuleCount = shared;
+      this.exclusiveRuleCount = ruleCount - shared;
+    }
+
+    public String getTopology() {
+      return topology;
+    }
+
+    /**
+     * @return True if another deployed topology uses the same rules descriptor.
+     */
+    public boolean isDescriptorShared() {
+      return descriptorShared;
+    }
+
+    /**
+     * @return The size of the rewrite.xml the rules descriptor was parsed from.
+     */
+    public int getDescriptorBytes() {
+      return descriptorBytes;
+    }
+
+    public int getRuleCount() {
+      return ruleCount;
+    }
+
+    /**
+     * @return The number of compiled rules also used by another deployed topology.
+     */
+    public int getSharedRuleCount() {
+      return sharedRuleCount;
+    }
+
+    /**
+     * @return The number of compiled rules only used by this topology.
+     */
+    public int getExclusiveRuleCount() {
+      return exclusiveRuleCount;
+    }
+  }
+
+}
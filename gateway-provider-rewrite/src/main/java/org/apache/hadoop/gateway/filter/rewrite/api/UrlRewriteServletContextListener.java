@@ -21,14 +21,14 @@ import javax.servlet.ServletContext;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.hadoop.gateway.filter.rewrite.i18n.UrlRewriteMessages;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.services.GatewayServices;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
 
@@ -54,6 +54,10 @@ public class UrlRewriteServletContextListener implements ServletContextListener
     UrlRewriteProcessor processor = new UrlRewriteProcessor();
     processor.initialize( environment, descriptor );
     event.getServletContext().setAttribute( PROCESSOR_ATTRIBUTE_NAME, processor );
+    String topology = getTopologyName( context );
+    if( topology != null ) {
+      UrlRewriteRulesCache.register( topology, processor );
+    }
   }
 
   @Override
@@ -62,7 +66,12 @@ public class UrlRewriteServletContextListener implements ServletContextListener
         (UrlRewriteProcessor)event.getServletContext().getAttribute( PROCESSOR_ATTRIBUTE_NAME );
     event.getServletContext().removeAttribute( PROCESSOR_ATTRIBUTE_NAME );
     if( processor != null ) {
+      String topology = getTopologyName( event.getServletContext() );
+      if( topology != null ) {
+        UrlRewriteRulesCache.unregister( topology, processor );
+      }
       processor.destroy();
+      UrlRewriteRulesCache.releaseDescriptor( processor.getConfig() );
     }
   }
 
@@ -91,16 +100,25 @@ public class UrlRewriteServletContextListener implements ServletContextListener
     return url;
   }
 
+  private static String getTopologyName( ServletContext context ) {
+    Object name = context.getAttribute( GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE );
+    return name == null ? null : name.toString();
+  }
+
+  // Topologies deployed with the same rules share the parsed descriptor.
   private static UrlRewriteRulesDescriptor loadDescriptor( URL url ) throws IOException {
     InputStream stream = url.openStream();
-    Reader reader = new InputStreamReader( stream, "UTF-8" );
-    UrlRewriteRulesDescriptor descriptor = UrlRewriteRulesDescriptorFactory.load( "xml", reader );
+    byte[] content;
     try {
-      reader.close();
-    } catch( IOException closeException ) {
-      LOG.failedToLoadRewriteRulesDescriptor( closeException );
+      content = IOUtils.toByteArray( stream );
+    } finally {
+      try {
+        stream.close();
+      } catch( IOException closeException ) {
+        LOG.failedToLoadRewriteRulesDescriptor( closeException );
+      }
     }
-    return descriptor;
+    return UrlRewriteRulesCache.acquireDescriptor( content );
   }
 
 }
@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.filter.rewrite.api;
+
+import org.apache.hadoop.gateway.filter.rewrite.ext.UrlRewriteActionRewriteDescriptorExt;
+import org.apache.hadoop.gateway.util.urltemplate.Parser;
+import org.apache.hadoop.gateway.util.urltemplate.Template;
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class UrlRewriteRulesCacheTest {
+
+  private static UrlRewriteRulesDescriptor createRules( String name, String pattern, String template ) throws Exception {
+    UrlRewriteRulesDescriptor rules = UrlRewriteRulesDescriptorFactory.create();
+    UrlRewriteRuleDescriptor rule = rules.addRule( name ).pattern( pattern );
+    UrlRewriteActionRewriteDescriptorExt rewrite = rule.addStep( "rewrite" );
+    rewrite.template( template );
+    return rules;
+  }
+
+  private static UrlRewriteProcessor createProcessor( UrlRewriteRulesDescriptor rules ) {
+    UrlRewriteEnvironment environment = EasyMock.createNiceMock( UrlRewriteEnvironment.class );
+    EasyMock.replay( environment );
+    UrlRewriteProcessor processor = new UrlRewriteProcessor();
+    processor.initialize( environment, rules );
+    return processor;
+  }
+
+  @Test
+  public void testIdenticalRulesAreShared() throws Exception {
+    int cached = UrlRewriteRulesCache.getRuleCount();
+    UrlRewriteProcessor first = createProcessor(
+        createRules( "test-rule", "*://*:*/test-input-path", "test-scheme://test-host:1/test-output-path" ) );
+    UrlRewriteProcessor second = createProcessor(
+        createRules( "test-rule", "*://*:*/test-input-path", "test-scheme://test-host:1/test-output-path" ) );
+    UrlRewriteProcessor other = createProcessor(
+        createRules( "test-rule", "*://*:*/test-input-path", "test-scheme://test-host:1/other-output-path" ) );
+
+    assertThat( second.rules.get( "test-rule" ), sameInstance( first.rules.get( "test-rule" ) ) );
+    assertThat( other.rules.get( "test-rule" ), not( sameInstance( first.rules.get( "test-rule" ) ) ) );
+    assertThat( UrlRewriteRulesCache.getRuleCount(), is( cached + 2 ) );
+
+    Template input = Parser.parse( "test-scheme://test-host:1/test-input-path" );
+    assertThat( second.rewrite( null, input, UrlRewriter.Direction.IN, null ).toString(),
+        is( "test-scheme://test-host:1/test-output-path" ) );
+    assertThat( other.rewrite( null, input, UrlRewriter.Direction.IN, null ).toString(),
+        is( "test-scheme://test-host:1/other-output-path" ) );
+
+    first.destroy();
+    assertThat( UrlRewriteRulesCache.getRuleCount(), is( cached + 2 ) );
+    assertThat( second.rewrite( null, input, UrlRewriter.Direction.IN, null ).toString(),
+        is( "test-scheme://test-host:1/test-output-path" ) );
+    second.destroy();
+    other.destroy();
+    assertThat( UrlRewriteRulesCache.getRuleCount(), is( cached ) );
+  }
+
+  @Test
+  public void testIdenticalDescriptorsAreShared() throws Exception {
+    byte[] content = ( "<rules><rule name=\"test-rule\" pattern=\"*://*:*/test-input-path\">"
+        + "<rewrite template=\"test-scheme://test-host:1/test-output-path\"/></rule></rules>" ).getBytes( "UTF-8" );
+    int cached = UrlRewriteRulesCache.getDescriptorCount();
+
+    UrlRewriteRulesDescriptor first = UrlRewriteRulesCache.acquireDescriptor( content );
+    UrlRewriteRulesDescriptor second = UrlRewriteRulesCache.acquireDescriptor( content.clone() );
+    assertThat( second, sameInstance( first ) );
+    assertThat( UrlRewriteRulesCache.getDescriptorCount(), is( cached + 1 ) );
+
+    UrlRewriteRulesCache.releaseDescriptor( first );
+    assertThat( UrlRewriteRulesCache.getDescriptorCount(), is( cached + 1 ) );
+    UrlRewriteRulesCache.releaseDescriptor( second );
+    assertThat( UrlRewriteRulesCache.getDescriptorCount(), is( cached ) );
+
+    UrlRewriteRulesDescriptor third = UrlRewriteRulesCache.acquireDescriptor( content );
+    assertThat( third, not( sameInstance( first ) ) );
+    UrlRewriteRulesCache.releaseDescriptor( third );
+  }
+
+  @Test
+  public void testTopologyUsage() throws Exception {
+    UrlRewriteProcessor first = createProcessor(
+        createRules( "usage-rule", "*://*:*/usage-input-path", "test-scheme://test-host:1/usage-output-path" ) );
+    UrlRewriteProcessor second = createProcessor(
+        createRules( "usage-rule", "*://*:*/usage-input-path", "test-scheme://test-host:1/usage-output-path" ) );
+    UrlRewriteRulesCache.register( "usage-first", first );
+    UrlRewriteRulesCache.register( "usage-second", second );
+
+    UrlRewriteRulesCache.TopologyUsage usage = null;
+    for( UrlRewriteRulesCache.TopologyUsage topology : UrlRewriteRulesCache.getTopologies() ) {
+      if( "usage-first".equals( topology.getTopology() ) ) {
+        usage = topology;
+      }
+    }
+    assertThat( usage.getRuleCount(), is( 1 ) );
+    assertThat( usage.getSharedRuleCount(), is( 1 ) );
+    assertThat( usage.getExclusiveRuleCount(), is( 0 ) );
+
+    UrlRewriteRulesCache.unregister( "usage-second", second );
+    second.destroy();
+    for( UrlRewriteRulesCache.TopologyUsage topology : UrlRewriteRulesCache.getTopologies() ) {
+      assertThat( topology.getTopology(), not( "usage-second" ) );
+      if( "usage-first".equals( topology.getTopology() ) ) {
+        assertThat( topology.getSharedRuleCount(), is( 0 ) );
+        assertThat( topology.getExclusiveRuleCount(), is( 1 ) );
+      }
+    }
+    UrlRewriteRulesCache.unregister( "usage-first", first );
+    first.destroy();
+  }
+
+}
@@ -0,0 +1,237 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.filter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.util.IpAddressValidator;
+
+/**
+ * The ACLs of a resource compiled into an immutable structure at deployment time.
+ * Users and groups are held in hash sets, IP addresses in the numeric matcher of {@link IpAddressValidator}
+ * and the AND/OR processing mode is resolved into the set of checks that can influence the decision.
+ * The outcome of the user and IP address checks can additionally be remembered per user and remote address
+ * in a bounded memo, so that repeat callers skip the address parsing and matching.
+ * The group check is never memoized, it probes from the smaller of the two group sets which is cheaper
+ * than hashing the thousands of groups some users carry into a memo key.
+ */
+public class AclDecisionTable {
+  private static AclsAuthorizationMessages log = MessagesFactory.get( AclsAuthorizationMessages.class );
+
+  private final Set<String> users;
+  private final Set<String> groups;
+  private final IpAddressValidator ipv;
+  private final boolean anyUser;
+  private final boolean anyGroup;
+  private final boolean unrestricted;
+  private final boolean orMode;
+  private final boolean andMode;
+  private final boolean checkUser;
+  private final boolean checkGroup;
+  private final boolean checkIp;
+  private final Memo memo;
+
+  private static final byte USER_ALLOWED = 1;
+  private static final byte IP_ALLOWED = 2;
+
+  /**
+   * @param parser The parsed ACLs of the resource
+   * @param mode The ACL processing mode, AND or OR, anything else denies all access
+   * @param memoSize The maximum number of decisions to remember, zero to disable the memo
+   */
+  public AclDecisionTable(AclParser parser, String mode, int memoSize) {
+    this.users = Collections.unmodifiableSet(new HashSet<String>(parser.users));
+    this.groups = Collections.unmodifiableSet(new HashSet<String>(parser.groups));
+    this.ipv = parser.ipv;
+    this.anyUser = parser.anyUser;
+    this.anyGroup = parser.anyGroup;
+    this.unrestricted = parser.users.size() == 0 && parser.groups.size() == 0 && parser.ipv.getIPAddresses().size() == 0;
+    this.orMode = "OR".equals(mode);
+    this.andMode = "AND".equals(mode);
+    if (orMode) {
+      // need to interpret '*' as excluded for OR semantics
+      // to make sense and not grant access to everyone by mistake.
+      checkUser = !parser.anyUser;
+      checkGroup = !parser.anyGroup;
+      checkIp = !parser.ipv.allowsAnyIP();
+    } else {
+      checkUser = true;
+      checkGroup = true;
+      checkIp = true;
+    }
+    this.memo = memoSize > 0 ? new Memo(memoSize) : null;
+  }
+
+  /**
+   * @return true if no ACLs are defined, which means that there are no restrictions
+   */
+  public boolean isUnrestricted() {
+    return unrestricted;
+  }
+
+  /**
+   * @param user The name of the effective user, the impersonated principal if there is one
+   * @param userGroups The names of the groups of the user
+   * @param remoteAddr The address of the client
+   * @return true if the ACLs grant access
+   */
+  public boolean isAllowed(String user, Set<String> userGroups, String remoteAddr) {
+    if (unrestricted) {
+      return true;
+    }
+    if (memo == null) {
+      return evaluate(user, userGroups, remoteAddr);
+    }
+    MemoKey key = new MemoKey(user, remoteAddr);
+    Byte checks = memo.get(key);
+    if (checks == null) {
+      checks = principalChecks(user, remoteAddr);
+      memo.put(key, checks);
+    }
+    return decide((checks & USER_ALLOWED) != 0, (checks & IP_ALLOWED) != 0, userGroups);
+  }
+
+  boolean evaluate(String user, Set<String> userGroups, String remoteAddr) {
+    if (orMode) {
+      return (checkUser && isUserAllowed(user))
+          || (checkIp && isIpAllowed(remoteAddr))
+          || (checkGroup && isGroupAllowed(userGroups));
+    } else if (andMode) {
+      return isUserAllowed(user) && isIpAllowed(remoteAddr) && isGroupAllowed(userGroups);
+    }
+    return false;
+  }
+
+  private byte principalChecks(String user, String remoteAddr) {
+    byte checks = 0;
+    if (checkUser && isUserAllowed(user)) {
+      checks |= USER_ALLOWED;
+    }
+    if (checkIp && isIpAllowed(remoteAddr)) {
+      checks |= IP_ALLOWED;
+    }
+    return checks;
+  }
+
+  private boolean decide(boolean userAllowed, boolean ipAllowed, Set<String> userGroups) {
+    if (orMode) {
+      return userAllowed || ipAllowed || (checkGroup && isGroupAllowed(userGroups));
+    } else if (andMode) {
+      return userAllowed && ipAllowed && isGroupAllowed(userGroups);
+    }
+    return false;
+  }
+
+  private boolean isUserAllowed(String user) {
+    boolean allowed = user != null && (anyUser || users.contains(user));
+    log.primaryPrincipalHasAccess(allowed);
+    return allowed;
+  }
+
+  private boolean isGroupAllowed(Collection<String> userGroups) {
+    boolean allowed = false;
+    if (userGroups == null || userGroups.isEmpty()) {
+      // if we have no groups in the subject then make
+      // it true if there is an anyGroup acl
+      // for AND mode and acls like *;*;127.0.0.* we need to
+      // make it pass
+      allowed = anyGroup && andMode;
+    } else if (anyGroup) {
+      allowed = true;
+    } else if (groups.size() < userGroups.size() && userGroups instanceof Set) {
+      // Users may have thousands of groups while ACLs name a few, so probe from the smaller side.
+      for (String group : groups) {
+        if (userGroups.contains(group)) {
+          allowed = true;
+          break;
+        }
+      }
+    } else {
+      for (String group : userGroups) {
+        if (groups.contains(group)) {
+          allowed = true;
+          break;
+        }
+      }
+    }
+    log.groupPrincipalHasAccess(allowed);
+    return allowed;
+  }
+
+  private boolean isIpAllowed(String remoteAddr) {
+    boolean allowed = remoteAddr != null && ipv.validateIpAddress(remoteAddr);
+    log.remoteIPAddressHasAccess(allowed);
+    return allowed;
+  }
+
+  private static class MemoKey {
+    private final String user;
+    private final String remoteAddr;
+    private final int hash;
+
+    MemoKey(String user, String remoteAddr) {
+      this.user = user;
+      this.remoteAddr = remoteAddr;
+      this.hash = 31 * (user == null ? 0 : user.hashCode()) + (remoteAddr == null ? 0 : remoteAddr.hashCode());
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (!(object instanceof MemoKey)) {
+        return false;
+      }
+      MemoKey other = (MemoKey)object;
+      return (user == null ? other.user == null : user.equals(other.user))
+          && (remoteAddr == null ? other.remoteAddr == null : remoteAddr.equals(other.remoteAddr));
+    }
+  }
+
+  private static class Memo {
+    private final Map<MemoKey, Byte> decisions;
+
+    Memo(final int maxSize) {
+      decisions = new LinkedHashMap<MemoKey, Byte>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<MemoKey, Byte> eldest) {
+          return size() > maxSize;
+        }
+      };
+    }
+
+    synchronized Byte get(MemoKey key) {
+      return decisions.get(key);
+    }
+
+    synchronized void put(MemoKey key, Byte checks) {
+      decisions.put(key, checks);
+    }
+  }
+
+}
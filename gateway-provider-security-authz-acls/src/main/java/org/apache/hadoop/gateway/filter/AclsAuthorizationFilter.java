@@ -17,7 +17,6 @@
  */
 package org.apache.hadoop.gateway.filter;
 
-import javax.security.auth.Subject;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
@@ -34,26 +33,23 @@ import org.apache.hadoop.gateway.audit.api.Auditor;
 import org.apache.hadoop.gateway.audit.api.ResourceType;
 import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
-import org.apache.hadoop.gateway.security.GroupPrincipal;
-import org.apache.hadoop.gateway.security.ImpersonatedPrincipal;
-import org.apache.hadoop.gateway.security.PrimaryPrincipal;
-import org.apache.hadoop.gateway.util.IpAddressValidator;
+import org.apache.hadoop.gateway.security.SecurityContext;
 import org.apache.hadoop.gateway.util.urltemplate.Template;
 
 import java.io.IOException;
-import java.security.AccessController;
 import java.security.Principal;
-import java.util.ArrayList;
-import java.util.Collections;
 
 public class AclsAuthorizationFilter implements Filter {
   private static AclsAuthorizationMessages log = MessagesFactory.get( AclsAuthorizationMessages.class );
   private static Auditor auditor = AuditServiceFactory.getAuditService().getAuditor( AuditConstants.DEFAULT_AUDITOR_NAME,
           AuditConstants.KNOX_SERVICE_NAME, AuditConstants.KNOX_COMPONENT_NAME );
 
+  private static final int DEFAULT_DECISION_CACHE_SIZE = 1024;
+
   private String resourceRole = null;
   private String aclProcessingMode = null;
   private AclParser parser = new AclParser();
+  private AclDecisionTable decisions = null;
 
   
   @Override
@@ -70,6 +66,9 @@ public class AclsAuthorizationFilter implements Filter {
     log.aclProcessingMode(aclProcessingMode);
     String acls = getInitParameter(filterConfig, resourceRole + ".acl");
     parser.parseAcls(resourceRole, acls);
+    String cacheSize = getInitParameter(filterConfig, "acl.decision.cache.size");
+    decisions = new AclDecisionTable(parser, aclProcessingMode,
+        cacheSize == null ? DEFAULT_DECISION_CACHE_SIZE : Integer.parseInt(cacheSize.trim()));
   }
 
   private String getInitParameter(FilterConfig filterConfig, String paramName) {
@@ -100,105 +99,20 @@ public class AclsAuthorizationFilter implements Filter {
     
     // before enforcing acls check whether there are no acls defined 
     // which would mean that there are no restrictions
-    if (parser.users.size() == 0 && parser.groups.size() == 0 && parser.ipv.getIPAddresses().size() == 0) {
+    if (decisions.isUnrestricted()) {
       return true;
     }
 
-    boolean userAccess = false;
-    boolean groupAccess = false;
-    boolean ipAddrAccess = false;
-    
-    Subject subject = Subject.getSubject(AccessController.getContext());
-    Principal primaryPrincipal = (Principal)subject.getPrincipals(PrimaryPrincipal.class).toArray()[0];
+    SecurityContext context = SecurityContext.current();
+    Principal primaryPrincipal = context.getPrimaryPrincipal();
     log.primaryPrincipal(primaryPrincipal.getName());
-    Object[] impersonations = subject.getPrincipals(ImpersonatedPrincipal.class).toArray();
-    if (impersonations.length > 0) {
-      log.impersonatedPrincipal(((Principal)impersonations[0]).getName());
-      userAccess = checkUserAcls((Principal)impersonations[0]);
-      log.impersonatedPrincipalHasAccess(userAccess);
-    }
-    else {
-      userAccess = checkUserAcls(primaryPrincipal);
-      log.primaryPrincipalHasAccess(userAccess);
-    }
-    Object[] groups = subject.getPrincipals(GroupPrincipal.class).toArray();
-    if (groups.length > 0) {
-//      System.out.println("GroupPrincipal: " + ((Principal)groups[0]).getName());
-      groupAccess = checkGroupAcls(groups);
-      log.groupPrincipalHasAccess(groupAccess);
-    }
-    else {
-      // if we have no groups in the subject then make
-      // it true if there is an anyGroup acl
-      // for AND mode and acls like *;*;127.0.0.* we need to
-      // make it pass
-      if (parser.anyGroup && aclProcessingMode.equals("AND")) {
-        groupAccess = true;
-      }
+    Principal user = context.getEffectivePrincipal();
+    if (context.getImpersonatedPrincipal() != null) {
+      log.impersonatedPrincipal(user.getName());
     }
     log.remoteIPAddress(req.getRemoteAddr());
-    ipAddrAccess = checkRemoteIpAcls(req.getRemoteAddr());
-    log.remoteIPAddressHasAccess(ipAddrAccess);
-    
-    if (aclProcessingMode.equals("OR")) {
-      // need to interpret '*' as excluded for OR semantics
-      // to make sense and not grant access to everyone by mistake.
-      // exclusion in OR is equivalent to denied
-      // so, let's set each one that contains '*' to false.
-      if (parser.anyUser) userAccess = false;
-      if (parser.anyGroup) groupAccess = false;
-      if (parser.ipv.allowsAnyIP()) ipAddrAccess = false;
-      
-      return (userAccess || groupAccess || ipAddrAccess);
-    }
-    else if (aclProcessingMode.equals("AND")) {
-      return (userAccess && groupAccess && ipAddrAccess);
-    }
-    return false;
-  }
 
-  private boolean checkRemoteIpAcls(String remoteAddr) {
-    boolean allowed = false;
-    if (remoteAddr == null) {
-      return false;
-    }
-    allowed = parser.ipv.validateIpAddress(remoteAddr);
-    return allowed;
-  }
-
-  private boolean checkUserAcls(Principal user) {
-    boolean allowed = false;
-    if (user == null) {
-      return false;
-    }
-    if (parser.anyUser) {
-      allowed = true;
-    }
-    else {
-      if (parser.users.contains(user.getName())) {
-        allowed = true;
-      }
-    }
-    return allowed;
-  }
-
-  private boolean checkGroupAcls(Object[] userGroups) {
-    boolean allowed = false;
-    if (userGroups == null) {
-      return false;
-    }
-    if (parser.anyGroup) {
-      allowed = true;
-    }
-    else {
-      for (int i = 0; i < userGroups.length; i++) {
-        if (parser.groups.contains(((Principal)userGroups[i]).getName())) {
-          allowed = true;
-          break;
-        }
-      }
-    }
-    return allowed;
+    return decisions.isAllowed(user.getName(), context.getGroupNames(), req.getRemoteAddr());
   }
 
   private void sendForbidden(HttpServletResponse res) {
@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.filter;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class AclDecisionTableTest {
+
+  private static AclParser parser(String acls) throws Exception {
+    AclParser parser = new AclParser();
+    parser.parseAcls("test", acls);
+    return parser;
+  }
+
+  private static AclDecisionTable compile(String acls, String mode) throws Exception {
+    return new AclDecisionTable(parser(acls), mode, 16);
+  }
+
+  private static Set<String> groups(String... names) {
+    return new HashSet<String>(Arrays.asList(names));
+  }
+
+  @Test
+  public void testNoAcls() throws Exception {
+    AclDecisionTable table = compile(null, "AND");
+    assertTrue(table.isUnrestricted());
+    assertTrue(table.isAllowed("guest", groups(), "127.0.0.1"));
+  }
+
+  @Test
+  public void testAndMode() throws Exception {
+    AclDecisionTable table = compile("guest;admins;127.0.0.0/8", "AND");
+    assertFalse(table.isUnrestricted());
+    assertTrue(table.isAllowed("guest", groups("users", "admins"), "127.0.0.2"));
+    assertFalse(table.isAllowed("guest", groups("users"), "127.0.0.2"));
+    assertFalse(table.isAllowed("guest", groups("admins"), "10.0.0.1"));
+    assertFalse(table.isAllowed("bob", groups("admins"), "127.0.0.2"));
+
+    // no groups only pass an any group acl in AND mode
+    table = compile("guest;*;127.0.0.1", "AND");
+    assertTrue(table.isAllowed("guest", Collections.<String>emptySet(), "127.0.0.1"));
+    table = compile("guest;*;127.0.0.1", "OR");
+    assertFalse(table.isAllowed("bob", Collections.<String>emptySet(), "10.0.0.1"));
+  }
+
+  @Test
+  public void testOrModeIgnoresWildcards() throws Exception {
+    AclDecisionTable table = compile("*;admins;*", "OR");
+    assertFalse(table.isAllowed("guest", groups("users"), "127.0.0.1"));
+    assertTrue(table.isAllowed("guest", groups("users", "admins"), "127.0.0.1"));
+
+    table = compile("guest;*;10.0.0.1", "OR");
+    assertTrue(table.isAllowed("guest", groups("users"), "127.0.0.1"));
+    assertTrue(table.isAllowed("bob", groups("users"), "10.0.0.1"));
+    assertFalse(table.isAllowed("bob", groups("users"), "127.0.0.1"));
+  }
+
+  @Test
+  public void testUnknownModeDenies() throws Exception {
+    AclDecisionTable table = compile("*;*;*", "XOR");
+    assertFalse(table.isAllowed("guest", groups("users"), "127.0.0.1"));
+  }
+
+  @Test
+  public void testMemoDistinguishesGroupSets() throws Exception {
+    AclDecisionTable table = compile("*;admins;*", "AND");
+    assertTrue(table.isAllowed("guest", groups("admins"), "127.0.0.1"));
+    assertFalse(table.isAllowed("guest", groups("users"), "127.0.0.1"));
+    assertTrue(table.isAllowed("guest", groups("admins"), "127.0.0.1"));
+    assertFalse(table.isAllowed("guest", groups("users"), "127.0.0.1"));
+  }
+
+  @Test
+  public void testMemoMatchesEvaluation() throws Exception {
+    String[] users = { "guest", "bob", null };
+    String[] addrs = { "127.0.0.1", "10.0.0.1", null };
+    for (String mode : new String[] { "AND", "OR" }) {
+      AclDecisionTable memoized = compile("guest;admins;127.0.0.1", mode);
+      AclDecisionTable plain = new AclDecisionTable(parser("guest;admins;127.0.0.1"), mode, 0);
+      for (int pass = 0; pass < 2; pass++) {
+        for (String user : users) {
+          for (String addr : addrs) {
+            for (Set<String> userGroups : Arrays.asList(groups(), groups("admins"), groups("users"))) {
+              assertEquals(plain.isAllowed(user, userGroups, addr), memoized.isAllowed(user, userGroups, addr));
+              assertEquals(plain.evaluate(user, userGroups, addr), memoized.isAllowed(user, userGroups, addr));
+            }
+          }
+        }
+      }
+    }
+  }
+
+}
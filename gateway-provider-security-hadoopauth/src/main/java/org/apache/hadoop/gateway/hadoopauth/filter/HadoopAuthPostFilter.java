@@ -34,6 +34,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.hadoop.gateway.security.PrimaryPrincipal;
+import org.apache.hadoop.gateway.security.SecurityContext;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.hadoop.gateway.hadoopauth.HadoopAuthMessages;
 
@@ -68,7 +69,8 @@ public class HadoopAuthPostFilter implements Filter {
   private void doAs(final ServletRequest request, final ServletResponse response, final FilterChain chain, Subject subject)
       throws IOException, ServletException {
       try {
-        Subject.doAs(
+        SecurityContext.doAs(
+            request,
             subject,
             new PrivilegedExceptionAction<Object>() {
               public Object run() throws Exception {
@@ -34,4 +34,10 @@ public interface JWTMessages {
 
   @Message( level = MessageLevel.INFO, text = "Expected Bearer token is missing." )
   void missingBearerToken();
+
+  @Message( level = MessageLevel.INFO, text = "Token could not be refreshed because it is invalid, expired or revoked." )
+  void failedToRefreshToken();
+
+  @Message( level = MessageLevel.INFO, text = "Token could not be revoked because it is invalid or already revoked." )
+  void failedToRevokeToken();
 }
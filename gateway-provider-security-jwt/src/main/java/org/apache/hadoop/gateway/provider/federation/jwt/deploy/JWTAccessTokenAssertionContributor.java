@@ -17,7 +17,9 @@
  */
 package org.apache.hadoop.gateway.provider.federation.jwt.deploy;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.hadoop.gateway.deploy.DeploymentContext;
 import org.apache.hadoop.gateway.deploy.ProviderDeploymentContributorBase;
@@ -54,6 +56,13 @@ public class JWTAccessTokenAssertionContributor extends
   @Override
   public void contributeFilter(DeploymentContext context, Provider provider, Service service, 
       ResourceDescriptor resource, List<FilterParamDescriptor> params) {
+    // provider params such as the token validity are passed to the filter as init params
+    if (params == null) {
+      params = new ArrayList<FilterParamDescriptor>();
+    }
+    for (Map.Entry<String, String> entry : provider.getParams().entrySet()) {
+      params.add( resource.createFilterParam().name( entry.getKey() ).value( entry.getValue() ) );
+    }
     resource.addFilter().name( getName() ).role( getRole() ).impl( FILTER_CLASSNAME ).params( params );
   }
   
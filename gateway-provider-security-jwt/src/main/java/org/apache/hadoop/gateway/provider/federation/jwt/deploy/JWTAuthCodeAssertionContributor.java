@@ -24,7 +24,9 @@ import org.apache.hadoop.gateway.descriptor.ResourceDescriptor;
 import org.apache.hadoop.gateway.topology.Provider;
 import org.apache.hadoop.gateway.topology.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class JWTAuthCodeAssertionContributor extends ProviderDeploymentContributorBase {
 
@@ -46,6 +48,13 @@ public class JWTAuthCodeAssertionContributor extends ProviderDeploymentContribut
 
   @Override
   public void contributeFilter( DeploymentContext context, Provider provider, Service service, ResourceDescriptor resource, List<FilterParamDescriptor> params ) {
+    // provider params such as the token validity are passed to the filter as init params
+    if (params == null) {
+      params = new ArrayList<FilterParamDescriptor>();
+    }
+    for (Map.Entry<String, String> entry : provider.getParams().entrySet()) {
+      params.add( resource.createFilterParam().name( entry.getKey() ).value( entry.getValue() ) );
+    }
     resource.addFilter().name( getName() ).role( getRole() ).impl( FILTER_CLASSNAME ).params( params );
   }
 }
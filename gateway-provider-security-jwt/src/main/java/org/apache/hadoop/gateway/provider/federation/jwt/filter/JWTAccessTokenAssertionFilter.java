@@ -18,7 +18,6 @@
 package org.apache.hadoop.gateway.provider.federation.jwt.filter;
 
 import java.io.IOException;
-import java.security.AccessController;
 import java.security.Principal;
 import java.util.HashMap;
 
@@ -32,6 +31,9 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.hadoop.gateway.filter.security.AbstractIdentityAssertionFilter;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.provider.federation.jwt.JWTMessages;
+import org.apache.hadoop.gateway.security.SubjectUtils;
 import org.apache.hadoop.gateway.services.GatewayServices;
 import org.apache.hadoop.gateway.services.registry.ServiceRegistry;
 import org.apache.hadoop.gateway.services.security.token.JWTokenAuthority;
@@ -39,23 +41,39 @@ import org.apache.hadoop.gateway.services.security.token.impl.JWTToken;
 import org.apache.hadoop.gateway.util.JsonUtils;
 
 public class JWTAccessTokenAssertionFilter extends AbstractIdentityAssertionFilter {
+  /**
+   * Filter param set by the service to turn the filter into the refresh or revoke endpoint for access tokens.
+   */
+  public static final String TOKEN_ACTION_PARAM = "token.action";
+  public static final String REFRESH_ACTION = "refresh";
+  public static final String REVOKE_ACTION = "revoke";
+  /**
+   * Filter param that selects the JWS algorithm of the issued tokens: RS256 (the default), ES256 or HS256.
+   */
+  public static final String TOKEN_ALGORITHM_PARAM = "token.algorithm";
+  private static final String DEFAULT_TOKEN_ALGORITHM = "RS256";
+  private static final String REVOKED = "revoked";
+  private static JWTMessages log = MessagesFactory.get( JWTMessages.class );
   private static final String SVC_URL = "svc";
   private static final String EXPIRES_IN = "expires_in";
   private static final String TOKEN_TYPE = "token_type";
   private static final String ACCESS_TOKEN = "access_token";
   private static final String BEARER = "Bearer ";
-  private long validity;
+  private TokenValidity validity;
+  private String action;
+  private String algorithm;
   private JWTokenAuthority authority = null;
   private ServiceRegistry sr;
 
   @Override
   public void init( FilterConfig filterConfig ) throws ServletException {
     super.init(filterConfig);
-    String validityStr = filterConfig.getInitParameter("validity");
-    if (validityStr == null) {
-      validityStr = "3600"; // 1 hr. in secs
+    validity = TokenValidity.load(filterConfig, 3600); // 1 hr. in secs
+    action = filterConfig.getInitParameter(TOKEN_ACTION_PARAM);
+    algorithm = filterConfig.getInitParameter(TOKEN_ALGORITHM_PARAM);
+    if (algorithm == null) {
+      algorithm = DEFAULT_TOKEN_ALGORITHM;
     }
-    validity = Long.parseLong(validityStr);
 
     GatewayServices services = (GatewayServices) filterConfig.getServletContext().getAttribute(GatewayServices.GATEWAY_SERVICES_ATTRIBUTE);
     authority = (JWTokenAuthority) services.getService(GatewayServices.TOKEN_SERVICE);
@@ -73,23 +91,33 @@ public class JWTAccessTokenAssertionFilter extends AbstractIdentityAssertionFilt
       String wireToken = header.substring(BEARER.length());
       JWTToken token = JWTToken.parseToken(wireToken);
       // ensure that there is a valid jwt token available and that there isn't a misconfiguration of filters
-      if (token != null) {
-        authority.verifyToken(token);
-      }
-      else {
+      if (token == null) {
         throw new ServletException("Expected JWT Token not provided as Bearer token");
       }
+      if (REFRESH_ACTION.equals(action)) {
+        refreshAccessToken(token, request, response);
+        return; // break filter chain
+      }
+      if (REVOKE_ACTION.equals(action)) {
+        revokeAccessToken(token, response);
+        return; // break filter chain
+      }
+      if (!authority.verifyToken(token)) {
+        log.failedToVerifyTokenSignature();
+        ((HttpServletResponse) response).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+        return; // break filter chain
+      }
       
       // authorization of the user for the requested service (and resource?) should have been done by
       // the JWTFederationFilter - once we get here we can assume that it is authorized and we just need
       // to assert the identity via an access token
 
-      Subject subject = Subject.getSubject(AccessController.getContext());
+      Subject subject = SubjectUtils.getCurrentSubject();
       String principalName = getPrincipalName(subject);
       principalName = mapper.mapUserPrincipal(principalName);
       
       // calculate expiration timestamp: validity * 1000 + currentTimeInMillis
-      long expires = System.currentTimeMillis() + validity * 1000;
+      long expires = validity.getExpires(request);
       
       String serviceName = request.getParameter("service-name");
       String clusterName = request.getParameter("cluster-name");
@@ -121,6 +149,35 @@ public class JWTAccessTokenAssertionFilter extends AbstractIdentityAssertionFilt
     }
   }
 
+  // a refresh only needs the current access token so the client avoids another round trip to the authenticator
+  private void refreshAccessToken(JWTToken token, ServletRequest request, ServletResponse response)
+      throws IOException {
+    JWTToken refreshed = authority.refreshToken(token, validity.getExpires(request));
+    if (refreshed == null) {
+      log.failedToRefreshToken();
+      ((HttpServletResponse) response).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+      return;
+    }
+    HashMap<String, Object> map = new HashMap<String, Object>();
+    map.put(ACCESS_TOKEN, refreshed.toString());
+    map.put(TOKEN_TYPE, BEARER);
+    map.put(EXPIRES_IN, Long.parseLong(refreshed.getExpires()));
+    response.getWriter().write(JsonUtils.renderAsJsonString(map));
+    response.getWriter().flush();
+  }
+
+  private void revokeAccessToken(JWTToken token, ServletResponse response) throws IOException {
+    if (!authority.revokeToken(token)) {
+      log.failedToRevokeToken();
+      ((HttpServletResponse) response).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+      return;
+    }
+    HashMap<String, Object> map = new HashMap<String, Object>();
+    map.put(REVOKED, Boolean.TRUE);
+    response.getWriter().write(JsonUtils.renderAsJsonString(map));
+    response.getWriter().flush();
+  }
+
   private String getAccessToken(final String principalName, String serviceName, long expires) {
     String accessToken = null;
 
@@ -132,7 +189,7 @@ public class JWTAccessTokenAssertionFilter extends AbstractIdentityAssertionFilt
         return principalName;
       }
     };
-    JWTToken token = authority.issueToken(p, serviceName, "RS256", expires);
+    JWTToken token = authority.issueToken(p, serviceName, algorithm, expires);
     accessToken = token.toString();
     
     return accessToken;
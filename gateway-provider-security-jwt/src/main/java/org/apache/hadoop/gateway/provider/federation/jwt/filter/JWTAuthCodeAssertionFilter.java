@@ -18,7 +18,7 @@
 package org.apache.hadoop.gateway.provider.federation.jwt.filter;
 
 import java.io.IOException;
-import java.security.AccessController;
+import java.security.Principal;
 import java.util.HashMap;
 
 import javax.security.auth.Subject;
@@ -29,6 +29,7 @@ import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 
 import org.apache.hadoop.gateway.filter.security.AbstractIdentityAssertionFilter;
+import org.apache.hadoop.gateway.security.SubjectUtils;
 import org.apache.hadoop.gateway.services.GatewayServices;
 import org.apache.hadoop.gateway.services.registry.ServiceRegistry;
 import org.apache.hadoop.gateway.services.security.token.JWTokenAuthority;
@@ -37,19 +38,26 @@ import org.apache.hadoop.gateway.util.JsonUtils;
 
 public class JWTAuthCodeAssertionFilter extends AbstractIdentityAssertionFilter {
   private static final String BEARER = "Bearer ";
+  private static final String TOKEN_ALGORITHM_PARAM = "token.algorithm";
+  private static final String DEFAULT_TOKEN_ALGORITHM = "RS256";
   
   private JWTokenAuthority authority = null;
 
+  private TokenValidity validity;
+
+  private String algorithm;
+
   private ServiceRegistry sr;
 
   @Override
   public void init( FilterConfig filterConfig ) throws ServletException {
     super.init(filterConfig);
-    String validityStr = filterConfig.getInitParameter("validity");
-    if (validityStr == null) {
-      validityStr = "3600"; // 1 hr. in secs
+    // without a configured validity the token authority's default lifetime applies
+    validity = TokenValidity.load(filterConfig, -1);
+    algorithm = filterConfig.getInitParameter(TOKEN_ALGORITHM_PARAM);
+    if (algorithm == null) {
+      algorithm = DEFAULT_TOKEN_ALGORITHM;
     }
-//    validity = Long.parseLong(validityStr);
 
     GatewayServices services = (GatewayServices) filterConfig.getServletContext().getAttribute(GatewayServices.GATEWAY_SERVICES_ATTRIBUTE);
     authority = (JWTokenAuthority) services.getService(GatewayServices.TOKEN_SERVICE);
@@ -60,10 +68,18 @@ public class JWTAuthCodeAssertionFilter extends AbstractIdentityAssertionFilter
   public void doFilter(ServletRequest request, ServletResponse response,
       FilterChain chain) throws IOException, ServletException {
 
-      Subject subject = Subject.getSubject(AccessController.getContext());
+      Subject subject = SubjectUtils.getCurrentSubject();
       String principalName = getPrincipalName(subject);
       principalName = mapper.mapUserPrincipal(principalName);
-      JWTToken authCode = authority.issueToken(subject, "RS256");
+      long expires = validity.getExpires(request);
+      JWTToken authCode;
+      if (expires == -1) {
+        authCode = authority.issueToken(subject, algorithm);
+      }
+      else {
+        Principal p = (Principal) subject.getPrincipals().toArray()[0];
+        authCode = authority.issueToken(p, null, algorithm, expires);
+      }
       
       // get the url for the token service
       String url = null; 
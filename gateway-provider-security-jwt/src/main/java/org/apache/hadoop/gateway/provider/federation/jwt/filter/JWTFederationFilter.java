@@ -17,6 +17,7 @@
  */
 package org.apache.hadoop.gateway.provider.federation.jwt.filter;
 
+import org.apache.hadoop.gateway.security.SecurityContext;
 import org.apache.hadoop.gateway.services.GatewayServices;
 import org.apache.hadoop.gateway.services.security.token.JWTokenAuthority;
 import org.apache.hadoop.gateway.services.security.token.impl.JWTToken;
@@ -89,7 +90,8 @@ public class JWTFederationFilter implements Filter {
   
   private void continueWithEstablishedSecurityContext(Subject subject, final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain) throws IOException, ServletException {
     try {
-      Subject.doAs(
+      SecurityContext.doAs(
+        request,
         subject,
         new PrivilegedExceptionAction<Object>() {
           @Override
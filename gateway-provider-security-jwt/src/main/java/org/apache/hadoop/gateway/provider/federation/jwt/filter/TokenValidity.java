@@ -0,0 +1,82 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.provider.federation.jwt.filter;
+
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletRequest;
+
+/**
+ * The lifetimes of the tokens issued by a filter as configured by the provider params of the topology.
+ * The <code>validity</code> param sets the lifetime in seconds for all clients and
+ * <code>validity.&lt;client_id&gt;</code> overrides it for the client that names itself with the
+ * <code>client_id</code> request parameter.
+ */
+class TokenValidity {
+
+  static final String VALIDITY_PARAM = "validity";
+  static final String CLIENT_VALIDITY_PARAM_PREFIX = VALIDITY_PARAM + ".";
+  static final String CLIENT_ID_PARAM = "client_id";
+
+  private final long validity;
+  private final Map<String, Long> clientValidity;
+
+  private TokenValidity(long validity, Map<String, Long> clientValidity) {
+    this.validity = validity;
+    this.clientValidity = clientValidity;
+  }
+
+  /**
+   * @param defaultValidity The lifetime in seconds used when the validity param is not set,
+   * or -1 to leave the lifetime to the token authority.
+   */
+  static TokenValidity load(FilterConfig filterConfig, long defaultValidity) {
+    String value = filterConfig.getInitParameter(VALIDITY_PARAM);
+    long validity = value == null ? defaultValidity : Long.parseLong(value.trim());
+    Map<String, Long> clientValidity = new HashMap<String, Long>();
+    Enumeration<?> names = filterConfig.getInitParameterNames();
+    while (names != null && names.hasMoreElements()) {
+      String name = (String) names.nextElement();
+      if (name.startsWith(CLIENT_VALIDITY_PARAM_PREFIX)) {
+        clientValidity.put(name.substring(CLIENT_VALIDITY_PARAM_PREFIX.length()),
+            Long.parseLong(filterConfig.getInitParameter(name).trim()));
+      }
+    }
+    return new TokenValidity(validity, clientValidity);
+  }
+
+  /**
+   * @return The expiration time in milliseconds since the epoch for a token issued now for the requesting client,
+   * or -1 if the token authority's default lifetime applies.
+   */
+  long getExpires(ServletRequest request) {
+    long seconds = validity;
+    String clientId = request.getParameter(CLIENT_ID_PARAM);
+    if (clientId != null) {
+      Long override = clientValidity.get(clientId);
+      if (override != null) {
+        seconds = override;
+      }
+    }
+    return seconds < 0 ? -1 : System.currentTimeMillis() + seconds * 1000;
+  }
+
+}
@@ -34,6 +34,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.hadoop.gateway.security.PrimaryPrincipal;
+import org.apache.hadoop.gateway.security.SecurityContext;
 
 /**
  *
@@ -109,7 +110,8 @@ public abstract class AbstractPreAuthFederationFilter implements Filter {
   private void doAs(final ServletRequest request, final ServletResponse response, final FilterChain chain, Subject subject)
     throws IOException, ServletException {
     try {
-      Subject.doAs(
+      SecurityContext.doAs(
+          request,
           subject,
           new PrivilegedExceptionAction<Object>() {
             public Object run() throws Exception {
@@ -18,7 +18,6 @@
 package org.apache.hadoop.gateway.preauth.filter;
 
 import java.io.IOException;
-import java.security.AccessController;
 import java.security.Principal;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
@@ -34,6 +33,8 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.hadoop.gateway.security.PrimaryPrincipal;
+import org.apache.hadoop.gateway.security.SecurityContext;
+import org.apache.hadoop.gateway.security.SubjectUtils;
 
 public class PreAuthFederationFilter implements Filter {
   private static final String CUSTOM_HEADER_PARAM = "preauth.customHeader";
@@ -121,7 +122,7 @@ public class PreAuthFederationFilter implements Filter {
     // how we are to handle it
     
     // TODO: make sure that this makes sense with existing sessions or lack thereof
-    Subject currentSubject = Subject.getSubject(AccessController.getContext());
+    Subject currentSubject = SubjectUtils.getCurrentSubject();
     if (currentSubject != null) {
       primaryPrincipal = (PrimaryPrincipal) currentSubject.getPrincipals(PrimaryPrincipal.class).toArray()[0];
       if (primaryPrincipal != null) {
@@ -139,7 +140,8 @@ public class PreAuthFederationFilter implements Filter {
       final ServletResponse response, final FilterChain chain, Subject subject)
       throws IOException, ServletException {
     try {
-      Subject.doAs(
+      SecurityContext.doAs(
+          request,
           subject,
           new PrivilegedExceptionAction<Object>() {
             public Object run() throws Exception {
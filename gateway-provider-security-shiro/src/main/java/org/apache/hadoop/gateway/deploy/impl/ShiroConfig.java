@@ -24,6 +24,15 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 public class ShiroConfig {
+
+  public static final String AUTHENTICATION_CACHE_ENABLED = "authenticationCacheEnabled";
+  public static final String AUTHENTICATION_CACHE_TTL = "authenticationCacheTtl";
+  public static final String AUTHENTICATION_CACHE_FAILURE_TTL = "authenticationCacheFailureTtl";
+  public static final String AUTHENTICATION_CACHE_MAX_ENTRIES = "authenticationCacheMaxEntries";
+
+  private static final String MAIN_SECTION = "main";
+  private static final String CACHE_MANAGER = "knoxCacheManager";
+  private static final String CACHE_MANAGER_CLASSNAME = "org.apache.hadoop.gateway.shirorealm.KnoxCacheManager";
   
   private Map<String, Map<String, String>> sections = new LinkedHashMap<String, Map<String, String>>();
  
@@ -47,6 +56,25 @@ public class ShiroConfig {
         }
       }
     }
+    if (Boolean.parseBoolean(params.get(AUTHENTICATION_CACHE_ENABLED))) {
+      addCacheManager(params, clusterName);
+    }
+  }
+
+  private void addCacheManager(Map<String, String> params, String clusterName) {
+    addNameValueToSection(CACHE_MANAGER, CACHE_MANAGER_CLASSNAME, MAIN_SECTION);
+    addNameValueToSection(CACHE_MANAGER + ".clusterName", clusterName, MAIN_SECTION);
+    addCacheManagerParam(params, AUTHENTICATION_CACHE_TTL, "ttl");
+    addCacheManagerParam(params, AUTHENTICATION_CACHE_FAILURE_TTL, "failureTtl");
+    addCacheManagerParam(params, AUTHENTICATION_CACHE_MAX_ENTRIES, "maxEntries");
+    addNameValueToSection("securityManager.cacheManager", "$" + CACHE_MANAGER, MAIN_SECTION);
+  }
+
+  private void addCacheManagerParam(Map<String, String> params, String param, String property) {
+    String value = params.get(param);
+    if (value != null && value.trim().length() > 0) {
+      addNameValueToSection(CACHE_MANAGER + "." + property, value.trim(), MAIN_SECTION);
+    }
   }
 
   private void addNameValueToSection(String name, String value, String sectionName) {
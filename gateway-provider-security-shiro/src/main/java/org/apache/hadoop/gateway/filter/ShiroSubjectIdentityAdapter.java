@@ -40,6 +40,7 @@ import org.apache.hadoop.gateway.audit.api.ResourceType;
 import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
 import org.apache.hadoop.gateway.security.GroupPrincipal;
 import org.apache.hadoop.gateway.security.PrimaryPrincipal;
+import org.apache.hadoop.gateway.security.SecurityContext;
 import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.subject.Subject;
 
@@ -123,7 +124,7 @@ public class ShiroSubjectIdentityAdapter implements Filter {
 //      To modify the public credential Set, the caller must have AuthPermission("modifyPublicCredentials"). 
 //      To modify the private credential Set, the caller must have AuthPermission("modifyPrivateCredentials").
       javax.security.auth.Subject subject = new javax.security.auth.Subject(true, principals, emptySet, emptySet);
-      javax.security.auth.Subject.doAs( subject, action );
+      SecurityContext.doAs( request, subject, action );
       
       return null;
     }
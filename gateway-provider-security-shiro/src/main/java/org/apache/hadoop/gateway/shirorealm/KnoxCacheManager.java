@@ -0,0 +1,225 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.shirorealm;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.hadoop.gateway.deploy.TopologyRegistry;
+import org.apache.shiro.cache.Cache;
+import org.apache.shiro.cache.CacheException;
+import org.apache.shiro.cache.CacheManager;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.util.Destroyable;
+
+/**
+ * A Shiro {@link CacheManager} handing out bounded {@link TtlCache}s.
+ * 
+ * <p>
+ * When it is the cache manager of the security manager, {@link KnoxLdapRealm} caches successful
+ * authentications under a key made of the username and a salted, iterated SHA-256 hash of the password,
+ * so a changed password never matches a stale entry and no plain text password is kept in memory.
+ * Failed binds are cached in the same way for a much shorter time so that a client retrying with a
+ * wrong password does not lock the account out in the directory.
+ * 
+ * <p>
+ * The manager is normally set up by the Shiro provider from the <tt>authenticationCache*</tt> topology
+ * params, see {@link org.apache.hadoop.gateway.deploy.impl.ShiroConfig}. Its caches can be inspected and
+ * cleared through the admin API.
+ */
+public class KnoxCacheManager implements CacheManager, Destroyable {
+
+    public static final String AUTHENTICATION_CACHE_SUFFIX = ".authenticationCache";
+    public static final String AUTHENTICATION_FAILURE_CACHE_SUFFIX = ".authenticationFailureCache";
+
+    /**
+     * The authentication cache managers of every deployed topology.
+     */
+    public static final TopologyRegistry<KnoxCacheManager> REGISTRY = new TopologyRegistry<KnoxCacheManager>();
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private long ttl = 300000L;
+    private long failureTtl = 10000L;
+    private int maxEntries = 10000;
+    private int hashIterations = 1024;
+    private String clusterName = "";
+
+    private final byte[] salt = new byte[16];
+    private final ConcurrentMap<String, TtlCache<Object, Object>> caches =
+        new ConcurrentHashMap<String, TtlCache<Object, Object>>();
+
+    public KnoxCacheManager() {
+        new SecureRandom().nextBytes(salt);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> Cache<K, V> getCache(String name) throws CacheException {
+        if (name == null || name.length() == 0) {
+            throw new IllegalArgumentException("Cache name cannot be null or empty.");
+        }
+        TtlCache<Object, Object> cache = caches.get(name);
+        if (cache == null) {
+            long cacheTtl = name.endsWith(AUTHENTICATION_FAILURE_CACHE_SUFFIX) ? failureTtl : ttl;
+            TtlCache<Object, Object> created = new TtlCache<Object, Object>(name, cacheTtl, maxEntries);
+            cache = caches.putIfAbsent(name, created);
+            if (cache == null) {
+                cache = created;
+            }
+        }
+        return (Cache<K, V>) cache;
+    }
+
+    /**
+     * @return The cache key for a username and password pair.
+     */
+    public String getCredentialsKey(Object principal, char[] credentials) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new CacheException(e);
+        }
+        ByteBuffer encoded = UTF8.encode(CharBuffer.wrap(credentials == null ? new char[0] : credentials));
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+        digest.update(salt);
+        byte[] hash = digest.digest(bytes);
+        Arrays.fill(bytes, (byte) 0);
+        for (int i = 1; i < hashIterations; i++) {
+            hash = digest.digest(hash);
+        }
+        StringBuilder key = new StringBuilder().append(principal).append(':');
+        for (byte b : hash) {
+            key.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Removes every cached entry.
+     */
+    public void invalidate() {
+        for (TtlCache<Object, Object> cache : caches.values()) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Removes the cached authentications, failures and authorizations of a single user.
+     *
+     * @return The number of entries removed
+     */
+    public int invalidate(String principal) {
+        int removed = 0;
+        for (TtlCache<Object, Object> cache : caches.values()) {
+            for (Object key : cache.keys()) {
+                if (isKeyFor(key, principal) && cache.remove(key) != null) {
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    public List<TtlCache<Object, Object>> getCaches() {
+        return Collections.unmodifiableList(new ArrayList<TtlCache<Object, Object>>(caches.values()));
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        REGISTRY.unregister(clusterName, this);
+        invalidate();
+        caches.clear();
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * @param ttl The time in milliseconds successful authentications and authorizations are cached.
+     */
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public long getFailureTtl() {
+        return failureTtl;
+    }
+
+    /**
+     * @param failureTtl The time in milliseconds failed authentications are cached.
+     */
+    public void setFailureTtl(long failureTtl) {
+        this.failureTtl = failureTtl;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public int getHashIterations() {
+        return hashIterations;
+    }
+
+    public void setHashIterations(int hashIterations) {
+        this.hashIterations = Math.max(1, hashIterations);
+    }
+
+    public String getClusterName() {
+        return clusterName;
+    }
+
+    public void setClusterName(String clusterName) {
+        if (clusterName != null) {
+            this.clusterName = clusterName.trim();
+            REGISTRY.register(this.clusterName, this);
+        }
+    }
+
+    private static boolean isKeyFor(Object key, String principal) {
+        if (key instanceof PrincipalCollection) {
+            return principal.equals(((PrincipalCollection) key).getPrimaryPrincipal());
+        }
+        if (key instanceof String) {
+            String value = (String) key;
+            // principal, a colon and a hex encoded SHA-256 hash
+            return value.equals(principal)
+                || (value.length() == principal.length() + 65 && value.startsWith(principal + ":"));
+        }
+        return principal.equals(key);
+    }
+
+}
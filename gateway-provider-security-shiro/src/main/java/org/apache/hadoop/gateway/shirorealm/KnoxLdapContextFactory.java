@@ -20,8 +20,10 @@ package org.apache.hadoop.gateway.shirorealm;
 
 import java.util.Hashtable;
 
+import javax.naming.CommunicationException;
 import javax.naming.Context;
 import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
 import javax.naming.ldap.LdapContext;
 
 import org.apache.hadoop.gateway.GatewayMessages;
@@ -33,6 +35,7 @@ import org.apache.hadoop.gateway.services.GatewayServices;
 import org.apache.hadoop.gateway.services.security.AliasService;
 import org.apache.hadoop.gateway.util.KnoxCLI;
 import org.apache.shiro.realm.ldap.JndiLdapContextFactory;
+import org.apache.shiro.util.Destroyable;
 
 /**
  * An extension of {@link JndiLdapContextFactory} that allows a different authentication mechanism
@@ -40,15 +43,47 @@ import org.apache.shiro.realm.ldap.JndiLdapContextFactory;
  * compared to regular authentication.
  * 
  * <p>
+ * When <tt>connectionPoolEnabled</tt> is set, connections are kept open in two pools instead of being
+ * opened for every lookup: one bound as the system user for searches, and one for verifying user binds
+ * whose idle connections are re-authenticated as the next user. The <tt>url</tt> may then list several
+ * servers separated by spaces; a server that fails to accept a connection is skipped for
+ * <tt>urlRetryInterval</tt> milliseconds. For example within a topology
+ * <pre>
+ * main.ldapRealm.contextFactory.connectionPoolEnabled = true
+ * main.ldapRealm.contextFactory.url = ldaps://ldap1:636 ldaps://ldap2:636
+ * main.ldapRealm.contextFactory.userPoolMaxSize = 32
+ * </pre>
+ * The pools are closed when the {@link KnoxLdapRealm} using the factory is destroyed as its topology
+ * is undeployed or redeployed.
+ * 
+ * <p>
  * See {@link IsisLdapRealm} for typical configuration within <tt>shiro.ini</tt>.
  */
-public class KnoxLdapContextFactory extends JndiLdapContextFactory {
+public class KnoxLdapContextFactory extends JndiLdapContextFactory implements Destroyable {
 
     private static GatewayMessages LOG = MessagesFactory.get( GatewayMessages.class );
   
+    private static final String JNDI_POOLING_PROPERTY = "com.sun.jndi.ldap.connect.pool";
+
     private String systemAuthenticationMechanism = "simple";
     private String clusterName = "";
 
+    private boolean connectionPoolEnabled = false;
+    private int systemPoolMinSize = 1;
+    private int systemPoolMaxSize = 8;
+    private int userPoolMinSize = 0;
+    private int userPoolMaxSize = 16;
+    private long poolMaxIdleTime = 300000L;
+    private long poolEvictionInterval = 60000L;
+    private long poolMaxWait = 5000L;
+    private boolean poolValidateOnBorrow = true;
+    private long urlRetryInterval = 30000L;
+
+    private LdapUrlSelector urlSelector;
+    private LdapConnectionPool systemPool;
+    private LdapConnectionPool userPool;
+    private boolean destroyed = false;
+
     public KnoxLdapContextFactory() {
       setAuthenticationMechanism("simple");
     }
@@ -56,12 +91,139 @@ public class KnoxLdapContextFactory extends JndiLdapContextFactory {
     @SuppressWarnings({ "unchecked", "rawtypes" })
     @Override
     protected LdapContext createLdapContext(Hashtable env) throws NamingException {
+        if (connectionPoolEnabled && isDestroyed()) {
+            throw new ServiceUnavailableException("LDAP connection pools of " + clusterName + " are closed");
+        }
         if(getSystemUsername() != null && getSystemUsername().equals(env.get(Context.SECURITY_PRINCIPAL))) {
             env.put(Context.SECURITY_AUTHENTICATION, getSystemAuthenticationMechanism());
+            if (connectionPoolEnabled) {
+                env.remove(JNDI_POOLING_PROPERTY);
+                return getSystemPool().borrow(env);
+            }
+        } else if (connectionPoolEnabled) {
+            // Only simple binds can be re-authenticated on an open connection.
+            Object mechanism = env.get(Context.SECURITY_AUTHENTICATION);
+            if (mechanism == null || "simple".equalsIgnoreCase(mechanism.toString())
+                    || "none".equalsIgnoreCase(mechanism.toString())) {
+                return getUserPool().borrow(env);
+            }
+            return connect(env);
         }
         return super.createLdapContext(env);
     }
 
+    /**
+     * Opens a new connection to the first of the configured servers that accepts it.
+     */
+    private LdapContext connect(Hashtable<String, Object> env) throws NamingException {
+        NamingException failure = null;
+        for (String url : getUrlSelector().getCandidates()) {
+            Hashtable<String, Object> attempt = new Hashtable<String, Object>(env);
+            attempt.put(Context.PROVIDER_URL, url);
+            try {
+                LdapContext ctx = super.createLdapContext(attempt);
+                getUrlSelector().markUp(url);
+                return ctx;
+            } catch (CommunicationException e) {
+                failure = markDown(url, e);
+            } catch (ServiceUnavailableException e) {
+                failure = markDown(url, e);
+            }
+        }
+        if (failure == null) {
+            throw new IllegalStateException("An LDAP URL must be specified of the form ldap://<hostname>:<port>");
+        }
+        throw failure;
+    }
+
+    private NamingException markDown(String url, NamingException e) {
+        LOG.failedToConnectToLdapUrl(url, e);
+        getUrlSelector().markDown(url);
+        return e;
+    }
+
+    private synchronized LdapUrlSelector getUrlSelector() {
+        if (urlSelector == null) {
+            urlSelector = new LdapUrlSelector(getUrl(), urlRetryInterval);
+        }
+        return urlSelector;
+    }
+
+    synchronized LdapConnectionPool getSystemPool() {
+        if (systemPool == null) {
+            systemPool = createPool("system", false, systemPoolMinSize, systemPoolMaxSize);
+        }
+        return systemPool;
+    }
+
+    synchronized LdapConnectionPool getUserPool() {
+        if (userPool == null) {
+            userPool = createPool("user", true, userPoolMinSize, userPoolMaxSize);
+        }
+        return userPool;
+    }
+
+    /**
+     * Closes the connection pools. Connections still borrowed are closed as they are returned
+     * and the closed pools reject any further lookups.
+     */
+    @Override
+    public synchronized void destroy() {
+        if (destroyed) {
+            return;
+        }
+        destroyed = true;
+        closePool(systemPool);
+        closePool(userPool);
+    }
+
+    private synchronized boolean isDestroyed() {
+        return destroyed;
+    }
+
+    private static void closePool(LdapConnectionPool pool) {
+        if (pool != null) {
+            pool.close();
+            LOG.closedLdapConnectionPool(pool.getName());
+        }
+    }
+
+    private LdapConnectionPool createPool(String name, boolean rebind, int minSize, int maxSize) {
+        LdapConnectionPool pool = new LdapConnectionPool(
+            clusterName.length() == 0 ? name : clusterName + "/" + name,
+            new LdapConnectionPool.Connector() {
+                @Override
+                public LdapContext connect(Hashtable<String, Object> env) throws NamingException {
+                    return KnoxLdapContextFactory.this.connect(env);
+                }
+            },
+            rebind, minSize, maxSize, poolMaxIdleTime, poolMaxWait, poolValidateOnBorrow);
+        pool.setWarmupEnvironment(getSystemEnvironment());
+        pool.startEviction(poolEvictionInterval);
+        LOG.createdLdapConnectionPool(pool.getName(), pool.getMinSize(), pool.getMaxSize());
+        return pool;
+    }
+
+    /**
+     * @return The environment of a system bind, used to open connections ahead of demand.
+     */
+    @SuppressWarnings("unchecked")
+    private Hashtable<String, Object> getSystemEnvironment() {
+        Hashtable<String, Object> env = new Hashtable<String, Object>(getEnvironment());
+        if (getUrl() != null) {
+            env.put(Context.PROVIDER_URL, getUrl());
+        }
+        env.put(Context.SECURITY_AUTHENTICATION, getSystemAuthenticationMechanism());
+        if (getSystemUsername() != null) {
+            env.put(Context.SECURITY_PRINCIPAL, getSystemUsername());
+        }
+        if (getSystemPassword() != null) {
+            env.put(Context.SECURITY_CREDENTIALS, getSystemPassword());
+        }
+        env.remove(JNDI_POOLING_PROPERTY);
+        return env;
+    }
+
     public String getSystemAuthenticationMechanism() {
         return systemAuthenticationMechanism != null? systemAuthenticationMechanism: getAuthenticationMechanism();
     }
@@ -109,6 +271,95 @@ public class KnoxLdapContextFactory extends JndiLdapContextFactory {
       }
     }
     
+    public boolean isConnectionPoolEnabled() {
+        return connectionPoolEnabled;
+    }
+
+    public void setConnectionPoolEnabled(boolean connectionPoolEnabled) {
+        this.connectionPoolEnabled = connectionPoolEnabled;
+    }
+
+    public int getSystemPoolMinSize() {
+        return systemPoolMinSize;
+    }
+
+    public void setSystemPoolMinSize(int systemPoolMinSize) {
+        this.systemPoolMinSize = systemPoolMinSize;
+    }
+
+    public int getSystemPoolMaxSize() {
+        return systemPoolMaxSize;
+    }
+
+    public void setSystemPoolMaxSize(int systemPoolMaxSize) {
+        this.systemPoolMaxSize = systemPoolMaxSize;
+    }
+
+    public int getUserPoolMinSize() {
+        return userPoolMinSize;
+    }
+
+    public void setUserPoolMinSize(int userPoolMinSize) {
+        this.userPoolMinSize = userPoolMinSize;
+    }
+
+    public int getUserPoolMaxSize() {
+        return userPoolMaxSize;
+    }
+
+    public void setUserPoolMaxSize(int userPoolMaxSize) {
+        this.userPoolMaxSize = userPoolMaxSize;
+    }
+
+    /**
+     * @return The time in milliseconds after which an idle pooled connection is closed.
+     */
+    public long getPoolMaxIdleTime() {
+        return poolMaxIdleTime;
+    }
+
+    public void setPoolMaxIdleTime(long poolMaxIdleTime) {
+        this.poolMaxIdleTime = poolMaxIdleTime;
+    }
+
+    public long getPoolEvictionInterval() {
+        return poolEvictionInterval;
+    }
+
+    public void setPoolEvictionInterval(long poolEvictionInterval) {
+        this.poolEvictionInterval = poolEvictionInterval;
+    }
+
+    /**
+     * @return The time in milliseconds a lookup waits for a connection when the pool is at its max size.
+     */
+    public long getPoolMaxWait() {
+        return poolMaxWait;
+    }
+
+    public void setPoolMaxWait(long poolMaxWait) {
+        this.poolMaxWait = poolMaxWait;
+    }
+
+    public boolean isPoolValidateOnBorrow() {
+        return poolValidateOnBorrow;
+    }
+
+    public void setPoolValidateOnBorrow(boolean poolValidateOnBorrow) {
+        this.poolValidateOnBorrow = poolValidateOnBorrow;
+    }
+
+    /**
+     * @return The time in milliseconds a server that failed to accept a connection is tried last.
+     */
+    public long getUrlRetryInterval() {
+        return urlRetryInterval;
+    }
+
+    public void setUrlRetryInterval(long urlRetryInterval) {
+        this.urlRetryInterval = urlRetryInterval;
+    }
+
     public String getClusterName() {
       return clusterName;
     }
@@ -19,6 +19,7 @@
 
 package org.apache.hadoop.gateway.shirorealm;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -26,6 +27,7 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
@@ -34,20 +36,31 @@ import javax.naming.AuthenticationException;
 import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
 import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
 import javax.naming.directory.SearchControls;
 import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
 import javax.naming.ldap.LdapContext;
 import javax.naming.ldap.LdapName;
+import javax.naming.ldap.PagedResultsControl;
+import javax.naming.ldap.PagedResultsResponseControl;
+import javax.naming.ldap.Rdn;
 
 import org.apache.hadoop.gateway.GatewayMessages;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.SimpleAuthenticationInfo;
+import org.apache.shiro.authc.UsernamePasswordToken;
 import org.apache.shiro.authz.AuthorizationInfo;
 import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.cache.Cache;
 import org.apache.shiro.realm.ldap.JndiLdapRealm;
 import org.apache.shiro.realm.ldap.LdapContextFactory;
 import org.apache.shiro.realm.ldap.LdapUtils;
 import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.util.Destroyable;
 import org.apache.shiro.util.StringUtils;
 
 /**
@@ -77,6 +90,9 @@ import org.apache.shiro.util.StringUtils;
  * ldapRealm.contextFactory.systemUsername=uid=guest,ou=people,dc=hadoop,dc=apache,dc=org
  * ldapRealm.contextFactory.clusterName=sandbox
  * ldapRealm.contextFactory.systemPassword=S{ALIAS=ldcSystemPassword}
+ *
+ * # optional, how the groups of a user are found: scan (default), filter or memberOf
+ * ldapRealm.groupLookupStrategy=filter
  * [urls]
  * **=authcBasic
  *
@@ -97,8 +113,25 @@ import org.apache.shiro.util.StringUtils;
  * securityManager.realms = $ldapRealm
  * 
  * </pre>
+ *
+ * <p>
+ * The <tt>groupLookupStrategy</tt> selects how the groups of a user are found.
+ * <ul>
+ * <li><tt>scan</tt> reads every group under the group search base and checks its members.
+ * This is the only strategy that supports dynamic groups defined by <tt>memberUrl</tt>.</li>
+ * <li><tt>filter</tt> lets the directory return just the groups whose member attribute holds the user DN.
+ * It falls back to scan when the member attribute is <tt>memberUrl</tt>.</li>
+ * <li><tt>memberOf</tt> reads the group DNs from the <tt>userMemberOfAttribute</tt> of the user entry,
+ * keeping those under the group search base. The group object class is not checked in this case.</li>
+ * </ul>
+ * The filter strategy pages its search by <tt>groupPageSize</tt> entries.
+ *
+ * <p>
+ * When the cache manager is a {@link KnoxCacheManager} authentication caching is enabled, successful and
+ * failed binds are cached under a hash of the credentials, and the groups of a user are cached along with
+ * the rest of the authorization info.
  */
-public class KnoxLdapRealm extends JndiLdapRealm {
+public class KnoxLdapRealm extends JndiLdapRealm implements Destroyable {
 
     private static GatewayMessages LOG = MessagesFactory.get( GatewayMessages.class );
   
@@ -110,6 +143,8 @@ public class KnoxLdapRealm extends JndiLdapRealm {
     private final static String  SUBJECT_USER_GROUPS = "subject.userGroups";
 
     private final static String  MEMBER_URL = "memberUrl";
+
+    private enum GroupLookupStrategy { SCAN, FILTER, MEMBEROF }
    
     static {
         SUBTREE_SCOPE.setSearchScope(SearchControls.SUBTREE_SCOPE);
@@ -139,9 +174,25 @@ public class KnoxLdapRealm extends JndiLdapRealm {
     private String userSearchAttributeName;
     private String userObjectClass = "person";
 
+    private GroupLookupStrategy groupLookupStrategy = GroupLookupStrategy.SCAN;
+    private String userMemberOfAttribute = "memberOf";
+    private int groupPageSize = 500;
+
 
     public KnoxLdapRealm() {
     }
+
+    /**
+     * Releases the pooled connections of the context factory when the security manager is destroyed,
+     * so that a redeployed topology does not leave the connections of the previous deployment open.
+     */
+    @Override
+    public void destroy() throws Exception {
+        LdapContextFactory contextFactory = getContextFactory();
+        if (contextFactory instanceof Destroyable) {
+            ((Destroyable) contextFactory).destroy();
+        }
+    }
     
     /**
      * Get groups from LDAP.
@@ -162,33 +213,156 @@ public class KnoxLdapRealm extends JndiLdapRealm {
       if (!isAuthorizationEnabled()) {
         return null;
       }
-      final Set<String> roleNames = getRoles(principals, ldapContextFactory);
-        SimpleAuthorizationInfo simpleAuthorizationInfo = new SimpleAuthorizationInfo(roleNames);
+      final Set<String> groupNames = new HashSet<String>();
+      Set<String> roleNames = getRoles(principals, ldapContextFactory, groupNames);
+        GroupAuthorizationInfo simpleAuthorizationInfo;
+        if (roleNames != null) {
+          simpleAuthorizationInfo = new GroupAuthorizationInfo(roleNames, groupNames);
+        } else {
+          roleNames = Collections.emptySet();
+          simpleAuthorizationInfo = new GroupAuthorizationInfo(roleNames, null);
+        }
         Set<String> stringPermissions = permsFor(roleNames);
         simpleAuthorizationInfo.setStringPermissions(stringPermissions);
         return simpleAuthorizationInfo;
     }
 
+    /**
+     * Saves the looked up role names and group names in the session, so that they can be easily looked up
+     * outside of this object, also when the authorization info came from the cache.
+     */
+    @Override
+    protected AuthorizationInfo getAuthorizationInfo(PrincipalCollection principals) {
+        AuthorizationInfo info = super.getAuthorizationInfo(principals);
+        if (info instanceof GroupAuthorizationInfo) {
+          Set<String> groupNames = ((GroupAuthorizationInfo) info).getGroupNames();
+          if (groupNames != null) {
+            SecurityUtils.getSubject().getSession().setAttribute(SUBJECT_USER_ROLES, info.getRoles());
+            SecurityUtils.getSubject().getSession().setAttribute(SUBJECT_USER_GROUPS, groupNames);
+          } else {
+            // The groups could not be looked up, so don't keep the empty result around.
+            Cache<Object, AuthorizationInfo> cache = getAuthorizationCache();
+            if (cache != null) {
+              cache.remove(getAuthorizationCacheKey(principals));
+            }
+          }
+        }
+        return info;
+    }
+
+    @Override
+    protected void afterCacheManagerSet() {
+        if (getCacheManager() instanceof KnoxCacheManager) {
+          setAuthenticationCachingEnabled(true);
+        }
+        super.afterCacheManagerSet();
+    }
+
+    @Override
+    protected Object getAuthenticationCacheKey(AuthenticationToken token) {
+        if (getCacheManager() instanceof KnoxCacheManager && token instanceof UsernamePasswordToken) {
+          UsernamePasswordToken upToken = (UsernamePasswordToken) token;
+          return ((KnoxCacheManager) getCacheManager()).getCredentialsKey(upToken.getUsername(), upToken.getPassword());
+        }
+        return super.getAuthenticationCacheKey(token);
+    }
+
+    @Override
+    protected boolean isAuthenticationCachingEnabled(AuthenticationToken token, AuthenticationInfo info) {
+        // Only tokens whose credentials are part of the cache key may be cached,
+        // as a cache hit is not checked against the directory again.
+        if (getCacheManager() instanceof KnoxCacheManager && !(token instanceof UsernamePasswordToken)) {
+          return false;
+        }
+        return super.isAuthenticationCachingEnabled(token, info);
+    }
+
+    @Override
+    protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken token)
+        throws org.apache.shiro.authc.AuthenticationException {
+        Cache<Object, Object> failures = getAuthenticationFailureCache(token);
+        Object key = failures == null ? null : getAuthenticationCacheKey(token);
+        if (key != null && failures.get(key) != null) {
+          throw new org.apache.shiro.authc.AuthenticationException("LDAP authentication failed.");
+        }
+        try {
+          return super.doGetAuthenticationInfo(token);
+        } catch (org.apache.shiro.authc.AuthenticationException e) {
+          // Only remember rejected credentials, not directory outages.
+          if (key != null && e.getCause() instanceof AuthenticationException) {
+            failures.put(key, Boolean.TRUE);
+          }
+          throw e;
+        }
+    }
+
+    /**
+     * Keeps the credentials out of the authentication info, so that they are not held in the cache.
+     * The credentials have already been verified by the bind.
+     */
+    @Override
+    protected AuthenticationInfo createAuthenticationInfo(AuthenticationToken token, Object ldapPrincipal,
+        Object ldapCredentials, LdapContext ldapContext) throws NamingException {
+        if (getCacheManager() instanceof KnoxCacheManager) {
+          return new SimpleAuthenticationInfo(token.getPrincipal(), null, getName());
+        }
+        return super.createAuthenticationInfo(token, ldapPrincipal, ldapCredentials, ldapContext);
+    }
+
+    private Cache<Object, Object> getAuthenticationFailureCache(AuthenticationToken token) {
+        if (getCacheManager() instanceof KnoxCacheManager && token instanceof UsernamePasswordToken) {
+          return getCacheManager().getCache(getName() + KnoxCacheManager.AUTHENTICATION_FAILURE_CACHE_SUFFIX);
+        }
+        return null;
+    }
+
     private Set<String> getRoles(final PrincipalCollection principals, 
-        final LdapContextFactory ldapContextFactory) throws NamingException {
+        final LdapContextFactory ldapContextFactory, final Set<String> groupNames) throws NamingException {
         final String username = (String) getAvailablePrincipal(principals);
 
         LdapContext systemLdapCtx = null;
         try {
             systemLdapCtx = ldapContextFactory.getSystemLdapContext();
-            return rolesFor(username, systemLdapCtx, ldapContextFactory);
+            return rolesFor(username, systemLdapCtx, ldapContextFactory, groupNames);
         } catch (AuthenticationException e) {
           LOG.failedToGetSystemLdapConnection(e);
-          return Collections.emptySet();
+          return null;
         } finally {
             LdapUtils.closeContext(systemLdapCtx);
         }
     }
 
     private Set<String> rolesFor(final String userName, final LdapContext ldapCtx, 
-        final LdapContextFactory ldapContextFactory) throws NamingException {
+        final LdapContextFactory ldapContextFactory, final Set<String> groupNames) throws NamingException {
         final Set<String> roleNames = new HashSet();
-        final Set<String> groupNames = new HashSet();
+        String userDn = null;
+        if (userSearchAttributeName == null || userSearchAttributeName.isEmpty()) {
+          // memberAttributeValuePrefix and memberAttributeValueSuffix were computed from memberAttributeValueTemplate
+          userDn = memberAttributeValuePrefix + userName + memberAttributeValueSuffix;
+        } else {
+          userDn = getUserDn(userName);
+        }
+
+        if (groupLookupStrategy == GroupLookupStrategy.FILTER && !memberAttribute.equalsIgnoreCase(MEMBER_URL)) {
+          Set<String> memberOf = new LinkedHashSet<String>();
+          searchGroupNames(ldapCtx, "(&(objectClass=" + groupObjectClass + ")(" + memberAttribute + "={0}))",
+              new Object[] { userDn }, memberOf);
+          addRoles(memberOf, roleNames, groupNames);
+        } else if (groupLookupStrategy == GroupLookupStrategy.MEMBEROF) {
+          Set<String> memberOf = new LinkedHashSet<String>();
+          readMemberOfGroupNames(ldapCtx, userDn, memberOf);
+          addRoles(memberOf, roleNames, groupNames);
+        } else {
+          scanGroups(userDn, ldapCtx, roleNames, groupNames, ldapContextFactory);
+        }
+
+        LOG.lookedUpUserRoles(roleNames, userName);
+        return roleNames;
+    }
+
+    private void scanGroups(final String userDn, final LdapContext ldapCtx,
+        final Set<String> roleNames, final Set<String> groupNames,
+        final LdapContextFactory ldapContextFactory) throws NamingException {
         NamingEnumeration<SearchResult> searchResultEnum = null;
         try {
           // ldapsearch -h localhost -p 33389 -D uid=guest,ou=people,dc=hadoop,dc=apache,dc=org -w  guest-password
@@ -197,30 +371,126 @@ public class KnoxLdapRealm extends JndiLdapRealm {
               getGroupSearchBase(),
               "objectClass=" + groupObjectClass,
               SUBTREE_SCOPE);
-          
-          String userDn = null;
-          if (userSearchAttributeName == null || userSearchAttributeName.isEmpty()) {
-            // memberAttributeValuePrefix and memberAttributeValueSuffix were computed from memberAttributeValueTemplate
-            userDn = memberAttributeValuePrefix + userName + memberAttributeValueSuffix;
-          } else {
-            userDn = getUserDn(userName);
-          }
           while (searchResultEnum.hasMore()) { // searchResults contains all the groups in search scope
               final SearchResult group = searchResultEnum.next();
               addRoleIfMember(userDn, group, roleNames, groupNames, ldapContextFactory);
           }
-
-          // save role names and group names in session so that they can be easily looked up outside of this object
-          SecurityUtils.getSubject().getSession().setAttribute(SUBJECT_USER_ROLES, roleNames);
-          SecurityUtils.getSubject().getSession().setAttribute(SUBJECT_USER_GROUPS, groupNames);
-          LOG.lookedUpUserRoles(roleNames, userName);
         }
         finally {
           if (searchResultEnum != null) {
             searchResultEnum.close();
           }
         }
-        return roleNames;
+    }
+
+    /**
+     * Collects the group id of every group matched by the filter under the group search base,
+     * requesting the results a page at a time.
+     */
+    private void searchGroupNames(final LdapContext ldapCtx, final String filter, final Object[] filterArgs,
+        final Set<String> groupNames) throws NamingException {
+        SearchControls controls = new SearchControls();
+        controls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+        controls.setReturningAttributes(new String[] { getGroupIdAttribute() });
+        byte[] cookie = null;
+        try {
+          do {
+            if (groupPageSize > 0) {
+              ldapCtx.setRequestControls(new Control[] { pagedResultsControl(cookie) });
+            }
+            NamingEnumeration<SearchResult> searchResultEnum = ldapCtx.search(
+                getGroupSearchBase(), filter, filterArgs, controls);
+            try {
+              while (searchResultEnum.hasMore()) {
+                Attribute attribute = searchResultEnum.next().getAttributes().get(getGroupIdAttribute());
+                if (attribute != null) {
+                  groupNames.add(attribute.get().toString());
+                }
+              }
+            }
+            finally {
+              searchResultEnum.close();
+            }
+            cookie = groupPageSize > 0 ? pagedResultsCookie(ldapCtx.getResponseControls()) : null;
+          } while (cookie != null && cookie.length > 0);
+        }
+        finally {
+          // The context may be pooled, so don't leave the paging control behind for the next search.
+          if (groupPageSize > 0) {
+            ldapCtx.setRequestControls(null);
+          }
+        }
+    }
+
+    private PagedResultsControl pagedResultsControl(byte[] cookie) throws NamingException {
+        try {
+          return new PagedResultsControl(groupPageSize, cookie, Control.NONCRITICAL);
+        } catch (IOException e) {
+          NamingException ne = new NamingException("Failed to create paged results control: " + e.getMessage());
+          ne.setRootCause(e);
+          throw ne;
+        }
+    }
+
+    private static byte[] pagedResultsCookie(Control[] controls) {
+        if (controls != null) {
+          for (Control control : controls) {
+            if (control instanceof PagedResultsResponseControl) {
+              return ((PagedResultsResponseControl) control).getCookie();
+            }
+          }
+        }
+        return null;
+    }
+
+    /**
+     * Collects the group id of every group listed in the member of attribute of the user entry
+     * that lies under the group search base. The group id is taken from the group DN when it is the
+     * attribute of its leaf RDN, otherwise it is read from the group entry.
+     */
+    private void readMemberOfGroupNames(final LdapContext ldapCtx, final String userDn,
+        final Set<String> groupNames) throws NamingException {
+        Attributes attributes = ldapCtx.getAttributes(new LdapName(userDn), new String[] { userMemberOfAttribute });
+        Attribute memberOf = attributes.get(userMemberOfAttribute);
+        if (memberOf == null) {
+          return;
+        }
+        String groupSearchBase = getGroupSearchBase();
+        LdapName groupBaseDn = new LdapName(groupSearchBase == null ? "" : groupSearchBase);
+        NamingEnumeration<?> e = memberOf.getAll();
+        try {
+          while (e.hasMore()) {
+            LdapName groupDn = new LdapName(e.next().toString());
+            if (!groupDn.startsWith(groupBaseDn) || groupDn.isEmpty()) {
+              continue;
+            }
+            Rdn rdn = groupDn.getRdn(groupDn.size() - 1);
+            if (rdn.getType().equalsIgnoreCase(getGroupIdAttribute())) {
+              groupNames.add(rdn.getValue().toString());
+            } else {
+              Attribute attribute = ldapCtx.getAttributes(groupDn, new String[] { getGroupIdAttribute() })
+                  .get(getGroupIdAttribute());
+              if (attribute != null) {
+                groupNames.add(attribute.get().toString());
+              }
+            }
+          }
+        }
+        finally {
+          e.close();
+        }
+    }
+
+    private void addRoles(final Set<String> memberOf, final Set<String> roleNames, final Set<String> groupNames) {
+        for (String groupName : memberOf) {
+          groupNames.add(groupName);
+          String roleName = roleNameFor(groupName);
+          if (roleName != null) {
+            roleNames.add(roleName);
+          } else {
+            roleNames.add(groupName);
+          }
+        }
     }
 
   private void addRoleIfMember(final String userDn, final SearchResult group,
@@ -405,6 +675,38 @@ public class KnoxLdapRealm extends JndiLdapRealm {
         this.userObjectClass = userObjectClass;
     }
 
+    public String getGroupLookupStrategy() {
+      return groupLookupStrategy == GroupLookupStrategy.MEMBEROF ? "memberOf" : groupLookupStrategy.name().toLowerCase(Locale.ENGLISH);
+    }
+
+    public void setGroupLookupStrategy(String groupLookupStrategy) {
+      try {
+        this.groupLookupStrategy = GroupLookupStrategy.valueOf(groupLookupStrategy.trim().toUpperCase(Locale.ENGLISH));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Group lookup strategy must be one of scan, filter or memberOf: "
+            + groupLookupStrategy);
+      }
+    }
+
+    public String getUserMemberOfAttribute() {
+      return userMemberOfAttribute;
+    }
+
+    public void setUserMemberOfAttribute(String userMemberOfAttribute) {
+      this.userMemberOfAttribute = userMemberOfAttribute;
+    }
+
+    public int getGroupPageSize() {
+      return groupPageSize;
+    }
+
+    /**
+     * @param groupPageSize The number of groups requested per page, or zero to search without paging.
+     */
+    public void setGroupPageSize(int groupPageSize) {
+      this.groupPageSize = groupPageSize;
+    }
+
     private Map<String, List<String>> parsePermissionByRoleString(String permissionsByRoleStr) {
       Map<String,List<String>> perms = new HashMap<String, List<String>>();
    
@@ -548,4 +850,22 @@ public class KnoxLdapRealm extends JndiLdapRealm {
         }
       }
     }
+
+    /**
+     * Authorization info that also carries the groups of the user, so they survive caching.
+     */
+    private static class GroupAuthorizationInfo extends SimpleAuthorizationInfo {
+        private static final long serialVersionUID = 1L;
+
+        private final Set<String> groupNames;
+
+        GroupAuthorizationInfo(Set<String> roleNames, Set<String> groupNames) {
+            super(roleNames);
+            this.groupNames = groupNames;
+        }
+
+        Set<String> getGroupNames() {
+            return groupNames;
+        }
+    }
 }
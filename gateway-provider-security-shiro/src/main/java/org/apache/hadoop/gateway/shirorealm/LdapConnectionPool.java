@@ -0,0 +1,429 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.shirorealm;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.naming.CommunicationException;
+import javax.naming.Context;
+import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.ldap.LdapContext;
+
+import org.apache.hadoop.gateway.GatewayMessages;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+
+/**
+ * A bounded pool of open LDAP connections.
+ * 
+ * <p>
+ * Contexts handed out by {@link #borrow(Hashtable)} are proxies whose <tt>close()</tt> returns the
+ * underlying connection to the pool instead of closing the socket. A connection that failed with a
+ * {@link CommunicationException} or {@link ServiceUnavailableException} while borrowed is discarded
+ * when it is returned.
+ * 
+ * <p>
+ * A pool created with <tt>rebind</tt> set re-authenticates an idle connection with the principal and
+ * credentials of the borrow request before handing it out, using LDAPv3 rebind over the existing socket.
+ * Such a pool can serve binds for any number of users. A pool without <tt>rebind</tt> must only ever be
+ * used with a single identity, such as the system user.
+ */
+public class LdapConnectionPool {
+
+    private static GatewayMessages LOG = MessagesFactory.get( GatewayMessages.class );
+
+    private static final String[] NO_ATTRIBUTES = new String[]{ "1.1" };
+    private static final String[] BIND_PROPERTIES = new String[]{
+        Context.SECURITY_AUTHENTICATION, Context.SECURITY_PRINCIPAL, Context.SECURITY_CREDENTIALS };
+
+    private static Timer evictor;
+
+    /**
+     * Opens new connections for the pool.
+     */
+    public interface Connector {
+        LdapContext connect(Hashtable<String, Object> env) throws NamingException;
+    }
+
+    private final String name;
+    private final Connector connector;
+    private final boolean rebind;
+    private final int minSize;
+    private final int maxSize;
+    private final long maxIdleTime;
+    private final long maxWait;
+    private final boolean validateOnBorrow;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<IdleConnection> idle = new LinkedBlockingDeque<IdleConnection>();
+    private volatile Hashtable<String, Object> warmupEnvironment;
+    private volatile boolean closed = false;
+    private TimerTask evictionTask;
+
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong borrowedCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong validationFailureCount = new AtomicLong();
+
+    public LdapConnectionPool(String name, Connector connector, boolean rebind, int minSize, int maxSize,
+                              long maxIdleTime, long maxWait, boolean validateOnBorrow) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1: " + maxSize);
+        }
+        this.name = name;
+        this.connector = connector;
+        this.rebind = rebind;
+        this.minSize = Math.max(0, Math.min(minSize, maxSize));
+        this.maxSize = maxSize;
+        this.maxIdleTime = maxIdleTime;
+        this.maxWait = maxWait;
+        this.validateOnBorrow = validateOnBorrow;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the environment used to open connections when the evictor tops the pool up to its minimum size.
+     * No connections are opened ahead of demand until this has been set.
+     */
+    public void setWarmupEnvironment(Hashtable<String, Object> env) {
+        this.warmupEnvironment = env == null ? null : new Hashtable<String, Object>(env);
+    }
+
+    /**
+     * Starts evicting connections that have been idle longer than the max idle time at the given interval.
+     * The task only holds a weak reference to the pool, so an abandoned pool does not keep the timer busy.
+     */
+    public synchronized void startEviction(long interval) {
+        if (interval <= 0 || evictionTask != null) {
+            return;
+        }
+        evictionTask = new EvictionTask(this);
+        getEvictor().schedule(evictionTask, interval, interval);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the max wait time for one to become available.
+     * The returned context must be closed to give the connection back.
+     *
+     * @param env The environment used to open a new connection and, for a rebind pool, to authenticate an idle one
+     * @return A pooled context
+     * @throws ServiceUnavailableException If the pool is closed or no connection became available in time
+     * @throws NamingException If a new connection could not be opened or authentication failed
+     */
+    public LdapContext borrow(Hashtable<String, Object> env) throws NamingException {
+        if (closed) {
+            throw new ServiceUnavailableException("LDAP connection pool " + name + " is closed");
+        }
+        try {
+            if (!permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                throw new ServiceUnavailableException("LDAP connection pool " + name + " exhausted after waiting "
+                    + maxWait + "ms for one of " + maxSize + " connections");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted waiting for LDAP connection pool " + name);
+        }
+        boolean borrowed = false;
+        try {
+            LdapContext ctx = null;
+            IdleConnection connection;
+            while (ctx == null && (connection = idle.pollFirst()) != null) {
+                if (isExpired(connection, System.currentTimeMillis())) {
+                    destroy(connection.context);
+                } else {
+                    ctx = activate(connection.context, env);
+                }
+            }
+            if (ctx == null) {
+                ctx = connector.connect(env);
+                createdCount.incrementAndGet();
+            }
+            borrowedCount.incrementAndGet();
+            borrowed = true;
+            return wrap(ctx);
+        } finally {
+            if (!borrowed) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Discards all idle connections and rejects further borrows.
+     * Connections currently borrowed are closed when they are returned.
+     */
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            if (evictionTask != null) {
+                evictionTask.cancel();
+                evictionTask = null;
+            }
+        }
+        IdleConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            destroy(connection.context);
+        }
+    }
+
+    /**
+     * Discards connections idle longer than the max idle time and then opens connections until
+     * the minimum number of idle connections is available.
+     */
+    public void evict() {
+        long now = System.currentTimeMillis();
+        Iterator<IdleConnection> iterator = idle.descendingIterator();
+        while (iterator.hasNext()) {
+            IdleConnection connection = iterator.next();
+            if (isExpired(connection, now) && idle.removeFirstOccurrence(connection)) {
+                destroy(connection.context);
+            }
+        }
+        Hashtable<String, Object> env = warmupEnvironment;
+        while (!closed && env != null && idle.size() < minSize && idle.size() + getActiveCount() < maxSize) {
+            try {
+                LdapContext ctx = connector.connect(new Hashtable<String, Object>(env));
+                createdCount.incrementAndGet();
+                idle.offerLast(new IdleConnection(ctx, System.currentTimeMillis()));
+            } catch (NamingException e) {
+                LOG.failedToWarmUpLdapConnectionPool(name, e);
+                break;
+            }
+        }
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getBorrowedCount() {
+        return borrowedCount.get();
+    }
+
+    public long getDestroyedCount() {
+        return destroyedCount.get();
+    }
+
+    public long getValidationFailureCount() {
+        return validationFailureCount.get();
+    }
+
+    void release(LdapContext ctx, boolean broken) {
+        try {
+            if (broken || closed || idle.size() >= maxSize) {
+                destroy(ctx);
+            } else if (rebind && !scrub(ctx)) {
+                destroy(ctx);
+            } else {
+                idle.offerFirst(new IdleConnection(ctx, System.currentTimeMillis()));
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Prepares an idle connection for use.
+     *
+     * @return The context, or null if the connection turned out to be broken and was discarded
+     */
+    private LdapContext activate(LdapContext ctx, Hashtable<String, Object> env) throws NamingException {
+        try {
+            if (rebind) {
+                rebind(ctx, env);
+            } else if (validateOnBorrow) {
+                validate(ctx);
+            }
+            return ctx;
+        } catch (CommunicationException e) {
+            discardBroken(ctx, e);
+        } catch (ServiceUnavailableException e) {
+            discardBroken(ctx, e);
+        } catch (NamingException e) {
+            // The bind state of the connection is unknown after a failed rebind, so never reuse it.
+            destroy(ctx);
+            throw e;
+        }
+        return null;
+    }
+
+    private void rebind(LdapContext ctx, Hashtable<String, Object> env) throws NamingException {
+        for (String property : BIND_PROPERTIES) {
+            Object value = env.get(property);
+            if (value == null) {
+                ctx.removeFromEnvironment(property);
+            } else {
+                ctx.addToEnvironment(property, value);
+            }
+        }
+        ctx.reconnect(null);
+    }
+
+    private void validate(LdapContext ctx) throws NamingException {
+        try {
+            ctx.getAttributes("", NO_ATTRIBUTES);
+        } catch (CommunicationException e) {
+            throw e;
+        } catch (ServiceUnavailableException e) {
+            throw e;
+        } catch (NamingException e) {
+            // Anything else, e.g. no permission to read the root DSE, still proves the connection is alive.
+        }
+    }
+
+    private void discardBroken(LdapContext ctx, NamingException e) {
+        validationFailureCount.incrementAndGet();
+        LOG.discardedBrokenLdapConnection(name, e);
+        destroy(ctx);
+    }
+
+    /**
+     * Drops the credentials of the last user so that idle connections don't retain passwords.
+     */
+    private boolean scrub(LdapContext ctx) {
+        try {
+            ctx.removeFromEnvironment(Context.SECURITY_CREDENTIALS);
+            return true;
+        } catch (NamingException e) {
+            return false;
+        }
+    }
+
+    private boolean isExpired(IdleConnection connection, long now) {
+        return maxIdleTime > 0 && now - connection.since >= maxIdleTime;
+    }
+
+    private void destroy(LdapContext ctx) {
+        destroyedCount.incrementAndGet();
+        try {
+            ctx.close();
+        } catch (NamingException e) {
+            // Ignore, the connection is being thrown away.
+        }
+    }
+
+    private LdapContext wrap(LdapContext ctx) {
+        return (LdapContext) Proxy.newProxyInstance(
+            LdapConnectionPool.class.getClassLoader(),
+            new Class<?>[]{ LdapContext.class },
+            new PooledContextHandler(this, ctx));
+    }
+
+    private static synchronized Timer getEvictor() {
+        if (evictor == null) {
+            evictor = new Timer("LdapConnectionPoolEvictor", true);
+        }
+        return evictor;
+    }
+
+    private static class IdleConnection {
+        final LdapContext context;
+        final long since;
+
+        IdleConnection(LdapContext context, long since) {
+            this.context = context;
+            this.since = since;
+        }
+    }
+
+    private static class PooledContextHandler implements InvocationHandler {
+
+        private final LdapConnectionPool pool;
+        private final LdapContext delegate;
+        private boolean broken = false;
+        private boolean released = false;
+
+        PooledContextHandler(LdapConnectionPool pool, LdapContext delegate) {
+            this.pool = pool;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("close".equals(method.getName()) && method.getParameterTypes().length == 0) {
+                synchronized (this) {
+                    if (!released) {
+                        released = true;
+                        pool.release(delegate, broken);
+                    }
+                }
+                return null;
+            }
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof CommunicationException || cause instanceof ServiceUnavailableException) {
+                    broken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+
+    private static class EvictionTask extends TimerTask {
+
+        private final WeakReference<LdapConnectionPool> pool;
+
+        EvictionTask(LdapConnectionPool pool) {
+            this.pool = new WeakReference<LdapConnectionPool>(pool);
+        }
+
+        @Override
+        public void run() {
+            LdapConnectionPool target = pool.get();
+            if (target == null) {
+                cancel();
+            } else {
+                target.evict();
+            }
+        }
+    }
+
+}
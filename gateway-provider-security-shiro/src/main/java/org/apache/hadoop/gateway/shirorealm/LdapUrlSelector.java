@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.shirorealm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Orders the LDAP server URLs of a <tt>contextFactory.url</tt> that lists several servers separated by
+ * spaces or commas. Servers are tried in the configured order, except that a server which recently failed
+ * to accept a connection is moved to the end of the list until its retry interval has passed.
+ */
+public class LdapUrlSelector {
+
+    private final List<String> urls;
+    private final long retryInterval;
+    private final Map<String, Long> downSince = new ConcurrentHashMap<String, Long>();
+
+    public LdapUrlSelector(String urls, long retryInterval) {
+        List<String> list = new ArrayList<String>();
+        if (urls != null) {
+            for (String url : urls.trim().split("[\\s,]+")) {
+                if (url.length() > 0) {
+                    list.add(url);
+                }
+            }
+        }
+        this.urls = Collections.unmodifiableList(list);
+        this.retryInterval = retryInterval;
+    }
+
+    public List<String> getUrls() {
+        return urls;
+    }
+
+    /**
+     * @return All URLs, healthy ones first in configured order followed by the failed ones, longest failed first.
+     */
+    public List<String> getCandidates() {
+        return getCandidates(System.currentTimeMillis());
+    }
+
+    public void markDown(String url) {
+        downSince.put(url, System.currentTimeMillis());
+    }
+
+    public void markUp(String url) {
+        downSince.remove(url);
+    }
+
+    public boolean isDown(String url) {
+        return isDown(url, System.currentTimeMillis());
+    }
+
+    List<String> getCandidates(long now) {
+        List<String> healthy = new ArrayList<String>(urls.size());
+        List<String> down = new ArrayList<String>();
+        for (String url : urls) {
+            if (isDown(url, now)) {
+                down.add(url);
+            } else {
+                healthy.add(url);
+            }
+        }
+        if (down.size() > 1) {
+            Collections.sort(down, new Comparator<String>() {
+                @Override
+                public int compare(String a, String b) {
+                    return downSince(a).compareTo(downSince(b));
+                }
+            });
+        }
+        healthy.addAll(down);
+        return healthy;
+    }
+
+    private Long downSince(String url) {
+        Long since = downSince.get(url);
+        return since == null ? Long.valueOf(0) : since;
+    }
+
+    private boolean isDown(String url, long now) {
+        Long since = downSince.get(url);
+        return since != null && now - since < retryInterval;
+    }
+
+}
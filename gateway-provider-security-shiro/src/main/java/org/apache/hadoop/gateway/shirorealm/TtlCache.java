@@ -0,0 +1,172 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.shirorealm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.shiro.cache.Cache;
+
+/**
+ * A bounded Shiro {@link Cache} whose entries expire a fixed time after they were stored.
+ * When the cache is full the least recently used entry is evicted.
+ */
+public class TtlCache<K, V> implements Cache<K, V> {
+
+    private final String name;
+    private final long ttl;
+    private final int maxEntries;
+    private final LinkedHashMap<K, CachedValue<V>> entries;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    public TtlCache(String name, long ttl, final int maxEntries) {
+        this.name = name;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<K, CachedValue<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                if (size() > TtlCache.this.maxEntries) {
+                    evictedCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    @Override
+    public V get(K key) {
+        return get(key, System.currentTimeMillis());
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return put(key, value, System.currentTimeMillis());
+    }
+
+    @Override
+    public synchronized V remove(K key) {
+        CachedValue<V> entry = entries.remove(key);
+        return entry == null ? null : entry.value;
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized Set<K> keys() {
+        return Collections.unmodifiableSet(new LinkedHashSet<K>(entries.keySet()));
+    }
+
+    @Override
+    public synchronized Collection<V> values() {
+        List<V> values = new ArrayList<V>(entries.size());
+        for (CachedValue<V> entry : entries.values()) {
+            values.add(entry.value);
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    /**
+     * Drops every expired entry.
+     */
+    public synchronized void purge() {
+        long now = System.currentTimeMillis();
+        Iterator<CachedValue<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt <= now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized V get(K key, long now) {
+        CachedValue<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= now) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return entry.value;
+    }
+
+    synchronized V put(K key, V value, long now) {
+        CachedValue<V> previous = entries.put(key, new CachedValue<V>(value, now + ttl));
+        return previous == null || previous.expiresAt <= now ? null : previous.value;
+    }
+
+    private static class CachedValue<V> {
+        final V value;
+        final long expiresAt;
+
+        CachedValue(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
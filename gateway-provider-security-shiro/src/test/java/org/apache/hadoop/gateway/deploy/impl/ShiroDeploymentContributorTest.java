@@ -38,6 +38,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.ServiceLoader;
 
@@ -105,4 +106,22 @@ public class ShiroDeploymentContributorTest {
     assertThat( context.getWebAppDescriptor().getOrCreateSessionConfig().getOrCreateCookieConfig().isSecure(), is( true ) );
   }
 
+  @Test
+  public void testAuthenticationCacheConfig() {
+    Map<String,String> providerParams = new LinkedHashMap<String, String>();
+    providerParams.put( "main.ldapRealm", "org.apache.hadoop.gateway.shirorealm.KnoxLdapRealm" );
+    providerParams.put( "authenticationCacheEnabled", "true" );
+    providerParams.put( "authenticationCacheTtl", "60000" );
+    Provider provider = new Provider();
+    provider.setParams( providerParams );
+
+    String ini = new ShiroConfig( provider, "Sample" ).toString();
+
+    assertThat( ini, containsString( "knoxCacheManager=org.apache.hadoop.gateway.shirorealm.KnoxCacheManager\n" ) );
+    assertThat( ini, containsString( "knoxCacheManager.clusterName=Sample\n" ) );
+    assertThat( ini, containsString( "knoxCacheManager.ttl=60000\n" ) );
+    assertThat( ini, containsString( "securityManager.cacheManager=$knoxCacheManager\n" ) );
+    assertThat( ini.indexOf( "ldapRealm=" ) < ini.indexOf( "securityManager.cacheManager" ), is( true ) );
+  }
+
 }
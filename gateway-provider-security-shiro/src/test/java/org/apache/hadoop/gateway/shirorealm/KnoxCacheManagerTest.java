@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.shirorealm;
+
+import org.apache.shiro.cache.Cache;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class KnoxCacheManagerTest {
+
+  @Test
+  public void credentialsKeyDependsOnPassword() {
+    KnoxCacheManager manager = new KnoxCacheManager();
+    String key = manager.getCredentialsKey("guest", "guest-password".toCharArray());
+    assertTrue(key.startsWith("guest:"));
+    assertFalse(key.contains("guest-password"));
+    assertEquals(key, manager.getCredentialsKey("guest", "guest-password".toCharArray()));
+    assertFalse(key.equals(manager.getCredentialsKey("guest", "other-password".toCharArray())));
+    // Each manager uses its own salt.
+    assertFalse(key.equals(new KnoxCacheManager().getCredentialsKey("guest", "guest-password".toCharArray())));
+  }
+
+  @Test
+  public void failureCacheUsesFailureTtl() {
+    KnoxCacheManager manager = new KnoxCacheManager();
+    manager.setTtl(60000);
+    manager.setFailureTtl(1000);
+    TtlCache<Object, Object> authentications = (TtlCache<Object, Object>) manager.<Object, Object>getCache(
+        "realm" + KnoxCacheManager.AUTHENTICATION_CACHE_SUFFIX);
+    TtlCache<Object, Object> failures = (TtlCache<Object, Object>) manager.<Object, Object>getCache(
+        "realm" + KnoxCacheManager.AUTHENTICATION_FAILURE_CACHE_SUFFIX);
+    assertEquals(60000, authentications.getTtl());
+    assertEquals(1000, failures.getTtl());
+    assertSame(failures, manager.getCache("realm" + KnoxCacheManager.AUTHENTICATION_FAILURE_CACHE_SUFFIX));
+  }
+
+  @Test
+  public void entriesExpireAndAreBounded() {
+    TtlCache<String, String> cache = new TtlCache<String, String>("test", 1000, 2);
+    cache.put("a", "1", 0);
+    cache.put("b", "2", 0);
+    assertEquals("1", cache.get("a", 500));
+    cache.put("c", "3", 500);
+    assertNull("least recently used entry evicted", cache.get("b", 500));
+    assertEquals(1, cache.getEvictedCount());
+    assertNull("entry expired", cache.get("a", 1000));
+    assertEquals("3", cache.get("c", 1000));
+  }
+
+  @Test
+  public void invalidateUser() {
+    KnoxCacheManager manager = new KnoxCacheManager();
+    Cache<Object, Object> authentications = manager.getCache("realm" + KnoxCacheManager.AUTHENTICATION_CACHE_SUFFIX);
+    Cache<Object, Object> authorizations = manager.getCache("realm.authorizationCache");
+    authentications.put(manager.getCredentialsKey("guest", "guest-password".toCharArray()), "guest");
+    authentications.put(manager.getCredentialsKey("admin", "admin-password".toCharArray()), "admin");
+    authorizations.put(new SimplePrincipalCollection("guest", "realm"), "guest");
+
+    assertEquals(2, manager.invalidate("guest"));
+    assertEquals(1, authentications.size());
+    assertEquals(0, authorizations.size());
+
+    manager.invalidate();
+    assertEquals(0, authentications.size());
+  }
+
+}
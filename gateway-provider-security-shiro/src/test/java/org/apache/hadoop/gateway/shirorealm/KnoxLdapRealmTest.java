@@ -19,10 +19,132 @@
 
 package org.apache.hadoop.gateway.shirorealm;
 
+import org.apache.directory.server.protocol.shared.transport.TcpTransport;
+import org.apache.hadoop.gateway.security.ldap.SimpleLdapDirectoryServer;
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
 import org.junit.Test;
+
+import java.io.File;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.apache.hadoop.test.TestUtils.getResourceUrl;
 import static org.junit.Assert.*;
 
 public class KnoxLdapRealmTest {
+
+  private static SimpleLdapDirectoryServer ldap;
+  private static int ldapPort;
+
+  @BeforeClass
+  public static void setupLdap() throws Exception {
+    ServerSocket socket = new ServerSocket( 0 );
+    ldapPort = socket.getLocalPort();
+    socket.close();
+    ldap = new SimpleLdapDirectoryServer( "dc=hadoop,dc=apache,dc=org",
+        new File( getResourceUrl( KnoxLdapRealmTest.class, "users.ldif" ).toURI() ), new TcpTransport( ldapPort ) );
+    ldap.start();
+  }
+
+  @AfterClass
+  public static void cleanupLdap() throws Exception {
+    ldap.stop( true );
+  }
+
+  private static KnoxLdapContextFactory createContextFactory() {
+    KnoxLdapContextFactory factory = new KnoxLdapContextFactory();
+    factory.setUrl( "ldap://localhost:" + ldapPort );
+    factory.setSystemUsername( "uid=guest,ou=people,dc=hadoop,dc=apache,dc=org" );
+    factory.setSystemPassword( "guest-password" );
+    factory.setConnectionPoolEnabled( true );
+    return factory;
+  }
+
+  private static KnoxLdapRealm createRealm( KnoxLdapContextFactory factory ) {
+    KnoxLdapRealm realm = new KnoxLdapRealm();
+    realm.setName( "ldapRealm" );
+    realm.setContextFactory( factory );
+    realm.setUserDnTemplate( "uid={0},ou=people,dc=hadoop,dc=apache,dc=org" );
+    realm.setMemberAttributeValueTemplate( "uid={0},ou=people,dc=hadoop,dc=apache,dc=org" );
+    realm.setSearchBase( "dc=hadoop,dc=apache,dc=org" );
+    realm.setGroupSearchBase( "ou=groups,dc=hadoop,dc=apache,dc=org" );
+    realm.setAuthorizationEnabled( true );
+    return realm;
+  }
+
+  private static Set<String> lookupGroups( String user, String strategy, boolean dynamic ) throws Exception {
+    KnoxLdapContextFactory factory = createContextFactory();
+    KnoxLdapRealm realm = createRealm( factory );
+    realm.setGroupLookupStrategy( strategy );
+    // Page by a single entry so that the filter strategy has to follow the paging cookie.
+    realm.setGroupPageSize( 1 );
+    realm.setUserMemberOfAttribute( "seeAlso" );
+    if( dynamic ) {
+      realm.setGroupSearchBase( "ou=dynamicgroups,dc=hadoop,dc=apache,dc=org" );
+      realm.setGroupObjectClass( "groupOfURLs" );
+      realm.setMemberAttribute( "memberUrl" );
+    }
+    try {
+      return realm.queryForAuthorizationInfo( new SimplePrincipalCollection( user, "ldapRealm" ), factory ).getRoles();
+    } finally {
+      realm.destroy();
+    }
+  }
+
+  @Test
+  public void groupLookupStrategiesFindTheSameGroups() throws Exception {
+    for( String user : new String[]{ "sam", "tom", "bob" } ) {
+      Set<String> groups = lookupGroups( user, "scan", false );
+      assertEquals( user, groups, lookupGroups( user, "filter", false ) );
+      assertEquals( user, groups, lookupGroups( user, "memberOf", false ) );
+      Set<String> dynamicGroups = lookupGroups( user, "scan", true );
+      assertEquals( user, dynamicGroups, lookupGroups( user, "filter", true ) );
+      assertEquals( user, dynamicGroups, lookupGroups( user, "memberOf", true ) );
+    }
+    assertEquals( new HashSet<String>( Arrays.asList( "analyst", "scientist" ) ), lookupGroups( "sam", "filter", false ) );
+    assertEquals( new HashSet<String>( Arrays.asList( "analyst" ) ), lookupGroups( "tom", "filter", false ) );
+    assertTrue( lookupGroups( "bob", "filter", false ).isEmpty() );
+    assertEquals( new HashSet<String>( Arrays.asList( "samteam" ) ), lookupGroups( "sam", "scan", true ) );
+    assertEquals( new HashSet<String>( Arrays.asList( "directors" ) ), lookupGroups( "bob", "scan", true ) );
+    assertTrue( lookupGroups( "tom", "scan", true ).isEmpty() );
+  }
+
+  @Test
+  public void redeployReleasesPooledConnections() throws Exception {
+    KnoxLdapContextFactory factory = createContextFactory();
+    KnoxLdapRealm realm = createRealm( factory );
+    assertNotNull( realm.getAuthenticationInfo( new UsernamePasswordToken( "sam", "sam-password" ) ) );
+    assertEquals( new HashSet<String>( Arrays.asList( "analyst", "scientist" ) ), realm.queryForAuthorizationInfo(
+        new SimplePrincipalCollection( "sam", "ldapRealm" ), factory ).getRoles() );
+    LdapConnectionPool systemPool = factory.getSystemPool();
+    LdapConnectionPool userPool = factory.getUserPool();
+    assertTrue( systemPool.getIdleCount() > 0 );
+    assertTrue( userPool.getIdleCount() > 0 );
+
+    // Shiro destroys the realms of the security manager of a topology when it is redeployed.
+    realm.destroy();
+    assertEquals( 0, systemPool.getIdleCount() );
+    assertEquals( 0, userPool.getIdleCount() );
+    assertEquals( systemPool.getCreatedCount(), systemPool.getDestroyedCount() );
+    assertEquals( userPool.getCreatedCount(), userPool.getDestroyedCount() );
+    try {
+      realm.getAuthenticationInfo( new UsernamePasswordToken( "sam", "sam-password" ) );
+      fail( "The realm of an undeployed topology must not open new connections." );
+    } catch( org.apache.shiro.authc.AuthenticationException e ) {
+      // expected
+    }
+
+    KnoxLdapContextFactory redeployedFactory = createContextFactory();
+    KnoxLdapRealm redeployed = createRealm( redeployedFactory );
+    assertNotNull( redeployed.getAuthenticationInfo( new UsernamePasswordToken( "sam", "sam-password" ) ) );
+    redeployed.destroy();
+    assertEquals( 0, redeployedFactory.getUserPool().getIdleCount() );
+  }
   
   @Test
   public void setGetSearchBase() {
@@ -101,4 +223,25 @@ public class KnoxLdapRealmTest {
     assertEquals(realm.getGroupSearchBase(), "dc=knox,dc=example,dc=com");
   }
   
+  @Test
+  public void verifyDefaultGroupLookupStrategy() {
+    KnoxLdapRealm realm = new KnoxLdapRealm();
+    assertEquals(realm.getGroupLookupStrategy(), "scan");
+  }
+
+  @Test
+  public void setGetGroupLookupStrategy() {
+    KnoxLdapRealm realm = new KnoxLdapRealm();
+    realm.setGroupLookupStrategy("Filter");
+    assertEquals(realm.getGroupLookupStrategy(), "filter");
+    realm.setGroupLookupStrategy("memberof");
+    assertEquals(realm.getGroupLookupStrategy(), "memberOf");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectUnknownGroupLookupStrategy() {
+    KnoxLdapRealm realm = new KnoxLdapRealm();
+    realm.setGroupLookupStrategy("index");
+  }
+
 }
@@ -0,0 +1,217 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.shirorealm;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import javax.naming.AuthenticationException;
+import javax.naming.CommunicationException;
+import javax.naming.Context;
+import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.ldap.LdapContext;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LdapConnectionPoolTest {
+
+    /**
+     * Records the calls made on a context and fails the ones named in <tt>failures</tt>.
+     */
+    private static class FakeContext implements InvocationHandler {
+        final List<String> calls = new ArrayList<String>();
+        final Map<String, NamingException> failures = new HashMap<String, NamingException>();
+        final LdapContext context = (LdapContext) Proxy.newProxyInstance(
+            LdapContext.class.getClassLoader(), new Class<?>[]{ LdapContext.class }, this);
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String call = method.getName();
+            if (call.endsWith("Environment")) {
+                call = call + ":" + args[0] + (args.length > 1 ? "=" + args[1] : "");
+            }
+            calls.add(call);
+            NamingException failure = failures.get(method.getName());
+            if (failure != null) {
+                throw failure;
+            }
+            return null;
+        }
+    }
+
+    private static class QueueConnector implements LdapConnectionPool.Connector {
+        final LinkedList<FakeContext> contexts = new LinkedList<FakeContext>();
+
+        @Override
+        public LdapContext connect(Hashtable<String, Object> env) throws NamingException {
+            return contexts.removeFirst().context;
+        }
+    }
+
+    @Test
+    public void closedContextIsReused() throws Exception {
+        QueueConnector connector = new QueueConnector();
+        FakeContext fake = new FakeContext();
+        connector.contexts.add(fake);
+        LdapConnectionPool pool = new LdapConnectionPool("test", connector, false, 0, 2, 60000, 100, true);
+
+        pool.borrow(new Hashtable<String, Object>()).close();
+        LdapContext ctx = pool.borrow(new Hashtable<String, Object>());
+        assertEquals(1, pool.getActiveCount());
+        ctx.close();
+        ctx.close();
+
+        assertEquals(Arrays.asList("getAttributes"), fake.calls);
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(2, pool.getBorrowedCount());
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void brokenIdleContextIsReplaced() throws Exception {
+        QueueConnector connector = new QueueConnector();
+        FakeContext broken = new FakeContext();
+        broken.failures.put("getAttributes", new CommunicationException("connection reset"));
+        connector.contexts.add(broken);
+        connector.contexts.add(new FakeContext());
+        LdapConnectionPool pool = new LdapConnectionPool("test", connector, false, 0, 2, 60000, 100, true);
+
+        pool.borrow(new Hashtable<String, Object>()).close();
+        pool.borrow(new Hashtable<String, Object>()).close();
+
+        assertEquals(Arrays.asList("getAttributes", "close"), broken.calls);
+        assertEquals(2, pool.getCreatedCount());
+        assertEquals(1, pool.getValidationFailureCount());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void contextFailingWhileBorrowedIsDiscarded() throws Exception {
+        QueueConnector connector = new QueueConnector();
+        FakeContext fake = new FakeContext();
+        fake.failures.put("lookup", new ServiceUnavailableException("busy"));
+        connector.contexts.add(fake);
+        LdapConnectionPool pool = new LdapConnectionPool("test", connector, false, 0, 2, 60000, 100, true);
+
+        LdapContext pooled = pool.borrow(new Hashtable<String, Object>());
+        try {
+            pooled.lookup("cn=test");
+            fail("Expected ServiceUnavailableException");
+        } catch (ServiceUnavailableException e) {
+            // Expected.
+        }
+        pooled.close();
+
+        assertEquals(Arrays.asList("lookup", "close"), fake.calls);
+        assertEquals(0, pool.getIdleCount());
+        assertEquals(1, pool.getDestroyedCount());
+    }
+
+    @Test
+    public void exhaustedPoolRejectsBorrow() throws Exception {
+        QueueConnector connector = new QueueConnector();
+        connector.contexts.add(new FakeContext());
+        LdapConnectionPool pool = new LdapConnectionPool("test", connector, false, 0, 1, 60000, 10, true);
+
+        LdapContext ctx = pool.borrow(new Hashtable<String, Object>());
+        try {
+            pool.borrow(new Hashtable<String, Object>());
+            fail("Expected ServiceUnavailableException");
+        } catch (ServiceUnavailableException e) {
+            // Expected.
+        }
+        ctx.close();
+        assertEquals(0, pool.getActiveCount());
+    }
+
+    @Test
+    public void idleContextIsRebound() throws Exception {
+        QueueConnector connector = new QueueConnector();
+        FakeContext fake = new FakeContext();
+        connector.contexts.add(fake);
+        LdapConnectionPool pool = new LdapConnectionPool("test", connector, true, 0, 2, 60000, 100, true);
+
+        pool.borrow(bind("uid=alice", "alice-password")).close();
+        pool.borrow(bind("uid=bob", "bob-password")).close();
+
+        assertEquals(Arrays.asList(
+            "removeFromEnvironment:" + Context.SECURITY_CREDENTIALS,
+            "addToEnvironment:" + Context.SECURITY_AUTHENTICATION + "=simple",
+            "addToEnvironment:" + Context.SECURITY_PRINCIPAL + "=uid=bob",
+            "addToEnvironment:" + Context.SECURITY_CREDENTIALS + "=bob-password",
+            "reconnect",
+            "removeFromEnvironment:" + Context.SECURITY_CREDENTIALS), fake.calls);
+        assertEquals(1, pool.getCreatedCount());
+    }
+
+    @Test
+    public void failedRebindIsNotReused() throws Exception {
+        QueueConnector connector = new QueueConnector();
+        FakeContext fake = new FakeContext();
+        connector.contexts.add(fake);
+        connector.contexts.add(new FakeContext());
+        LdapConnectionPool pool = new LdapConnectionPool("test", connector, true, 0, 2, 60000, 100, true);
+
+        pool.borrow(bind("uid=alice", "alice-password")).close();
+        fake.failures.put("reconnect", new AuthenticationException("invalid credentials"));
+        try {
+            pool.borrow(bind("uid=bob", "wrong-password"));
+            fail("Expected AuthenticationException");
+        } catch (AuthenticationException e) {
+            // Expected.
+        }
+
+        assertEquals("close", fake.calls.get(fake.calls.size() - 1));
+        assertEquals(0, pool.getIdleCount());
+        assertEquals(0, pool.getActiveCount());
+    }
+
+    @Test
+    public void failedUrlIsTriedLast() {
+        LdapUrlSelector selector = new LdapUrlSelector("ldap://one:389 ldap://two:389,ldap://three:389", 60000);
+        assertEquals(Arrays.asList("ldap://one:389", "ldap://two:389", "ldap://three:389"), selector.getCandidates());
+
+        selector.markDown("ldap://one:389");
+        assertTrue(selector.isDown("ldap://one:389"));
+        assertEquals(Arrays.asList("ldap://two:389", "ldap://three:389", "ldap://one:389"), selector.getCandidates());
+
+        selector.markUp("ldap://one:389");
+        assertEquals("ldap://one:389", selector.getCandidates().get(0));
+    }
+
+    private static Hashtable<String, Object> bind(String principal, String credentials) {
+        Hashtable<String, Object> env = new Hashtable<String, Object>();
+        env.put(Context.SECURITY_AUTHENTICATION, "simple");
+        env.put(Context.SECURITY_PRINCIPAL, principal);
+        env.put(Context.SECURITY_CREDENTIALS, credentials);
+        return env;
+    }
+
+}
@@ -67,8 +67,9 @@ APP_ERR_FILE="$APP_LOG_DIR/$APP_NAME.err"
 # The start wait time
 APP_START_WAIT_TIME=2
 
-# The kill wait time limit
-APP_KILL_WAIT_TIME=10
+# The kill wait time limit, longer than gateway.shutdown.deregistration.delay plus gateway.shutdown.timeout
+# so in flight requests can drain
+APP_KILL_WAIT_TIME=45
 
 # Setup the common environment
 . $APP_BIN_DIR/knox-env.sh
@@ -30,6 +30,7 @@ import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
 import org.apache.hadoop.gateway.filter.AbstractGatewayFilter;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.hadoop.gateway.i18n.resources.ResourcesFactory;
+import org.apache.hadoop.gateway.security.SecurityContext;
 import org.apache.hadoop.gateway.util.urltemplate.Matcher;
 import org.apache.hadoop.gateway.util.urltemplate.Parser;
 import org.apache.hadoop.gateway.util.urltemplate.Template;
@@ -125,6 +126,7 @@ public class GatewayFilter implements Filter {
     if( match != null ) {
       Chain chain = match.getValue();
       servletRequest.setAttribute( AbstractGatewayFilter.TARGET_SERVICE_ROLE, chain.getResourceRole() );
+      SecurityContext.open( servletRequest );
       try {
         chain.doFilter( servletRequest, servletResponse );
       } catch( IOException e ) {
@@ -147,6 +149,8 @@ public class GatewayFilter implements Filter {
         LOG.failedToExecuteFilter( e );
         auditor.audit( Action.ACCESS, pathWithContext, ResourceType.URI, ActionOutcome.FAILURE );
         throw new ServletException( e );
+      } finally {
+        SecurityContext.close( servletRequest );
       }
     } else {
       LOG.failedToMatchPath( path );
@@ -46,6 +46,9 @@ public interface GatewayMessages {
   @Message( level = MessageLevel.FATAL, text = "Failed to start gateway: {0}" )
   void failedToStartGateway( @StackTrace( level = MessageLevel.DEBUG ) Exception e );
 
+  @Message( level = MessageLevel.INFO, text = "Configured HTTP server with {0} to {1} threads, queue limit {2}, {3} acceptors, accept queue size {4} and idle timeout {5}ms." )
+  void configuredHttpServer( int minThreads, int maxThreads, int maxQueued, int acceptors, int acceptQueueSize, int idleTimeout );
+
   @Message( level = MessageLevel.INFO, text = "Started gateway on port {0}." )
   void startedGateway( int port );
 
@@ -55,6 +58,36 @@ public interface GatewayMessages {
   @Message( level = MessageLevel.INFO, text = "Stopped gateway." )
   void stoppedGateway();
 
+  @Message( level = MessageLevel.ERROR, text = "Failed to stop gateway: {0}" )
+  void failedToStopGateway( @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+  @Message( level = MessageLevel.INFO, text = "Received a shutdown signal." )
+  void receivedShutdownSignal();
+
+  @Message( level = MessageLevel.INFO, text = "Reporting not ready and serving requests for {0}ms before closing the connectors..." )
+  void awaitingDeregistration( long delay );
+
+  @Message( level = MessageLevel.INFO, text = "Waiting up to {1}ms for {0} requests in flight to complete..." )
+  void drainingRequests( int requests, long timeout );
+
+  @Message( level = MessageLevel.INFO, text = "Topology {0} completed {1} requests in flight, {2} were aborted." )
+  void drainedTopologyRequests( String topology, int drained, int aborted );
+
+  @Message( level = MessageLevel.INFO, text = "Completed {0} requests in flight in {2}ms, {1} were aborted." )
+  void drainedRequests( int drained, int aborted, long time );
+
+  @Message( level = MessageLevel.WARN, text = "Audit events were still being forwarded after {0}ms." )
+  void auditFlushTimedOut( long timeout );
+
+  @Message( level = MessageLevel.INFO, text = "Gateway readiness changed to {0}: {1}" )
+  void gatewayReadinessChanged( boolean ready, String status );
+
+  @Message( level = MessageLevel.WARN, text = "Topologies not being served: {0}" )
+  void topologiesNotServed( String topologies );
+
+  @Message( level = MessageLevel.INFO, text = "Answering liveness and readiness checks under {0}" )
+  void enabledHealthCheck( String path );
+
   @Message( level = MessageLevel.INFO, text = "Loading configuration resource {0}" )
   void loadingConfigurationResource( String res );
 
@@ -79,8 +112,14 @@ public interface GatewayMessages {
   @Message( level = MessageLevel.INFO, text = "Deploying topology {0} to {1}" )
   void deployingTopology( String clusterName, String warDirName );
 
-  @Message( level = MessageLevel.INFO, text = "Deployed topology {0}." )
-  void deployedTopology( String clusterName );
+  @Message( level = MessageLevel.INFO, text = "Deploying topology {0} in memory" )
+  void deployingTopologyInMemory( String clusterName );
+
+  @Message( level = MessageLevel.INFO, text = "Deployed topology {0} in {1}ms." )
+  void deployedTopology( String clusterName, long deployTime );
+
+  @Message( level = MessageLevel.INFO, text = "Deployed {0} topologies at startup in {1}ms." )
+  void deployedTopologiesAtStartup( int topologyCount, long deployTime );
 
   @Message( level = MessageLevel.INFO, text = "Loading topology {0} from {1}" )
   void redeployingTopology( String clusterName, String warDirName );
@@ -106,9 +145,24 @@ public interface GatewayMessages {
   @Message( level = MessageLevel.ERROR, text = "Failed to undeploy topology {0}: {1}" )
   void failedToUndeployTopology( String name, @StackTrace(level=MessageLevel.DEBUG) Exception e );
 
+  @Message( level = MessageLevel.WARN, text = "Keeping the current deployment of topology {0} because its new deployment failed to start" )
+  void keptPreviousDeployment( String name );
+
+  @Message( level = MessageLevel.WARN, text = "Stopping the previous deployment of topology {0} with {1} requests still active after the drain timeout" )
+  void deploymentDrainTimedOut( String name, int activeRequests );
+
   @Message( level = MessageLevel.INFO, text = "Deleting deployed topology {0}" )
   void deletingDeployment( String warDirName );
 
+  @Message( level = MessageLevel.INFO, text = "Undeploying topology {0}" )
+  void undeployingTopology( String clusterName );
+
+  @Message( level = MessageLevel.INFO, text = "Deleting stale deployment {0}" )
+  void deletingStaleDeployment( String warDirName );
+
+  @Message( level = MessageLevel.WARN, text = "Failed to fingerprint deployment code source {0}: {1}" )
+  void failedToFingerprintCodeSource( String location, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
   @Message( level = MessageLevel.INFO, text = "Creating gateway home directory: {0}" )
   void creatingGatewayHomeDir( File homeDir );
 
@@ -205,6 +259,12 @@ public interface GatewayMessages {
   @Message( level = MessageLevel.ERROR, text = "Failed to reload topologies: {0}" )
   void failedToReloadTopologies( @StackTrace( level = MessageLevel.DEBUG ) Exception e );
 
+  @Message( level = MessageLevel.WARN, text = "Keeping the previously loaded version of topology {0}" )
+  void keptPreviousTopology( String fileName );
+
+  @Message( level = MessageLevel.INFO, text = "Redeploy requested for topology {0}" )
+  void redeployRequested( String clusterName );
+
   @Message( level = MessageLevel.FATAL, text = "Unsupported encoding: {0}" )
   void unsupportedEncoding( @StackTrace( level = MessageLevel.DEBUG ) Exception e );
 
@@ -298,6 +358,9 @@ public interface GatewayMessages {
   @Message( level = MessageLevel.INFO, text = "The Gateway SSL certificate is valid between: {0} and {1}." )
   void certificateValidityPeriod(Date notBefore, Date notAfter);
 
+  @Message( level = MessageLevel.WARN, text = "The server cipher suite order requires Java 8 or later, the client order will be used." )
+  void serverCipherOrderNotSupported();
+
   @Message( level = MessageLevel.ERROR, text = "Unable to retrieve certificate for Gateway: {0}." )
   void unableToRetrieveCertificateForGateway(Exception e);
 
@@ -328,4 +391,31 @@ public interface GatewayMessages {
 
   @Message( level = MessageLevel.INFO, text = "Computed roles/groups: {0} for principal: {1}" )
   void lookedUpUserRoles(Set<String> roleNames, String userName);
+
+  @Message( level = MessageLevel.INFO, text = "Created LDAP connection pool {0} with min size {1} and max size {2}" )
+  void createdLdapConnectionPool( String pool, int minSize, int maxSize );
+
+  @Message( level = MessageLevel.INFO, text = "Closed LDAP connection pool {0}" )
+  void closedLdapConnectionPool( String pool );
+
+  @Message( level = MessageLevel.WARN, text = "Failed to connect to LDAP server {0}, trying the next server: {1}" )
+  void failedToConnectToLdapUrl( String url, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+  @Message( level = MessageLevel.DEBUG, text = "Discarded broken connection from LDAP connection pool {0}: {1}" )
+  void discardedBrokenLdapConnection( String pool, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+  @Message( level = MessageLevel.WARN, text = "Failed to open idle connection for LDAP connection pool {0}: {1}" )
+  void failedToWarmUpLdapConnectionPool( String pool, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+  @Message( level = MessageLevel.ERROR, text = "Failed to load token sessions from {0}: {1}" )
+  void failedToLoadTokenSessions( String journal, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+  @Message( level = MessageLevel.WARN, text = "Failed to persist token session: {0}" )
+  void failedToPersistTokenSession( @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+  @Message( level = MessageLevel.INFO, text = "Revoked token issued to principal {0}" )
+  void revokedToken( String principal );
+
+  @Message( level = MessageLevel.DEBUG, text = "Refreshed token issued to principal {0}" )
+  void refreshedToken( String principal );
 }
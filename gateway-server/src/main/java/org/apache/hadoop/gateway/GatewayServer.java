@@ -29,22 +29,35 @@ import org.apache.hadoop.gateway.audit.api.ResourceType;
 import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
 import org.apache.hadoop.gateway.config.GatewayConfig;
 import org.apache.hadoop.gateway.config.impl.GatewayConfigImpl;
+import org.apache.hadoop.gateway.deploy.ContextHandlerFactory;
+import org.apache.hadoop.gateway.deploy.DeploymentContext;
 import org.apache.hadoop.gateway.deploy.DeploymentFactory;
+import org.apache.hadoop.gateway.deploy.DeploymentFingerprint;
+import org.apache.hadoop.gateway.deploy.DeploymentStatus;
+import org.apache.hadoop.gateway.deploy.DeploymentStatusRegistry;
+import org.apache.hadoop.gateway.deploy.GatewayShutdown;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.hadoop.gateway.i18n.resources.ResourcesFactory;
 import org.apache.hadoop.gateway.services.GatewayServices;
 import org.apache.hadoop.gateway.services.ServiceLifecycleException;
 import org.apache.hadoop.gateway.services.topology.TopologyService;
 import org.apache.hadoop.gateway.services.registry.ServiceRegistry;
+import org.apache.hadoop.gateway.services.security.SSLHandshakeStatistics;
 import org.apache.hadoop.gateway.services.security.SSLService;
+import org.apache.hadoop.gateway.topology.Provider;
+import org.apache.hadoop.gateway.topology.Service;
 import org.apache.hadoop.gateway.topology.Topology;
 import org.apache.hadoop.gateway.topology.TopologyEvent;
 import org.apache.hadoop.gateway.topology.TopologyListener;
 import org.apache.log4j.PropertyConfigurator;
+import org.eclipse.jetty.server.AbstractConnector;
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
 import org.eclipse.jetty.server.handler.ErrorHandler;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.webapp.WebAppContext;
 import org.jboss.shrinkwrap.api.exporter.ExplodedExporter;
 import org.jboss.shrinkwrap.api.spec.WebArchive;
@@ -60,12 +73,15 @@ import java.net.ServerSocket;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.ServiceLoader;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class GatewayServer {
@@ -79,12 +95,13 @@ public class GatewayServer {
   private static Properties buildProperties;
 
   private Server jetty;
-  private ErrorHandler errorHandler;
   private GatewayConfig config;
   private ContextHandlerCollection contexts;
   private TopologyService monitor;
   private TopologyListener listener;
-  private Map<String, WebAppContext> deployments;
+  private TopologyContexts deployments;
+  private TopologyDeploymentExecutor deployer;
+  private boolean stopped;
 
   public static void main( String[] args ) {
     try {
@@ -111,6 +128,7 @@ public class GatewayServer {
         services.init(config, options);
         if (!cmd.hasOption(GatewayCommandLine.NOSTART_LONG)) {
           startGateway( config, services );
+          addShutdownHook();
         }
       }
     } catch ( ParseException e ) {
@@ -206,6 +224,24 @@ public class GatewayServer {
   }
 
 
+  // Stops the gateway gracefully when the process is signalled, for example by SIGTERM during a rolling restart.
+  private static void addShutdownHook() {
+    Runtime.getRuntime().addShutdownHook( new Thread( "gateway-shutdown-hook" ) {
+      @Override
+      public void run() {
+        GatewayServer gateway = server;
+        if( gateway != null ) {
+          log.receivedShutdownSignal();
+          try {
+            gateway.stop();
+          } catch( Exception e ) {
+            log.failedToStopGateway( e );
+          }
+        }
+      }
+    } );
+  }
+
   public static void redeployTopologies( String topologyName  ) {
     TopologyService ts = getGatewayServices().getService(GatewayServices.TOPOLOGY_SERVICE);
     ts.reloadTopologies();
@@ -273,29 +309,44 @@ public class GatewayServer {
 
     // Create the global context handler.
     contexts = new ContextHandlerCollection();
-     // A map to keep track of current deployments by cluster name.
-    deployments = new ConcurrentHashMap<String, WebAppContext>();
+    // Keeps track of current deployments by cluster name and drains the ones that are replaced.
+    deployments = new TopologyContexts( contexts, config.getDeploymentDrainTimeout() );
+    // Deploys different topologies in parallel while keeping the events of each topology in order.
+    deployer = new TopologyDeploymentExecutor( config.getDeploymentThreads() );
+    DeploymentStatusRegistry.clear();
+    SSLHandshakeStatistics.clear();
+    GatewayShutdown.clear();
 
     // Determine the socket address and check availability.
     InetSocketAddress address = config.getGatewayAddress();
     checkAddressAvailability( address );
 
     // Start Jetty.
+    jetty = new Server();
+    jetty.setThreadPool( createThreadPool( config ) );
+    AbstractConnector connector;
     if (config.isSSLEnabled()) {
-      jetty = new Server();
+      SSLService ssl = services.getService("SSLService");
+      String keystoreFileName = config.getGatewaySecurityDir() + File.separatorChar + "keystores" + File.separatorChar + "gateway.jks";
+      connector = (AbstractConnector) ssl.buildSSlConnector(keystoreFileName);
     }
     else {
-      jetty = new Server(address);
+      connector = new SelectChannelConnector();
     }
-    if (config.isSSLEnabled()) {
-      SSLService ssl = services.getService("SSLService");
-      String keystoreFileName = config.getGatewaySecurityDir() + File.separatorChar + "keystores" + File.separatorChar + "gateway.jks";
-      Connector connector = (Connector) ssl.buildSSlConnector(keystoreFileName);
-      connector.setHost(address.getHostName());
-      connector.setPort(address.getPort());
-      jetty.addConnector(connector);
+    connector.setHost(address.getHostName());
+    connector.setPort(address.getPort());
+    configureConnector( connector, config );
+    jetty.addConnector(connector);
+    // Health checks are answered ahead of the topologies so they skip authentication and auditing.
+    if( config.isHealthCheckEnabled() ) {
+      HealthCheckHandler health = new HealthCheckHandler(
+          config.getHealthCheckPath(), config.getHealthCheckMaxAuditBacklog() );
+      health.setHandler( contexts );
+      jetty.setHandler( health );
+      log.enabledHealthCheck( config.getHealthCheckPath() );
+    } else {
+      jetty.setHandler( contexts );
     }
-    jetty.setHandler( contexts );
     try {
     jetty.start();
     }
@@ -311,22 +362,139 @@ public class GatewayServer {
 
     // Load the current topologies.
     log.loadingTopologiesFromDirectory(topologiesDir.getAbsolutePath());
+    long startupBegin = System.currentTimeMillis();
     monitor.reloadTopologies();
+    long startupDeployTime = System.currentTimeMillis() - startupBegin;
+    int startupTopologyCount = monitor.getTopologies().size();
+    DeploymentStatusRegistry.startupCompleted( startupTopologyCount, startupDeployTime );
+    log.deployedTopologiesAtStartup( startupTopologyCount, startupDeployTime );
+    deleteOrphanedDeployments( calculateAbsoluteDeploymentsDir() );
 
     // Start the topology monitor.
     log.monitoringTopologyChangesInDirectory(topologiesDir.getAbsolutePath());
     monitor.startMonitor();
+
+    // Allow the admin service to trigger a graceful shutdown.
+    GatewayShutdown.setHandler( new GatewayShutdown.Handler() {
+      @Override
+      public void shutdown() throws Exception {
+        stop();
+      }
+    } );
+  }
+
+  static QueuedThreadPool createThreadPool( GatewayConfig config ) {
+    QueuedThreadPool pool = new QueuedThreadPool();
+    pool.setName( "gateway" );
+    pool.setMinThreads( config.getHttpServerMinThreads() );
+    pool.setMaxThreads( config.getHttpServerMaxThreads() );
+    pool.setMaxQueued( config.getHttpServerMaxQueued() );
+    return pool;
   }
 
+  // Both the plain and the SSL connectors are tuned the same way.
+  // Only the configured settings are applied, the others keep the defaults of the connector type.
+  // For example the SSL connector lingers on close by default while the plain connector does not.
+  static void configureConnector( AbstractConnector connector, GatewayConfig config ) {
+    if( config.getHttpServerAcceptors() >= 0 ) {
+      connector.setAcceptors( config.getHttpServerAcceptors() );
+    }
+    if( config.getHttpServerAcceptQueueSize() >= 0 ) {
+      connector.setAcceptQueueSize( config.getHttpServerAcceptQueueSize() );
+    }
+    if( config.getHttpServerIdleTimeout() >= 0 ) {
+      connector.setMaxIdleTime( config.getHttpServerIdleTimeout() );
+    }
+    if( config.getHttpServerRequestHeaderBuffer() >= 0 ) {
+      connector.setRequestHeaderSize( config.getHttpServerRequestHeaderBuffer() );
+    }
+    if( config.getHttpServerResponseHeaderBuffer() >= 0 ) {
+      connector.setResponseHeaderSize( config.getHttpServerResponseHeaderBuffer() );
+    }
+    if( config.getHttpServerRequestBuffer() >= 0 ) {
+      connector.setRequestBufferSize( config.getHttpServerRequestBuffer() );
+    }
+    if( config.getHttpServerResponseBuffer() >= 0 ) {
+      connector.setResponseBufferSize( config.getHttpServerResponseBuffer() );
+    }
+    if( config.getHttpServerSoLingerTime() >= 0 ) {
+      connector.setSoLingerTime( config.getHttpServerSoLingerTime() );
+    }
+    if( config.isHttpServerStatsOn() ) {
+      connector.setStatsOn( true );
+    }
+    log.configuredHttpServer(
+        config.getHttpServerMinThreads(), config.getHttpServerMaxThreads(), config.getHttpServerMaxQueued(),
+        connector.getAcceptors(), connector.getAcceptQueueSize(), connector.getMaxIdleTime() );
+  }
+
+  /**
+   * Stops the gateway gracefully.
+   * The gateway first reports itself as not ready and keeps serving requests for the deregistration delay
+   * so load balancers stop routing to it.  Then new connections and requests are refused.
+   * The requests in flight are given up to the shutdown timeout to complete and the audit events are flushed
+   * before the server is stopped, which aborts any request still in flight.
+   */
   public synchronized void stop() throws Exception {
+    if( stopped ) {
+      return;
+    }
+    stopped = true;
     log.stoppingGateway();
-    services.stop();
+    // Stop redeploying so the contexts being drained are not replaced.
     monitor.stopMonitor();
+    deployer.shutdown();
+    long timeout = config.getGatewayShutdownTimeout();
+    GatewayShutdown.started( timeout );
+    deregister( config.getGatewayShutdownDeregistrationDelay() );
+    drain( timeout );
+    if( !AuditServiceFactory.getAuditService().flush( timeout ) ) {
+      log.auditFlushTimedOut( timeout );
+    }
+    services.stop();
     jetty.stop();
     jetty.join();
+    deployments.stop();
     log.stoppedGateway();
   }
 
+  // The readiness check fails from now on but the connectors stay open, so requests routed here
+  // before the load balancers notice are still served.
+  private static void deregister( long delay ) throws InterruptedException {
+    if( delay > 0 ) {
+      log.awaitingDeregistration( delay );
+      Thread.sleep( delay );
+    }
+  }
+
+  private void drain( long timeout ) throws InterruptedException {
+    GatewayShutdown.draining();
+    for( Connector connector : jetty.getConnectors() ) {
+      try {
+        connector.close();
+      } catch( IOException e ) {
+        log.failedToStopGateway( e );
+      }
+    }
+    // Requests on connections that are kept alive are answered with 503 so clients retry on another gateway.
+    deployments.shutdown();
+    Map<String,Integer> inFlight = deployments.getActiveRequests();
+    int count = 0;
+    for( Integer requests : inFlight.values() ) {
+      count += requests;
+    }
+    log.drainingRequests( count, timeout );
+    Map<String,Integer> aborted = deployments.awaitIdle( timeout );
+    GatewayShutdown.drained( inFlight, aborted );
+    for( Map.Entry<String,Integer> entry : GatewayShutdown.getDrainedRequests().entrySet() ) {
+      Integer remaining = aborted.get( entry.getKey() );
+      log.drainedTopologyRequests( entry.getKey(), entry.getValue(), remaining == null ? 0 : remaining );
+    }
+    log.drainedRequests(
+        GatewayShutdown.getDrainedRequestCount(), GatewayShutdown.getAbortedRequestCount(),
+        GatewayShutdown.getDrainTime() );
+  }
+
   public InetSocketAddress[] getAddresses() {
     InetSocketAddress[] addresses = new InetSocketAddress[ jetty.getConnectors().length ];
     for( int i=0, n=addresses.length; i<n; i++ ) {
@@ -341,65 +509,99 @@ public class GatewayServer {
     return addresses;
   }
 
-  private synchronized void internalDeploy( Topology topology, File warFile ) {
-    String name = topology.getName();
-    String warPath = warFile.getAbsolutePath();
-    errorHandler = new ErrorHandler();
-    errorHandler.setShowStacks(false);
+  private boolean internalDeploy( Topology topology, File warFile ) {
     WebAppContext context = new WebAppContext();
     context.setDefaultsDescriptor( null );
+    context.setWar( warFile.getAbsolutePath() );
+    return deployContext( topology, context );
+  }
+
+  private boolean internalDeploy( Topology topology, DeploymentContext deployment ) {
+    ContextHandler context;
+    try {
+      context = ContextHandlerFactory.create( deployment );
+    } catch( ClassNotFoundException e ) {
+      log.failedToDeployTopology( topology.getName(), e );
+      return false;
+    }
+    return deployContext( topology, context );
+  }
+
+  private boolean deployContext( Topology topology, ContextHandler context ) {
+    String name = topology.getName();
+    ErrorHandler errorHandler = new ErrorHandler();
+    errorHandler.setShowStacks(false);
     if (!name.equals("_default")) {
       context.setContextPath( "/" + config.getGatewayPath() + "/" + name );
     }
     else {
       context.setContextPath( "/" );
     }
-    context.setWar( warPath );
     context.setErrorHandler(errorHandler);
     // internalUndeploy( topology ); KNOX-152
     context.setAttribute( GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE, name );
     context.setAttribute( "org.apache.knox.gateway.frontend.uri", getFrontendUri( context, config ) );
-    deployments.put( name, context );
-    contexts.addHandler( context );
+    // The new context is started before it replaces the current one, which then drains its in-flight requests.
     try {
-      context.start();
+      return deployments.deploy( name, context );
     } catch( Exception e ) {
       log.failedToDeployTopology( name, e );
+      return false;
     }
   }
 
-  private synchronized void internalUndeploy( Topology topology ) {
-    WebAppContext context = deployments.remove( topology.getName() );
-    if( context != null ) {
+  private void internalUndeploy( Topology topology ) {
+    if( deployments.undeploy( topology.getName() ) ) {
       ServiceRegistry sr = getGatewayServices().getService(GatewayServices.SERVICE_REGISTRY_SERVICE);
       if (sr != null) {
         sr.removeClusterServices(topology.getName());
       }
-      contexts.removeHandler( context ) ;
-      try {
-        context.stop();
-      } catch( Exception e ) {
-        log.failedToUndeployTopology( topology.getName(), e );
-      }
     }
   }
 
   // Using an inner class to hide the handleTopologyEvent method from consumers of GatewayServer.
   private class InternalTopologyListener implements TopologyListener {
 
+    // The events are handed to the deployer and the caller waits for all of them to be processed
+    // so a topology is deployed by the time the change that created it returns.
     @Override
     public void handleTopologyEvent( List<TopologyEvent> events ) {
-      synchronized ( GatewayServer.this ) {
-        for( TopologyEvent event : events ) {
-          Topology topology = event.getTopology();
-          File deployDir = calculateAbsoluteDeploymentsDir();
-          if( event.getType().equals( TopologyEvent.Type.DELETED ) ) {
-            handleDeleteDeployment(topology, deployDir);
-          } else {
-            handleCreateDeployment(topology, deployDir);
+      final CountDownLatch processed = new CountDownLatch( events.size() );
+      for( final TopologyEvent event : events ) {
+        final Topology topology = event.getTopology();
+        final DeploymentStatus status = DeploymentStatusRegistry.getStatus( topology.getName() );
+        status.pending();
+        Runnable task = new Runnable() {
+          @Override
+          public void run() {
+            try {
+              File deployDir = calculateAbsoluteDeploymentsDir();
+              if( event.getType().equals( TopologyEvent.Type.DELETED ) ) {
+                handleDeleteDeployment( topology, deployDir );
+                status.undeployed();
+              } else {
+                status.deploying();
+                if( handleCreateDeployment( topology, deployDir ) ) {
+                  status.deployed();
+                  log.deployedTopology( topology.getName(), status.getDeployTime() );
+                } else {
+                  status.failed();
+                }
+              }
+            } finally {
+              processed.countDown();
+            }
           }
+        };
+        if( !deployer.execute( topology.getName(), task ) ) {
+          processed.countDown();
         }
       }
+      try {
+        processed.await();
+      } catch( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
     }
 
     private void handleDeleteDeployment(Topology topology, File deployDir) {
@@ -412,43 +614,115 @@ public class GatewayServer {
           FileUtils.deleteQuietly( file );
         }
       }
+      // A topology deployed in memory may have nothing in the deployment directory.
+      if( deployments.get( topology.getName() ) != null ) {
+        auditor.audit( Action.UNDEPLOY, topology.getName(), ResourceType.TOPOLOGY, ActionOutcome.UNAVAILABLE );
+        log.undeployingTopology( topology.getName() );
+        internalUndeploy( topology );
+      }
     }
 
-    private void handleCreateDeployment(Topology topology, File deployDir) {
+    private boolean handleCreateDeployment(Topology topology, File deployDir) {
       try {
+        boolean deployed;
         File warDir = calculateDeploymentDir( topology );
-        if( !warDir.exists() ) {
+        // The current deployment keeps serving until the new one has been built and started (KNOX-152).
+        if( config.isDeploymentInMemory() ) {
           auditor.audit( Action.DEPLOY, topology.getName(), ResourceType.TOPOLOGY, ActionOutcome.UNAVAILABLE );
-          log.deployingTopology( topology.getName(), warDir.getAbsolutePath() );
-          internalUndeploy( topology ); // KNOX-152
-          WebArchive war = null;
-          war = DeploymentFactory.createDeployment( config, topology );
-          if( !deployDir.exists() ) {
-            deployDir.mkdirs();
-          }
-          File tmp = war.as( ExplodedExporter.class ).exportExploded( deployDir, warDir.getName() + ".tmp" );
-          tmp.renameTo( warDir );
-          internalDeploy( topology, warDir );
-          //log.deployedTopology( topology.getName());
-          if (topology.getName().equals(config.getDefaultTopologyName())) {
-            topology.setName("_default");
-            handleCreateDeployment(topology, deployDir);
-            topology.setName(config.getDefaultTopologyName());
+          log.deployingTopologyInMemory( topology.getName() );
+          DeploymentContext deployment = DeploymentFactory.createDeploymentContext( config, topology );
+          if( config.isDeploymentExported() && !warDir.exists() ) {
+            // The exported archive is only written for inspection, the context is served from memory.
+            exportDeployment( deployment.getWebArchive(), deployDir, warDir );
           }
+          deployed = internalDeploy( topology, deployment );
+        } else if( !warDir.exists() ) {
+          auditor.audit( Action.DEPLOY, topology.getName(), ResourceType.TOPOLOGY, ActionOutcome.UNAVAILABLE );
+          log.deployingTopology( topology.getName(), warDir.getAbsolutePath() );
+          WebArchive war = DeploymentFactory.createDeployment( config, topology );
+          exportDeployment( war, deployDir, warDir );
+          deployed = internalDeploy( topology, warDir );
         } else {
+          // The deployment is named by its fingerprint so an existing one was generated from the same content.
           auditor.audit( Action.REDEPLOY, topology.getName(), ResourceType.TOPOLOGY, ActionOutcome.UNAVAILABLE );
           log.redeployingTopology( topology.getName(), warDir.getAbsolutePath() );
-          internalDeploy( topology, warDir );
+          deployed = internalDeploy( topology, warDir );
           //log.redeployedTopology( topology.getName() );
         }
+        if( deployed ) {
+          deleteStaleDeployments( topology.getName(), deployDir, warDir );
+        }
+        if( topology.getName().equals( config.getDefaultTopologyName() ) ) {
+          // The monitor's topology is shared with other deployer threads and the admin API so it must keep its name.
+          handleCreateDeployment( copyTopology( topology, "_default" ), deployDir );
+        }
+        return deployed;
       } catch( Throwable e ) {
         auditor.audit( Action.DEPLOY, topology.getName(), ResourceType.TOPOLOGY, ActionOutcome.FAILURE );
         log.failedToDeployTopology( topology.getName(), e );
+        return false;
       }
     }
 
   }
 
+  private static Topology copyTopology( Topology topology, String name ) {
+    Topology copy = new Topology();
+    copy.setName( name );
+    copy.setUri( topology.getUri() );
+    copy.setTimestamp( topology.getTimestamp() );
+    for( Provider provider : topology.getProviders() ) {
+      copy.addProvider( provider );
+    }
+    for( Service service : topology.getServices() ) {
+      copy.addService( service );
+    }
+    return copy;
+  }
+
+  // Removes the earlier deployments of a topology and any export that was interrupted.
+  private void deleteStaleDeployments( String topologyName, File deployDir, File warDir ) {
+    File[] files = deployDir.listFiles( new WarDirFilter( Pattern.quote( topologyName ) + "\\.war\\.[0-9A-Fa-f]+(\\.tmp)?" ) );
+    if( files != null ) {
+      for( File file : files ) {
+        if( !file.equals( warDir ) ) {
+          log.deletingStaleDeployment( file.getAbsolutePath() );
+          FileUtils.deleteQuietly( file );
+        }
+      }
+    }
+  }
+
+  // Removes the deployments left behind by topologies that were deleted while the gateway was not running.
+  private void deleteOrphanedDeployments( File deployDir ) {
+    Set<String> names = new HashSet<String>();
+    for( Topology topology : monitor.getTopologies() ) {
+      names.add( topology.getName() );
+      if( topology.getName().equals( config.getDefaultTopologyName() ) ) {
+        names.add( "_default" );
+      }
+    }
+    Pattern pattern = Pattern.compile( "(.+)\\.war\\.[0-9A-Fa-f]+(\\.tmp)?" );
+    File[] files = deployDir.listFiles();
+    if( files != null ) {
+      for( File file : files ) {
+        Matcher matcher = pattern.matcher( file.getName() );
+        if( matcher.matches() && !names.contains( matcher.group( 1 ) ) ) {
+          log.deletingStaleDeployment( file.getAbsolutePath() );
+          FileUtils.deleteQuietly( file );
+        }
+      }
+    }
+  }
+
+  private static void exportDeployment( WebArchive war, File deployDir, File warDir ) {
+    if( !deployDir.exists() ) {
+      deployDir.mkdirs();
+    }
+    File tmp = war.as( ExplodedExporter.class ).exportExploded( deployDir, warDir.getName() + ".tmp" );
+    tmp.renameTo( warDir );
+  }
+
   private static File calculateAbsoluteTopologiesDir( GatewayConfig config ) {
     File topoDir = new File( config.getGatewayTopologyDir() );
     topoDir = topoDir.getAbsoluteFile();
@@ -475,7 +749,7 @@ public class GatewayServer {
   }
 
   private String calculateDeploymentName( Topology topology ) {
-    String name = topology.getName() + ".war." + Long.toHexString( topology.getTimestamp() );
+    String name = topology.getName() + ".war." + DeploymentFingerprint.calculate( config, topology );
     return name;
   }
 
@@ -499,7 +773,7 @@ public class GatewayServer {
     }
   }
 
-  public URI getFrontendUri( WebAppContext context, GatewayConfig config ) {
+  public URI getFrontendUri( ContextHandler context, GatewayConfig config ) {
     URI frontendUri = null;
     String frontendStr = config.getFrontendUrl();
     if( frontendStr != null && !frontendStr.trim().isEmpty() ) {
@@ -51,6 +51,7 @@ public class GatewayServlet implements Servlet {
 
   public static final String GATEWAY_DESCRIPTOR_LOCATION_DEFAULT = "gateway.xml";
   public static final String GATEWAY_DESCRIPTOR_LOCATION_PARAM = "gatewayDescriptorLocation";
+  public static final String GATEWAY_DESCRIPTOR_ATTRIBUTE = "org.apache.hadoop.gateway.descriptor";
 
   private static final GatewayResources res = ResourcesFactory.get( GatewayResources.class );
   private static final GatewayMessages LOG = MessagesFactory.get( GatewayMessages.class );
@@ -156,6 +157,11 @@ public class GatewayServlet implements Servlet {
   private static GatewayFilter createFilter( ServletConfig servletConfig ) throws ServletException {
     GatewayFilter filter = null;
     try {
+      // A context deployed in memory provides the descriptor itself instead of a gateway.xml to parse.
+      Object attribute = servletConfig.getServletContext().getAttribute( GATEWAY_DESCRIPTOR_ATTRIBUTE );
+      if( attribute instanceof GatewayDescriptor ) {
+        return GatewayFactory.create( (GatewayDescriptor)attribute );
+      }
       InputStream stream = null;
       String location = servletConfig.getInitParameter( GATEWAY_DESCRIPTOR_LOCATION_PARAM );
       if( location != null ) {
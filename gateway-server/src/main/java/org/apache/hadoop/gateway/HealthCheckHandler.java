@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway;
+
+import org.apache.hadoop.gateway.audit.api.AuditService;
+import org.apache.hadoop.gateway.audit.api.AuditServiceFactory;
+import org.apache.hadoop.gateway.deploy.DeploymentStatus;
+import org.apache.hadoop.gateway.deploy.DeploymentStatusRegistry;
+import org.apache.hadoop.gateway.deploy.GatewayShutdown;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Answers liveness and readiness checks ahead of the topologies so they bypass the gateway filter chain,
+ * which means they are neither authenticated, audited nor dispatched to a backend.
+ * <ul>
+ *   <li>{@code <path>/live} succeeds as long as the server can process requests.</li>
+ *   <li>{@code <path>/ready} succeeds once the topologies present at startup are deployed
+ *   and fails while the gateway shuts down, the server is running low on threads
+ *   or the audit events are not forwarded fast enough.</li>
+ * </ul>
+ * The checks are not authenticated so they only answer whether the gateway is live or ready.
+ * A topology that fails to deploy does not make the whole gateway unready, it is logged
+ * and reported with the other details by the deployments resource of the admin API.
+ * Every other request is passed on to the wrapped handler.
+ */
+public class HealthCheckHandler extends HandlerWrapper {
+
+  private static GatewayMessages log = MessagesFactory.get( GatewayMessages.class );
+
+  private static final String CONTENT_TYPE = "application/json";
+
+  private final String livePath;
+  private final String readyPath;
+  private final long maxAuditBacklog;
+  private final AuditService auditService = AuditServiceFactory.getAuditService();
+  private volatile boolean ready = false;
+  private volatile List<String> topologiesNotReady = new ArrayList<String>();
+
+  /**
+   * @param path The path under which the checks are answered
+   * @param maxAuditBacklog The audit backlog above which the gateway is not ready or a negative value to ignore it
+   */
+  public HealthCheckHandler( String path, long maxAuditBacklog ) {
+    String base = path.startsWith( "/" ) ? path : "/" + path;
+    while( base.endsWith( "/" ) ) {
+      base = base.substring( 0, base.length() - 1 );
+    }
+    this.livePath = base + "/live";
+    this.readyPath = base + "/ready";
+    this.maxAuditBacklog = maxAuditBacklog;
+  }
+
+  @Override
+  public void handle( String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response )
+      throws IOException, ServletException {
+    if( livePath.equals( target ) ) {
+      baseRequest.setHandled( true );
+      respond( response, HttpServletResponse.SC_OK, "{\"live\":true}" );
+    } else if( readyPath.equals( target ) ) {
+      baseRequest.setHandled( true );
+      Readiness readiness = getReadiness();
+      respond( response,
+          readiness.isReady() ? HttpServletResponse.SC_OK : HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+          "{\"ready\":" + readiness.isReady() + "}" );
+    } else {
+      super.handle( target, baseRequest, request, response );
+    }
+  }
+
+  Readiness getReadiness() {
+    Readiness readiness = new Readiness();
+    readiness.shuttingDown = GatewayShutdown.isShuttingDown();
+    readiness.started = DeploymentStatusRegistry.getStartupDeployTime() >= 0;
+    for( DeploymentStatus status : DeploymentStatusRegistry.getStatuses() ) {
+      if( !status.isReady() && status.getState() != DeploymentStatus.State.UNDEPLOYED ) {
+        readiness.topologiesNotReady.add( status.getTopology() );
+      }
+    }
+    Collections.sort( readiness.topologiesNotReady );
+    ThreadPool threadPool = getServer() == null ? null : getServer().getThreadPool();
+    if( threadPool != null ) {
+      readiness.threads = threadPool.getThreads();
+      readiness.idleThreads = threadPool.getIdleThreads();
+      readiness.lowOnThreads = threadPool.isLowOnThreads();
+    }
+    readiness.auditBacklog = auditService.getBacklog();
+    readiness.auditBacklogExceeded = maxAuditBacklog >= 0 && readiness.auditBacklog > maxAuditBacklog;
+    boolean isReady = readiness.isReady();
+    if( isReady != ready ) {
+      ready = isReady;
+      log.gatewayReadinessChanged( isReady, readiness.toJson() );
+    }
+    if( !readiness.topologiesNotReady.equals( topologiesNotReady ) ) {
+      topologiesNotReady = readiness.topologiesNotReady;
+      if( !topologiesNotReady.isEmpty() ) {
+        log.topologiesNotServed( topologiesNotReady.toString() );
+      }
+    }
+    return readiness;
+  }
+
+  private static void respond( HttpServletResponse response, int status, String body ) throws IOException {
+    response.setStatus( status );
+    response.setContentType( CONTENT_TYPE );
+    response.setHeader( "Cache-Control", "no-store" );
+    response.getWriter().write( body );
+  }
+
+  static class Readiness {
+
+    private boolean shuttingDown;
+    private boolean started;
+    private final List<String> topologiesNotReady = new ArrayList<String>();
+    private int threads;
+    private int idleThreads;
+    private boolean lowOnThreads;
+    private long auditBacklog;
+    private boolean auditBacklogExceeded;
+
+    boolean isReady() {
+      return !shuttingDown && started && !lowOnThreads && !auditBacklogExceeded;
+    }
+
+    List<String> getTopologiesNotReady() {
+      return topologiesNotReady;
+    }
+
+    // The details are only logged, the readiness check itself only answers whether the gateway is ready.
+    String toJson() {
+      StringBuilder json = new StringBuilder();
+      json.append( "{\"ready\":" ).append( isReady() );
+      json.append( ",\"shuttingDown\":" ).append( shuttingDown );
+      json.append( ",\"started\":" ).append( started );
+      json.append( ",\"topologiesNotReady\":[" );
+      for( int i = 0; i < topologiesNotReady.size(); i++ ) {
+        if( i > 0 ) {
+          json.append( ',' );
+        }
+        json.append( '"' ).append( escape( topologiesNotReady.get( i ) ) ).append( '"' );
+      }
+      json.append( "],\"threads\":" ).append( threads );
+      json.append( ",\"idleThreads\":" ).append( idleThreads );
+      json.append( ",\"lowOnThreads\":" ).append( lowOnThreads );
+      json.append( ",\"auditBacklog\":" ).append( auditBacklog );
+      json.append( '}' );
+      return json.toString();
+    }
+
+    private static String escape( String value ) {
+      return value.replace( "\\", "\\\\" ).replace( "\"", "\\\"" );
+    }
+
+  }
+
+}
@@ -0,0 +1,329 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway;
+
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.eclipse.jetty.http.HttpHeaderValues;
+import org.eclipse.jetty.http.HttpHeaders;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandlerContainer;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.eclipse.jetty.server.handler.StatisticsHandler;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Tracks the context deployed for each topology in the gateway's context handler collection.
+ * Each topology is registered in the collection once, through a handler that delegates to its current context.
+ * A new context is started off to the side and then swapped in by replacing that delegate,
+ * so the collection is never remapped during a redeploy and requests never see a topology without a context.
+ * The context it replaces keeps serving the requests it has already accepted and is stopped once they complete
+ * or the drain timeout elapses, whichever happens first.
+ * Each context is wrapped in a {@link StatisticsHandler} which provides the count of active requests.
+ * When the gateway shuts down every topology rejects new requests and the gateway waits for the active ones to complete.
+ */
+public class TopologyContexts {
+
+  private static GatewayMessages log = MessagesFactory.get( GatewayMessages.class );
+
+  static final long DRAIN_POLL_INTERVAL = 100;
+
+  private final ContextHandlerCollection contexts;
+  private final long drainTimeout;
+  private final Map<String, TopologyHandler> topologies = new ConcurrentHashMap<String, TopologyHandler>();
+  private final Map<StatisticsHandler, String> retiring = new ConcurrentHashMap<StatisticsHandler, String>();
+  private final ExecutorService drainer;
+
+  public TopologyContexts( ContextHandlerCollection contexts, long drainTimeout ) {
+    this.contexts = contexts;
+    this.drainTimeout = drainTimeout;
+    this.drainer = Executors.newCachedThreadPool( new ThreadFactory() {
+      @Override
+      public Thread newThread( Runnable runnable ) {
+        Thread thread = new Thread( runnable, "gateway-deployment-drainer" );
+        thread.setDaemon( true );
+        return thread;
+      }
+    } );
+  }
+
+  /**
+   * @return The context currently serving the topology or null if the topology is not deployed.
+   */
+  public ContextHandler get( String name ) {
+    TopologyHandler topology = topologies.get( name );
+    StatisticsHandler handler = topology == null ? null : topology.current;
+    return handler == null ? null : (ContextHandler)handler.getHandler();
+  }
+
+  /**
+   * @return The number of requests the topology's current context is processing.
+   */
+  public int getActiveRequests( String name ) {
+    TopologyHandler topology = topologies.get( name );
+    StatisticsHandler handler = topology == null ? null : topology.current;
+    return handler == null ? 0 : handler.getRequestsActive();
+  }
+
+  /**
+   * @return The number of requests each topology is processing, including those of contexts still draining.
+   * Topologies without any active request are omitted.
+   */
+  public Map<String, Integer> getActiveRequests() {
+    Map<String, Integer> requests = new HashMap<String, Integer>();
+    for( Map.Entry<String, TopologyHandler> entry : topologies.entrySet() ) {
+      StatisticsHandler handler = entry.getValue().current;
+      addActiveRequests( requests, entry.getKey(), handler == null ? 0 : handler.getRequestsActive() );
+    }
+    for( Map.Entry<StatisticsHandler, String> entry : retiring.entrySet() ) {
+      addActiveRequests( requests, entry.getValue(), entry.getKey().getRequestsActive() );
+    }
+    return requests;
+  }
+
+  /**
+   * Makes every topology answer new requests with 503 Service Unavailable while its context completes the active ones.
+   */
+  public void shutdown() {
+    for( TopologyHandler topology : topologies.values() ) {
+      topology.shutdown = true;
+    }
+  }
+
+  /**
+   * Waits for the active requests of every topology to complete.
+   *
+   * @return The number of requests each topology is still processing when the wait ended
+   */
+  public Map<String, Integer> awaitIdle( long timeout ) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeout;
+    Map<String, Integer> requests = getActiveRequests();
+    while( !requests.isEmpty() && System.currentTimeMillis() < deadline ) {
+      Thread.sleep( DRAIN_POLL_INTERVAL );
+      requests = getActiveRequests();
+    }
+    return requests;
+  }
+
+  /**
+   * Starts the context and swaps it in for the topology's current context, which is then drained and stopped.
+   * If the topology is already deployed and the new context fails to start the current context is left in place.
+   * Contexts are started without holding any lock so different topologies can be deployed in parallel.
+   * The caller is expected to serialize deployments of the same topology.
+   *
+   * @return true if the new context now serves the topology
+   * @throws Exception if the context failed to start
+   */
+  public boolean deploy( String name, ContextHandler context ) throws Exception {
+    StatisticsHandler handler = new StatisticsHandler();
+    handler.setHandler( context );
+    handler.setServer( contexts.getServer() );
+    Exception failure = null;
+    try {
+      handler.start();
+    } catch( Exception e ) {
+      failure = e;
+    }
+    StatisticsHandler previous = null;
+    synchronized( this ) {
+      TopologyHandler topology = topologies.get( name );
+      if( topology == null ) {
+        topology = new TopologyHandler( handler );
+        topology.setServer( contexts.getServer() );
+        topology.start();
+        contexts.addHandler( topology );
+        topologies.put( name, topology );
+      } else if( failure != null || !context.isAvailable() ) {
+        log.keptPreviousDeployment( name );
+        stopQuietly( name, handler );
+        if( failure != null ) {
+          throw failure;
+        }
+        return false;
+      } else {
+        previous = topology.current;
+        topology.current = handler;
+      }
+    }
+    if( previous != null ) {
+      retire( name, previous );
+    }
+    if( failure != null ) {
+      throw failure;
+    }
+    return true;
+  }
+
+  /**
+   * Removes the topology from the collection and stops its context once its active requests have drained.
+   *
+   * @return true if the topology was deployed
+   */
+  public synchronized boolean undeploy( String name ) {
+    TopologyHandler topology = topologies.remove( name );
+    if( topology == null ) {
+      return false;
+    }
+    // Detach the context first so removing the topology from the collection does not stop it mid request.
+    StatisticsHandler previous = topology.current;
+    topology.current = null;
+    contexts.removeHandler( topology );
+    stopQuietly( name, topology );
+    if( previous != null ) {
+      retire( name, previous );
+    }
+    return true;
+  }
+
+  /**
+   * Stops the drainer and any context that is still draining.
+   */
+  public void stop() {
+    drainer.shutdownNow();
+    for( StatisticsHandler handler : retiring.keySet() ) {
+      stopQuietly( null, handler );
+    }
+    retiring.clear();
+  }
+
+  private void retire( final String name, final StatisticsHandler handler ) {
+    retiring.put( handler, name );
+    final long deadline = System.currentTimeMillis() + drainTimeout;
+    drainer.execute( new Runnable() {
+      @Override
+      public void run() {
+        try {
+          // Wait at least one interval so requests that picked the old context just before the swap are counted.
+          do {
+            Thread.sleep( DRAIN_POLL_INTERVAL );
+          } while( handler.getRequestsActive() > 0 && System.currentTimeMillis() < deadline );
+          int active = handler.getRequestsActive();
+          if( active > 0 ) {
+            log.deploymentDrainTimedOut( name, active );
+          }
+        } catch( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+        } finally {
+          stopQuietly( name, handler );
+          retiring.remove( handler );
+        }
+      }
+    } );
+  }
+
+  private static void addActiveRequests( Map<String, Integer> requests, String name, int active ) {
+    if( active > 0 ) {
+      Integer count = requests.get( name );
+      requests.put( name, count == null ? active : count + active );
+    }
+  }
+
+  private static void stopQuietly( String name, Handler handler ) {
+    try {
+      handler.stop();
+    } catch( Exception e ) {
+      log.failedToUndeployTopology( name, e );
+    }
+  }
+
+  /**
+   * Waits for the contexts that were replaced or undeployed to be stopped.
+   *
+   * @return true if no context is still draining
+   */
+  boolean awaitDrained( long timeout ) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeout;
+    while( !retiring.isEmpty() && System.currentTimeMillis() < deadline ) {
+      Thread.sleep( 10 );
+    }
+    return retiring.isEmpty();
+  }
+
+  /**
+   * The collection maps the topology's context path to this handler when it is added,
+   * which holds as long as every context swapped in for the topology has the same path.
+   */
+  private static class TopologyHandler extends AbstractHandlerContainer {
+
+    private volatile StatisticsHandler current;
+    private volatile boolean shutdown;
+
+    private TopologyHandler( StatisticsHandler current ) {
+      this.current = current;
+    }
+
+    @Override
+    public void handle( String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response )
+        throws IOException, ServletException {
+      if( shutdown ) {
+        // Close the connection as well so a client that keeps it alive reconnects to another gateway.
+        baseRequest.setHandled( true );
+        response.setHeader( HttpHeaders.CONNECTION, HttpHeaderValues.CLOSE );
+        response.sendError( HttpServletResponse.SC_SERVICE_UNAVAILABLE );
+        return;
+      }
+      StatisticsHandler handler = current;
+      if( handler != null && handler.isStarted() ) {
+        handler.handle( target, baseRequest, request, response );
+      }
+    }
+
+    @Override
+    public Handler[] getHandlers() {
+      StatisticsHandler handler = current;
+      return handler == null ? new Handler[ 0 ] : new Handler[]{ handler };
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    protected Object expandChildren( Object list, Class<?> byClass ) {
+      return expandHandler( current, list, (Class<Handler>)byClass );
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+      StatisticsHandler handler = current;
+      if( handler != null ) {
+        handler.start();
+      }
+      super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+      super.doStop();
+      StatisticsHandler handler = current;
+      if( handler != null ) {
+        handler.stop();
+      }
+    }
+
+  }
+
+}
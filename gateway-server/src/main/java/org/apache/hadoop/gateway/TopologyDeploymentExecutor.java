@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway;
+
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs topology deployment tasks on a bounded pool of threads.
+ * Tasks for the same topology run one at a time in the order they were submitted
+ * while tasks for different topologies run in parallel.
+ * After each task the topology's next task goes to the back of the pool's queue
+ * so a topology with many pending events cannot hold a thread at the expense of the others.
+ */
+public class TopologyDeploymentExecutor {
+
+  private static GatewayMessages log = MessagesFactory.get( GatewayMessages.class );
+
+  private final ExecutorService executor;
+  private final Map<String, LinkedList<Runnable>> queues = new HashMap<String, LinkedList<Runnable>>();
+
+  public TopologyDeploymentExecutor( int threads ) {
+    final AtomicInteger count = new AtomicInteger();
+    executor = Executors.newFixedThreadPool( Math.max( 1, threads ), new ThreadFactory() {
+      @Override
+      public Thread newThread( Runnable runnable ) {
+        Thread thread = new Thread( runnable, "gateway-deployer-" + count.incrementAndGet() );
+        thread.setDaemon( true );
+        return thread;
+      }
+    } );
+  }
+
+  /**
+   * Queues a task behind the topology's pending tasks.
+   *
+   * @return false if the executor has been shut down and the task was discarded
+   */
+  public boolean execute( String topology, Runnable task ) {
+    boolean idle;
+    synchronized( queues ) {
+      LinkedList<Runnable> queue = queues.get( topology );
+      idle = queue == null;
+      if( idle ) {
+        queue = new LinkedList<Runnable>();
+        queues.put( topology, queue );
+      }
+      queue.add( task );
+    }
+    if( idle ) {
+      try {
+        executor.execute( new Worker( topology ) );
+      } catch( RejectedExecutionException e ) {
+        synchronized( queues ) {
+          queues.remove( topology );
+        }
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Stops accepting tasks and interrupts the running ones.  Tasks still queued are discarded.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+    synchronized( queues ) {
+      queues.clear();
+    }
+  }
+
+  private class Worker implements Runnable {
+
+    private final String topology;
+
+    private Worker( String topology ) {
+      this.topology = topology;
+    }
+
+    @Override
+    public void run() {
+      Runnable task;
+      synchronized( queues ) {
+        LinkedList<Runnable> queue = queues.get( topology );
+        task = queue == null ? null : queue.peek();
+      }
+      if( task == null ) {
+        return;
+      }
+      try {
+        task.run();
+      } catch( RuntimeException e ) {
+        log.failedToDeployTopology( topology, e );
+      } finally {
+        boolean more;
+        synchronized( queues ) {
+          LinkedList<Runnable> queue = queues.get( topology );
+          if( queue != null ) {
+            queue.poll();
+          }
+          more = queue != null && !queue.isEmpty();
+          if( queue != null && !more ) {
+            queues.remove( topology );
+          }
+        }
+        if( more ) {
+          try {
+            executor.execute( this );
+          } catch( RejectedExecutionException e ) {
+            // The executor has been shut down and the queued tasks are discarded.
+          }
+        }
+      }
+    }
+
+  }
+
+}
@@ -103,14 +103,61 @@ public class GatewayConfigImpl extends Configuration implements GatewayConfig {
   public static final String HADOOP_CONF_DIR = GATEWAY_CONFIG_FILE_PREFIX + ".hadoop.conf.dir";
 //  public static final String SHIRO_CONFIG_FILE = GATEWAY_CONFIG_FILE_PREFIX + ".shiro.config.file";
   public static final String FRONTEND_URL = GATEWAY_CONFIG_FILE_PREFIX + ".frontend.url";
+  public static final String TOKEN_LIFETIME = GATEWAY_CONFIG_FILE_PREFIX + ".token.lifetime";
+  public static final String TOKEN_SESSION_STORE_PERSISTENT = GATEWAY_CONFIG_FILE_PREFIX + ".token.session.store.persistent";
+  public static final String DEPLOYMENT_DRAIN_TIMEOUT = GATEWAY_CONFIG_FILE_PREFIX + ".deployment.drain.timeout";
+  public static final String SHUTDOWN_TIMEOUT = GATEWAY_CONFIG_FILE_PREFIX + ".shutdown.timeout";
+  public static final String SHUTDOWN_DEREGISTRATION_DELAY = GATEWAY_CONFIG_FILE_PREFIX + ".shutdown.deregistration.delay";
+  public static final String HEALTH_CHECK_ENABLED = GATEWAY_CONFIG_FILE_PREFIX + ".health.enabled";
+  public static final String HEALTH_CHECK_PATH = GATEWAY_CONFIG_FILE_PREFIX + ".health.path";
+  public static final String HEALTH_CHECK_MAX_AUDIT_BACKLOG = GATEWAY_CONFIG_FILE_PREFIX + ".health.max.audit.backlog";
+  public static final String DEPLOYMENT_THREADS = GATEWAY_CONFIG_FILE_PREFIX + ".deployment.threads";
+  public static final String DEPLOYMENT_IN_MEMORY = GATEWAY_CONFIG_FILE_PREFIX + ".deployment.in.memory";
+  public static final String DEPLOYMENT_EXPORT = GATEWAY_CONFIG_FILE_PREFIX + ".deployment.export";
+  public static final String TOPOLOGY_MONITOR_INTERVAL = GATEWAY_CONFIG_FILE_PREFIX + ".topology.monitor.interval";
+  public static final String TOPOLOGY_MONITOR_SETTLE_TIME = GATEWAY_CONFIG_FILE_PREFIX + ".topology.monitor.settle.time";
+  public static final String HTTP_SERVER_MIN_THREADS = GATEWAY_CONFIG_FILE_PREFIX + ".httpserver.threads.min";
+  public static final String HTTP_SERVER_MAX_THREADS = GATEWAY_CONFIG_FILE_PREFIX + ".httpserver.threads.max";
+  public static final String HTTP_SERVER_MAX_QUEUED = GATEWAY_CONFIG_FILE_PREFIX + ".httpserver.threads.queue";
+  public static final String HTTP_SERVER_ACCEPTORS = GATEWAY_CONFIG_FILE_PREFIX + ".httpserver.acceptors";
+  public static final String HTTP_SERVER_ACCEPT_QUEUE_SIZE = GATEWAY_CONFIG_FILE_PREFIX + ".httpserver.accept.queue.size";
+  public static final String HTTP_SERVER_IDLE_TIMEOUT = GATEWAY_CONFIG_FILE_PREFIX + ".httpserver.idle.timeout";
+  public static final String HTTP_SERVER_REQUEST_HEADER_BUFFER = GATEWAY_CONFIG_FILE_PREFIX + ".httpserver.request.header.buffer";
+  public static final String HTTP_SERVER_RESPONSE_HEADER_BUFFER = GATEWAY_CONFIG_FILE_PREFIX + ".httpserver.response.header.buffer";
+  public static final String HTTP_SERVER_REQUEST_BUFFER = GATEWAY_CONFIG_FILE_PREFIX + ".httpserver.request.buffer";
+  public static final String HTTP_SERVER_RESPONSE_BUFFER = GATEWAY_CONFIG_FILE_PREFIX + ".httpserver.response.buffer";
+  public static final String HTTP_SERVER_SO_LINGER_TIME = GATEWAY_CONFIG_FILE_PREFIX + ".httpserver.so.linger.time";
+  public static final String HTTP_SERVER_STATS_ON = GATEWAY_CONFIG_FILE_PREFIX + ".httpserver.stats.on";
 
   public static final String DEFAULT_HTTP_PORT = "8888";
   public static final String DEFAULT_HTTP_PATH = "gateway";
   public static final String DEFAULT_DEPLOYMENT_DIR = "deployments";
   public static final String DEFAULT_SECURITY_DIR = "security";
   public static final String DEFAULT_DATA_DIR = "data";
+  public static final long DEFAULT_TOKEN_LIFETIME = 30000;
+  public static final long DEFAULT_DEPLOYMENT_DRAIN_TIMEOUT = 30000;
+  public static final long DEFAULT_SHUTDOWN_TIMEOUT = 30000;
+  public static final long DEFAULT_SHUTDOWN_DEREGISTRATION_DELAY = 5000;
+  public static final String DEFAULT_HEALTH_CHECK_PATH = "/health";
+  public static final long DEFAULT_HEALTH_CHECK_MAX_AUDIT_BACKLOG = 10000;
+  public static final int DEFAULT_DEPLOYMENT_THREADS = Math.min( 8, Runtime.getRuntime().availableProcessors() );
+  public static final long DEFAULT_TOPOLOGY_MONITOR_INTERVAL = 1000;
+  public static final long DEFAULT_TOPOLOGY_MONITOR_SETTLE_TIME = 1000;
+  // The thread pool defaults are the ones Jetty uses when nothing is configured.
+  public static final int DEFAULT_HTTP_SERVER_MIN_THREADS = 8;
+  public static final int DEFAULT_HTTP_SERVER_MAX_THREADS = 254;
+  public static final int DEFAULT_HTTP_SERVER_MAX_QUEUED = -1;
+  // Connector settings that are not configured keep the connector's own default, which differs between
+  // the plain and the SSL connectors.
+  public static final int HTTP_SERVER_CONNECTOR_DEFAULT = -1;
   private static final String SSL_ENABLED = "ssl.enabled";
   private static final String SSL_EXCLUDE_PROTOCOLS = "ssl.exclude.protocols";
+  private static final String SSL_SESSION_CACHE_SIZE = "ssl.session.cache.size";
+  private static final String SSL_SESSION_TIMEOUT = "ssl.session.timeout";
+  private static final String SSL_INCLUDE_CIPHERS = "ssl.include.ciphers";
+  private static final String SSL_EXCLUDE_CIPHERS = "ssl.exclude.ciphers";
+  private static final String SSL_SERVER_CIPHER_ORDER = "ssl.server.cipher.order";
+  private static final String SSL_RENEGOTIATION_ALLOWED = "ssl.renegotiation.allowed";
 //  public static final String DEFAULT_SHIRO_CONFIG_FILE = "shiro.ini";
 
   public GatewayConfigImpl() {
@@ -370,4 +417,261 @@ public class GatewayConfigImpl extends Configuration implements GatewayConfig {
     return protocols;
   }
   
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getDefaultTokenLifetime()
+   */
+  @Override
+  public long getDefaultTokenLifetime() {
+    return getLong( TOKEN_LIFETIME, DEFAULT_TOKEN_LIFETIME );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#isTokenSessionStorePersistent()
+   */
+  @Override
+  public boolean isTokenSessionStorePersistent() {
+    return getBoolean( TOKEN_SESSION_STORE_PERSISTENT, false );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getDeploymentDrainTimeout()
+   */
+  @Override
+  public long getDeploymentDrainTimeout() {
+    return getLong( DEPLOYMENT_DRAIN_TIMEOUT, DEFAULT_DEPLOYMENT_DRAIN_TIMEOUT );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getDeploymentThreads()
+   */
+  @Override
+  public int getDeploymentThreads() {
+    return getInt( DEPLOYMENT_THREADS, DEFAULT_DEPLOYMENT_THREADS );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#isDeploymentInMemory()
+   */
+  @Override
+  public boolean isDeploymentInMemory() {
+    return getBoolean( DEPLOYMENT_IN_MEMORY, false );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#isDeploymentExported()
+   */
+  @Override
+  public boolean isDeploymentExported() {
+    return getBoolean( DEPLOYMENT_EXPORT, false );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getTopologyMonitorInterval()
+   */
+  @Override
+  public long getTopologyMonitorInterval() {
+    return getLong( TOPOLOGY_MONITOR_INTERVAL, DEFAULT_TOPOLOGY_MONITOR_INTERVAL );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getTopologyMonitorSettleTime()
+   */
+  @Override
+  public long getTopologyMonitorSettleTime() {
+    return getLong( TOPOLOGY_MONITOR_SETTLE_TIME, DEFAULT_TOPOLOGY_MONITOR_SETTLE_TIME );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getHttpServerMinThreads()
+   */
+  @Override
+  public int getHttpServerMinThreads() {
+    return getInt( HTTP_SERVER_MIN_THREADS, DEFAULT_HTTP_SERVER_MIN_THREADS );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getHttpServerMaxThreads()
+   */
+  @Override
+  public int getHttpServerMaxThreads() {
+    return getInt( HTTP_SERVER_MAX_THREADS, DEFAULT_HTTP_SERVER_MAX_THREADS );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getHttpServerMaxQueued()
+   */
+  @Override
+  public int getHttpServerMaxQueued() {
+    return getInt( HTTP_SERVER_MAX_QUEUED, DEFAULT_HTTP_SERVER_MAX_QUEUED );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getHttpServerAcceptors()
+   */
+  @Override
+  public int getHttpServerAcceptors() {
+    return getInt( HTTP_SERVER_ACCEPTORS, HTTP_SERVER_CONNECTOR_DEFAULT );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getHttpServerAcceptQueueSize()
+   */
+  @Override
+  public int getHttpServerAcceptQueueSize() {
+    return getInt( HTTP_SERVER_ACCEPT_QUEUE_SIZE, HTTP_SERVER_CONNECTOR_DEFAULT );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getHttpServerIdleTimeout()
+   */
+  @Override
+  public int getHttpServerIdleTimeout() {
+    return getInt( HTTP_SERVER_IDLE_TIMEOUT, HTTP_SERVER_CONNECTOR_DEFAULT );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getHttpServerRequestHeaderBuffer()
+   */
+  @Override
+  public int getHttpServerRequestHeaderBuffer() {
+    return getInt( HTTP_SERVER_REQUEST_HEADER_BUFFER, HTTP_SERVER_CONNECTOR_DEFAULT );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getHttpServerResponseHeaderBuffer()
+   */
+  @Override
+  public int getHttpServerResponseHeaderBuffer() {
+    return getInt( HTTP_SERVER_RESPONSE_HEADER_BUFFER, HTTP_SERVER_CONNECTOR_DEFAULT );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getHttpServerRequestBuffer()
+   */
+  @Override
+  public int getHttpServerRequestBuffer() {
+    return getInt( HTTP_SERVER_REQUEST_BUFFER, HTTP_SERVER_CONNECTOR_DEFAULT );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getHttpServerResponseBuffer()
+   */
+  @Override
+  public int getHttpServerResponseBuffer() {
+    return getInt( HTTP_SERVER_RESPONSE_BUFFER, HTTP_SERVER_CONNECTOR_DEFAULT );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getHttpServerSoLingerTime()
+   */
+  @Override
+  public int getHttpServerSoLingerTime() {
+    return getInt( HTTP_SERVER_SO_LINGER_TIME, HTTP_SERVER_CONNECTOR_DEFAULT );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#isHttpServerStatsOn()
+   */
+  @Override
+  public boolean isHttpServerStatsOn() {
+    return getBoolean( HTTP_SERVER_STATS_ON, false );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getSSLSessionCacheSize()
+   */
+  @Override
+  public int getSSLSessionCacheSize() {
+    return getInt( SSL_SESSION_CACHE_SIZE, -1 );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getSSLSessionTimeout()
+   */
+  @Override
+  public int getSSLSessionTimeout() {
+    return getInt( SSL_SESSION_TIMEOUT, -1 );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getIncludedSSLCiphers()
+   */
+  @Override
+  public List<String> getIncludedSSLCiphers() {
+    return getCipherList( SSL_INCLUDE_CIPHERS );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getExcludedSSLCiphers()
+   */
+  @Override
+  public List<String> getExcludedSSLCiphers() {
+    return getCipherList( SSL_EXCLUDE_CIPHERS );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#isSSLServerCipherOrder()
+   */
+  @Override
+  public boolean isSSLServerCipherOrder() {
+    return getBoolean( SSL_SERVER_CIPHER_ORDER, false );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#isSSLRenegotiationAllowed()
+   */
+  @Override
+  public boolean isSSLRenegotiationAllowed() {
+    return getBoolean( SSL_RENEGOTIATION_ALLOWED, true );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getGatewayShutdownTimeout()
+   */
+  @Override
+  public long getGatewayShutdownTimeout() {
+    return getLong( SHUTDOWN_TIMEOUT, DEFAULT_SHUTDOWN_TIMEOUT );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getGatewayShutdownDeregistrationDelay()
+   */
+  @Override
+  public long getGatewayShutdownDeregistrationDelay() {
+    return getLong( SHUTDOWN_DEREGISTRATION_DELAY, DEFAULT_SHUTDOWN_DEREGISTRATION_DELAY );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#isHealthCheckEnabled()
+   */
+  @Override
+  public boolean isHealthCheckEnabled() {
+    return getBoolean( HEALTH_CHECK_ENABLED, true );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getHealthCheckPath()
+   */
+  @Override
+  public String getHealthCheckPath() {
+    return get( HEALTH_CHECK_PATH, DEFAULT_HEALTH_CHECK_PATH );
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.config.GatewayConfig#getHealthCheckMaxAuditBacklog()
+   */
+  @Override
+  public long getHealthCheckMaxAuditBacklog() {
+    return getLong( HEALTH_CHECK_MAX_AUDIT_BACKLOG, DEFAULT_HEALTH_CHECK_MAX_AUDIT_BACKLOG );
+  }
+
+  private List<String> getCipherList( String name ) {
+    List<String> ciphers = null;
+    String value = get( name );
+    if( value != null && value.trim().length() > 0 && !"none".equals( value.trim() ) ) {
+      ciphers = Arrays.asList( value.trim().split( "\\s*,\\s*" ) );
+    }
+    return ciphers;
+  }
+
 }
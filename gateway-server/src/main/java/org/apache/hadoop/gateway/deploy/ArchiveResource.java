@@ -0,0 +1,211 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.deploy;
+
+import org.eclipse.jetty.util.URIUtil;
+import org.eclipse.jetty.util.resource.Resource;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.Asset;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Jetty resource that serves the content of a deployment archive straight from memory.
+ * This lets a topology's context read its descriptors, for example rewrite.xml or shiro.ini,
+ * without the archive ever being exported to the file system.
+ * The URLs of the resources use a stream handler bound to the archive so they can be opened by
+ * code that only sees the URL, as the servlet context's getResource contract requires.
+ */
+public class ArchiveResource extends Resource {
+
+  private static final String PROTOCOL = "archive";
+
+  private final Archive<?> archive;
+  private final String path;
+  private final long created;
+  private final ArchiveStreamHandler handler;
+
+  public ArchiveResource( Archive<?> archive ) {
+    this( archive, "/", System.currentTimeMillis(), null );
+  }
+
+  private ArchiveResource( Archive<?> archive, String path, long created, ArchiveStreamHandler handler ) {
+    this.archive = archive;
+    this.path = path;
+    this.created = created;
+    this.handler = handler == null ? new ArchiveStreamHandler( archive ) : handler;
+  }
+
+  private Node getNode() {
+    return archive.get( path );
+  }
+
+  @Override
+  public boolean isContainedIn( Resource resource ) throws MalformedURLException {
+    return false;
+  }
+
+  @Override
+  public void release() {
+  }
+
+  @Override
+  public boolean exists() {
+    return "/".equals( path ) || archive.contains( path );
+  }
+
+  @Override
+  public boolean isDirectory() {
+    if( "/".equals( path ) ) {
+      return true;
+    }
+    Node node = getNode();
+    return node != null && node.getAsset() == null;
+  }
+
+  @Override
+  public long lastModified() {
+    return created;
+  }
+
+  @Override
+  public long length() {
+    return -1;
+  }
+
+  @Override
+  public URL getURL() {
+    try {
+      return new URL( PROTOCOL, null, -1, path, handler );
+    } catch( MalformedURLException e ) {
+      throw new IllegalArgumentException( path, e );
+    }
+  }
+
+  @Override
+  public File getFile() throws IOException {
+    return null;
+  }
+
+  @Override
+  public String getName() {
+    return path;
+  }
+
+  @Override
+  public InputStream getInputStream() throws IOException {
+    return handler.openStream( path );
+  }
+
+  @Override
+  public OutputStream getOutputStream() throws IOException, SecurityException {
+    throw new IOException( "Read only: " + path );
+  }
+
+  @Override
+  public boolean delete() throws SecurityException {
+    return false;
+  }
+
+  @Override
+  public boolean renameTo( Resource dest ) throws SecurityException {
+    return false;
+  }
+
+  @Override
+  public String[] list() {
+    Node node = getNode();
+    if( node == null || node.getAsset() != null ) {
+      return null;
+    }
+    List<String> names = new ArrayList<String>();
+    for( Node child : node.getChildren() ) {
+      String name = child.getPath().get();
+      name = name.substring( name.lastIndexOf( '/' ) + 1 );
+      names.add( child.getAsset() == null ? name + "/" : name );
+    }
+    return names.toArray( new String[ names.size() ] );
+  }
+
+  @Override
+  public Resource addPath( String relative ) throws IOException, MalformedURLException {
+    if( relative == null ) {
+      throw new MalformedURLException();
+    }
+    String canonical = URIUtil.canonicalPath( relative );
+    if( canonical == null ) {
+      throw new MalformedURLException( relative );
+    }
+    String child = URIUtil.addPaths( path, canonical );
+    if( child.length() > 1 && child.endsWith( "/" ) ) {
+      child = child.substring( 0, child.length() - 1 );
+    }
+    return new ArchiveResource( archive, child, created, handler );
+  }
+
+  @Override
+  public String toString() {
+    return PROTOCOL + ":" + archive.getName() + path;
+  }
+
+  private static class ArchiveStreamHandler extends URLStreamHandler {
+
+    private final Archive<?> archive;
+
+    private ArchiveStreamHandler( Archive<?> archive ) {
+      this.archive = archive;
+    }
+
+    private InputStream openStream( String path ) throws IOException {
+      Node node = archive.get( path );
+      Asset asset = node == null ? null : node.getAsset();
+      if( asset == null ) {
+        throw new FileNotFoundException( path );
+      }
+      return asset.openStream();
+    }
+
+    @Override
+    protected URLConnection openConnection( final URL url ) throws IOException {
+      return new URLConnection( url ) {
+        @Override
+        public void connect() throws IOException {
+          connected = true;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+          return openStream( url.getPath() );
+        }
+      };
+    }
+
+  }
+
+}
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.deploy;
+
+import org.apache.hadoop.gateway.GatewayServlet;
+import org.eclipse.jetty.server.SessionManager;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.servlet.ServletMapping;
+import org.eclipse.jetty.util.Loader;
+import org.jboss.shrinkwrap.descriptor.api.javaee6.ListenerType;
+import org.jboss.shrinkwrap.descriptor.api.javaee6.ParamValueType;
+import org.jboss.shrinkwrap.descriptor.api.webapp30.WebAppDescriptor;
+import org.jboss.shrinkwrap.descriptor.api.webcommon30.CookieConfigType;
+import org.jboss.shrinkwrap.descriptor.api.webcommon30.ServletMappingType;
+import org.jboss.shrinkwrap.descriptor.api.webcommon30.ServletType;
+import org.jboss.shrinkwrap.descriptor.api.webcommon30.SessionConfigType;
+
+import javax.servlet.SessionCookieConfig;
+import java.util.EventListener;
+import java.util.List;
+
+/**
+ * Builds the servlet context of a topology directly from the objects produced by the {@link DeploymentFactory}.
+ * The web application descriptor is applied programmatically, so neither web.xml nor gateway.xml is parsed,
+ * and the other resources of the archive are served from memory by an {@link ArchiveResource}.
+ */
+public abstract class ContextHandlerFactory {
+
+  private ContextHandlerFactory() {
+  }
+
+  public static ServletContextHandler create( DeploymentContext deployment ) throws ClassNotFoundException {
+    ServletContextHandler context = new ServletContextHandler( ServletContextHandler.SESSIONS );
+    context.setDisplayName( deployment.getWebArchive().getName() );
+    context.setBaseResource( new ArchiveResource( deployment.getWebArchive() ) );
+    context.setAttribute( GatewayServlet.GATEWAY_DESCRIPTOR_ATTRIBUTE, deployment.getGatewayDescriptor() );
+    WebAppDescriptor wad = deployment.getWebAppDescriptor();
+    for( ParamValueType<WebAppDescriptor> param : wad.getAllContextParam() ) {
+      context.setInitParameter( param.getParamName(), param.getParamValue() );
+    }
+    for( ListenerType<WebAppDescriptor> listener : wad.getAllListener() ) {
+      context.addEventListener( (EventListener)newInstance( listener.getListenerClass() ) );
+    }
+    for( ServletType<WebAppDescriptor> servlet : wad.getAllServlet() ) {
+      ServletHolder holder = new ServletHolder();
+      holder.setName( servlet.getServletName() );
+      holder.setClassName( servlet.getServletClass() );
+      for( ParamValueType<ServletType<WebAppDescriptor>> param : servlet.getAllInitParam() ) {
+        holder.setInitParameter( param.getParamName(), param.getParamValue() );
+      }
+      // The gateway servlets are initialized when the context starts so a broken topology fails its deployment.
+      holder.setInitOrder( 1 );
+      context.getServletHandler().addServlet( holder );
+    }
+    for( ServletMappingType<WebAppDescriptor> mapping : wad.getAllServletMapping() ) {
+      List<String> patterns = mapping.getAllUrlPattern();
+      ServletMapping servletMapping = new ServletMapping();
+      servletMapping.setServletName( mapping.getServletName() );
+      servletMapping.setPathSpecs( patterns.toArray( new String[ patterns.size() ] ) );
+      context.getServletHandler().addServletMapping( servletMapping );
+    }
+    for( SessionConfigType<WebAppDescriptor> session : wad.getAllSessionConfig() ) {
+      applySessionConfig( context.getSessionHandler().getSessionManager(), session );
+    }
+    return context;
+  }
+
+  private static void applySessionConfig( SessionManager manager, SessionConfigType<WebAppDescriptor> session ) {
+    Integer timeout = session.getSessionTimeout();
+    if( timeout != null ) {
+      manager.setMaxInactiveInterval( timeout * 60 );
+    }
+    CookieConfigType<SessionConfigType<WebAppDescriptor>> cookie = session.getOrCreateCookieConfig();
+    SessionCookieConfig cookieConfig = manager.getSessionCookieConfig();
+    if( cookie.isHttpOnly() != null ) {
+      cookieConfig.setHttpOnly( cookie.isHttpOnly() );
+    }
+    if( cookie.isSecure() != null ) {
+      cookieConfig.setSecure( cookie.isSecure() );
+    }
+  }
+
+  private static Object newInstance( String className ) throws ClassNotFoundException {
+    try {
+      return Loader.loadClass( ContextHandlerFactory.class, className ).newInstance();
+    } catch( InstantiationException e ) {
+      throw new DeploymentException( "Failed to create " + className, e );
+    } catch( IllegalAccessException e ) {
+      throw new DeploymentException( "Failed to create " + className, e );
+    }
+  }
+
+}
@@ -76,6 +76,15 @@ public abstract class DeploymentFactory {
   }
 
   public static WebArchive createDeployment( GatewayConfig config, Topology topology ) {
+    return createDeploymentContext( config, topology ).getWebArchive();
+  }
+
+  /**
+   * Creates the deployment of a topology.
+   * Unlike {@link #createDeployment(GatewayConfig, Topology)} this provides the web application and gateway descriptors
+   * as objects so the deployment can be started without reading them back from the archive.
+   */
+  public static DeploymentContext createDeploymentContext( GatewayConfig config, Topology topology ) {
     DeploymentContext context = null;
     Map<String,List<ProviderDeploymentContributor>> providers = selectContextProviders( topology );
     Map<String,List<ServiceDeploymentContributor>> services = selectContextServices( topology );
@@ -87,7 +96,7 @@ public abstract class DeploymentFactory {
       // if this is the default topology then add the forwarding webapp as well
       context = deployDefaultTopology(config, topology);
     }
-    return context.getWebArchive();
+    return context;
   }
 
   private static DeploymentContext deployDefaultTopology(GatewayConfig config,
@@ -128,7 +137,7 @@ public abstract class DeploymentFactory {
   // Scan through the providers in the topology.  Collect any named providers in their roles list.
   // Scan through all of the loaded providers.  For each that doesn't have an existing provider in the role
   // list add it.
-  private static Map<String,List<ProviderDeploymentContributor>> selectContextProviders( Topology topology ) {
+  static Map<String,List<ProviderDeploymentContributor>> selectContextProviders( Topology topology ) {
     Map<String,List<ProviderDeploymentContributor>> providers = new LinkedHashMap<String, List<ProviderDeploymentContributor>>();
     collectTopologyProviders( topology, providers );
     collectDefaultProviders( providers );
@@ -182,7 +191,7 @@ public abstract class DeploymentFactory {
 
   // Scan through the services in the topology.
   // For each that we find add it to the list of service roles included in the topology.
-  private static Map<String,List<ServiceDeploymentContributor>> selectContextServices( Topology topology ) {
+  static Map<String,List<ServiceDeploymentContributor>> selectContextServices( Topology topology ) {
     Map<String,List<ServiceDeploymentContributor>> defaults
         = new HashMap<String,List<ServiceDeploymentContributor>>();
     for( Service service : topology.getServices() ) {
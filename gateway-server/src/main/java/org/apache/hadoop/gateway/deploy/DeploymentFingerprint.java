@@ -0,0 +1,164 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.deploy;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.hadoop.gateway.GatewayMessages;
+import org.apache.hadoop.gateway.config.GatewayConfig;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.topology.Provider;
+import org.apache.hadoop.gateway.topology.Service;
+import org.apache.hadoop.gateway.topology.Topology;
+
+import java.io.File;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Calculates the identity of the deployment generated for a topology.
+ * The fingerprint covers the normalized topology, the gateway settings read while the deployment is generated
+ * and the code of the contributors selected for the topology.
+ * The rewrite rules and service definitions are packaged with the contributors so they are covered by their code.
+ * A deployment whose fingerprint has not changed can be reused instead of being generated again.
+ */
+public abstract class DeploymentFingerprint {
+
+  private static GatewayMessages log = MessagesFactory.get( GatewayMessages.class );
+
+  private static final int LENGTH = 16;
+
+  // The code of a running gateway does not change so each code source is only inspected once.
+  private static final ConcurrentMap<String,String> CODE_SOURCES = new ConcurrentHashMap<String,String>();
+
+  public static String calculate( GatewayConfig config, Topology topology ) {
+    StringBuilder buffer = new StringBuilder();
+    appendTopology( buffer, topology );
+    append( buffer, config.getDefaultAppRedirectPath() );
+    append( buffer, Boolean.toString( config.isHadoopKerberosSecured() ) );
+    Set<String> code = new TreeSet<String>();
+    code.add( fingerprint( DeploymentFactory.class ) );
+    for( List<ProviderDeploymentContributor> contributors : DeploymentFactory.selectContextProviders( topology ).values() ) {
+      for( ProviderDeploymentContributor contributor : contributors ) {
+        code.add( fingerprint( contributor.getClass() ) );
+      }
+    }
+    for( List<ServiceDeploymentContributor> contributors : DeploymentFactory.selectContextServices( topology ).values() ) {
+      for( ServiceDeploymentContributor contributor : contributors ) {
+        code.add( fingerprint( contributor.getClass() ) );
+      }
+    }
+    for( String value : code ) {
+      append( buffer, value );
+    }
+    return DigestUtils.sha256Hex( buffer.toString() ).substring( 0, LENGTH );
+  }
+
+  // The order of the providers and services and of the service URLs is significant, the order of the params is not.
+  private static void appendTopology( StringBuilder buffer, Topology topology ) {
+    append( buffer, topology.getName() );
+    for( Provider provider : topology.getProviders() ) {
+      append( buffer, "provider" );
+      append( buffer, provider.getRole() );
+      append( buffer, provider.getName() );
+      append( buffer, Boolean.toString( provider.isEnabled() ) );
+      appendParams( buffer, provider.getParams() );
+    }
+    for( Service service : topology.getServices() ) {
+      append( buffer, "service" );
+      append( buffer, service.getRole() );
+      append( buffer, service.getName() );
+      List<String> urls = service.getUrls();
+      if( urls != null ) {
+        for( String url : urls ) {
+          append( buffer, url );
+        }
+      }
+      appendParams( buffer, service.getParams() );
+    }
+  }
+
+  private static void appendParams( StringBuilder buffer, Map<String,String> params ) {
+    if( params != null ) {
+      for( Map.Entry<String,String> param : new TreeMap<String,String>( params ).entrySet() ) {
+        append( buffer, param.getKey() );
+        append( buffer, param.getValue() );
+      }
+    }
+  }
+
+  // Each value is prefixed by its length so adjacent values can not run into each other.
+  private static void append( StringBuilder buffer, String value ) {
+    if( value == null ) {
+      buffer.append( "-1;" );
+    } else {
+      buffer.append( value.length() ).append( ':' ).append( value ).append( ';' );
+    }
+  }
+
+  static String fingerprint( Class<?> type ) {
+    StringBuilder buffer = new StringBuilder( type.getName() );
+    Package pkg = type.getPackage();
+    if( pkg != null && pkg.getImplementationVersion() != null ) {
+      buffer.append( '@' ).append( pkg.getImplementationVersion() );
+    }
+    CodeSource source = type.getProtectionDomain().getCodeSource();
+    if( source != null && source.getLocation() != null ) {
+      buffer.append( '@' ).append( fingerprint( source.getLocation() ) );
+    }
+    return buffer.toString();
+  }
+
+  private static String fingerprint( URL location ) {
+    String key = location.toExternalForm();
+    String fingerprint = CODE_SOURCES.get( key );
+    if( fingerprint == null ) {
+      fingerprint = key;
+      try {
+        File file = new File( location.toURI() );
+        if( file.isFile() ) {
+          fingerprint = key + "#" + file.length() + "#" + file.lastModified();
+        } else if( file.isDirectory() ) {
+          fingerprint = key + "#" + lastModified( file );
+        }
+      } catch( Exception e ) {
+        log.failedToFingerprintCodeSource( key, e );
+      }
+      CODE_SOURCES.putIfAbsent( key, fingerprint );
+    }
+    return fingerprint;
+  }
+
+  private static long lastModified( File dir ) {
+    long lastModified = dir.lastModified();
+    File[] files = dir.listFiles();
+    if( files != null ) {
+      for( File file : files ) {
+        lastModified = Math.max( lastModified, file.isDirectory() ? lastModified( file ) : file.lastModified() );
+      }
+    }
+    return lastModified;
+  }
+
+}
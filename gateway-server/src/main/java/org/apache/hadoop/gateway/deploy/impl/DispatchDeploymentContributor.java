@@ -22,6 +22,8 @@ import org.apache.hadoop.gateway.deploy.ProviderDeploymentContributorBase;
 import org.apache.hadoop.gateway.descriptor.FilterDescriptor;
 import org.apache.hadoop.gateway.descriptor.FilterParamDescriptor;
 import org.apache.hadoop.gateway.descriptor.ResourceDescriptor;
+import org.apache.hadoop.gateway.dispatch.CircuitBreakerConfig;
+import org.apache.hadoop.gateway.dispatch.CoalescingConfig;
 import org.apache.hadoop.gateway.dispatch.HttpClientDispatch;
 import org.apache.hadoop.gateway.topology.Provider;
 import org.apache.hadoop.gateway.topology.Service;
@@ -64,6 +66,9 @@ public class DispatchDeploymentContributor extends ProviderDeploymentContributor
       }
     }
 
+    copyServiceParams( service, CircuitBreakerConfig.PARAM_PREFIX, filter );
+    copyServiceParams( service, CoalescingConfig.PARAM_PREFIX, filter );
+
     if( context.getGatewayConfig().isHadoopKerberosSecured() ) {
       filter.param().name("kerberos").value("true");
     }
@@ -20,11 +20,24 @@ package org.apache.hadoop.gateway.services.security.impl;
 import java.io.UnsupportedEncodingException;
 import java.security.InvalidKeyException;
 import java.security.KeyStoreException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
 import java.security.Signature;
 import java.security.SignatureException;
+import java.security.cert.Certificate;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.codec.binary.Base64;
 
 import org.apache.hadoop.gateway.GatewayMessages;
 import org.apache.hadoop.gateway.config.GatewayConfig;
@@ -38,10 +51,29 @@ import org.apache.hadoop.gateway.services.ServiceLifecycleException;
 
 public class DefaultCryptoService implements CryptoService {
   private static final String GATEWAY_IDENTITY_PASSPHRASE = "gateway-identity-passphrase";
+  private static final String GATEWAY_CREDENTIAL_STORE_NAME = "__gateway";
+  private static final int MIN_SECRET_LENGTH = 32;
+  private static final long KEYSTORE_CHECK_INTERVAL = 1000;
   private static final GatewayMessages LOG = MessagesFactory.get( GatewayMessages.class ); 
 
   private AliasService as = null;
   private KeystoreService ks = null;
+  private final SecureRandom random = new SecureRandom();
+
+  private final ConcurrentHashMap<String, PrivateKey> privateKeys = new ConcurrentHashMap<String, PrivateKey>();
+  private final ConcurrentHashMap<String, PublicKey> publicKeys = new ConcurrentHashMap<String, PublicKey>();
+  private final ConcurrentHashMap<String, SecretKey> secretKeys = new ConcurrentHashMap<String, SecretKey>();
+  private final AtomicInteger generation = new AtomicInteger();
+  private volatile long keystoresCheckedAt;
+  private volatile long keystoresModifiedAt;
+  private final ThreadLocal<EngineCache> engines = new ThreadLocal<EngineCache>() {
+    @Override
+    protected EngineCache initialValue() {
+      EngineCache cache = new EngineCache();
+      cache.generation = generation.get();
+      return cache;
+    }
+  };
 
   public void setKeystoreService(KeystoreService ks) {
     this.ks = ks;
@@ -126,12 +158,19 @@ public class DefaultCryptoService implements CryptoService {
   @Override
   public boolean verify(String algorithm, String alias, String signed, byte[] signature) {
     boolean verified = false;
+    String key = "verify:" + algorithm + ":" + alias;
+    checkKeystores();
     try {
-      Signature sig=Signature.getInstance(algorithm);
-      sig.initVerify(ks.getKeystoreForGateway().getCertificate(alias).getPublicKey());
-      sig.update(signed.getBytes("UTF-8"));
-      verified = sig.verify(signature);
+      byte[] data = signed.getBytes("UTF-8");
+      if (isMacAlgorithm(algorithm)) {
+        verified = MessageDigest.isEqual(getMac(algorithm, alias).doFinal(data), signature);
+      } else {
+        Signature sig = getVerifier(key, algorithm, alias);
+        sig.update(data);
+        verified = sig.verify(signature);
+      }
     } catch (SignatureException e) {
+      discardEngine(key);
       LOG.failedToVerifySignature( e );
     } catch (NoSuchAlgorithmException e) {
       LOG.failedToVerifySignature( e );
@@ -150,18 +189,22 @@ public class DefaultCryptoService implements CryptoService {
 
   @Override
   public byte[] sign(String algorithm, String alias, String payloadToSign) {
+    String key = "sign:" + algorithm + ":" + alias;
+    checkKeystores();
     try {
-      char[] passphrase = as.getPasswordFromAliasForGateway(GATEWAY_IDENTITY_PASSPHRASE);
-      PrivateKey privateKey = (PrivateKey) ks.getKeyForGateway(alias, passphrase);
-      Signature signature = Signature.getInstance(algorithm);
-      signature.initSign(privateKey);
-      signature.update(payloadToSign.getBytes("UTF-8"));
+      byte[] data = payloadToSign.getBytes("UTF-8");
+      if (isMacAlgorithm(algorithm)) {
+        return getMac(algorithm, alias).doFinal(data);
+      }
+      Signature signature = getSigner(key, algorithm, alias);
+      signature.update(data);
       return signature.sign();
     } catch (NoSuchAlgorithmException e) {
       LOG.failedToSignData( e );
     } catch (InvalidKeyException e) {
       LOG.failedToSignData( e );
     } catch (SignatureException e) {
+      discardEngine(key);
       LOG.failedToSignData( e );
     } catch (UnsupportedEncodingException e) {
       LOG.failedToSignData( e );
@@ -170,4 +213,146 @@ public class DefaultCryptoService implements CryptoService {
     }
     return null;
   }
+
+  /**
+   * Drops the cached keys and signature engines so that keys changed in the keystore or alias service are picked up.
+   * Engines already cached by other threads are replaced the next time they are used.
+   */
+  public void clearKeyCache() {
+    privateKeys.clear();
+    publicKeys.clear();
+    secretKeys.clear();
+    generation.incrementAndGet();
+  }
+
+  // Keys replaced in the gateway keystore or credential store, also by the CLI in another process, are picked up
+  // once the store files are seen to have changed. The files are checked at most once per interval.
+  private void checkKeystores() {
+    if (ks == null) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    if (now - keystoresCheckedAt < KEYSTORE_CHECK_INTERVAL) {
+      return;
+    }
+    keystoresCheckedAt = now;
+    long modified = ks.getLastModifiedForGateway();
+    if (modified != keystoresModifiedAt) {
+      keystoresModifiedAt = modified;
+      clearKeyCache();
+    }
+  }
+
+  private static boolean isMacAlgorithm(String algorithm) {
+    return algorithm.startsWith("Hmac");
+  }
+
+  // Signature engines are not thread safe but can be reused once initialized, sign and verify reset them,
+  // so each thread keeps its own engine per algorithm and alias with the key already loaded.
+  private Signature getSigner(String key, String algorithm, String alias)
+      throws NoSuchAlgorithmException, InvalidKeyException, KeystoreServiceException {
+    Signature signature = (Signature) getEngine(key);
+    if (signature == null) {
+      signature = Signature.getInstance(algorithm);
+      signature.initSign(getPrivateKey(alias));
+      putEngine(key, signature);
+    }
+    return signature;
+  }
+
+  private Signature getVerifier(String key, String algorithm, String alias)
+      throws NoSuchAlgorithmException, InvalidKeyException, KeyStoreException, KeystoreServiceException {
+    Signature signature = (Signature) getEngine(key);
+    if (signature == null) {
+      signature = Signature.getInstance(algorithm);
+      signature.initVerify(getPublicKey(alias));
+      putEngine(key, signature);
+    }
+    return signature;
+  }
+
+  private Mac getMac(String algorithm, String alias) throws NoSuchAlgorithmException, InvalidKeyException {
+    String key = "mac:" + algorithm + ":" + alias;
+    Mac mac = (Mac) getEngine(key);
+    if (mac == null) {
+      mac = Mac.getInstance(algorithm);
+      mac.init(getSecretKey(algorithm, alias));
+      putEngine(key, mac);
+    }
+    return mac;
+  }
+
+  private Object getEngine(String key) {
+    EngineCache cache = engines.get();
+    if (cache.generation != generation.get()) {
+      cache.engines.clear();
+      cache.generation = generation.get();
+    }
+    return cache.engines.get(key);
+  }
+
+  private void putEngine(String key, Object engine) {
+    engines.get().engines.put(key, engine);
+  }
+
+  private void discardEngine(String key) {
+    engines.get().engines.remove(key);
+  }
+
+  private PrivateKey getPrivateKey(String alias) throws KeystoreServiceException, InvalidKeyException {
+    PrivateKey privateKey = privateKeys.get(alias);
+    if (privateKey == null) {
+      char[] passphrase = as.getPasswordFromAliasForGateway(GATEWAY_IDENTITY_PASSPHRASE);
+      privateKey = (PrivateKey) ks.getKeyForGateway(alias, passphrase);
+      if (privateKey == null) {
+        throw new InvalidKeyException("No private key found for alias " + alias);
+      }
+      privateKeys.put(alias, privateKey);
+    }
+    return privateKey;
+  }
+
+  private PublicKey getPublicKey(String alias) throws KeystoreServiceException, KeyStoreException, InvalidKeyException {
+    PublicKey publicKey = publicKeys.get(alias);
+    if (publicKey == null) {
+      Certificate certificate = ks.getKeystoreForGateway().getCertificate(alias);
+      if (certificate == null) {
+        throw new InvalidKeyException("No certificate found for alias " + alias);
+      }
+      publicKey = certificate.getPublicKey();
+      publicKeys.put(alias, publicKey);
+    }
+    return publicKey;
+  }
+
+  // The secret of a MAC algorithm is a base64 encoded gateway alias. A missing alias is generated from a
+  // SecureRandom on first use, a provisioned secret shorter than the minimum is refused.
+  private SecretKey getSecretKey(String algorithm, String alias) throws InvalidKeyException {
+    SecretKey secretKey = secretKeys.get(alias);
+    if (secretKey == null) {
+      char[] secret = as.getPasswordFromAliasForGateway(alias);
+      if (secret == null) {
+        byte[] bytes = new byte[MIN_SECRET_LENGTH];
+        random.nextBytes(bytes);
+        as.addAliasForCluster(GATEWAY_CREDENTIAL_STORE_NAME, alias, Base64.encodeBase64String(bytes));
+        secret = as.getPasswordFromAliasForGateway(alias);
+      }
+      if (secret == null) {
+        throw new InvalidKeyException("No secret found for alias " + alias);
+      }
+      byte[] bytes = Base64.decodeBase64(new String(secret));
+      if (bytes.length < MIN_SECRET_LENGTH) {
+        throw new InvalidKeyException("The secret for alias " + alias + " must be a base64 encoded value of at least "
+            + MIN_SECRET_LENGTH + " bytes");
+      }
+      secretKey = new SecretKeySpec(bytes, algorithm);
+      secretKeys.put(alias, secretKey);
+    }
+    return secretKey;
+  }
+
+  private static class EngineCache {
+    final Map<String, Object> engines = new HashMap<String, Object>();
+    int generation;
+  }
 }
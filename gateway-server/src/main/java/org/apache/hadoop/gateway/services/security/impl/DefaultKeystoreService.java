@@ -49,6 +49,7 @@ public class DefaultKeystoreService extends BaseKeystoreService implements Keyst
   private static final String dnTemplate = "CN={0},OU=Test,O=Hadoop,L=Test,ST=Test,C=US";
   private static final String CREDENTIALS_SUFFIX = "-credentials.jceks";
   private static final String GATEWAY_KEYSTORE = "gateway.jks";
+  private static final String GATEWAY_CREDENTIAL_STORE_NAME = "__gateway";
   private static final String CERT_GEN_MODE = "hadoop.gateway.cert.gen.mode";
   private static final String CERT_GEN_MODE_LOCALHOST = "localhost";
   private static final String CERT_GEN_MODE_HOSTNAME = "hostname";
@@ -87,6 +88,12 @@ public class DefaultKeystoreService extends BaseKeystoreService implements Keyst
     return getKeystore(keyStoreFile, "JKS");
   }
   
+  @Override
+  public long getLastModifiedForGateway() {
+    return Math.max(new File(keyStoreDir + GATEWAY_KEYSTORE).lastModified(),
+        new File(keyStoreDir + GATEWAY_CREDENTIAL_STORE_NAME + CREDENTIALS_SUFFIX).lastModified());
+  }
+
   @Override
   public void addSelfSignedCertForGateway(String alias, char[] passphrase) {
     addSelfSignedCertForGateway(alias, passphrase, null);
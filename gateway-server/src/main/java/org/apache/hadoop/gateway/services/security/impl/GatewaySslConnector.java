@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.security.impl;
+
+import org.apache.hadoop.gateway.services.security.SSLHandshakeStatistics;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.io.nio.SslConnection;
+import org.eclipse.jetty.server.AbstractHttpConnection;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.ssl.SslSelectChannelConnector;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import java.io.IOException;
+
+/**
+ * SSL connector that applies the session cache settings of its context factory to the server sessions,
+ * which Jetty 8 leaves to the JVM defaults.
+ * It also counts the full and resumed handshakes of its connections.
+ * A session created before the connection was accepted can only have been resumed.
+ * Comparing creation times works whatever the protocol version,
+ * unlike session ids which TLS 1.3 changes on every resumption.
+ */
+public class GatewaySslConnector extends SslSelectChannelConnector {
+
+  public GatewaySslConnector( SslContextFactory sslContextFactory ) {
+    super( sslContextFactory );
+  }
+
+  @Override
+  protected void doStart() throws Exception {
+    super.doStart();
+    SslContextFactory factory = getSslContextFactory();
+    SSLSessionContext sessions = factory.getSslContext().getServerSessionContext();
+    if( sessions != null ) {
+      if( factory.getSslSessionCacheSize() > 0 ) {
+        sessions.setSessionCacheSize( factory.getSslSessionCacheSize() );
+      }
+      if( factory.getSslSessionTimeout() > 0 ) {
+        sessions.setSessionTimeout( factory.getSslSessionTimeout() );
+      }
+    }
+  }
+
+  @Override
+  public void customize( EndPoint endpoint, Request request ) throws IOException {
+    super.customize( endpoint, request );
+    AbstractHttpConnection connection = request.getConnection();
+    // Only the first request of a connection follows a handshake.
+    if( connection != null && connection.getRequests() == 1 && endpoint instanceof SslConnection.SslEndPoint ) {
+      SSLSession session = ( (SslConnection.SslEndPoint)endpoint ).getSslEngine().getSession();
+      SSLHandshakeStatistics.recordHandshake( session.getCreationTime() < connection.getTimeStamp() );
+    }
+  }
+
+}
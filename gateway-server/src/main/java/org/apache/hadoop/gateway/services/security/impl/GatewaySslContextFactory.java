@@ -0,0 +1,63 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.security.impl;
+
+import org.apache.hadoop.gateway.GatewayMessages;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import java.lang.reflect.Method;
+
+/**
+ * SSL context factory that can make the engines pick the cipher suite in the order of the included suites
+ * instead of the client's order.  The JVM only supports this from Java 8 so it is looked up reflectively.
+ */
+public class GatewaySslContextFactory extends SslContextFactory {
+
+  private static GatewayMessages log = MessagesFactory.get( GatewayMessages.class );
+
+  private Method useCipherSuitesOrder;
+
+  public GatewaySslContextFactory( boolean serverCipherOrder ) {
+    super( true );
+    if( serverCipherOrder ) {
+      try {
+        useCipherSuitesOrder = SSLParameters.class.getMethod( "setUseCipherSuitesOrder", boolean.class );
+      } catch( NoSuchMethodException e ) {
+        log.serverCipherOrderNotSupported();
+      }
+    }
+  }
+
+  @Override
+  public void customize( SSLEngine sslEngine ) {
+    super.customize( sslEngine );
+    if( useCipherSuitesOrder != null ) {
+      SSLParameters parameters = sslEngine.getSSLParameters();
+      try {
+        useCipherSuitesOrder.invoke( parameters, Boolean.TRUE );
+      } catch( Exception e ) {
+        throw new IllegalStateException( e );
+      }
+      sslEngine.setSSLParameters( parameters );
+    }
+  }
+
+}
@@ -38,7 +38,6 @@ import org.apache.hadoop.gateway.services.security.MasterService;
 import org.apache.hadoop.gateway.services.security.SSLService;
 import org.apache.hadoop.gateway.util.X500PrincipalParser;
 import org.eclipse.jetty.server.ssl.SslConnector;
-import org.eclipse.jetty.server.ssl.SslSelectChannelConnector;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 
 public class JettySSLService implements SSLService {
@@ -50,6 +49,12 @@ public class JettySSLService implements SSLService {
   private KeystoreService ks;
   private AliasService as;
   private List<String> sslExcludeProtocols = null;
+  private int sslSessionCacheSize = -1;
+  private int sslSessionTimeout = -1;
+  private List<String> sslIncludeCiphers = null;
+  private List<String> sslExcludeCiphers = null;
+  private boolean sslServerCipherOrder = false;
+  private boolean sslRenegotiationAllowed = true;
 
   public void setMasterService(MasterService ms) {
     this.ms = ms;
@@ -96,6 +101,12 @@ public class JettySSLService implements SSLService {
     }
 
     sslExcludeProtocols = config.getExcludedSSLProtocols();
+    sslSessionCacheSize = config.getSSLSessionCacheSize();
+    sslSessionTimeout = config.getSSLSessionTimeout();
+    sslIncludeCiphers = config.getIncludedSSLCiphers();
+    sslExcludeCiphers = config.getExcludedSSLCiphers();
+    sslServerCipherOrder = config.isSSLServerCipherOrder();
+    sslRenegotiationAllowed = config.isSSLRenegotiationAllowed();
   }
 
   private void logAndValidateCertificate() throws ServiceLifecycleException {
@@ -129,7 +140,7 @@ public class JettySSLService implements SSLService {
   }
   
   public Object buildSSlConnector( String keystoreFileName ) {
-    SslContextFactory sslContextFactory = new SslContextFactory( true );
+    SslContextFactory sslContextFactory = new GatewaySslContextFactory( sslServerCipherOrder );
     sslContextFactory.setCertAlias( "gateway-identity" );
 //    String keystorePath = gatewayHomeDir + File.separatorChar +  "conf" + File.separatorChar +  "security" + File.separatorChar + "keystores" + File.separatorChar + "gateway.jks";
     sslContextFactory.setKeyStoreType("JKS");
@@ -151,7 +162,17 @@ public class JettySSLService implements SSLService {
     if (sslExcludeProtocols != null) {
       sslContextFactory.setExcludeProtocols((String[]) sslExcludeProtocols.toArray());
     }
-    SslConnector sslConnector = new SslSelectChannelConnector( sslContextFactory );
+    // Resumed sessions spare clients that make many short connections a full handshake each time.
+    sslContextFactory.setSslSessionCacheSize( sslSessionCacheSize );
+    sslContextFactory.setSslSessionTimeout( sslSessionTimeout );
+    if (sslIncludeCiphers != null) {
+      sslContextFactory.setIncludeCipherSuites( sslIncludeCiphers.toArray( new String[ sslIncludeCiphers.size() ] ) );
+    }
+    if (sslExcludeCiphers != null) {
+      sslContextFactory.setExcludeCipherSuites( sslExcludeCiphers.toArray( new String[ sslExcludeCiphers.size() ] ) );
+    }
+    sslContextFactory.setAllowRenegotiate( sslRenegotiationAllowed );
+    SslConnector sslConnector = new GatewaySslConnector( sslContextFactory );
 
     return sslConnector;
   }  
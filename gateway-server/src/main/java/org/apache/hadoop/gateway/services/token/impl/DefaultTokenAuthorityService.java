@@ -17,21 +17,31 @@
  */
 package org.apache.hadoop.gateway.services.token.impl;
 
+import java.io.File;
+import java.io.IOException;
 import java.security.Principal;
 import java.util.Map;
 
 import javax.security.auth.Subject;
 
+import org.apache.hadoop.gateway.GatewayMessages;
 import org.apache.hadoop.gateway.config.GatewayConfig;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.hadoop.gateway.services.Service;
 import org.apache.hadoop.gateway.services.ServiceLifecycleException;
 import org.apache.hadoop.gateway.services.security.CryptoService;
 import org.apache.hadoop.gateway.services.security.token.JWTokenAuthority;
 import org.apache.hadoop.gateway.services.security.token.impl.JWTToken;
+import org.apache.hadoop.gateway.services.token.impl.TokenSessionStore.TokenSession;
 
 public class DefaultTokenAuthorityService implements JWTokenAuthority, Service {
-  
+
+  private static final GatewayMessages log = MessagesFactory.get( GatewayMessages.class );
+  static final String TOKEN_SESSION_JOURNAL = "token-sessions";
+
   private CryptoService crypto = null;
+  private long defaultLifetime = 30000;
+  private TokenSessionStore store = new TokenSessionStore(null);
 
   /* (non-Javadoc)
    * @see org.apache.hadoop.gateway.provider.federation.jwt.JWTokenAuthority#issueToken(javax.security.auth.Subject, java.lang.String)
@@ -66,18 +76,21 @@ public class DefaultTokenAuthorityService implements JWTokenAuthority, Service {
       audience = "HSSO";
     }
     claimArray[2] = audience;
-    // TODO: make the validity period configurable
     if (expires == -1) {
-      claimArray[3] = Long.toString( ( System.currentTimeMillis() ) + 30000);
-    }
-    else {
-      claimArray[3] = String.valueOf(expires);
+      expires = System.currentTimeMillis() + defaultLifetime;
     }
+    claimArray[3] = String.valueOf(expires);
 
     JWTToken token = null;
-    if ("RS256".equals(algorithm)) {
-      token = new JWTToken("RS256", claimArray);
-      signToken(token);
+    TokenSigningAlgorithm signingAlgorithm = TokenSigningAlgorithm.forName(algorithm);
+    if (signingAlgorithm != null) {
+      token = new JWTToken(signingAlgorithm.name(), claimArray);
+      if (signToken(token, signingAlgorithm)) {
+        addSession(token, p.getName(), audience, expires);
+      }
+      else {
+        token = null;
+      }
     }
     else {
       // log inappropriate alg
@@ -86,22 +99,122 @@ public class DefaultTokenAuthorityService implements JWTokenAuthority, Service {
     return token;
   }
 
-  private void signToken(JWTToken token) {
-    byte[] signature = null;
-    signature = crypto.sign("SHA256withRSA","gateway-identity",token.getPayloadToSign());
-    token.setSignaturePayload(signature);
+  private boolean signToken(JWTToken token, TokenSigningAlgorithm algorithm) {
+    byte[] signature = crypto.sign(algorithm.getJcaName(), algorithm.getAlias(), token.getPayloadToSign());
+    token.setSignaturePayload(algorithm.toJws(signature));
+    return token.getSignaturePayload() != null;
   }
 
   @Override
   public boolean verifyToken(JWTToken token) {
     boolean rc = false;
-    
+
+    // the session id is a digest over the signed payload and the signature so a known token
+    // has already passed the signature check and only its revocation state matters
+    TokenSession session = store.get(token);
+    if (session != null) {
+      return !session.isRevoked();
+    }
+
     // TODO: interrogate the token for issuer claim in order to determine the public key to use for verification
     // consider jwk for specifying the key too
-    rc = crypto.verify("SHA256withRSA", "gateway-identity", token.getPayloadToSign(), token.getSignaturePayload());
+    TokenSigningAlgorithm algorithm = getAlgorithm(token);
+    if (algorithm == null) {
+      return false;
+    }
+    byte[] signature = algorithm.fromJws(token.getSignaturePayload());
+    if (signature == null) {
+      return false;
+    }
+    rc = crypto.verify(algorithm.getJcaName(), algorithm.getAlias(), token.getPayloadToSign(), signature);
+    if (rc) {
+      // tokens issued before a restart or by a peer sharing the key are remembered so they can be revoked
+      // and verified cheaply from now on
+      long expires = getExpires(token);
+      if (expires > System.currentTimeMillis()) {
+        addSession(token, token.getPrincipal(), token.getAudience(), expires);
+      }
+    }
     return rc;
   }
 
+  @Override
+  public JWTToken refreshToken(JWTToken token, long expires) {
+    if (!verifyToken(token)) {
+      return null;
+    }
+    TokenSession session = store.get(token);
+    if (session == null || !session.isActive(System.currentTimeMillis())) {
+      return null;
+    }
+    TokenSigningAlgorithm algorithm = getAlgorithm(token);
+    if (algorithm == null) {
+      return null;
+    }
+    // revoke first so that a token can only be refreshed once
+    if (!revokeSession(session)) {
+      return null;
+    }
+    final String principalName = session.getPrincipal();
+    Principal p = new Principal() {
+      @Override
+      public String getName() {
+        return principalName;
+      }
+    };
+    JWTToken refreshed = issueToken(p, session.getAudience(), algorithm.name(), expires);
+    log.refreshedToken(principalName);
+    return refreshed;
+  }
+
+  @Override
+  public boolean revokeToken(JWTToken token) {
+    if (!verifyToken(token)) {
+      return false;
+    }
+    TokenSession session = store.get(token);
+    if (session == null || !revokeSession(session)) {
+      return false;
+    }
+    log.revokedToken(session.getPrincipal());
+    return true;
+  }
+
+  private void addSession(JWTToken token, String principal, String audience, long expires) {
+    try {
+      store.add(token, principal, audience, expires);
+    } catch (IOException e) {
+      log.failedToPersistTokenSession(e);
+    }
+  }
+
+  private boolean revokeSession(TokenSession session) {
+    try {
+      return store.revoke(session);
+    } catch (IOException e) {
+      // the revocation still applies in memory
+      log.failedToPersistTokenSession(e);
+      return true;
+    }
+  }
+
+  // only algorithms the authority signs with are accepted so an unsigned or foreign token never verifies
+  private static TokenSigningAlgorithm getAlgorithm(JWTToken token) {
+    try {
+      return TokenSigningAlgorithm.forName(token.getAlgorithm());
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  private static long getExpires(JWTToken token) {
+    try {
+      return Long.parseLong(token.getExpires());
+    } catch (RuntimeException e) {
+      return -1;
+    }
+  }
+
   public void setCryptoService(CryptoService crypto) {
     this.crypto = crypto;
   }
@@ -112,6 +225,16 @@ public class DefaultTokenAuthorityService implements JWTokenAuthority, Service {
     if (crypto == null) {
       throw new ServiceLifecycleException("Crypto service is not set");
     }
+    defaultLifetime = config.getDefaultTokenLifetime();
+    if (config.isTokenSessionStorePersistent()) {
+      File journal = new File(config.getGatewaySecurityDir(), TOKEN_SESSION_JOURNAL);
+      store = new TokenSessionStore(journal);
+      try {
+        store.load();
+      } catch (IOException e) {
+        log.failedToLoadTokenSessions(journal.getAbsolutePath(), e);
+      }
+    }
   }
 
   @Override
@@ -120,6 +243,11 @@ public class DefaultTokenAuthorityService implements JWTokenAuthority, Service {
 
   @Override
   public void stop() throws ServiceLifecycleException {
+    try {
+      store.close();
+    } catch (IOException e) {
+      log.failedToPersistTokenSession(e);
+    }
   }
 
 }
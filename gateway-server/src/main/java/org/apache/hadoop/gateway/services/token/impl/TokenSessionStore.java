@@ -0,0 +1,273 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.token.impl;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.hadoop.gateway.services.security.token.impl.JWTToken;
+
+/**
+ * Index of the tokens issued or verified by the token authority keyed by token id.
+ * The id of a token is the SHA-256 digest of its signed payload and signature so a token that is found in the
+ * store is known to carry a signature that has already been checked.
+ * When a journal file is provided every change is appended to it and the store is rebuilt from it on load.
+ * The journal is compacted on load and whenever expired sessions are purged.
+ */
+class TokenSessionStore {
+
+  private static final String ISSUED = "I";
+  private static final String REVOKED = "R";
+  private static final String SEPARATOR = "\t";
+
+  static final long DEFAULT_PURGE_INTERVAL = 60000;
+
+  private final ConcurrentHashMap<String, TokenSession> sessions = new ConcurrentHashMap<String, TokenSession>();
+  private final File journal;
+  private final long purgeInterval;
+  private volatile long nextPurge;
+  private Writer writer;
+
+  TokenSessionStore(File journal) {
+    this(journal, DEFAULT_PURGE_INTERVAL);
+  }
+
+  TokenSessionStore(File journal, long purgeInterval) {
+    this.journal = journal;
+    this.purgeInterval = purgeInterval;
+    this.nextPurge = System.currentTimeMillis() + purgeInterval;
+  }
+
+  static String getTokenId(JWTToken token) {
+    byte[] signature = token.getSignaturePayload();
+    if (signature == null) {
+      return null;
+    }
+    return DigestUtils.sha256Hex(token.getPayloadToSign() + "." + Base64.encodeBase64URLSafeString(signature));
+  }
+
+  /**
+   * Replays the journal, if any, and rewrites it with only the sessions that are still live.
+   */
+  synchronized void load() throws IOException {
+    if (journal == null) {
+      return;
+    }
+    if (journal.exists()) {
+      long now = System.currentTimeMillis();
+      BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(journal), "UTF-8"));
+      try {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          String[] fields = line.split(SEPARATOR, -1);
+          if (ISSUED.equals(fields[0]) && fields.length == 5) {
+            TokenSession session = new TokenSession(fields[1], fields[2], fields[3], Long.parseLong(fields[4]));
+            if (!session.isExpired(now)) {
+              sessions.put(session.getId(), session);
+            }
+          } else if (REVOKED.equals(fields[0]) && fields.length == 2) {
+            TokenSession session = sessions.get(fields[1]);
+            if (session != null) {
+              session.revoked = true;
+            }
+          }
+        }
+      } catch (NumberFormatException e) {
+        throw new IOException("Malformed token session journal " + journal, e);
+      } finally {
+        reader.close();
+      }
+    }
+    compact();
+  }
+
+  synchronized void close() throws IOException {
+    if (writer != null) {
+      writer.close();
+      writer = null;
+    }
+  }
+
+  /**
+   * Records a token that was signed or verified by the authority.
+   * @return The session that is now indexed under the token's id.
+   */
+  TokenSession add(JWTToken token, String principal, String audience, long expires) throws IOException {
+    String id = getTokenId(token);
+    TokenSession session = new TokenSession(id, principal, audience, expires);
+    TokenSession existing;
+    if (journal == null) {
+      existing = sessions.putIfAbsent(id, session);
+    } else {
+      // Hold the lock across both steps so a concurrent compaction cannot drop the journal entry.
+      synchronized (this) {
+        existing = sessions.putIfAbsent(id, session);
+        if (existing == null) {
+          append(ISSUED, id, principal, audience, Long.toString(expires));
+        }
+      }
+    }
+    purgeIfDue(System.currentTimeMillis());
+    return existing == null ? session : existing;
+  }
+
+  TokenSession get(JWTToken token) {
+    String id = getTokenId(token);
+    return id == null ? null : sessions.get(id);
+  }
+
+  /**
+   * @return True if the session was live and is now revoked.
+   */
+  boolean revoke(TokenSession session) throws IOException {
+    synchronized (session) {
+      if (session.revoked) {
+        return false;
+      }
+      session.revoked = true;
+    }
+    append(REVOKED, session.getId());
+    return true;
+  }
+
+  int size() {
+    return sessions.size();
+  }
+
+  void purgeIfDue(long now) throws IOException {
+    if (now >= nextPurge) {
+      synchronized (this) {
+        if (now >= nextPurge) {
+          nextPurge = now + purgeInterval;
+          Iterator<TokenSession> iterator = sessions.values().iterator();
+          while (iterator.hasNext()) {
+            if (iterator.next().isExpired(now)) {
+              iterator.remove();
+            }
+          }
+          compact();
+        }
+      }
+    }
+  }
+
+  private synchronized void append(String... fields) throws IOException {
+    if (journal == null) {
+      return;
+    }
+    if (writer == null) {
+      writer = new OutputStreamWriter(new FileOutputStream(journal, true), "UTF-8");
+    }
+    writeLine(writer, fields);
+    writer.flush();
+  }
+
+  private void compact() throws IOException {
+    if (journal == null) {
+      return;
+    }
+    close();
+    File parent = journal.getAbsoluteFile().getParentFile();
+    if (!parent.exists() && !parent.mkdirs()) {
+      throw new IOException("Failed to create directory " + parent);
+    }
+    File temp = new File(parent, journal.getName() + ".tmp");
+    Writer out = new OutputStreamWriter(new FileOutputStream(temp), "UTF-8");
+    try {
+      for (TokenSession session : sessions.values()) {
+        writeLine(out, ISSUED, session.getId(), session.getPrincipal(), session.getAudience(),
+            Long.toString(session.getExpires()));
+        if (session.isRevoked()) {
+          writeLine(out, REVOKED, session.getId());
+        }
+      }
+    } finally {
+      out.close();
+    }
+    if (journal.exists() && !journal.delete()) {
+      throw new IOException("Failed to replace token session journal " + journal);
+    }
+    if (!temp.renameTo(journal)) {
+      throw new IOException("Failed to replace token session journal " + journal);
+    }
+  }
+
+  private static void writeLine(Writer out, String... fields) throws IOException {
+    for (int i = 0; i < fields.length; i++) {
+      if (i > 0) {
+        out.write(SEPARATOR);
+      }
+      out.write(fields[i] == null ? "" : fields[i].replace(SEPARATOR, " ").replace("\n", " "));
+    }
+    out.write("\n");
+  }
+
+  static class TokenSession {
+    private final String id;
+    private final String principal;
+    private final String audience;
+    private final long expires;
+    private volatile boolean revoked;
+
+    TokenSession(String id, String principal, String audience, long expires) {
+      this.id = id;
+      this.principal = principal;
+      this.audience = audience;
+      this.expires = expires;
+    }
+
+    String getId() {
+      return id;
+    }
+
+    String getPrincipal() {
+      return principal;
+    }
+
+    String getAudience() {
+      return audience;
+    }
+
+    long getExpires() {
+      return expires;
+    }
+
+    boolean isRevoked() {
+      return revoked;
+    }
+
+    boolean isExpired(long now) {
+      return now >= expires;
+    }
+
+    boolean isActive(long now) {
+      return !revoked && !isExpired(now);
+    }
+  }
+
+}
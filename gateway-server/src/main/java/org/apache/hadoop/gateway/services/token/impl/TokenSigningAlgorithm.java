@@ -0,0 +1,166 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.token.impl;
+
+import java.util.Arrays;
+
+/**
+ * The JWS algorithms the token authority can sign and verify tokens with and how they map onto the crypto service.
+ * RS256 and ES256 use key pairs from the gateway keystore, HS256 uses a secret from the gateway alias service.
+ * The crypto service produces DER encoded ECDSA signatures while JWS uses the fixed length concatenation of R and S
+ * so ES256 signatures are transcoded in both directions.
+ */
+enum TokenSigningAlgorithm {
+
+  RS256("SHA256withRSA", "gateway-identity"),
+  ES256("SHA256withECDSA", "gateway-identity-ec") {
+    @Override
+    byte[] toJws(byte[] signature) {
+      return derToConcat(signature, EC_P256_FIELD_SIZE);
+    }
+
+    @Override
+    byte[] fromJws(byte[] signature) {
+      return concatToDer(signature, EC_P256_FIELD_SIZE);
+    }
+  },
+  HS256("HmacSHA256", "gateway-token-hmac");
+
+  private static final int EC_P256_FIELD_SIZE = 32;
+
+  private final String jcaName;
+  private final String alias;
+
+  TokenSigningAlgorithm(String jcaName, String alias) {
+    this.jcaName = jcaName;
+    this.alias = alias;
+  }
+
+  /**
+   * @return The algorithm for the JWS name or null if the name is not supported.
+   */
+  static TokenSigningAlgorithm forName(String name) {
+    for (TokenSigningAlgorithm algorithm : values()) {
+      if (algorithm.name().equals(name)) {
+        return algorithm;
+      }
+    }
+    return null;
+  }
+
+  String getJcaName() {
+    return jcaName;
+  }
+
+  String getAlias() {
+    return alias;
+  }
+
+  /**
+   * Converts a signature produced by the crypto service to its JWS form.
+   */
+  byte[] toJws(byte[] signature) {
+    return signature;
+  }
+
+  /**
+   * Converts a JWS signature to the form expected by the crypto service.
+   * @return The converted signature or null if the signature is malformed.
+   */
+  byte[] fromJws(byte[] signature) {
+    return signature;
+  }
+
+  static byte[] derToConcat(byte[] der, int fieldSize) {
+    if (der == null) {
+      return null;
+    }
+    // SEQUENCE { INTEGER r, INTEGER s }
+    int offset = 1;
+    if (der.length < 8 || der[0] != 0x30) {
+      return null;
+    }
+    if ((der[offset] & 0x80) != 0) {
+      offset += der[offset] & 0x7F;
+    }
+    offset++;
+    byte[] concat = new byte[fieldSize * 2];
+    for (int i = 0; i < 2; i++) {
+      if (offset + 2 > der.length || der[offset] != 0x02) {
+        return null;
+      }
+      int length = der[offset + 1] & 0xFF;
+      offset += 2;
+      if (offset + length > der.length) {
+        return null;
+      }
+      int start = offset;
+      int count = length;
+      while (count > fieldSize && der[start] == 0) {
+        start++;
+        count--;
+      }
+      if (count > fieldSize) {
+        return null;
+      }
+      System.arraycopy(der, start, concat, fieldSize * (i + 1) - count, count);
+      offset += length;
+    }
+    return concat;
+  }
+
+  static byte[] concatToDer(byte[] concat, int fieldSize) {
+    if (concat == null || concat.length != fieldSize * 2) {
+      return null;
+    }
+    byte[] r = toUnsignedInteger(Arrays.copyOfRange(concat, 0, fieldSize));
+    byte[] s = toUnsignedInteger(Arrays.copyOfRange(concat, fieldSize, fieldSize * 2));
+    int length = 2 + r.length + 2 + s.length;
+    int header = length < 0x80 ? 2 : 3;
+    byte[] der = new byte[header + length];
+    int offset = 0;
+    der[offset++] = 0x30;
+    if (header == 3) {
+      der[offset++] = (byte) 0x81;
+    }
+    der[offset++] = (byte) length;
+    offset = writeInteger(der, offset, r);
+    writeInteger(der, offset, s);
+    return der;
+  }
+
+  // strips redundant leading zeros and adds one back if the high bit is set so the value stays positive
+  private static byte[] toUnsignedInteger(byte[] value) {
+    int start = 0;
+    while (start < value.length - 1 && value[start] == 0) {
+      start++;
+    }
+    boolean pad = (value[start] & 0x80) != 0;
+    byte[] integer = new byte[value.length - start + (pad ? 1 : 0)];
+    System.arraycopy(value, start, integer, pad ? 1 : 0, value.length - start);
+    return integer;
+  }
+
+  private static int writeInteger(byte[] der, int offset, byte[] integer) {
+    der[offset++] = 0x02;
+    der[offset++] = (byte) integer.length;
+    System.arraycopy(integer, 0, der, offset, integer.length);
+    return offset + integer.length;
+  }
+
+}
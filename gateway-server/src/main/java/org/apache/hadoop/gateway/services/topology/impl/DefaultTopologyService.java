@@ -19,6 +19,7 @@
 package org.apache.hadoop.gateway.services.topology.impl;
 
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.digester3.Digester;
 import org.apache.commons.digester3.binder.DigesterLoader;
 import org.apache.commons.io.FileUtils;
@@ -52,6 +53,7 @@ import org.xml.sax.SAXException;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
@@ -81,12 +83,18 @@ public class DefaultTopologyService
   }
   private static GatewayMessages log = MessagesFactory.get(GatewayMessages.class);
   private static DigesterLoader digesterLoader = newLoader(new KnoxFormatXmlTopologyRules(), new AmbariFormatXmlTopologyRules());
+  private static final String REDEPLOY_MARKER_EXTENSION = "redeploy";
   private FileAlterationMonitor monitor;
   private File directory;
   private Set<TopologyListener> listeners;
   private volatile Map<File, Topology> topologies;
+  // The content digest of each loaded topology file.
+  private volatile Map<File, String> digests;
+  private long settleTime;
+  // When the last change to the directory was seen, zero if the changes have been reloaded.
+  private long lastChange;
 
-  private Topology loadTopology(File file) throws IOException, SAXException, URISyntaxException, InterruptedException {
+  private Topology loadTopology(File file, Map<File, String> newDigests) throws IOException, SAXException, URISyntaxException, InterruptedException {
     final long TIMEOUT = 250; //ms
     final long DELAY = 50; //ms
     log.loadingTopologyFile(file.getAbsolutePath());
@@ -94,7 +102,7 @@ public class DefaultTopologyService
     long start = System.currentTimeMillis();
     while (true) {
       try {
-        topology = loadTopologyAttempt(file);
+        topology = loadTopologyAttempt(file, newDigests);
         break;
       } catch (IOException e) {
         if (System.currentTimeMillis() - start < TIMEOUT) {
@@ -115,21 +123,37 @@ public class DefaultTopologyService
     return topology;
   }
 
-  private Topology loadTopologyAttempt(File file) throws IOException, SAXException, URISyntaxException {
-    Topology topology;
-    Digester digester = digesterLoader.newDigester();
-    TopologyBuilder topologyBuilder = digester.parse(FileUtils.openInputStream(file));
-    if (null == topologyBuilder) {
-      return null;
+  // A file whose content has not changed keeps its loaded topology so touching it does not cause a redeploy.
+  private Topology loadTopologyAttempt(File file, Map<File, String> newDigests) throws IOException, SAXException, URISyntaxException {
+    byte[] content = FileUtils.readFileToByteArray(file);
+    String digest = DigestUtils.sha256Hex(content);
+    Topology topology = topologies.get(file);
+    if (topology == null || !digest.equals(digests.get(file))) {
+      Digester digester = digesterLoader.newDigester();
+      TopologyBuilder topologyBuilder = digester.parse(new ByteArrayInputStream(content));
+      if (null == topologyBuilder) {
+        return null;
+      }
+      topology = topologyBuilder.build();
+      topology.setUri(file.toURI());
+      topology.setName(FilenameUtils.removeExtension(file.getName()));
+      topology.setTimestamp(file.lastModified());
     }
-    topology = topologyBuilder.build();
-    topology.setUri(file.toURI());
-    topology.setName(FilenameUtils.removeExtension(file.getName()));
-    topology.setTimestamp(file.lastModified());
+    newDigests.put(file, digest);
     return topology;
   }
 
+  // The marker is picked up by the monitor of the running gateway, which may be in another process.
+  // The topology file is still touched for the tools that watch its timestamp.
   private void redeployTopology(Topology topology) {
+    try {
+      FileUtils.touch(new File(directory, topology.getName() + "." + REDEPLOY_MARKER_EXTENSION));
+    } catch (IOException e) {
+      auditor.audit(Action.REDEPLOY, topology.getName(), ResourceType.TOPOLOGY,
+        ActionOutcome.FAILURE);
+      log.failedToRedeployTopology(topology.getName(), e);
+      return;
+    }
     File topologyFile = new File(topology.getUri());
     long start = System.currentTimeMillis();
     long limit = 1000L; // One second.
@@ -164,7 +188,8 @@ public class DefaultTopologyService
 
   private List<TopologyEvent> createChangeEvents(
       Map<File, Topology> oldTopologies,
-      Map<File, Topology> newTopologies) {
+      Map<File, Topology> newTopologies,
+      Set<String> redeploys) {
     ArrayList<TopologyEvent> events = new ArrayList<TopologyEvent>();
     // Go through the old topologies and find anything that was deleted.
     for (File file : oldTopologies.keySet()) {
@@ -177,7 +202,8 @@ public class DefaultTopologyService
       if (oldTopologies.containsKey(file)) {
         Topology oldTopology = oldTopologies.get(file);
         Topology newTopology = newTopologies.get(file);
-        if (newTopology.getTimestamp() > oldTopology.getTimestamp()) {
+        // The loaded topology is only replaced when the content of its file has changed.
+        if (newTopology != oldTopology || redeploys.contains(newTopology.getName())) {
           events.add(new TopologyEvent(TopologyEvent.Type.UPDATED, newTopologies.get(file)));
         }
       } else {
@@ -199,52 +225,95 @@ public class DefaultTopologyService
     this.monitor = monitor;
 
 
-    FileAlterationObserver observer = new FileAlterationObserver(this.directory, this);
+    // The observer also reports the redeploy markers so a redeploy request is seen without a topology change.
+    FileAlterationObserver observer = new FileAlterationObserver(this.directory, new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        return DefaultTopologyService.this.accept(file) || isRedeployMarker(file);
+      }
+    });
     observer.addListener(this);
     monitor.addObserver(observer);
 
     this.listeners = new HashSet<TopologyListener>();
     this.topologies = new HashMap<File, Topology>(); //loadTopologies( this.directory );
+    this.digests = new HashMap<File, String>();
   }
 
-  private void initListener(File directory) throws IOException, SAXException {
-    initListener(new FileAlterationMonitor(1000L), directory);
+  private void initListener(File directory, long interval) throws IOException, SAXException {
+    initListener(new FileAlterationMonitor(interval), directory);
   }
 
-  private Map<File, Topology> loadTopologies(File directory) {
+  private Map<File, Topology> loadTopologies(File directory, Map<File, String> newDigests) {
     Map<File, Topology> map = new HashMap<File, Topology>();
     if (directory.exists() && directory.canRead()) {
       for (File file : directory.listFiles(this)) {
         try {
-          Topology loadTopology = loadTopology(file);
+          Topology loadTopology = loadTopology(file, newDigests);
           if (null != loadTopology) {
             map.put(file, loadTopology);
           } else {
             auditor.audit(Action.LOAD, file.getAbsolutePath(), ResourceType.TOPOLOGY,
               ActionOutcome.FAILURE);
             log.failedToLoadTopology(file.getAbsolutePath());
+            keepPreviousTopology(file, map, newDigests);
           }
         } catch (IOException e) {
           // Maybe it makes sense to throw exception
           auditor.audit(Action.LOAD, file.getAbsolutePath(), ResourceType.TOPOLOGY,
             ActionOutcome.FAILURE);
           log.failedToLoadTopology(file.getAbsolutePath(), e);
+          keepPreviousTopology(file, map, newDigests);
         } catch (SAXException e) {
           // Maybe it makes sense to throw exception
           auditor.audit(Action.LOAD, file.getAbsolutePath(), ResourceType.TOPOLOGY,
             ActionOutcome.FAILURE);
           log.failedToLoadTopology(file.getAbsolutePath(), e);
+          keepPreviousTopology(file, map, newDigests);
         } catch (Exception e) {
           // Maybe it makes sense to throw exception
           auditor.audit(Action.LOAD, file.getAbsolutePath(), ResourceType.TOPOLOGY,
             ActionOutcome.FAILURE);
           log.failedToLoadTopology(file.getAbsolutePath(), e);
+          keepPreviousTopology(file, map, newDigests);
         }
       }
     }
     return map;
   }
 
+  // A file that can not be loaded, for example because it is still being written,
+  // does not undeploy the topology that was loaded from it before.
+  private void keepPreviousTopology(File file, Map<File, Topology> map, Map<File, String> newDigests) {
+    Topology topology = topologies.get(file);
+    if (topology != null) {
+      log.keptPreviousTopology(file.getAbsolutePath());
+      map.put(file, topology);
+      newDigests.put(file, digests.get(file));
+    }
+  }
+
+  // Collects and removes the redeploy markers written by redeployTopologies.
+  private Set<String> collectRedeployRequests(File directory) {
+    Set<String> names = new HashSet<String>();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (isRedeployMarker(file)) {
+          String name = FilenameUtils.removeExtension(file.getName());
+          log.redeployRequested(name);
+          names.add(name);
+          FileUtils.deleteQuietly(file);
+        }
+      }
+    }
+    return names;
+  }
+
+  private boolean isRedeployMarker(File file) {
+    return !file.isDirectory() && REDEPLOY_MARKER_EXTENSION.equals(FilenameUtils.getExtension(file.getName()));
+  }
+
   public void deployTopology(Topology t){
 
     try {
@@ -291,9 +360,12 @@ public class DefaultTopologyService
     try {
       synchronized (this) {
         Map<File, Topology> oldTopologies = topologies;
-        Map<File, Topology> newTopologies = loadTopologies(directory);
-        List<TopologyEvent> events = createChangeEvents(oldTopologies, newTopologies);
+        Set<String> redeploys = collectRedeployRequests(directory);
+        Map<File, String> newDigests = new HashMap<File, String>();
+        Map<File, Topology> newTopologies = loadTopologies(directory, newDigests);
+        List<TopologyEvent> events = createChangeEvents(oldTopologies, newTopologies, redeploys);
         topologies = newTopologies;
+        digests = newDigests;
         notifyChangeListeners(events);
       }
     } catch (Exception e) {
@@ -348,9 +420,14 @@ public class DefaultTopologyService
     monitor.stop();
   }
 
+  // Hidden, lock and backup files that editors leave next to a topology are ignored.
   @Override
   public boolean accept(File file) {
     boolean accept = false;
+    String name = file.getName();
+    if (name.startsWith(".") || name.startsWith("#") || name.endsWith("~")) {
+      return false;
+    }
     if (!file.isDirectory() && file.canRead()) {
       String extension = FilenameUtils.getExtension(file.getName());
       if (SUPPORTED_TOPOLOGY_FILE_EXTENSIONS.contains(extension)) {
@@ -370,9 +447,18 @@ public class DefaultTopologyService
     onFileChange(file);
   }
 
+  // Changes are only reloaded once the directory has settled so files that are still being written are not deployed.
   @Override
   public void onFileChange(File file) {
-    reloadTopologies();
+    lastChange = System.currentTimeMillis();
+  }
+
+  @Override
+  public void onStop(FileAlterationObserver observer) {
+    if (lastChange != 0 && System.currentTimeMillis() - lastChange >= settleTime) {
+      lastChange = 0;
+      reloadTopologies();
+    }
   }
 
   @Override
@@ -389,7 +475,9 @@ public class DefaultTopologyService
   public void init(GatewayConfig config, Map<String, String> options) throws ServiceLifecycleException {
 
     try {
-      initListener(calculateAbsoluteTopologiesDir(config));
+      long interval = config.getTopologyMonitorInterval();
+      settleTime = config.getTopologyMonitorSettleTime();
+      initListener(calculateAbsoluteTopologiesDir(config), interval > 0 ? interval : 1000L);
     } catch (IOException io) {
       throw new ServiceLifecycleException(io.getMessage());
     } catch (SAXException sax) {
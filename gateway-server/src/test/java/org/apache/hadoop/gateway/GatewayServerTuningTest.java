@@ -0,0 +1,219 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway;
+
+import org.apache.hadoop.gateway.config.impl.GatewayConfigImpl;
+import org.apache.hadoop.test.category.MediumTests;
+import org.apache.hadoop.test.category.UnitTests;
+import org.eclipse.jetty.server.AbstractConnector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+import org.eclipse.jetty.server.ssl.SslSelectChannelConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+@Category( { UnitTests.class, MediumTests.class } )
+public class GatewayServerTuningTest {
+
+  private Server jetty;
+
+  private String startServer( GatewayConfigImpl config, HttpServlet servlet ) throws Exception {
+    jetty = new Server();
+    jetty.setThreadPool( GatewayServer.createThreadPool( config ) );
+    SelectChannelConnector connector = new SelectChannelConnector();
+    connector.setHost( "localhost" );
+    connector.setPort( 0 );
+    GatewayServer.configureConnector( connector, config );
+    jetty.addConnector( connector );
+    ServletContextHandler context = new ServletContextHandler();
+    context.setContextPath( "/" );
+    context.addServlet( new ServletHolder( servlet ), "/*" );
+    jetty.setHandler( context );
+    jetty.start();
+    return "http://localhost:" + connector.getLocalPort() + "/resource";
+  }
+
+  @After
+  public void stopServer() throws Exception {
+    if( jetty != null ) {
+      jetty.stop();
+      jetty.join();
+    }
+  }
+
+  @Test
+  public void testSettingsAreAppliedToPlainAndSslConnectors() {
+    GatewayConfigImpl config = new GatewayConfigImpl();
+    config.set( GatewayConfigImpl.HTTP_SERVER_MIN_THREADS, "3" );
+    config.set( GatewayConfigImpl.HTTP_SERVER_MAX_THREADS, "17" );
+    config.set( GatewayConfigImpl.HTTP_SERVER_MAX_QUEUED, "100" );
+    config.set( GatewayConfigImpl.HTTP_SERVER_ACCEPTORS, "2" );
+    config.set( GatewayConfigImpl.HTTP_SERVER_ACCEPT_QUEUE_SIZE, "512" );
+    config.set( GatewayConfigImpl.HTTP_SERVER_IDLE_TIMEOUT, "15000" );
+    config.set( GatewayConfigImpl.HTTP_SERVER_REQUEST_HEADER_BUFFER, "16384" );
+    config.set( GatewayConfigImpl.HTTP_SERVER_RESPONSE_HEADER_BUFFER, "12288" );
+    config.set( GatewayConfigImpl.HTTP_SERVER_REQUEST_BUFFER, "8192" );
+    config.set( GatewayConfigImpl.HTTP_SERVER_RESPONSE_BUFFER, "65536" );
+    config.set( GatewayConfigImpl.HTTP_SERVER_SO_LINGER_TIME, "5" );
+    config.set( GatewayConfigImpl.HTTP_SERVER_STATS_ON, "true" );
+
+    QueuedThreadPool pool = GatewayServer.createThreadPool( config );
+    assertThat( pool.getMinThreads(), is( 3 ) );
+    assertThat( pool.getMaxThreads(), is( 17 ) );
+    assertThat( pool.getMaxQueued(), is( 100 ) );
+
+    AbstractConnector[] connectors = { new SelectChannelConnector(), new SslSelectChannelConnector() };
+    for( AbstractConnector connector : connectors ) {
+      GatewayServer.configureConnector( connector, config );
+      assertThat( connector.getAcceptors(), is( 2 ) );
+      assertThat( connector.getAcceptQueueSize(), is( 512 ) );
+      assertThat( connector.getMaxIdleTime(), is( 15000 ) );
+      assertThat( connector.getRequestHeaderSize(), is( 16384 ) );
+      assertThat( connector.getResponseHeaderSize(), is( 12288 ) );
+      assertThat( connector.getRequestBufferSize(), is( 8192 ) );
+      assertThat( connector.getResponseBufferSize(), is( 65536 ) );
+      assertThat( connector.getSoLingerTime(), is( 5 ) );
+      assertThat( connector.getStatsOn(), is( true ) );
+    }
+  }
+
+  @Test
+  public void testUnconfiguredSettingsKeepConnectorDefaults() {
+    GatewayConfigImpl config = new GatewayConfigImpl();
+    AbstractConnector[] connectors = { new SelectChannelConnector(), new SslSelectChannelConnector() };
+    for( AbstractConnector connector : connectors ) {
+      AbstractConnector defaults = connector instanceof SslSelectChannelConnector ?
+          new SslSelectChannelConnector() : new SelectChannelConnector();
+      GatewayServer.configureConnector( connector, config );
+      assertThat( connector.getAcceptors(), is( defaults.getAcceptors() ) );
+      assertThat( connector.getAcceptQueueSize(), is( defaults.getAcceptQueueSize() ) );
+      assertThat( connector.getMaxIdleTime(), is( defaults.getMaxIdleTime() ) );
+      assertThat( connector.getRequestHeaderSize(), is( defaults.getRequestHeaderSize() ) );
+      assertThat( connector.getResponseHeaderSize(), is( defaults.getResponseHeaderSize() ) );
+      assertThat( connector.getRequestBufferSize(), is( defaults.getRequestBufferSize() ) );
+      assertThat( connector.getResponseBufferSize(), is( defaults.getResponseBufferSize() ) );
+      assertThat( connector.getSoLingerTime(), is( defaults.getSoLingerTime() ) );
+      assertThat( connector.getStatsOn(), is( false ) );
+    }
+    // The SSL connector lingers on close unless told otherwise.
+    assertThat( connectors[ 1 ].getSoLingerTime(), is( 30000 ) );
+  }
+
+  @Test( timeout = 60 * 1000 )
+  public void testMaxThreadsLimitsConcurrentRequests() throws Exception {
+    GatewayConfigImpl config = new GatewayConfigImpl();
+    config.set( GatewayConfigImpl.HTTP_SERVER_MIN_THREADS, "2" );
+    config.set( GatewayConfigImpl.HTTP_SERVER_MAX_THREADS, "6" );
+    config.set( GatewayConfigImpl.HTTP_SERVER_ACCEPTORS, "1" );
+    config.set( GatewayConfigImpl.HTTP_SERVER_STATS_ON, "true" );
+    final AtomicInteger active = new AtomicInteger();
+    final AtomicInteger peak = new AtomicInteger();
+    final String url = startServer( config, new HttpServlet() {
+      @Override
+      protected void doGet( HttpServletRequest request, HttpServletResponse response ) throws ServletException, IOException {
+        int current = active.incrementAndGet();
+        synchronized( peak ) {
+          peak.set( Math.max( peak.get(), current ) );
+        }
+        try {
+          Thread.sleep( 200 );
+        } catch( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+        } finally {
+          active.decrementAndGet();
+        }
+        response.setStatus( HttpServletResponse.SC_OK );
+      }
+    } );
+
+    final AtomicInteger succeeded = new AtomicInteger();
+    List<Thread> clients = new ArrayList<Thread>();
+    for( int i = 0; i < 20; i++ ) {
+      Thread client = new Thread() {
+        @Override
+        public void run() {
+          try {
+            HttpURLConnection connection = (HttpURLConnection)new URL( url ).openConnection();
+            if( connection.getResponseCode() == HttpServletResponse.SC_OK ) {
+              succeeded.incrementAndGet();
+            }
+            connection.disconnect();
+          } catch( IOException e ) {
+            // Counted as a failure below.
+          }
+        }
+      };
+      clients.add( client );
+      client.start();
+    }
+    for( Thread client : clients ) {
+      client.join();
+    }
+
+    // Jetty uses one of the pool's threads for the acceptor and one for the selector.
+    assertThat( succeeded.get(), is( 20 ) );
+    assertThat( peak.get(), greaterThan( 1 ) );
+    assertThat( peak.get(), lessThanOrEqualTo( 4 ) );
+  }
+
+  @Test( timeout = 30 * 1000 )
+  public void testRequestHeaderBufferLimitsHeaderSize() throws Exception {
+    GatewayConfigImpl config = new GatewayConfigImpl();
+    config.set( GatewayConfigImpl.HTTP_SERVER_REQUEST_HEADER_BUFFER, "1024" );
+    String url = startServer( config, new HttpServlet() {
+      @Override
+      protected void doGet( HttpServletRequest request, HttpServletResponse response ) throws ServletException, IOException {
+        response.setStatus( HttpServletResponse.SC_OK );
+      }
+    } );
+    StringBuilder header = new StringBuilder();
+    for( int i = 0; i < 2048; i++ ) {
+      header.append( 'x' );
+    }
+
+    HttpURLConnection connection = (HttpURLConnection)new URL( url ).openConnection();
+    assertThat( connection.getResponseCode(), is( HttpServletResponse.SC_OK ) );
+    connection.disconnect();
+
+    connection = (HttpURLConnection)new URL( url ).openConnection();
+    connection.setRequestProperty( "X-Large", header.toString() );
+    assertThat( connection.getResponseCode(), is( HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE ) );
+    connection.disconnect();
+  }
+
+}
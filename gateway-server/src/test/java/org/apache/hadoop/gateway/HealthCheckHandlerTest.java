@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway;
+
+import org.apache.hadoop.gateway.deploy.DeploymentStatus;
+import org.apache.hadoop.gateway.deploy.DeploymentStatusRegistry;
+import org.apache.hadoop.gateway.deploy.GatewayShutdown;
+import org.apache.hadoop.test.category.MediumTests;
+import org.apache.hadoop.test.category.UnitTests;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+@Category( { UnitTests.class, MediumTests.class } )
+public class HealthCheckHandlerTest {
+
+  private Server jetty;
+  private String url;
+
+  @Before
+  public void startServer() throws Exception {
+    DeploymentStatusRegistry.clear();
+    GatewayShutdown.clear();
+    HealthCheckHandler health = new HealthCheckHandler( "/health/", -1 );
+    health.setHandler( new AbstractHandler() {
+      @Override
+      public void handle( String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response )
+          throws IOException {
+        baseRequest.setHandled( true );
+        response.getWriter().write( "topology" );
+      }
+    } );
+    jetty = new Server( 0 );
+    jetty.setHandler( health );
+    jetty.start();
+    url = "http://localhost:" + jetty.getConnectors()[ 0 ].getLocalPort();
+  }
+
+  @After
+  public void stopServer() throws Exception {
+    jetty.stop();
+    jetty.join();
+    DeploymentStatusRegistry.clear();
+    GatewayShutdown.clear();
+  }
+
+  @Test
+  public void testLiveness() throws Exception {
+    HttpURLConnection connection = open( "/health/live" );
+    assertThat( connection.getResponseCode(), is( HttpServletResponse.SC_OK ) );
+    assertThat( connection.getContentType(), containsString( "application/json" ) );
+    assertThat( read( connection.getInputStream() ), is( "{\"live\":true}" ) );
+  }
+
+  @Test
+  public void testOtherRequestsPassThrough() throws Exception {
+    HttpURLConnection connection = open( "/gateway/sandbox/health/ready" );
+    assertThat( connection.getResponseCode(), is( HttpServletResponse.SC_OK ) );
+    assertThat( read( connection.getInputStream() ), is( "topology" ) );
+  }
+
+  @Test
+  public void testNotReadyUntilStartupCompletes() throws Exception {
+    HttpURLConnection connection = open( "/health/ready" );
+    assertThat( connection.getResponseCode(), is( HttpServletResponse.SC_SERVICE_UNAVAILABLE ) );
+    assertThat( read( connection.getErrorStream() ), is( "{\"ready\":false}" ) );
+
+    DeploymentStatus status = DeploymentStatusRegistry.getStatus( "sandbox" );
+    status.deploying();
+    status.deployed();
+    DeploymentStatusRegistry.startupCompleted( 1, 10 );
+    connection = open( "/health/ready" );
+    assertThat( connection.getResponseCode(), is( HttpServletResponse.SC_OK ) );
+    assertThat( read( connection.getInputStream() ), is( "{\"ready\":true}" ) );
+  }
+
+  @Test
+  public void testReadyWhileTopologyIsNotServed() throws Exception {
+    DeploymentStatusRegistry.startupCompleted( 1, 10 );
+    DeploymentStatus status = DeploymentStatusRegistry.getStatus( "broken" );
+    status.deploying();
+    status.failed();
+    // A broken topology must not take the whole gateway out of rotation, it is only reported.
+    HttpURLConnection connection = open( "/health/ready" );
+    assertThat( connection.getResponseCode(), is( HttpServletResponse.SC_OK ) );
+    assertThat( read( connection.getInputStream() ), is( "{\"ready\":true}" ) );
+
+    HealthCheckHandler health = (HealthCheckHandler)jetty.getHandler();
+    assertThat( health.getReadiness().getTopologiesNotReady(), is( Collections.singletonList( "broken" ) ) );
+
+    // An undeployed topology is no longer expected to be served.
+    status.undeployed();
+    assertThat( health.getReadiness().getTopologiesNotReady().isEmpty(), is( true ) );
+  }
+
+  @Test
+  public void testNotReadyWhileShuttingDown() throws Exception {
+    DeploymentStatusRegistry.startupCompleted( 0, 10 );
+    assertThat( open( "/health/ready" ).getResponseCode(), is( HttpServletResponse.SC_OK ) );
+    GatewayShutdown.started( 1000 );
+    HttpURLConnection connection = open( "/health/ready" );
+    assertThat( connection.getResponseCode(), is( HttpServletResponse.SC_SERVICE_UNAVAILABLE ) );
+    assertThat( read( connection.getErrorStream() ), is( "{\"ready\":false}" ) );
+    assertThat( open( "/health/live" ).getResponseCode(), is( HttpServletResponse.SC_OK ) );
+    // Requests routed here before the load balancers notice are still served during the deregistration delay.
+    connection = open( "/gateway/sandbox/webhdfs/v1/" );
+    assertThat( connection.getResponseCode(), is( HttpServletResponse.SC_OK ) );
+    assertThat( read( connection.getInputStream() ), is( "topology" ) );
+  }
+
+  private HttpURLConnection open( String path ) throws IOException {
+    return (HttpURLConnection)new URL( url + path ).openConnection();
+  }
+
+  private static String read( InputStream input ) throws IOException {
+    try {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      byte[] bytes = new byte[ 256 ];
+      int count;
+      while( ( count = input.read( bytes ) ) >= 0 ) {
+        buffer.write( bytes, 0, count );
+      }
+      return buffer.toString( "UTF-8" );
+    } finally {
+      input.close();
+    }
+  }
+
+}
@@ -0,0 +1,344 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway;
+
+import org.apache.hadoop.test.category.MediumTests;
+import org.apache.hadoop.test.category.UnitTests;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+@Category( { UnitTests.class, MediumTests.class } )
+public class TopologyContextsTest {
+
+  private Server jetty;
+  private TopologyContexts deployments;
+  private String url;
+
+  private void startServer( long drainTimeout ) throws Exception {
+    ContextHandlerCollection contexts = new ContextHandlerCollection();
+    jetty = new Server( 0 );
+    jetty.setHandler( contexts );
+    jetty.start();
+    deployments = new TopologyContexts( contexts, drainTimeout );
+    url = "http://localhost:" + jetty.getConnectors()[ 0 ].getLocalPort() + "/gateway/test/resource";
+  }
+
+  @After
+  public void stopServer() throws Exception {
+    if( jetty != null ) {
+      jetty.stop();
+      jetty.join();
+    }
+    if( deployments != null ) {
+      deployments.stop();
+    }
+  }
+
+  @Test( timeout = 60 * 1000 )
+  public void testRedeployUnderConcurrentLoadFailsNoRequests() throws Exception {
+    startServer( 5000 );
+    deployments.deploy( "test", createContext( "version-0", null, 0 ) );
+    assertThat( get( url ), is( "version-0" ) );
+
+    final AtomicBoolean running = new AtomicBoolean( true );
+    final AtomicInteger requests = new AtomicInteger();
+    final AtomicInteger failures = new AtomicInteger();
+    final AtomicReference<String> failure = new AtomicReference<String>();
+    List<Thread> clients = new ArrayList<Thread>();
+    for( int i = 0; i < 8; i++ ) {
+      Thread client = new Thread() {
+        @Override
+        public void run() {
+          while( running.get() ) {
+            try {
+              String body = get( url );
+              if( !body.startsWith( "version-" ) ) {
+                failures.incrementAndGet();
+                failure.set( body );
+              }
+            } catch( IOException e ) {
+              failures.incrementAndGet();
+              failure.set( e.toString() );
+            }
+            requests.incrementAndGet();
+          }
+        }
+      };
+      client.start();
+      clients.add( client );
+    }
+
+    // Each new context takes a while to start, which used to be a window of failed requests.
+    for( int version = 1; version <= 10; version++ ) {
+      assertThat( deployments.deploy( "test", createContext( "version-" + version, null, 50 ) ), is( true ) );
+      Thread.sleep( 20 );
+    }
+    running.set( false );
+    for( Thread client : clients ) {
+      client.join();
+    }
+
+    assertThat( "Failed " + failures.get() + " of " + requests.get() + " requests, last: " + failure.get(),
+        failures.get(), is( 0 ) );
+    assertThat( get( url ), is( "version-10" ) );
+    assertThat( deployments.awaitDrained( 5000 ), is( true ) );
+  }
+
+  @Test( timeout = 30 * 1000 )
+  public void testReplacedContextCompletesInFlightRequests() throws Exception {
+    startServer( 10000 );
+    CountDownLatch release = new CountDownLatch( 1 );
+    ServletContextHandler previous = createContext( "version-0", release, 0 );
+    deployments.deploy( "test", previous );
+
+    final AtomicReference<String> slowResponse = new AtomicReference<String>();
+    Thread slowClient = new Thread() {
+      @Override
+      public void run() {
+        try {
+          slowResponse.set( get( url + "?slow" ) );
+        } catch( IOException e ) {
+          slowResponse.set( e.toString() );
+        }
+      }
+    };
+    slowClient.start();
+    waitForActiveRequests( "test", 1 );
+
+    deployments.deploy( "test", createContext( "version-1", null, 0 ) );
+    assertThat( get( url ), is( "version-1" ) );
+    assertThat( previous.isRunning(), is( true ) );
+
+    release.countDown();
+    slowClient.join();
+    assertThat( slowResponse.get(), is( "version-0" ) );
+    assertThat( deployments.awaitDrained( 5000 ), is( true ) );
+    assertThat( previous.isStopped(), is( true ) );
+  }
+
+  @Test( timeout = 30 * 1000 )
+  public void testDrainTimeoutStopsReplacedContext() throws Exception {
+    startServer( 200 );
+    CountDownLatch release = new CountDownLatch( 1 );
+    ServletContextHandler previous = createContext( "version-0", release, 0 );
+    deployments.deploy( "test", previous );
+
+    Thread slowClient = new Thread() {
+      @Override
+      public void run() {
+        try {
+          get( url + "?slow" );
+        } catch( IOException e ) {
+          // The context is stopped underneath the request.
+        }
+      }
+    };
+    slowClient.start();
+    waitForActiveRequests( "test", 1 );
+
+    deployments.undeploy( "test" );
+    assertThat( deployments.awaitDrained( 5000 ), is( true ) );
+    assertThat( previous.isStopped(), is( true ) );
+    release.countDown();
+    slowClient.join();
+  }
+
+  @Test( timeout = 30 * 1000 )
+  public void testFailedContextKeepsCurrentDeployment() throws Exception {
+    startServer( 1000 );
+    deployments.deploy( "test", createContext( "version-0", null, 0 ) );
+
+    ContextHandler broken = new ContextHandler( "/gateway/test" ) {
+      @Override
+      protected void doStart() throws Exception {
+        throw new IllegalStateException( "broken" );
+      }
+    };
+    try {
+      deployments.deploy( "test", broken );
+      fail( "Expected the deployment to fail." );
+    } catch( IllegalStateException e ) {
+      assertThat( e.getMessage(), is( "broken" ) );
+    }
+    assertThat( get( url ), is( "version-0" ) );
+  }
+
+  @Test( timeout = 30 * 1000 )
+  public void testUndeployRemovesContext() throws Exception {
+    startServer( 1000 );
+    deployments.deploy( "test", createContext( "version-0", null, 0 ) );
+    assertThat( deployments.undeploy( "test" ), is( true ) );
+    assertThat( deployments.undeploy( "test" ), is( false ) );
+    HttpURLConnection connection = (HttpURLConnection)new URL( url ).openConnection();
+    assertThat( connection.getResponseCode(), is( HttpServletResponse.SC_NOT_FOUND ) );
+    assertThat( deployments.get( "test" ) == null, is( true ) );
+  }
+
+  @Test( timeout = 30 * 1000 )
+  public void testShutdownRejectsNewRequestsAndDrainsInFlight() throws Exception {
+    startServer( 1000 );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    deployments.deploy( "test", createContext( "version-0", release, 0 ) );
+
+    final AtomicReference<String> slowResponse = new AtomicReference<String>();
+    Thread slowClient = new Thread() {
+      @Override
+      public void run() {
+        try {
+          slowResponse.set( get( url + "?slow" ) );
+        } catch( IOException e ) {
+          slowResponse.set( e.toString() );
+        }
+      }
+    };
+    slowClient.start();
+    waitForActiveRequests( "test", 1 );
+
+    deployments.shutdown();
+    assertThat( get( url ), is( "status " + HttpServletResponse.SC_SERVICE_UNAVAILABLE ) );
+    assertThat( deployments.getActiveRequests().get( "test" ), is( 1 ) );
+
+    new Thread() {
+      @Override
+      public void run() {
+        try {
+          Thread.sleep( 200 );
+        } catch( InterruptedException e ) {
+          // Release right away.
+        }
+        release.countDown();
+      }
+    }.start();
+    assertThat( deployments.awaitIdle( 10000 ).isEmpty(), is( true ) );
+    slowClient.join();
+    assertThat( slowResponse.get(), is( "version-0" ) );
+  }
+
+  @Test( timeout = 30 * 1000 )
+  public void testShutdownReportsRequestsActiveAfterTimeout() throws Exception {
+    startServer( 1000 );
+    CountDownLatch release = new CountDownLatch( 1 );
+    deployments.deploy( "test", createContext( "version-0", release, 0 ) );
+
+    Thread slowClient = new Thread() {
+      @Override
+      public void run() {
+        try {
+          get( url + "?slow" );
+        } catch( IOException e ) {
+          // Not relevant to the test.
+        }
+      }
+    };
+    slowClient.start();
+    waitForActiveRequests( "test", 1 );
+
+    deployments.shutdown();
+    Map<String, Integer> remaining = deployments.awaitIdle( 200 );
+    assertThat( remaining.size(), is( 1 ) );
+    assertThat( remaining.get( "test" ), is( 1 ) );
+    release.countDown();
+    slowClient.join();
+  }
+
+  private void waitForActiveRequests( String name, int count ) throws InterruptedException {
+    while( deployments.getActiveRequests( name ) < count ) {
+      Thread.sleep( 10 );
+    }
+  }
+
+  private static ServletContextHandler createContext( final String body, final CountDownLatch release, final long startupDelay ) {
+    ServletContextHandler context = new ServletContextHandler();
+    context.setContextPath( "/gateway/test" );
+    ServletHolder holder = new ServletHolder( new HttpServlet() {
+      @Override
+      public void init() throws ServletException {
+        try {
+          Thread.sleep( startupDelay );
+        } catch( InterruptedException e ) {
+          throw new ServletException( e );
+        }
+      }
+
+      @Override
+      protected void doGet( HttpServletRequest request, HttpServletResponse response ) throws IOException {
+        if( release != null && request.getParameter( "slow" ) != null ) {
+          try {
+            release.await( 20, TimeUnit.SECONDS );
+          } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        response.setContentType( "text/plain" );
+        response.getWriter().write( body );
+      }
+    } );
+    holder.setInitOrder( 1 );
+    context.addServlet( holder, "/*" );
+    return context;
+  }
+
+  private static String get( String url ) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection)new URL( url ).openConnection();
+    int status = connection.getResponseCode();
+    if( status != HttpServletResponse.SC_OK ) {
+      return "status " + status;
+    }
+    InputStream input = connection.getInputStream();
+    try {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      byte[] bytes = new byte[ 256 ];
+      int count;
+      while( ( count = input.read( bytes ) ) >= 0 ) {
+        buffer.write( bytes, 0, count );
+      }
+      return buffer.toString( "UTF-8" );
+    } finally {
+      input.close();
+    }
+  }
+
+}
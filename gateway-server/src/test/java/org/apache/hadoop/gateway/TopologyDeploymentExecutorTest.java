@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway;
+
+import org.apache.hadoop.test.category.FastTests;
+import org.apache.hadoop.test.category.UnitTests;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+@Category( { UnitTests.class, FastTests.class } )
+public class TopologyDeploymentExecutorTest {
+
+  private TopologyDeploymentExecutor executor;
+
+  @After
+  public void tearDown() {
+    if( executor != null ) {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testTasksForSameTopologyRunInOrderOneAtATime() throws Exception {
+    executor = new TopologyDeploymentExecutor( 4 );
+    final List<Integer> order = Collections.synchronizedList( new ArrayList<Integer>() );
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger overlaps = new AtomicInteger();
+    final CountDownLatch done = new CountDownLatch( 20 );
+    for( int i = 0; i < 20; i++ ) {
+      final int index = i;
+      executor.execute( "topology", new Runnable() {
+        @Override
+        public void run() {
+          if( running.incrementAndGet() > 1 ) {
+            overlaps.incrementAndGet();
+          }
+          try {
+            Thread.sleep( 2 );
+          } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+          }
+          order.add( index );
+          running.decrementAndGet();
+          done.countDown();
+        }
+      } );
+    }
+    assertThat( done.await( 10, TimeUnit.SECONDS ), is( true ) );
+    assertThat( overlaps.get(), is( 0 ) );
+    for( int i = 0; i < 20; i++ ) {
+      assertThat( order.get( i ), is( i ) );
+    }
+  }
+
+  @Test
+  public void testSlowTopologyDoesNotBlockOthers() throws Exception {
+    executor = new TopologyDeploymentExecutor( 2 );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    final CountDownLatch others = new CountDownLatch( 5 );
+    executor.execute( "slow", new Runnable() {
+      @Override
+      public void run() {
+        try {
+          release.await();
+        } catch( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    } );
+    for( int i = 0; i < 5; i++ ) {
+      executor.execute( "topology-" + i, new Runnable() {
+        @Override
+        public void run() {
+          others.countDown();
+        }
+      } );
+    }
+    assertThat( others.await( 10, TimeUnit.SECONDS ), is( true ) );
+    release.countDown();
+  }
+
+  @Test
+  public void testFailedTaskDoesNotStopQueue() throws Exception {
+    executor = new TopologyDeploymentExecutor( 1 );
+    final CountDownLatch done = new CountDownLatch( 1 );
+    executor.execute( "topology", new Runnable() {
+      @Override
+      public void run() {
+        throw new IllegalStateException( "TEST" );
+      }
+    } );
+    executor.execute( "topology", new Runnable() {
+      @Override
+      public void run() {
+        done.countDown();
+      }
+    } );
+    assertThat( done.await( 10, TimeUnit.SECONDS ), is( true ) );
+  }
+
+  @Test
+  public void testTasksAreRejectedAfterShutdown() {
+    executor = new TopologyDeploymentExecutor( 1 );
+    executor.shutdown();
+    assertThat( executor.execute( "topology", new Runnable() {
+      @Override
+      public void run() {
+      }
+    } ), is( false ) );
+  }
+
+}
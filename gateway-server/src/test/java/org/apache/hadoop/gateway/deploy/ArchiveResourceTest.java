@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.deploy;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jetty.util.resource.Resource;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.matchers.JUnitMatchers.hasItem;
+
+public class ArchiveResourceTest {
+
+  private static WebArchive createArchive() {
+    WebArchive war = ShrinkWrap.create( WebArchive.class, "test-cluster" );
+    war.addAsWebInfResource( new StringAsset( "<gateway/>" ), "gateway.xml" );
+    war.addAsWebInfResource( new StringAsset( "[main]" ), "shiro.ini" );
+    return war;
+  }
+
+  @Test
+  public void testDirectoriesAndFiles() throws Exception {
+    Resource root = new ArchiveResource( createArchive() );
+    assertThat( root.exists(), is( true ) );
+    assertThat( root.isDirectory(), is( true ) );
+
+    Resource webInf = root.addPath( "/WEB-INF/" );
+    assertThat( webInf.exists(), is( true ) );
+    assertThat( webInf.isDirectory(), is( true ) );
+    List<String> names = Arrays.asList( webInf.list() );
+    assertThat( names, hasItem( "gateway.xml" ) );
+    assertThat( names, hasItem( "shiro.ini" ) );
+
+    Resource file = webInf.addPath( "shiro.ini" );
+    assertThat( file.exists(), is( true ) );
+    assertThat( file.isDirectory(), is( false ) );
+    assertThat( file.list(), nullValue() );
+    InputStream stream = file.getInputStream();
+    assertThat( IOUtils.toString( stream, "UTF-8" ), is( "[main]" ) );
+    stream.close();
+
+    assertThat( root.addPath( "/WEB-INF/missing.xml" ).exists(), is( false ) );
+  }
+
+  @Test
+  public void testUrlOpensArchiveContent() throws Exception {
+    Resource resource = new ArchiveResource( createArchive() ).addPath( "/WEB-INF/gateway.xml" );
+    InputStream stream = resource.getURL().openStream();
+    assertThat( IOUtils.toString( stream, "UTF-8" ), is( "<gateway/>" ) );
+    stream.close();
+    // This is how the servlet context hands resources to application code.
+    stream = Resource.newResource( resource.getURL() ).getInputStream();
+    assertThat( IOUtils.toString( stream, "UTF-8" ), is( "<gateway/>" ) );
+    stream.close();
+  }
+
+  @Test
+  public void testPathsCannotEscapeArchive() throws Exception {
+    Resource root = new ArchiveResource( createArchive() );
+    try {
+      root.addPath( "/../etc/passwd" );
+      fail( "Expected the path to be rejected" );
+    } catch( MalformedURLException e ) {
+      // Expected.
+    }
+  }
+
+}
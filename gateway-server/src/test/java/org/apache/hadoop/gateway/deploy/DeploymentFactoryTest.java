@@ -17,9 +17,12 @@
  */
 package org.apache.hadoop.gateway.deploy;
 
+import org.apache.hadoop.gateway.GatewayServlet;
 import org.apache.hadoop.gateway.config.GatewayConfig;
 import org.apache.hadoop.gateway.config.impl.GatewayConfigImpl;
 import org.apache.hadoop.gateway.topology.Topology;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
 import org.jboss.shrinkwrap.api.spec.WebArchive;
 import org.junit.Test;
 import org.w3c.dom.Document;
@@ -34,6 +37,7 @@ import java.io.InputStream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.hamcrest.xml.HasXPath.hasXPath;
 
 public class DeploymentFactoryTest {
@@ -61,6 +65,27 @@ public class DeploymentFactoryTest {
     assertThat( gateway, hasXPath( "/gateway" ) );
   }
 
+  @Test
+  public void testInMemoryContext() throws Exception {
+    GatewayConfig config = new GatewayConfigImpl();
+
+    Topology topology = new Topology();
+    topology.setName( "test-cluster" );
+
+    DeploymentContext deployment = DeploymentFactory.createDeploymentContext( config, topology );
+    ServletContextHandler context = ContextHandlerFactory.create( deployment );
+
+    ServletHolder servlet = context.getServletHandler().getServlet( "test-cluster" );
+    assertThat( servlet.getClassName(), equalTo( "org.apache.hadoop.gateway.GatewayServlet" ) );
+    assertThat( servlet.getInitParameter( "gatewayDescriptorLocation" ), equalTo( "gateway.xml" ) );
+    assertThat( context.getServletHandler().getServletMapping( "/*" ).getServletName(), equalTo( "test-cluster" ) );
+    assertThat( context.getAttribute( GatewayServlet.GATEWAY_DESCRIPTOR_ATTRIBUTE ),
+        sameInstance( (Object)deployment.getGatewayDescriptor() ) );
+
+    Document gateway = parse( context.getServletContext().getResourceAsStream( "/WEB-INF/gateway.xml" ) );
+    assertThat( gateway, hasXPath( "/gateway" ) );
+  }
+
   private Document parse( InputStream stream ) throws IOException, SAXException, ParserConfigurationException {
     DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
     DocumentBuilder builder = factory.newDocumentBuilder();
@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.deploy;
+
+import org.apache.hadoop.gateway.config.GatewayConfig;
+import org.apache.hadoop.gateway.config.impl.GatewayConfigImpl;
+import org.apache.hadoop.gateway.topology.Provider;
+import org.apache.hadoop.gateway.topology.Service;
+import org.apache.hadoop.gateway.topology.Topology;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+
+public class DeploymentFingerprintTest {
+
+  @Test
+  public void testFingerprintIsStable() {
+    GatewayConfig config = new GatewayConfigImpl();
+    Topology topology = createTopology( "test-cluster", "a", "b" );
+    String fingerprint = DeploymentFingerprint.calculate( config, topology );
+    assertThat( fingerprint.matches( "[0-9a-f]{16}" ), equalTo( true ) );
+
+    // A copy loaded later, for example after a restart or a touch of the file, has a new timestamp.
+    Topology copy = createTopology( "test-cluster", "a", "b" );
+    copy.setTimestamp( topology.getTimestamp() + 1000 );
+    assertThat( DeploymentFingerprint.calculate( config, copy ), equalTo( fingerprint ) );
+  }
+
+  @Test
+  public void testParamOrderIsIgnored() {
+    GatewayConfig config = new GatewayConfigImpl();
+    Topology topology = createTopology( "test-cluster", "a", "b" );
+    Topology reordered = createTopology( "test-cluster", "a", "b" );
+    Map<String,String> params = new LinkedHashMap<String,String>();
+    params.put( "param2", "b" );
+    params.put( "param1", "a" );
+    reordered.getProviders().iterator().next().setParams( params );
+    assertThat( DeploymentFingerprint.calculate( config, reordered ),
+        equalTo( DeploymentFingerprint.calculate( config, topology ) ) );
+  }
+
+  @Test
+  public void testContentChangesFingerprint() {
+    GatewayConfig config = new GatewayConfigImpl();
+    String fingerprint = DeploymentFingerprint.calculate( config, createTopology( "test-cluster", "a", "b" ) );
+    assertThat( DeploymentFingerprint.calculate( config, createTopology( "other-cluster", "a", "b" ) ), not( equalTo( fingerprint ) ) );
+    assertThat( DeploymentFingerprint.calculate( config, createTopology( "test-cluster", "a", "c" ) ), not( equalTo( fingerprint ) ) );
+    // Values must not be able to shift between adjacent params.
+    assertThat( DeploymentFingerprint.calculate( config, createTopology( "test-cluster", "ab", "" ) ), not( equalTo( fingerprint ) ) );
+
+    Topology topology = createTopology( "test-cluster", "a", "b" );
+    topology.getServices().iterator().next().addUrl( "http://host:50070/webhdfs" );
+    assertThat( DeploymentFingerprint.calculate( config, topology ), not( equalTo( fingerprint ) ) );
+  }
+
+  @Test
+  public void testContributorCodeIsIncluded() {
+    String fingerprint = DeploymentFingerprint.fingerprint( DeploymentFactory.class );
+    assertThat( fingerprint.startsWith( DeploymentFactory.class.getName() + "@" ), equalTo( true ) );
+    assertThat( DeploymentFingerprint.fingerprint( DeploymentFactory.class ), equalTo( fingerprint ) );
+  }
+
+  private static Topology createTopology( String name, String value1, String value2 ) {
+    Topology topology = new Topology();
+    topology.setName( name );
+    topology.setTimestamp( 1000 );
+    Provider provider = new Provider();
+    provider.setRole( "test-role" );
+    provider.setName( "test-name" );
+    provider.setEnabled( true );
+    Map<String,String> params = new LinkedHashMap<String,String>();
+    params.put( "param1", value1 );
+    params.put( "param2", value2 );
+    provider.setParams( params );
+    topology.addProvider( provider );
+    Service service = new Service();
+    service.setRole( "WEBHDFS" );
+    service.addUrl( "http://host:50070/webhdfs" );
+    topology.addService( service );
+    return topology;
+  }
+
+}
@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.security.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.hadoop.gateway.services.security.AliasService;
+import org.apache.hadoop.gateway.services.security.KeystoreService;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class DefaultCryptoServiceTest {
+
+  private Map<String, char[]> aliases;
+  private DefaultCryptoService crypto;
+
+  @Before
+  public void setUp() {
+    aliases = new HashMap<String, char[]>();
+    crypto = new DefaultCryptoService();
+    crypto.setAliasService(aliasService(aliases));
+  }
+
+  @Test
+  public void testMacSecretGeneratedFromSecureRandom() {
+    byte[] signature = crypto.sign("HmacSHA256", "token-hmac", "payload");
+    assertThat(signature, notNullValue());
+    assertThat(Base64.decodeBase64(new String(aliases.get("token-hmac"))).length, is(32));
+    assertThat(crypto.verify("HmacSHA256", "token-hmac", "payload", signature), is(true));
+  }
+
+  @Test
+  public void testShortProvisionedMacSecretRefused() {
+    aliases.put("token-hmac", "too-short".toCharArray());
+    assertThat(crypto.sign("HmacSHA256", "token-hmac", "payload"), nullValue());
+    assertThat(new String(aliases.get("token-hmac")), is("too-short"));
+  }
+
+  @Test
+  public void testKeyCacheClearedWhenKeystoresChange() throws Exception {
+    final long[] modified = { 1 };
+    crypto.setKeystoreService((KeystoreService) Proxy.newProxyInstance(KeystoreService.class.getClassLoader(),
+        new Class[] { KeystoreService.class }, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("getLastModifiedForGateway")) {
+              return modified[0];
+            }
+            throw new UnsupportedOperationException(method.getName());
+          }
+        }));
+    aliases.put("token-hmac", Base64.encodeBase64String(new byte[32]).toCharArray());
+    byte[] signature = crypto.sign("HmacSHA256", "token-hmac", "payload");
+
+    byte[] secret = new byte[32];
+    Arrays.fill(secret, (byte) 1);
+    aliases.put("token-hmac", Base64.encodeBase64String(secret).toCharArray());
+    assertThat(crypto.sign("HmacSHA256", "token-hmac", "payload"), is(signature));
+
+    modified[0] = 2;
+    long deadline = System.currentTimeMillis() + 10000;
+    while (Arrays.equals(crypto.sign("HmacSHA256", "token-hmac", "payload"), signature)
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(100);
+    }
+    assertThat(crypto.verify("HmacSHA256", "token-hmac", "payload", signature), is(false));
+  }
+
+  private static AliasService aliasService(final Map<String, char[]> aliases) {
+    return (AliasService) Proxy.newProxyInstance(AliasService.class.getClassLoader(),
+        new Class[] { AliasService.class }, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("getPasswordFromAliasForGateway")) {
+              return aliases.get(args[0]);
+            }
+            if (method.getName().equals("addAliasForCluster") && args[0].equals("__gateway")) {
+              aliases.put((String) args[1], ((String) args[2]).toCharArray());
+              return null;
+            }
+            throw new UnsupportedOperationException(method.getName());
+          }
+        });
+  }
+
+}
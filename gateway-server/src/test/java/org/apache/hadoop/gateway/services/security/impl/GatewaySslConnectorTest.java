@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.security.impl;
+
+import org.apache.hadoop.gateway.services.security.SSLHandshakeStatistics;
+import org.apache.hadoop.test.category.MediumTests;
+import org.apache.hadoop.test.category.UnitTests;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.cert.X509Certificate;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+@Category( { UnitTests.class, MediumTests.class } )
+public class GatewaySslConnectorTest {
+
+  private static final String PREFERRED_CIPHER = "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256";
+  private static final String OTHER_CIPHER = "TLS_ECDHE_RSA_WITH_AES_256_GCM_SHA384";
+
+  private Server jetty;
+  private GatewaySslConnector connector;
+
+  private void startServer( int sessionCacheSize, boolean serverCipherOrder, String... ciphers ) throws Exception {
+    SslContextFactory sslContextFactory = new GatewaySslContextFactory( serverCipherOrder );
+    sslContextFactory.setSslSessionCacheSize( sessionCacheSize );
+    if( ciphers.length > 0 ) {
+      sslContextFactory.setIncludeCipherSuites( ciphers );
+    }
+    sslContextFactory.setCertAlias( "server" );
+    sslContextFactory.setKeyStorePath(
+        new File( ClassLoader.getSystemResource( "server-keystore.jks" ).toURI() ).getAbsolutePath() );
+    sslContextFactory.setKeyStorePassword( "horton" );
+    sslContextFactory.setKeyManagerPassword( "horton" );
+    connector = new GatewaySslConnector( sslContextFactory );
+    connector.setHost( "localhost" );
+    connector.setPort( 0 );
+    jetty = new Server();
+    jetty.addConnector( connector );
+    jetty.setHandler( new AbstractHandler() {
+      @Override
+      public void handle( String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response ) {
+        baseRequest.setHandled( true );
+        response.setStatus( HttpServletResponse.SC_OK );
+      }
+    } );
+    jetty.start();
+    SSLHandshakeStatistics.clear();
+  }
+
+  @After
+  public void stopServer() throws Exception {
+    if( jetty != null ) {
+      jetty.stop();
+      jetty.join();
+    }
+  }
+
+  private static SSLContext createClientContext() throws Exception {
+    return createClientContext( "TLS" );
+  }
+
+  private static SSLContext createClientContext( String protocol ) throws Exception {
+    SSLContext context = SSLContext.getInstance( protocol );
+    context.init( null, new TrustManager[]{ new X509TrustManager() {
+      @Override
+      public void checkClientTrusted( X509Certificate[] chain, String authType ) {
+      }
+      @Override
+      public void checkServerTrusted( X509Certificate[] chain, String authType ) {
+      }
+      @Override
+      public X509Certificate[] getAcceptedIssuers() {
+        return new X509Certificate[ 0 ];
+      }
+    } }, null );
+    return context;
+  }
+
+  // Makes a number of requests on a new connection and returns the number that succeeded.
+  private int connect( SSLContext context, int requests ) throws Exception {
+    int succeeded = 0;
+    SSLSocket socket = (SSLSocket)context.getSocketFactory().createSocket( "localhost", connector.getLocalPort() );
+    try {
+      OutputStream output = socket.getOutputStream();
+      InputStream input = socket.getInputStream();
+      for( int i = 0; i < requests; i++ ) {
+        output.write( "GET / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 0\r\n\r\n".getBytes( "UTF-8" ) );
+        output.flush();
+        byte[] buffer = new byte[ 4096 ];
+        int length = input.read( buffer );
+        if( length > 0 && new String( buffer, 0, length, "UTF-8" ).startsWith( "HTTP/1.1 200" ) ) {
+          succeeded++;
+        }
+      }
+    } finally {
+      socket.close();
+    }
+    return succeeded;
+  }
+
+  @Test( timeout = 60 * 1000 )
+  public void testResumedHandshakesAreCounted() throws Exception {
+    startServer( 100, false );
+    SSLContext client = createClientContext();
+    for( int i = 0; i < 20; i++ ) {
+      assertThat( connect( client, 3 ), is( 3 ) );
+    }
+    // A client without the session makes another full handshake.
+    assertThat( connect( createClientContext(), 1 ), is( 1 ) );
+
+    assertThat( SSLHandshakeStatistics.getFullHandshakeCount(), is( 2L ) );
+    assertThat( SSLHandshakeStatistics.getResumedHandshakeCount(), is( 19L ) );
+    assertThat( SSLHandshakeStatistics.getResumptionRatio(), is( 19.0 / 21 ) );
+    assertThat( SSLHandshakeStatistics.getFullHandshakeRate(), greaterThan( 0.0 ) );
+    assertThat( SSLHandshakeStatistics.getResumedHandshakeRate(), greaterThan( 0.0 ) );
+    assertThat( connector.getSslContextFactory().getSslContext().getServerSessionContext().getSessionCacheSize(), is( 100 ) );
+  }
+
+  @Test( timeout = 60 * 1000 )
+  public void testServerCipherOrder() throws Exception {
+    startServer( 100, true, PREFERRED_CIPHER, OTHER_CIPHER );
+    SSLSocket socket = (SSLSocket)createClientContext( "TLSv1.2" ).getSocketFactory().createSocket(
+        "localhost", connector.getLocalPort() );
+    try {
+      socket.setEnabledCipherSuites( new String[]{ OTHER_CIPHER, PREFERRED_CIPHER } );
+      socket.startHandshake();
+      assertThat( socket.getSession().getCipherSuite(), is( PREFERRED_CIPHER ) );
+    } finally {
+      socket.close();
+    }
+  }
+
+}
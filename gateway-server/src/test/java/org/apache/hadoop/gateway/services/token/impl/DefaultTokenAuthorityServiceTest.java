@@ -0,0 +1,196 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.token.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.gateway.config.GatewayConfig;
+import org.apache.hadoop.gateway.services.ServiceLifecycleException;
+import org.apache.hadoop.gateway.services.security.CryptoService;
+import org.apache.hadoop.gateway.services.security.EncryptionResult;
+import org.apache.hadoop.gateway.services.security.token.impl.JWTToken;
+import org.apache.hadoop.gateway.services.token.impl.TokenSessionStore.TokenSession;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DefaultTokenAuthorityServiceTest {
+
+  private CountingCryptoService crypto;
+  private DefaultTokenAuthorityService authority;
+
+  @Before
+  public void setUp() {
+    crypto = new CountingCryptoService();
+    authority = new DefaultTokenAuthorityService();
+    authority.setCryptoService(crypto);
+  }
+
+  @Test
+  public void testIssuedTokenVerifiesWithoutSignatureCheck() {
+    JWTToken token = authority.issueToken(principal("guest"), "svc", "RS256", System.currentTimeMillis() + 60000);
+    assertThat(authority.verifyToken(JWTToken.parseToken(token.toString())), is(true));
+    assertThat(crypto.verifications, is(0));
+  }
+
+  @Test
+  public void testForgedTokenFallsBackToSignatureCheck() {
+    JWTToken token = authority.issueToken(principal("guest"), "svc", "RS256", System.currentTimeMillis() + 60000);
+    JWTToken forged = JWTToken.parseToken(token.toString());
+    forged.setSignaturePayload(new byte[]{ 1, 2, 3 });
+    assertThat(authority.verifyToken(forged), is(false));
+    assertThat(crypto.verifications, is(1));
+  }
+
+  @Test
+  public void testSelectableAlgorithms() {
+    JWTToken token = authority.issueToken(principal("guest"), "svc", "HS256", System.currentTimeMillis() + 60000);
+    assertThat(token.getAlgorithm(), is("HS256"));
+    assertThat(crypto.algorithms, is("HmacSHA256"));
+    assertThat(authority.issueToken(principal("guest"), "svc", "none", -1), nullValue());
+  }
+
+  @Test
+  public void testUnsupportedAlgorithmIsNotVerified() {
+    JWTToken token = new JWTToken("none", new String[]{ "HSSO", "guest", "svc", "0" });
+    token.setSignaturePayload(DigestUtils.sha256(token.getPayloadToSign()));
+    assertThat(authority.verifyToken(token), is(false));
+    assertThat(crypto.verifications, is(0));
+  }
+
+  @Test
+  public void testRevokedTokenNoLongerVerifies() {
+    JWTToken token = authority.issueToken(principal("guest"), "svc", "RS256", System.currentTimeMillis() + 60000);
+    assertThat(authority.revokeToken(token), is(true));
+    assertThat(authority.verifyToken(token), is(false));
+    assertThat(authority.revokeToken(token), is(false));
+  }
+
+  @Test
+  public void testRefreshReplacesTokenOnce() {
+    JWTToken token = authority.issueToken(principal("guest"), "svc", "RS256", System.currentTimeMillis() + 60000);
+    JWTToken refreshed = authority.refreshToken(token, System.currentTimeMillis() + 120000);
+    assertThat(refreshed, notNullValue());
+    assertThat(authority.verifyToken(refreshed), is(true));
+    assertThat(authority.verifyToken(token), is(false));
+    assertThat(authority.refreshToken(token, -1), nullValue());
+  }
+
+  @Test
+  public void testExpiredTokenIsNotRefreshed() {
+    JWTToken token = authority.issueToken(principal("guest"), "svc", "RS256", System.currentTimeMillis() - 1000);
+    assertThat(authority.refreshToken(token, -1), nullValue());
+  }
+
+  @Test
+  public void testJournalRestoresRevocations() throws Exception {
+    File dir = new File(System.getProperty("java.io.tmpdir"), "token-sessions-" + System.nanoTime());
+    try {
+      File journal = new File(dir, DefaultTokenAuthorityService.TOKEN_SESSION_JOURNAL);
+      JWTToken live = authority.issueToken(principal("guest"), "svc", "RS256", System.currentTimeMillis() + 60000);
+      JWTToken revoked = authority.issueToken(principal("admin"), "svc", "RS256", System.currentTimeMillis() + 60000);
+      JWTToken expired = authority.issueToken(principal("other"), "svc", "RS256", System.currentTimeMillis() - 1000);
+
+      TokenSessionStore store = new TokenSessionStore(journal);
+      store.load();
+      store.add(live, "guest", "svc", System.currentTimeMillis() + 60000);
+      store.revoke(store.add(revoked, "admin", "svc", System.currentTimeMillis() + 60000));
+      store.add(expired, "other", "svc", System.currentTimeMillis() - 1000);
+      store.close();
+
+      store = new TokenSessionStore(journal);
+      store.load();
+      TokenSession session = store.get(live);
+      assertThat(session.getPrincipal(), is("guest"));
+      assertThat(session.isRevoked(), is(false));
+      assertThat(store.get(revoked).isRevoked(), is(true));
+      assertThat(store.get(expired), nullValue());
+      assertThat(store.size(), is(2));
+      store.close();
+    } finally {
+      FileUtils.deleteQuietly(dir);
+    }
+  }
+
+  private static Principal principal(final String name) {
+    return new Principal() {
+      @Override
+      public String getName() {
+        return name;
+      }
+    };
+  }
+
+  private static class CountingCryptoService implements CryptoService {
+    int verifications = 0;
+    String algorithms = null;
+
+    @Override
+    public byte[] sign(String algorithm, String alias, String payloadToSign) {
+      algorithms = algorithms == null ? algorithm : algorithms + "," + algorithm;
+      return DigestUtils.sha256(payloadToSign);
+    }
+
+    @Override
+    public boolean verify(String algorithm, String alias, String payloadToSign, byte[] signaturePayload) {
+      verifications++;
+      return Arrays.equals(DigestUtils.sha256(payloadToSign), signaturePayload);
+    }
+
+    @Override
+    public void createAndStoreEncryptionKeyForCluster(String clusterName, String alias) {
+    }
+
+    @Override
+    public EncryptionResult encryptForCluster(String clusterName, String alias, byte[] clear) {
+      return null;
+    }
+
+    @Override
+    public byte[] decryptForCluster(String clusterName, String alias, String cipherText) {
+      return null;
+    }
+
+    @Override
+    public byte[] decryptForCluster(String clusterName, String alias, byte[] cipherText, byte[] iv, byte[] salt) {
+      return null;
+    }
+
+    @Override
+    public void init(GatewayConfig config, Map<String, String> options) throws ServiceLifecycleException {
+    }
+
+    @Override
+    public void start() throws ServiceLifecycleException {
+    }
+
+    @Override
+    public void stop() throws ServiceLifecycleException {
+    }
+  }
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.token.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+
+import org.junit.Test;
+
+public class TokenSigningAlgorithmTest {
+
+  @Test
+  public void testForName() {
+    assertThat(TokenSigningAlgorithm.forName("RS256"), is(TokenSigningAlgorithm.RS256));
+    assertThat(TokenSigningAlgorithm.forName("ES256").getJcaName(), is("SHA256withECDSA"));
+    assertThat(TokenSigningAlgorithm.forName("HS256").getJcaName(), is("HmacSHA256"));
+    assertThat(TokenSigningAlgorithm.forName("none"), nullValue());
+    assertThat(TokenSigningAlgorithm.forName(null), nullValue());
+  }
+
+  @Test
+  public void testEcdsaSignatureTranscoding() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+    generator.initialize(new ECGenParameterSpec("secp256r1"));
+    KeyPair keys = generator.generateKeyPair();
+    byte[] data = "header.claims".getBytes("UTF-8");
+    for (int i = 0; i < 50; i++) {
+      Signature signer = Signature.getInstance("SHA256withECDSA");
+      signer.initSign(keys.getPrivate());
+      signer.update(data);
+      byte[] der = signer.sign();
+
+      byte[] jws = TokenSigningAlgorithm.ES256.toJws(der);
+      assertThat(jws.length, is(64));
+      byte[] restored = TokenSigningAlgorithm.ES256.fromJws(jws);
+      assertArrayEquals(der, restored);
+
+      Signature verifier = Signature.getInstance("SHA256withECDSA");
+      verifier.initVerify(keys.getPublic());
+      verifier.update(data);
+      assertThat(verifier.verify(restored), is(true));
+    }
+  }
+
+  @Test
+  public void testMalformedEcdsaSignature() {
+    assertThat(TokenSigningAlgorithm.ES256.fromJws(new byte[63]), nullValue());
+    assertThat(TokenSigningAlgorithm.ES256.toJws(new byte[]{ 0x30, 0x02, 0x02, 0x00 }), nullValue());
+  }
+
+}
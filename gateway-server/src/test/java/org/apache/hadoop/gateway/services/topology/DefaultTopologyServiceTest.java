@@ -34,6 +34,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Field;
 import java.util.*;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -158,6 +159,97 @@ public class DefaultTopologyServiceTest {
     }
   }
 
+  @Test
+  public void testUnchangedContentIsNotRedeployed() throws Exception {
+
+    File dir = createDir();
+    long time = dir.lastModified();
+    try {
+      File one = createFile(dir, "one.xml", "org/apache/hadoop/gateway/topology/file/topology-one.xml", time);
+
+      TestTopologyListener topoListener = new TestTopologyListener();
+      TopologyService provider = new DefaultTopologyService();
+      GatewayConfig config = EasyMock.createNiceMock(GatewayConfig.class);
+      EasyMock.expect(config.getGatewayTopologyDir()).andReturn(dir.toString()).anyTimes();
+      EasyMock.replay(config);
+      provider.init(config, new HashMap<String, String>());
+      provider.addTopologyChangeListener(topoListener);
+      provider.reloadTopologies();
+      assertThat(topoListener.events.size(), is(1));
+      topoListener.events.clear();
+
+      // Touching the file without changing its content does not produce an event.
+      one.setLastModified(time + 10000L);
+      provider.reloadTopologies();
+      assertThat(topoListener.events.size(), is(1));
+      assertThat(topoListener.events.get(0).size(), is(0));
+      topoListener.events.clear();
+
+      // Editor swap and backup files are ignored.
+      createFile(dir, ".one.xml", "org/apache/hadoop/gateway/topology/file/topology-two.xml", time);
+      createFile(dir, "one.xml~", "org/apache/hadoop/gateway/topology/file/topology-two.xml", time);
+      createFile(dir, "one.xml.swp", "org/apache/hadoop/gateway/topology/file/topology-two.xml", time);
+      provider.reloadTopologies();
+      assertThat(provider.getTopologies().size(), is(1));
+      assertThat(topoListener.events.get(0).size(), is(0));
+      topoListener.events.clear();
+
+      // An explicit redeploy produces an update for the unchanged topology.
+      provider.redeployTopologies("one");
+      provider.reloadTopologies();
+      assertThat(topoListener.events.get(0).size(), is(1));
+      assertThat(topoListener.events.get(0).get(0).getType(), is(TopologyEvent.Type.UPDATED));
+      assertThat(new File(dir, "one.redeploy").exists(), is(false));
+      topoListener.events.clear();
+
+      // Changing the content produces an update.
+      createFile(dir, "one.xml", "org/apache/hadoop/gateway/topology/file/topology-two.xml", time);
+      provider.reloadTopologies();
+      assertThat(topoListener.events.get(0).size(), is(1));
+      assertThat(topoListener.events.get(0).get(0).getType(), is(TopologyEvent.Type.UPDATED));
+    } finally {
+      FileUtils.deleteQuietly(dir);
+    }
+  }
+
+  @Test
+  public void testChangesAreReloadedOnceSettled() throws Exception {
+
+    File dir = createDir();
+    try {
+      TestTopologyListener topoListener = new TestTopologyListener();
+      TopologyService provider = new DefaultTopologyService();
+      GatewayConfig config = EasyMock.createNiceMock(GatewayConfig.class);
+      EasyMock.expect(config.getGatewayTopologyDir()).andReturn(dir.toString()).anyTimes();
+      EasyMock.expect(config.getTopologyMonitorSettleTime()).andReturn(200L).anyTimes();
+      EasyMock.replay(config);
+      provider.init(config, new HashMap<String, String>());
+      provider.addTopologyChangeListener(topoListener);
+      provider.reloadTopologies();
+      topoListener.events.clear();
+
+      FileAlterationMonitor monitor = getMonitor(provider);
+      kickMonitor(monitor);
+      createFile(dir, "one.xml", "org/apache/hadoop/gateway/topology/file/topology-one.xml", System.currentTimeMillis());
+
+      // The change is seen but not reloaded until the directory has been quiet for the settle time.
+      kickMonitor(monitor);
+      assertThat(topoListener.events.size(), is(0));
+      Thread.sleep(250);
+      kickMonitor(monitor);
+      assertThat(topoListener.events.size(), is(1));
+      assertThat(topoListener.events.get(0).get(0).getType(), is(TopologyEvent.Type.CREATED));
+    } finally {
+      FileUtils.deleteQuietly(dir);
+    }
+  }
+
+  private FileAlterationMonitor getMonitor(TopologyService provider) throws Exception {
+    Field field = DefaultTopologyService.class.getDeclaredField("monitor");
+    field.setAccessible(true);
+    return (FileAlterationMonitor) field.get(provider);
+  }
+
   private void kickMonitor(FileAlterationMonitor monitor) {
     for (FileAlterationObserver observer : monitor.getObservers()) {
       observer.checkAndNotify();
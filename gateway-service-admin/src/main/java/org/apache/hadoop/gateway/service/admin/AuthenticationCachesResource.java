@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.shirorealm.KnoxCacheManager;
+import org.apache.hadoop.gateway.shirorealm.TtlCache;
+
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+import static javax.ws.rs.core.Response.ok;
+import static javax.ws.rs.core.Response.status;
+
+@Path( "/api/v1" )
+public class AuthenticationCachesResource {
+
+  @GET
+  @Produces({APPLICATION_JSON, APPLICATION_XML})
+  @Path( "authcaches" )
+  public AuthenticationCacheStatusWrapper getAuthenticationCaches() {
+    AuthenticationCacheStatusWrapper wrapper = new AuthenticationCacheStatusWrapper();
+    for( KnoxCacheManager manager : KnoxCacheManager.REGISTRY.getAll() ) {
+      for( TtlCache<Object,Object> cache : manager.getCaches() ) {
+        wrapper.caches.add( new AuthenticationCacheStatus( manager.getClusterName(), cache ) );
+      }
+    }
+    return wrapper;
+  }
+
+  @DELETE
+  @Produces(APPLICATION_JSON)
+  @Path( "authcaches/{topology}" )
+  public Response invalidateTopology( @PathParam( "topology" ) String topology ) {
+    KnoxCacheManager manager = KnoxCacheManager.REGISTRY.get( topology );
+    if( manager == null ) {
+      return status( Response.Status.NOT_FOUND ).build();
+    }
+    manager.invalidate();
+    return ok().entity( "{ \"invalidated\" : true }" ).build();
+  }
+
+  @DELETE
+  @Produces(APPLICATION_JSON)
+  @Path( "authcaches/{topology}/users/{user}" )
+  public Response invalidateUser( @PathParam( "topology" ) String topology, @PathParam( "user" ) String user ) {
+    KnoxCacheManager manager = KnoxCacheManager.REGISTRY.get( topology );
+    if( manager == null ) {
+      return status( Response.Status.NOT_FOUND ).build();
+    }
+    int removed = manager.invalidate( user );
+    return ok().entity( "{ \"invalidated\" : " + removed + " }" ).build();
+  }
+
+  @XmlAccessorType(XmlAccessType.NONE)
+  public static class AuthenticationCacheStatus {
+
+    @XmlElement
+    private String topology;
+    @XmlElement
+    private String name;
+    @XmlElement
+    private long ttl;
+    @XmlElement
+    private int entries;
+    @XmlElement
+    private int maxEntries;
+    @XmlElement
+    private long hits;
+    @XmlElement
+    private long misses;
+    @XmlElement
+    private long evicted;
+
+    public AuthenticationCacheStatus() {}
+
+    public AuthenticationCacheStatus( String topology, TtlCache<Object,Object> cache ) {
+      this.topology = topology;
+      this.name = cache.getName();
+      this.ttl = cache.getTtl();
+      this.entries = cache.size();
+      this.maxEntries = cache.getMaxEntries();
+      this.hits = cache.getHitCount();
+      this.misses = cache.getMissCount();
+      this.evicted = cache.getEvictedCount();
+    }
+
+    public String getTopology() {
+      return topology;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getTtl() {
+      return ttl;
+    }
+
+    public int getEntries() {
+      return entries;
+    }
+
+    public int getMaxEntries() {
+      return maxEntries;
+    }
+
+    public long getHits() {
+      return hits;
+    }
+
+    public long getMisses() {
+      return misses;
+    }
+
+    public long getEvicted() {
+      return evicted;
+    }
+  }
+
+  @XmlRootElement(name="authcaches")
+  @XmlAccessorType(XmlAccessType.FIELD)
+  public static class AuthenticationCacheStatusWrapper {
+
+    @XmlElement(name="authcache")
+    private List<AuthenticationCacheStatus> caches = new ArrayList<AuthenticationCacheStatus>();
+
+    public List<AuthenticationCacheStatus> getCaches() {
+      return caches;
+    }
+
+  }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.bulkhead.Bulkhead;
+import org.apache.hadoop.gateway.bulkhead.TopologyBulkheads;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+
+@Path( "/api/v1" )
+public class BulkheadsResource {
+
+  @GET
+  @Produces({APPLICATION_JSON, APPLICATION_XML})
+  @Path( "bulkheads" )
+  public BulkheadStatusWrapper getBulkheads() {
+    BulkheadStatusWrapper wrapper = new BulkheadStatusWrapper();
+    for( TopologyBulkheads topology : TopologyBulkheads.REGISTRY.getAll() ) {
+      for( Bulkhead bulkhead : topology.getBulkheads() ) {
+        wrapper.bulkheads.add( new BulkheadStatus( topology.getTopology(), bulkhead ) );
+      }
+    }
+    return wrapper;
+  }
+
+  @XmlAccessorType(XmlAccessType.NONE)
+  public static class BulkheadStatus {
+
+    @XmlElement
+    private String topology;
+    @XmlElement
+    private String role;
+    @XmlElement
+    private int inFlight;
+    @XmlElement
+    private int queued;
+    @XmlElement
+    private int maxConcurrent;
+    @XmlElement
+    private int maxConcurrentPerUser;
+    @XmlElement
+    private int maxQueued;
+    @XmlElement
+    private long accepted;
+    @XmlElement
+    private long rejected;
+
+    public BulkheadStatus() {}
+
+    public BulkheadStatus( String topology, Bulkhead bulkhead ) {
+      this.topology = topology;
+      this.role = bulkhead.getRole();
+      this.inFlight = bulkhead.getInFlight();
+      this.queued = bulkhead.getQueued();
+      this.maxConcurrent = bulkhead.getConfig().getMaxConcurrent();
+      this.maxConcurrentPerUser = bulkhead.getConfig().getMaxConcurrentPerUser();
+      this.maxQueued = bulkhead.getConfig().getMaxQueued();
+      this.accepted = bulkhead.getAcceptedCount();
+      this.rejected = bulkhead.getRejectedCount();
+    }
+
+    public String getTopology() {
+      return topology;
+    }
+
+    public String getRole() {
+      return role;
+    }
+
+    public int getInFlight() {
+      return inFlight;
+    }
+
+    public int getQueued() {
+      return queued;
+    }
+
+    public int getMaxConcurrent() {
+      return maxConcurrent;
+    }
+
+    public int getMaxConcurrentPerUser() {
+      return maxConcurrentPerUser;
+    }
+
+    public int getMaxQueued() {
+      return maxQueued;
+    }
+
+    public long getAccepted() {
+      return accepted;
+    }
+
+    public long getRejected() {
+      return rejected;
+    }
+  }
+
+  @XmlRootElement(name="bulkheads")
+  @XmlAccessorType(XmlAccessType.FIELD)
+  public static class BulkheadStatusWrapper {
+
+    @XmlElement(name="bulkhead")
+    private List<BulkheadStatus> bulkheads = new ArrayList<BulkheadStatus>();
+
+    public List<BulkheadStatus> getBulkheads() {
+      return bulkheads;
+    }
+
+  }
+
+}
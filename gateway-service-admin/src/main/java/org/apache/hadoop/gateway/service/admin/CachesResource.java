@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.cache.ResponseCache;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+
+@Path( "/api/v1" )
+public class CachesResource {
+
+  @GET
+  @Produces({APPLICATION_JSON, APPLICATION_XML})
+  @Path( "caches" )
+  public CacheStatusWrapper getCaches() {
+    CacheStatusWrapper wrapper = new CacheStatusWrapper();
+    for( ResponseCache cache : ResponseCache.REGISTRY.getAll() ) {
+      wrapper.caches.add( new CacheStatus( cache ) );
+    }
+    return wrapper;
+  }
+
+  @XmlAccessorType(XmlAccessType.NONE)
+  public static class CacheStatus {
+
+    @XmlElement
+    private String topology;
+    @XmlElement
+    private long hits;
+    @XmlElement
+    private long misses;
+    @XmlElement
+    private long revalidated;
+    @XmlElement
+    private double hitRatio;
+    @XmlElement
+    private long stored;
+    @XmlElement
+    private long evicted;
+    @XmlElement
+    private int entries;
+    @XmlElement
+    private long heapBytes;
+    @XmlElement
+    private long fileBytes;
+
+    public CacheStatus() {}
+
+    public CacheStatus( ResponseCache cache ) {
+      this.topology = cache.getTopology();
+      this.hits = cache.getHitCount();
+      this.misses = cache.getMissCount();
+      this.revalidated = cache.getRevalidatedCount();
+      this.hitRatio = cache.getHitRatio();
+      this.stored = cache.getStoredCount();
+      this.evicted = cache.getEvictedCount();
+      this.entries = cache.getEntryCount();
+      this.heapBytes = cache.getHeapBytes();
+      this.fileBytes = cache.getFileBytes();
+    }
+
+    public String getTopology() {
+      return topology;
+    }
+
+    public long getHits() {
+      return hits;
+    }
+
+    public long getMisses() {
+      return misses;
+    }
+
+    public long getRevalidated() {
+      return revalidated;
+    }
+
+    public double getHitRatio() {
+      return hitRatio;
+    }
+
+    public long getStored() {
+      return stored;
+    }
+
+    public long getEvicted() {
+      return evicted;
+    }
+
+    public int getEntries() {
+      return entries;
+    }
+
+    public long getHeapBytes() {
+      return heapBytes;
+    }
+
+    public long getFileBytes() {
+      return fileBytes;
+    }
+  }
+
+  @XmlRootElement(name="caches")
+  @XmlAccessorType(XmlAccessType.FIELD)
+  public static class CacheStatusWrapper {
+
+    @XmlElement(name="cache")
+    private List<CacheStatus> caches = new ArrayList<CacheStatus>();
+
+    public List<CacheStatus> getCaches() {
+      return caches;
+    }
+
+  }
+
+}
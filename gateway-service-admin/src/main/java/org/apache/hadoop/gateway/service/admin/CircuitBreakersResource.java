@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.dispatch.CircuitBreaker;
+import org.apache.hadoop.gateway.dispatch.CircuitBreakerRegistry;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+
+@Path( "/api/v1" )
+public class CircuitBreakersResource {
+
+  @GET
+  @Produces({APPLICATION_JSON, APPLICATION_XML})
+  @Path( "circuit-breakers" )
+  public CircuitBreakerStatusWrapper getCircuitBreakers() {
+    CircuitBreakerStatusWrapper wrapper = new CircuitBreakerStatusWrapper();
+    for( CircuitBreakerRegistry registry : CircuitBreakerRegistry.REGISTRY.getAll() ) {
+      for( CircuitBreaker breaker : registry.getBreakers() ) {
+        wrapper.circuitBreakers.add( new CircuitBreakerStatus( registry.getTopology(), breaker ) );
+      }
+    }
+    return wrapper;
+  }
+
+  @XmlAccessorType(XmlAccessType.NONE)
+  public static class CircuitBreakerStatus {
+
+    @XmlElement
+    private String topology;
+    @XmlElement
+    private String endpoint;
+    @XmlElement
+    private String state;
+    @XmlElement
+    private long calls;
+    @XmlElement
+    private long failures;
+    @XmlElement
+    private long slowCalls;
+    @XmlElement
+    private long rejected;
+    @XmlElement
+    private long opened;
+    @XmlElement
+    private int failureRateThreshold;
+    @XmlElement
+    private int slowCallRateThreshold;
+
+    public CircuitBreakerStatus() {}
+
+    public CircuitBreakerStatus( String topology, CircuitBreaker breaker ) {
+      this.topology = topology;
+      this.endpoint = breaker.getEndpoint();
+      this.state = breaker.getState().name();
+      this.calls = breaker.getCallCount();
+      this.failures = breaker.getFailureCount();
+      this.slowCalls = breaker.getSlowCallCount();
+      this.rejected = breaker.getRejectedCount();
+      this.opened = breaker.getOpenCount();
+      this.failureRateThreshold = breaker.getConfig().getFailureRateThreshold();
+      this.slowCallRateThreshold = breaker.getConfig().getSlowCallRateThreshold();
+    }
+
+    public String getTopology() {
+      return topology;
+    }
+
+    public String getEndpoint() {
+      return endpoint;
+    }
+
+    public String getState() {
+      return state;
+    }
+
+    public long getCalls() {
+      return calls;
+    }
+
+    public long getFailures() {
+      return failures;
+    }
+
+    public long getSlowCalls() {
+      return slowCalls;
+    }
+
+    public long getRejected() {
+      return rejected;
+    }
+
+    public long getOpened() {
+      return opened;
+    }
+
+    public int getFailureRateThreshold() {
+      return failureRateThreshold;
+    }
+
+    public int getSlowCallRateThreshold() {
+      return slowCallRateThreshold;
+    }
+  }
+
+  @XmlRootElement(name="circuitBreakers")
+  @XmlAccessorType(XmlAccessType.FIELD)
+  public static class CircuitBreakerStatusWrapper {
+
+    @XmlElement(name="circuitBreaker")
+    private List<CircuitBreakerStatus> circuitBreakers = new ArrayList<CircuitBreakerStatus>();
+
+    public List<CircuitBreakerStatus> getCircuitBreakers() {
+      return circuitBreakers;
+    }
+
+  }
+
+}
@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.deploy.DeploymentStatus;
+import org.apache.hadoop.gateway.deploy.DeploymentStatusRegistry;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+
+@Path( "/api/v1" )
+public class DeploymentsResource {
+
+  @GET
+  @Produces({APPLICATION_JSON, APPLICATION_XML})
+  @Path( "deployments" )
+  public DeploymentStatusWrapper getDeployments() {
+    DeploymentStatusWrapper wrapper = new DeploymentStatusWrapper();
+    wrapper.startupTopologyCount = DeploymentStatusRegistry.getStartupTopologyCount();
+    wrapper.startupDeployTime = DeploymentStatusRegistry.getStartupDeployTime();
+    for( DeploymentStatus status : DeploymentStatusRegistry.getStatuses() ) {
+      wrapper.deployments.add( new TopologyDeploymentStatus( status ) );
+    }
+    return wrapper;
+  }
+
+  @XmlAccessorType(XmlAccessType.NONE)
+  public static class TopologyDeploymentStatus {
+
+    @XmlElement
+    private String topology;
+    @XmlElement
+    private String state;
+    @XmlElement
+    private boolean ready;
+    @XmlElement
+    private long readyTime;
+    @XmlElement
+    private long deployTime;
+    @XmlElement
+    private long deployCount;
+    @XmlElement
+    private long failureCount;
+
+    public TopologyDeploymentStatus() {}
+
+    public TopologyDeploymentStatus( DeploymentStatus status ) {
+      this.topology = status.getTopology();
+      this.state = status.getState().name();
+      this.ready = status.isReady();
+      this.readyTime = status.getReadyTime();
+      this.deployTime = status.getDeployTime();
+      this.deployCount = status.getDeployCount();
+      this.failureCount = status.getFailureCount();
+    }
+
+    public String getTopology() {
+      return topology;
+    }
+
+    public String getState() {
+      return state;
+    }
+
+    public boolean isReady() {
+      return ready;
+    }
+
+    public long getReadyTime() {
+      return readyTime;
+    }
+
+    public long getDeployTime() {
+      return deployTime;
+    }
+
+    public long getDeployCount() {
+      return deployCount;
+    }
+
+    public long getFailureCount() {
+      return failureCount;
+    }
+  }
+
+  @XmlRootElement(name="deployments")
+  @XmlAccessorType(XmlAccessType.FIELD)
+  public static class DeploymentStatusWrapper {
+
+    private int startupTopologyCount;
+
+    private long startupDeployTime;
+
+    @XmlElement(name="deployment")
+    private List<TopologyDeploymentStatus> deployments = new ArrayList<TopologyDeploymentStatus>();
+
+    public int getStartupTopologyCount() {
+      return startupTopologyCount;
+    }
+
+    public long getStartupDeployTime() {
+      return startupDeployTime;
+    }
+
+    public List<TopologyDeploymentStatus> getDeployments() {
+      return deployments;
+    }
+
+  }
+
+}
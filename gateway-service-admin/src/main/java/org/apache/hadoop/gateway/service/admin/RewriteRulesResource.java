@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteRulesCache;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+
+@Path( "/api/v1" )
+public class RewriteRulesResource {
+
+  @GET
+  @Produces({APPLICATION_JSON, APPLICATION_XML})
+  @Path( "rewrite-rules" )
+  public RewriteRulesStatusWrapper getRewriteRules() {
+    RewriteRulesStatusWrapper wrapper = new RewriteRulesStatusWrapper();
+    wrapper.cachedDescriptors = UrlRewriteRulesCache.getDescriptorCount();
+    wrapper.cachedRules = UrlRewriteRulesCache.getRuleCount();
+    for( UrlRewriteRulesCache.TopologyUsage usage : UrlRewriteRulesCache.getTopologies() ) {
+      wrapper.topologies.add( new RewriteRulesStatus( usage ) );
+    }
+    return wrapper;
+  }
+
+  @XmlAccessorType(XmlAccessType.NONE)
+  public static class RewriteRulesStatus {
+
+    @XmlElement
+    private String topology;
+    @XmlElement
+    private int rules;
+    @XmlElement
+    private int sharedRules;
+    @XmlElement
+    private int exclusiveRules;
+    @XmlElement
+    private boolean descriptorShared;
+    @XmlElement
+    private int descriptorBytes;
+
+    public RewriteRulesStatus() {}
+
+    public RewriteRulesStatus( UrlRewriteRulesCache.TopologyUsage usage ) {
+      this.topology = usage.getTopology();
+      this.rules = usage.getRuleCount();
+      this.sharedRules = usage.getSharedRuleCount();
+      this.exclusiveRules = usage.getExclusiveRuleCount();
+      this.descriptorShared = usage.isDescriptorShared();
+      this.descriptorBytes = usage.getDescriptorBytes();
+    }
+
+    public String getTopology() {
+      return topology;
+    }
+
+    public int getRules() {
+      return rules;
+    }
+
+    public int getSharedRules() {
+      return sharedRules;
+    }
+
+    public int getExclusiveRules() {
+      return exclusiveRules;
+    }
+
+    public boolean isDescriptorShared() {
+      return descriptorShared;
+    }
+
+    public int getDescriptorBytes() {
+      return descriptorBytes;
+    }
+  }
+
+  @XmlRootElement(name="rewrite-rules")
+  @XmlAccessorType(XmlAccessType.FIELD)
+  public static class RewriteRulesStatusWrapper {
+
+    @XmlElement
+    private int cachedDescriptors;
+    @XmlElement
+    private int cachedRules;
+    @XmlElement(name="topology")
+    private List<RewriteRulesStatus> topologies = new ArrayList<RewriteRulesStatus>();
+
+    public int getCachedDescriptors() {
+      return cachedDescriptors;
+    }
+
+    public int getCachedRules() {
+      return cachedRules;
+    }
+
+    public List<RewriteRulesStatus> getTopologies() {
+      return topologies;
+    }
+
+  }
+
+}
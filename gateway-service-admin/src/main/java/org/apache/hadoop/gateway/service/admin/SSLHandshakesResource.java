@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.services.security.SSLHandshakeStatistics;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+
+@Path( "/api/v1" )
+public class SSLHandshakesResource {
+
+  @GET
+  @Produces({APPLICATION_JSON, APPLICATION_XML})
+  @Path( "ssl-handshakes" )
+  public SSLHandshakesStatus getHandshakes() {
+    SSLHandshakesStatus status = new SSLHandshakesStatus();
+    status.fullHandshakes = SSLHandshakeStatistics.getFullHandshakeCount();
+    status.resumedHandshakes = SSLHandshakeStatistics.getResumedHandshakeCount();
+    status.resumptionRatio = SSLHandshakeStatistics.getResumptionRatio();
+    status.fullHandshakeRate = SSLHandshakeStatistics.getFullHandshakeRate();
+    status.resumedHandshakeRate = SSLHandshakeStatistics.getResumedHandshakeRate();
+    return status;
+  }
+
+  @XmlRootElement(name="ssl-handshakes")
+  @XmlAccessorType(XmlAccessType.NONE)
+  public static class SSLHandshakesStatus {
+
+    @XmlElement
+    private long fullHandshakes;
+    @XmlElement
+    private long resumedHandshakes;
+    @XmlElement
+    private double resumptionRatio;
+    @XmlElement
+    private double fullHandshakeRate;
+    @XmlElement
+    private double resumedHandshakeRate;
+
+    public SSLHandshakesStatus() {}
+
+    public long getFullHandshakes() {
+      return fullHandshakes;
+    }
+
+    public long getResumedHandshakes() {
+      return resumedHandshakes;
+    }
+
+    public double getResumptionRatio() {
+      return resumptionRatio;
+    }
+
+    public double getFullHandshakeRate() {
+      return fullHandshakeRate;
+    }
+
+    public double getResumedHandshakeRate() {
+      return resumedHandshakeRate;
+    }
+  }
+
+}
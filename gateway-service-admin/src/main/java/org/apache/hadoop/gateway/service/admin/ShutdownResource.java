@@ -0,0 +1,169 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.deploy.GatewayShutdown;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+import static javax.ws.rs.core.Response.status;
+
+@Path( "/api/v1" )
+public class ShutdownResource {
+
+  @GET
+  @Produces({APPLICATION_JSON, APPLICATION_XML})
+  @Path( "shutdown" )
+  public ShutdownStatus getShutdown() {
+    return getStatus();
+  }
+
+  /**
+   * Starts a graceful shutdown of the gateway.
+   * The drain happens after the response is sent so this request is not waited for.
+   */
+  @POST
+  @Produces({APPLICATION_JSON, APPLICATION_XML})
+  @Path( "shutdown" )
+  public Response shutdown() {
+    if( !GatewayShutdown.trigger() ) {
+      return status( Response.Status.CONFLICT ).entity( getStatus() ).build();
+    }
+    return status( Response.Status.ACCEPTED ).entity( getStatus() ).build();
+  }
+
+  private static ShutdownStatus getStatus() {
+    ShutdownStatus status = new ShutdownStatus();
+    status.shuttingDown = GatewayShutdown.isShuttingDown();
+    status.draining = GatewayShutdown.isDraining();
+    status.drained = GatewayShutdown.isDrained();
+    status.timeout = GatewayShutdown.getTimeout();
+    status.drainTime = GatewayShutdown.getDrainTime();
+    status.drainedRequests = GatewayShutdown.getDrainedRequestCount();
+    status.abortedRequests = GatewayShutdown.getAbortedRequestCount();
+    Map<String,Integer> aborted = GatewayShutdown.getAbortedRequests();
+    for( Map.Entry<String,Integer> entry : GatewayShutdown.getDrainedRequests().entrySet() ) {
+      Integer remaining = aborted.get( entry.getKey() );
+      status.topologies.add(
+          new TopologyShutdownStatus( entry.getKey(), entry.getValue(), remaining == null ? 0 : remaining ) );
+    }
+    return status;
+  }
+
+  @XmlAccessorType(XmlAccessType.NONE)
+  public static class TopologyShutdownStatus {
+
+    @XmlElement
+    private String topology;
+    @XmlElement
+    private int drained;
+    @XmlElement
+    private int aborted;
+
+    public TopologyShutdownStatus() {}
+
+    public TopologyShutdownStatus( String topology, int drained, int aborted ) {
+      this.topology = topology;
+      this.drained = drained;
+      this.aborted = aborted;
+    }
+
+    public String getTopology() {
+      return topology;
+    }
+
+    public int getDrained() {
+      return drained;
+    }
+
+    public int getAborted() {
+      return aborted;
+    }
+  }
+
+  @XmlRootElement(name="shutdown")
+  @XmlAccessorType(XmlAccessType.FIELD)
+  public static class ShutdownStatus {
+
+    private boolean shuttingDown;
+
+    private boolean draining;
+
+    private boolean drained;
+
+    private long timeout;
+
+    private long drainTime;
+
+    private int drainedRequests;
+
+    private int abortedRequests;
+
+    @XmlElement(name="topology")
+    private List<TopologyShutdownStatus> topologies = new ArrayList<TopologyShutdownStatus>();
+
+    public ShutdownStatus() {}
+
+    public boolean isShuttingDown() {
+      return shuttingDown;
+    }
+
+    public boolean isDraining() {
+      return draining;
+    }
+
+    public boolean isDrained() {
+      return drained;
+    }
+
+    public long getTimeout() {
+      return timeout;
+    }
+
+    public long getDrainTime() {
+      return drainTime;
+    }
+
+    public int getDrainedRequests() {
+      return drainedRequests;
+    }
+
+    public int getAbortedRequests() {
+      return abortedRequests;
+    }
+
+    public List<TopologyShutdownStatus> getTopologies() {
+      return topologies;
+    }
+
+  }
+
+}
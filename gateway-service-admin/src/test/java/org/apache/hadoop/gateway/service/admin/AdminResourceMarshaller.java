@@ -0,0 +1,59 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.eclipse.persistence.jaxb.JAXBContextProperties;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import javax.ws.rs.core.MediaType;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Marshals admin resource entities the way the admin API writes them so that tests can check their shape.
+ */
+final class AdminResourceMarshaller {
+
+  private AdminResourceMarshaller() {
+  }
+
+  static String toJson( Object entity ) throws Exception {
+    return marshal( entity, MediaType.APPLICATION_JSON );
+  }
+
+  static Document toXml( Object entity ) throws Exception {
+    String xml = marshal( entity, MediaType.APPLICATION_XML );
+    return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse( new InputSource( new StringReader( xml ) ) );
+  }
+
+  private static String marshal( Object entity, String mediaType ) throws Exception {
+    Map<String, Object> properties = new HashMap<String, Object>( 1 );
+    properties.put( JAXBContextProperties.MEDIA_TYPE, mediaType );
+    JAXBContext context = JAXBContext.newInstance( new Class[]{ entity.getClass() }, properties );
+    StringWriter writer = new StringWriter();
+    context.createMarshaller().marshal( entity, writer );
+    return writer.toString();
+  }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.shirorealm.KnoxCacheManager;
+import org.apache.shiro.cache.Cache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import javax.ws.rs.core.Response;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.xml.HasXPath.hasXPath;
+import static org.junit.Assert.assertThat;
+import static uk.co.datumedge.hamcrest.json.SameJSONAs.sameJSONAs;
+
+public class AuthenticationCachesResourceTest {
+
+  private static final String CACHE_NAME = "realm" + KnoxCacheManager.AUTHENTICATION_CACHE_SUFFIX;
+
+  private KnoxCacheManager sandbox;
+  private KnoxCacheManager production;
+  private AuthenticationCachesResource resource;
+
+  @Before
+  public void setUp() {
+    sandbox = createManager( "sandbox" );
+    production = createManager( "production" );
+    resource = new AuthenticationCachesResource();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    sandbox.destroy();
+    production.destroy();
+  }
+
+  @Test
+  public void testCachesListedWithTopology() throws Exception {
+    AuthenticationCachesResource.AuthenticationCacheStatusWrapper wrapper = resource.getAuthenticationCaches();
+    assertThat( wrapper.getCaches().size(), is( 2 ) );
+    for( AuthenticationCachesResource.AuthenticationCacheStatus status : wrapper.getCaches() ) {
+      assertThat( status.getName(), is( CACHE_NAME ) );
+      assertThat( status.getEntries(), is( 2 ) );
+      assertThat( status.getTtl(), is( 60000L ) );
+      assertThat( status.getMaxEntries(), is( 100 ) );
+    }
+
+    Document xml = AdminResourceMarshaller.toXml( wrapper );
+    assertThat( xml, hasXPath( "/authcaches/authcache[topology='sandbox']/name", is( CACHE_NAME ) ) );
+    assertThat( xml, hasXPath( "/authcaches/authcache[topology='sandbox']/entries", is( "2" ) ) );
+    assertThat( xml, hasXPath( "/authcaches/authcache[topology='production']/ttl", is( "60000" ) ) );
+    assertThat( AdminResourceMarshaller.toJson( wrapper ), sameJSONAs(
+        "{\"authcaches\":{\"authcache\":["
+            + "{\"topology\":\"sandbox\",\"name\":\"" + CACHE_NAME + "\",\"ttl\":60000,\"entries\":2,\"maxEntries\":100},"
+            + "{\"topology\":\"production\",\"name\":\"" + CACHE_NAME + "\",\"ttl\":60000,\"entries\":2,\"maxEntries\":100}]}}" )
+        .allowingExtraUnexpectedFields().allowingAnyArrayOrdering() );
+  }
+
+  @Test
+  public void testUnknownTopologyNotFound() {
+    assertThat( resource.invalidateTopology( "unknown" ).getStatus(), is( Response.Status.NOT_FOUND.getStatusCode() ) );
+    assertThat( resource.invalidateUser( "unknown", "guest" ).getStatus(), is( Response.Status.NOT_FOUND.getStatusCode() ) );
+    assertThat( getCache( sandbox ).size(), is( 2 ) );
+    assertThat( getCache( production ).size(), is( 2 ) );
+  }
+
+  @Test
+  public void testInvalidateTopologyOnlyClearsNamedTopology() {
+    Response response = resource.invalidateTopology( "sandbox" );
+    assertThat( response.getStatus(), is( Response.Status.OK.getStatusCode() ) );
+    assertThat( (String)response.getEntity(), sameJSONAs( "{\"invalidated\":true}" ) );
+    assertThat( getCache( sandbox ).size(), is( 0 ) );
+    assertThat( getCache( production ).size(), is( 2 ) );
+  }
+
+  @Test
+  public void testInvalidateUserOnlyInNamedTopology() {
+    Response response = resource.invalidateUser( "sandbox", "guest" );
+    assertThat( response.getStatus(), is( Response.Status.OK.getStatusCode() ) );
+    assertThat( (String)response.getEntity(), sameJSONAs( "{\"invalidated\":1}" ) );
+    assertThat( getCache( sandbox ).get( sandbox.getCredentialsKey( "guest", "guest-password".toCharArray() ) ), nullValue() );
+    assertThat( getCache( sandbox ).get( sandbox.getCredentialsKey( "admin", "admin-password".toCharArray() ) ), is( (Object)"admin" ) );
+    assertThat( getCache( production ).size(), is( 2 ) );
+  }
+
+  @Test
+  public void testDestroyedManagerNoLongerListed() throws Exception {
+    sandbox.destroy();
+    AuthenticationCachesResource.AuthenticationCacheStatusWrapper wrapper = resource.getAuthenticationCaches();
+    assertThat( wrapper.getCaches().size(), is( 1 ) );
+    assertThat( wrapper.getCaches().get( 0 ).getTopology(), is( "production" ) );
+    assertThat( resource.invalidateTopology( "sandbox" ).getStatus(), is( Response.Status.NOT_FOUND.getStatusCode() ) );
+  }
+
+  private static KnoxCacheManager createManager( String topology ) {
+    KnoxCacheManager manager = new KnoxCacheManager();
+    manager.setTtl( 60000 );
+    manager.setMaxEntries( 100 );
+    manager.setClusterName( topology );
+    Cache<Object, Object> cache = getCache( manager );
+    cache.put( manager.getCredentialsKey( "guest", "guest-password".toCharArray() ), "guest" );
+    cache.put( manager.getCredentialsKey( "admin", "admin-password".toCharArray() ), "admin" );
+    return manager;
+  }
+
+  private static Cache<Object, Object> getCache( KnoxCacheManager manager ) {
+    return manager.getCache( CACHE_NAME );
+  }
+
+}
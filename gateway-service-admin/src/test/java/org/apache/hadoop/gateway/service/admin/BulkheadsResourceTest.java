@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.bulkhead.Bulkhead;
+import org.apache.hadoop.gateway.bulkhead.BulkheadConfig;
+import org.apache.hadoop.gateway.bulkhead.TopologyBulkheads;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.xml.HasXPath.hasXPath;
+import static org.junit.Assert.assertThat;
+import static uk.co.datumedge.hamcrest.json.SameJSONAs.sameJSONAs;
+
+public class BulkheadsResourceTest {
+
+  private TopologyBulkheads bulkheads;
+  private BulkheadsResource resource;
+
+  @Before
+  public void setUp() {
+    bulkheads = new TopologyBulkheads( "sandbox" );
+    TopologyBulkheads.REGISTRY.register( "sandbox", bulkheads );
+    resource = new BulkheadsResource();
+  }
+
+  @After
+  public void tearDown() {
+    TopologyBulkheads.REGISTRY.unregister( "sandbox", bulkheads );
+  }
+
+  @Test
+  public void testBulkheadsListedWithTopology() throws Exception {
+    BulkheadConfig config = new BulkheadConfig();
+    config.setMaxConcurrent( 2 );
+    config.setMaxConcurrentPerUser( 1 );
+    Bulkhead bulkhead = bulkheads.getBulkhead( "WEBHDFS", config );
+    assertThat( bulkhead.acquire( "alice" ), is( true ) );
+    assertThat( bulkhead.acquire( "alice" ), is( false ) );
+    assertThat( bulkhead.acquire( "bob" ), is( true ) );
+    try {
+      BulkheadsResource.BulkheadStatusWrapper wrapper = resource.getBulkheads();
+      assertThat( wrapper.getBulkheads().size(), is( 1 ) );
+      BulkheadsResource.BulkheadStatus status = wrapper.getBulkheads().get( 0 );
+      assertThat( status.getTopology(), is( "sandbox" ) );
+      assertThat( status.getRole(), is( "WEBHDFS" ) );
+      assertThat( status.getInFlight(), is( 2 ) );
+      assertThat( status.getMaxConcurrent(), is( 2 ) );
+      assertThat( status.getMaxConcurrentPerUser(), is( 1 ) );
+      assertThat( status.getAccepted(), is( 2L ) );
+      assertThat( status.getRejected(), is( 1L ) );
+
+      Document xml = AdminResourceMarshaller.toXml( wrapper );
+      assertThat( xml, hasXPath( "/bulkheads/bulkhead/topology", is( "sandbox" ) ) );
+      assertThat( xml, hasXPath( "/bulkheads/bulkhead/role", is( "WEBHDFS" ) ) );
+      assertThat( xml, hasXPath( "/bulkheads/bulkhead/inFlight", is( "2" ) ) );
+      assertThat( xml, hasXPath( "/bulkheads/bulkhead/rejected", is( "1" ) ) );
+      assertThat( AdminResourceMarshaller.toJson( wrapper ), sameJSONAs(
+          "{\"bulkheads\":{\"bulkhead\":[{\"topology\":\"sandbox\",\"role\":\"WEBHDFS\",\"inFlight\":2,"
+              + "\"queued\":0,\"maxConcurrent\":2,\"maxConcurrentPerUser\":1,\"accepted\":2,\"rejected\":1}]}}" )
+          .allowingExtraUnexpectedFields() );
+    } finally {
+      bulkhead.release( "alice" );
+      bulkhead.release( "bob" );
+    }
+    assertThat( resource.getBulkheads().getBulkheads().get( 0 ).getInFlight(), is( 0 ) );
+  }
+
+  @Test
+  public void testUnregisteredTopologyNotListed() throws Exception {
+    bulkheads.getBulkhead( "WEBHDFS", new BulkheadConfig() );
+    TopologyBulkheads.REGISTRY.unregister( "sandbox", bulkheads );
+
+    BulkheadsResource.BulkheadStatusWrapper wrapper = resource.getBulkheads();
+    assertThat( wrapper.getBulkheads().size(), is( 0 ) );
+    assertThat( AdminResourceMarshaller.toXml( wrapper ), hasXPath( "count(/bulkheads/bulkhead)", is( "0" ) ) );
+  }
+
+}
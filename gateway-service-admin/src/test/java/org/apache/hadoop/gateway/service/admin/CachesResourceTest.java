@@ -0,0 +1,105 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.cache.CacheConfig;
+import org.apache.hadoop.gateway.cache.CachedResponse;
+import org.apache.hadoop.gateway.cache.ResponseCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import java.io.File;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.xml.HasXPath.hasXPath;
+import static org.junit.Assert.assertThat;
+import static uk.co.datumedge.hamcrest.json.SameJSONAs.sameJSONAs;
+
+public class CachesResourceTest {
+
+  private static final ResponseCache.HeaderSource NO_HEADERS = new ResponseCache.HeaderSource() {
+    @Override
+    public String getHeader( String name ) {
+      return null;
+    }
+  };
+
+  private ResponseCache cache;
+  private CachesResource resource;
+
+  @Before
+  public void setUp() {
+    CacheConfig config = new CacheConfig();
+    config.setDirectory( new File( System.getProperty( "java.io.tmpdir" ), "caches-resource-test-" + System.nanoTime() ) );
+    cache = new ResponseCache( "sandbox", config );
+    ResponseCache.REGISTRY.register( "sandbox", cache );
+    resource = new CachesResource();
+  }
+
+  @After
+  public void tearDown() {
+    ResponseCache.REGISTRY.unregister( "sandbox", cache );
+    cache.destroy();
+  }
+
+  @Test
+  public void testCachesListedWithTopology() throws Exception {
+    CachedResponse response = new CachedResponse();
+    response.setStatus( 200 );
+    response.setContentType( "application/json" );
+    response.setBody( new byte[ 10 ], 10 );
+    long now = System.currentTimeMillis();
+    cache.put( "http://namenode:50070/webhdfs/v1/tmp", new String[ 0 ], NO_HEADERS, response, now, now + 60000 );
+    cache.recordMiss();
+    cache.recordHit();
+
+    CachesResource.CacheStatusWrapper wrapper = resource.getCaches();
+    assertThat( wrapper.getCaches().size(), is( 1 ) );
+    CachesResource.CacheStatus status = wrapper.getCaches().get( 0 );
+    assertThat( status.getTopology(), is( "sandbox" ) );
+    assertThat( status.getHits(), is( 1L ) );
+    assertThat( status.getMisses(), is( 1L ) );
+    assertThat( status.getHitRatio(), is( 0.5 ) );
+    assertThat( status.getStored(), is( 1L ) );
+    assertThat( status.getEntries(), is( 1 ) );
+    assertThat( status.getHeapBytes() > 0, is( true ) );
+    assertThat( status.getFileBytes(), is( 0L ) );
+
+    Document xml = AdminResourceMarshaller.toXml( wrapper );
+    assertThat( xml, hasXPath( "/caches/cache/topology", is( "sandbox" ) ) );
+    assertThat( xml, hasXPath( "/caches/cache/hits", is( "1" ) ) );
+    assertThat( xml, hasXPath( "/caches/cache/hitRatio", is( "0.5" ) ) );
+    assertThat( xml, hasXPath( "/caches/cache/entries", is( "1" ) ) );
+    assertThat( AdminResourceMarshaller.toJson( wrapper ), sameJSONAs(
+        "{\"caches\":{\"cache\":[{\"topology\":\"sandbox\",\"hits\":1,\"misses\":1,\"stored\":1,\"evicted\":0,"
+            + "\"entries\":1,\"fileBytes\":0}]}}" )
+        .allowingExtraUnexpectedFields() );
+  }
+
+  @Test
+  public void testUnregisteredTopologyNotListed() throws Exception {
+    ResponseCache.REGISTRY.unregister( "sandbox", cache );
+
+    CachesResource.CacheStatusWrapper wrapper = resource.getCaches();
+    assertThat( wrapper.getCaches().size(), is( 0 ) );
+    assertThat( AdminResourceMarshaller.toXml( wrapper ), hasXPath( "count(/caches/cache)", is( "0" ) ) );
+  }
+
+}
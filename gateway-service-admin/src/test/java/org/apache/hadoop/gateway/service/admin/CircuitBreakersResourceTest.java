@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.dispatch.CircuitBreaker;
+import org.apache.hadoop.gateway.dispatch.CircuitBreakerConfig;
+import org.apache.hadoop.gateway.dispatch.CircuitBreakerRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import java.net.URI;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.xml.HasXPath.hasXPath;
+import static org.junit.Assert.assertThat;
+import static uk.co.datumedge.hamcrest.json.SameJSONAs.sameJSONAs;
+
+public class CircuitBreakersResourceTest {
+
+  private CircuitBreakerRegistry registry;
+  private CircuitBreakersResource resource;
+
+  @Before
+  public void setUp() {
+    registry = new CircuitBreakerRegistry( "sandbox" );
+    CircuitBreakerRegistry.REGISTRY.register( "sandbox", registry );
+    resource = new CircuitBreakersResource();
+  }
+
+  @After
+  public void tearDown() {
+    CircuitBreakerRegistry.REGISTRY.unregister( "sandbox", registry );
+  }
+
+  @Test
+  public void testBreakersListedWithTopology() throws Exception {
+    CircuitBreakerConfig config = new CircuitBreakerConfig();
+    config.setEnabled( true );
+    config.setFailureRateThreshold( 40 );
+    CircuitBreaker breaker = registry.getBreaker( new URI( "http://namenode:50070/webhdfs/v1" ), config );
+    breaker.recordResult( 10, false );
+    breaker.recordResult( 10, true );
+
+    CircuitBreakersResource.CircuitBreakerStatusWrapper wrapper = resource.getCircuitBreakers();
+    assertThat( wrapper.getCircuitBreakers().size(), is( 1 ) );
+    CircuitBreakersResource.CircuitBreakerStatus status = wrapper.getCircuitBreakers().get( 0 );
+    assertThat( status.getTopology(), is( "sandbox" ) );
+    assertThat( status.getEndpoint(), is( "http://namenode:50070" ) );
+    assertThat( status.getState(), is( "CLOSED" ) );
+    assertThat( status.getCalls(), is( 2L ) );
+    assertThat( status.getFailures(), is( 1L ) );
+    assertThat( status.getFailureRateThreshold(), is( 40 ) );
+
+    Document xml = AdminResourceMarshaller.toXml( wrapper );
+    assertThat( xml, hasXPath( "/circuitBreakers/circuitBreaker/topology", is( "sandbox" ) ) );
+    assertThat( xml, hasXPath( "/circuitBreakers/circuitBreaker/endpoint", is( "http://namenode:50070" ) ) );
+    assertThat( xml, hasXPath( "/circuitBreakers/circuitBreaker/state", is( "CLOSED" ) ) );
+    assertThat( xml, hasXPath( "/circuitBreakers/circuitBreaker/failures", is( "1" ) ) );
+    assertThat( AdminResourceMarshaller.toJson( wrapper ), sameJSONAs(
+        "{\"circuitBreakers\":{\"circuitBreaker\":[{\"topology\":\"sandbox\",\"endpoint\":\"http://namenode:50070\","
+            + "\"state\":\"CLOSED\",\"calls\":2,\"failures\":1,\"failureRateThreshold\":40}]}}" )
+        .allowingExtraUnexpectedFields() );
+  }
+
+  @Test
+  public void testUnregisteredTopologyNotListed() throws Exception {
+    registry.getBreaker( new URI( "http://namenode:50070/webhdfs/v1" ), new CircuitBreakerConfig() );
+    CircuitBreakerRegistry.REGISTRY.unregister( "sandbox", registry );
+
+    CircuitBreakersResource.CircuitBreakerStatusWrapper wrapper = resource.getCircuitBreakers();
+    assertThat( wrapper.getCircuitBreakers().size(), is( 0 ) );
+    assertThat( AdminResourceMarshaller.toXml( wrapper ), hasXPath( "count(/circuitBreakers/circuitBreaker)", is( "0" ) ) );
+  }
+
+}
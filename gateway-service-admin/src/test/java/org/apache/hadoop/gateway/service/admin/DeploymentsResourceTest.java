@@ -0,0 +1,102 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.deploy.DeploymentStatus;
+import org.apache.hadoop.gateway.deploy.DeploymentStatusRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.xml.HasXPath.hasXPath;
+import static org.junit.Assert.assertThat;
+import static uk.co.datumedge.hamcrest.json.SameJSONAs.sameJSONAs;
+
+public class DeploymentsResourceTest {
+
+  private DeploymentsResource resource;
+
+  @Before
+  public void setUp() {
+    DeploymentStatusRegistry.clear();
+    resource = new DeploymentsResource();
+  }
+
+  @After
+  public void tearDown() {
+    DeploymentStatusRegistry.clear();
+  }
+
+  @Test
+  public void testDeploymentsListedWithState() throws Exception {
+    DeploymentStatus sandbox = DeploymentStatusRegistry.getStatus( "sandbox" );
+    sandbox.deploying();
+    sandbox.deployed();
+    DeploymentStatus production = DeploymentStatusRegistry.getStatus( "production" );
+    production.deploying();
+    production.failed();
+    DeploymentStatusRegistry.startupCompleted( 2, 1500 );
+
+    DeploymentsResource.DeploymentStatusWrapper wrapper = resource.getDeployments();
+    assertThat( wrapper.getStartupTopologyCount(), is( 2 ) );
+    assertThat( wrapper.getStartupDeployTime(), is( 1500L ) );
+    assertThat( wrapper.getDeployments().size(), is( 2 ) );
+
+    Document xml = AdminResourceMarshaller.toXml( wrapper );
+    assertThat( xml, hasXPath( "/deployments/startupTopologyCount", is( "2" ) ) );
+    assertThat( xml, hasXPath( "/deployments/startupDeployTime", is( "1500" ) ) );
+    assertThat( xml, hasXPath( "/deployments/deployment[topology='sandbox']/state", is( "DEPLOYED" ) ) );
+    assertThat( xml, hasXPath( "/deployments/deployment[topology='sandbox']/ready", is( "true" ) ) );
+    assertThat( xml, hasXPath( "/deployments/deployment[topology='production']/state", is( "FAILED" ) ) );
+    assertThat( xml, hasXPath( "/deployments/deployment[topology='production']/failureCount", is( "1" ) ) );
+    assertThat( AdminResourceMarshaller.toJson( wrapper ), sameJSONAs(
+        "{\"deployments\":{\"startupTopologyCount\":2,\"startupDeployTime\":1500,\"deployment\":["
+            + "{\"topology\":\"sandbox\",\"state\":\"DEPLOYED\",\"ready\":true,\"deployCount\":1,\"failureCount\":0},"
+            + "{\"topology\":\"production\",\"state\":\"FAILED\",\"ready\":false,\"deployCount\":0,\"failureCount\":1}]}}" )
+        .allowingExtraUnexpectedFields().allowingAnyArrayOrdering() );
+  }
+
+  @Test
+  public void testUndeployedTopologyNotReady() throws Exception {
+    DeploymentStatus sandbox = DeploymentStatusRegistry.getStatus( "sandbox" );
+    sandbox.deploying();
+    sandbox.deployed();
+    sandbox.undeployed();
+
+    DeploymentsResource.TopologyDeploymentStatus status = resource.getDeployments().getDeployments().get( 0 );
+    assertThat( status.getTopology(), is( "sandbox" ) );
+    assertThat( status.getState(), is( "UNDEPLOYED" ) );
+    assertThat( status.isReady(), is( false ) );
+    assertThat( status.getDeployCount(), is( 1L ) );
+  }
+
+  @Test
+  public void testClearedRegistryListsNothing() throws Exception {
+    DeploymentStatusRegistry.getStatus( "sandbox" ).deploying();
+    DeploymentStatusRegistry.clear();
+
+    DeploymentsResource.DeploymentStatusWrapper wrapper = resource.getDeployments();
+    assertThat( wrapper.getDeployments().size(), is( 0 ) );
+    // Still starting, the startup deploy time is not known yet.
+    assertThat( wrapper.getStartupDeployTime(), is( -1L ) );
+    assertThat( AdminResourceMarshaller.toXml( wrapper ), hasXPath( "count(/deployments/deployment)", is( "0" ) ) );
+  }
+
+}
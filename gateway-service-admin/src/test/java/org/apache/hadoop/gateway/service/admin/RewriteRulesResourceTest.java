@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteEnvironment;
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteProcessor;
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteRulesCache;
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteRulesDescriptor;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.xml.HasXPath.hasXPath;
+import static org.junit.Assert.assertThat;
+import static uk.co.datumedge.hamcrest.json.SameJSONAs.sameJSONAs;
+
+public class RewriteRulesResourceTest {
+
+  private static final String RULES = "<rules><rule name=\"test-rule\" pattern=\"*://*:*/test-input-path\">"
+      + "<rewrite template=\"test-scheme://test-host:1/test-output-path\"/></rule></rules>";
+
+  private byte[] content;
+  private int cachedDescriptors;
+  private int cachedRules;
+  private UrlRewriteProcessor sandbox;
+  private UrlRewriteProcessor production;
+  private RewriteRulesResource resource;
+
+  @Before
+  public void setUp() throws Exception {
+    content = RULES.getBytes( "UTF-8" );
+    cachedDescriptors = UrlRewriteRulesCache.getDescriptorCount();
+    cachedRules = UrlRewriteRulesCache.getRuleCount();
+    sandbox = createProcessor( content );
+    production = createProcessor( content );
+    UrlRewriteRulesCache.register( "sandbox", sandbox );
+    UrlRewriteRulesCache.register( "production", production );
+    resource = new RewriteRulesResource();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    UrlRewriteRulesCache.unregister( "sandbox", sandbox );
+    UrlRewriteRulesCache.unregister( "production", production );
+    destroy( sandbox );
+    destroy( production );
+  }
+
+  @Test
+  public void testTopologiesSharingRulesListed() throws Exception {
+    RewriteRulesResource.RewriteRulesStatusWrapper wrapper = resource.getRewriteRules();
+    assertThat( wrapper.getCachedDescriptors(), is( cachedDescriptors + 1 ) );
+    assertThat( wrapper.getCachedRules(), is( cachedRules + 1 ) );
+    assertThat( wrapper.getTopologies().size(), is( 2 ) );
+    for( RewriteRulesResource.RewriteRulesStatus status : wrapper.getTopologies() ) {
+      assertThat( status.getRules(), is( 1 ) );
+      assertThat( status.getSharedRules(), is( 1 ) );
+      assertThat( status.getExclusiveRules(), is( 0 ) );
+      assertThat( status.isDescriptorShared(), is( true ) );
+      assertThat( status.getDescriptorBytes(), is( content.length ) );
+    }
+
+    Document xml = AdminResourceMarshaller.toXml( wrapper );
+    assertThat( xml, hasXPath( "/rewrite-rules/cachedDescriptors", is( String.valueOf( cachedDescriptors + 1 ) ) ) );
+    assertThat( xml, hasXPath( "/rewrite-rules/topology[topology='sandbox']/sharedRules", is( "1" ) ) );
+    assertThat( xml, hasXPath( "/rewrite-rules/topology[topology='production']/descriptorShared", is( "true" ) ) );
+    String topology = "\"rules\":1,\"sharedRules\":1,\"exclusiveRules\":0,\"descriptorShared\":true,"
+        + "\"descriptorBytes\":" + content.length + "}";
+    assertThat( AdminResourceMarshaller.toJson( wrapper ), sameJSONAs(
+        "{\"rewrite-rules\":{\"cachedDescriptors\":" + ( cachedDescriptors + 1 ) + ",\"cachedRules\":" + ( cachedRules + 1 )
+            + ",\"topology\":[{\"topology\":\"sandbox\"," + topology + ",{\"topology\":\"production\"," + topology + "]}}" )
+        .allowingAnyArrayOrdering() );
+  }
+
+  @Test
+  public void testUnregisteredTopologyNoLongerShares() throws Exception {
+    UrlRewriteRulesCache.unregister( "production", production );
+    destroy( production );
+    production = null;
+
+    RewriteRulesResource.RewriteRulesStatusWrapper wrapper = resource.getRewriteRules();
+    assertThat( wrapper.getTopologies().size(), is( 1 ) );
+    RewriteRulesResource.RewriteRulesStatus status = wrapper.getTopologies().get( 0 );
+    assertThat( status.getTopology(), is( "sandbox" ) );
+    assertThat( status.getSharedRules(), is( 0 ) );
+    assertThat( status.getExclusiveRules(), is( 1 ) );
+    assertThat( status.isDescriptorShared(), is( false ) );
+    assertThat( wrapper.getCachedDescriptors(), is( cachedDescriptors + 1 ) );
+  }
+
+  private static UrlRewriteProcessor createProcessor( byte[] content ) throws Exception {
+    UrlRewriteEnvironment environment = EasyMock.createNiceMock( UrlRewriteEnvironment.class );
+    EasyMock.replay( environment );
+    UrlRewriteRulesDescriptor descriptor = UrlRewriteRulesCache.acquireDescriptor( content );
+    UrlRewriteProcessor processor = new UrlRewriteProcessor();
+    processor.initialize( environment, descriptor );
+    return processor;
+  }
+
+  private static void destroy( UrlRewriteProcessor processor ) throws Exception {
+    if( processor != null ) {
+      UrlRewriteRulesDescriptor descriptor = processor.getConfig();
+      processor.destroy();
+      UrlRewriteRulesCache.releaseDescriptor( descriptor );
+    }
+  }
+
+}
@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.services.security.SSLHandshakeStatistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.xml.HasXPath.hasXPath;
+import static org.junit.Assert.assertThat;
+import static uk.co.datumedge.hamcrest.json.SameJSONAs.sameJSONAs;
+
+public class SSLHandshakesResourceTest {
+
+  private SSLHandshakesResource resource;
+
+  @Before
+  public void setUp() {
+    SSLHandshakeStatistics.clear();
+    resource = new SSLHandshakesResource();
+  }
+
+  @After
+  public void tearDown() {
+    SSLHandshakeStatistics.clear();
+  }
+
+  @Test
+  public void testHandshakesReported() throws Exception {
+    SSLHandshakeStatistics.recordHandshake( false );
+    SSLHandshakeStatistics.recordHandshake( true );
+    SSLHandshakeStatistics.recordHandshake( true );
+    SSLHandshakeStatistics.recordHandshake( true );
+
+    SSLHandshakesResource.SSLHandshakesStatus status = resource.getHandshakes();
+    assertThat( status.getFullHandshakes(), is( 1L ) );
+    assertThat( status.getResumedHandshakes(), is( 3L ) );
+    assertThat( status.getResumptionRatio(), is( 0.75 ) );
+    // The rates are averaged over the last minute.
+    assertThat( status.getFullHandshakeRate(), closeTo( 1 / 60.0, 0.0001 ) );
+    assertThat( status.getResumedHandshakeRate(), closeTo( 3 / 60.0, 0.0001 ) );
+
+    Document xml = AdminResourceMarshaller.toXml( status );
+    assertThat( xml, hasXPath( "/ssl-handshakes/fullHandshakes", is( "1" ) ) );
+    assertThat( xml, hasXPath( "/ssl-handshakes/resumedHandshakes", is( "3" ) ) );
+    assertThat( xml, hasXPath( "/ssl-handshakes/resumptionRatio", is( "0.75" ) ) );
+    assertThat( AdminResourceMarshaller.toJson( status ), sameJSONAs(
+        "{\"ssl-handshakes\":{\"fullHandshakes\":1,\"resumedHandshakes\":3,\"resumptionRatio\":0.75}}" )
+        .allowingExtraUnexpectedFields() );
+  }
+
+  @Test
+  public void testClearedStatisticsReportNothing() throws Exception {
+    SSLHandshakeStatistics.recordHandshake( false );
+    SSLHandshakeStatistics.clear();
+
+    SSLHandshakesResource.SSLHandshakesStatus status = resource.getHandshakes();
+    assertThat( status.getFullHandshakes(), is( 0L ) );
+    assertThat( status.getResumedHandshakes(), is( 0L ) );
+    assertThat( status.getResumptionRatio(), is( 0.0 ) );
+    assertThat( status.getFullHandshakeRate(), is( 0.0 ) );
+    assertThat( AdminResourceMarshaller.toXml( status ), hasXPath( "/ssl-handshakes/fullHandshakes", is( "0" ) ) );
+  }
+
+}
@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.deploy.GatewayShutdown;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import javax.ws.rs.core.Response;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.xml.HasXPath.hasXPath;
+import static org.junit.Assert.assertThat;
+import static uk.co.datumedge.hamcrest.json.SameJSONAs.sameJSONAs;
+
+public class ShutdownResourceTest {
+
+  private ShutdownResource resource;
+
+  @Before
+  public void setUp() {
+    GatewayShutdown.clear();
+    resource = new ShutdownResource();
+  }
+
+  @After
+  public void tearDown() {
+    GatewayShutdown.clear();
+  }
+
+  @Test
+  public void testShutdownRefusedWithoutGateway() {
+    Response response = resource.shutdown();
+    assertThat( response.getStatus(), is( Response.Status.CONFLICT.getStatusCode() ) );
+    ShutdownResource.ShutdownStatus status = (ShutdownResource.ShutdownStatus)response.getEntity();
+    assertThat( status.isShuttingDown(), is( false ) );
+  }
+
+  @Test( timeout = 10 * 1000 )
+  public void testShutdownTriggeredOnce() throws Exception {
+    final CountDownLatch called = new CountDownLatch( 1 );
+    final AtomicInteger calls = new AtomicInteger();
+    GatewayShutdown.setHandler( new GatewayShutdown.Handler() {
+      @Override
+      public void shutdown() {
+        calls.incrementAndGet();
+        GatewayShutdown.started( 1000 );
+        called.countDown();
+      }
+    } );
+
+    assertThat( resource.shutdown().getStatus(), is( Response.Status.ACCEPTED.getStatusCode() ) );
+    assertThat( called.await( 5, TimeUnit.SECONDS ), is( true ) );
+    Response response = resource.shutdown();
+    assertThat( response.getStatus(), is( Response.Status.CONFLICT.getStatusCode() ) );
+    ShutdownResource.ShutdownStatus status = (ShutdownResource.ShutdownStatus)response.getEntity();
+    assertThat( status.isShuttingDown(), is( true ) );
+    assertThat( status.isDrained(), is( false ) );
+    assertThat( status.getTimeout(), is( 1000L ) );
+    assertThat( calls.get(), is( 1 ) );
+  }
+
+  @Test( timeout = 10 * 1000 )
+  public void testFailedShutdownCanBeTriggeredAgain() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+    GatewayShutdown.setHandler( new GatewayShutdown.Handler() {
+      @Override
+      public void shutdown() throws Exception {
+        if( calls.incrementAndGet() == 1 ) {
+          throw new IllegalStateException( "Failed before the shutdown started" );
+        }
+        GatewayShutdown.started( 1000 );
+      }
+    } );
+
+    assertThat( resource.shutdown().getStatus(), is( Response.Status.ACCEPTED.getStatusCode() ) );
+    // The handler is registered again once the failure has been logged.
+    while( resource.shutdown().getStatus() != Response.Status.ACCEPTED.getStatusCode() ) {
+      Thread.sleep( 10 );
+    }
+    while( !GatewayShutdown.isShuttingDown() ) {
+      Thread.sleep( 10 );
+    }
+    assertThat( calls.get(), is( 2 ) );
+    assertThat( resource.shutdown().getStatus(), is( Response.Status.CONFLICT.getStatusCode() ) );
+  }
+
+  @Test
+  public void testStatusAfterDrain() throws Exception {
+    GatewayShutdown.started( 1000 );
+    GatewayShutdown.draining();
+    Map<String,Integer> inFlight = new HashMap<String,Integer>();
+    inFlight.put( "sandbox", 3 );
+    inFlight.put( "production", 2 );
+    Map<String,Integer> aborted = new HashMap<String,Integer>();
+    aborted.put( "production", 1 );
+    GatewayShutdown.drained( inFlight, aborted );
+
+    ShutdownResource.ShutdownStatus status = resource.getShutdown();
+    assertThat( status.isShuttingDown(), is( true ) );
+    assertThat( status.isDraining(), is( true ) );
+    assertThat( status.isDrained(), is( true ) );
+    assertThat( status.getTimeout(), is( 1000L ) );
+    assertThat( status.getDrainTime() >= 0, is( true ) );
+    assertThat( status.getDrainedRequests(), is( 4 ) );
+    assertThat( status.getAbortedRequests(), is( 1 ) );
+    assertThat( status.getTopologies().size(), is( 2 ) );
+    for( ShutdownResource.TopologyShutdownStatus topology : status.getTopologies() ) {
+      if( "sandbox".equals( topology.getTopology() ) ) {
+        assertThat( topology.getDrained(), is( 3 ) );
+        assertThat( topology.getAborted(), is( 0 ) );
+      } else {
+        assertThat( topology.getTopology(), is( "production" ) );
+        assertThat( topology.getDrained(), is( 1 ) );
+        assertThat( topology.getAborted(), is( 1 ) );
+      }
+    }
+
+    Document xml = AdminResourceMarshaller.toXml( status );
+    assertThat( xml, hasXPath( "/shutdown/drained", is( "true" ) ) );
+    assertThat( xml, hasXPath( "/shutdown/abortedRequests", is( "1" ) ) );
+    assertThat( xml, hasXPath( "/shutdown/topology[topology='production']/aborted", is( "1" ) ) );
+    assertThat( AdminResourceMarshaller.toJson( status ), sameJSONAs(
+        "{\"shutdown\":{\"shuttingDown\":true,\"draining\":true,\"drained\":true,\"timeout\":1000,"
+            + "\"drainedRequests\":4,\"abortedRequests\":1,\"topology\":["
+            + "{\"topology\":\"sandbox\",\"drained\":3,\"aborted\":0},"
+            + "{\"topology\":\"production\",\"drained\":1,\"aborted\":1}]}}" )
+        .allowingExtraUnexpectedFields().allowingAnyArrayOrdering() );
+  }
+
+}
@@ -52,6 +52,7 @@ public class ASDeploymentContributor extends ServiceDeploymentContributorBase {
     if (topologyContainsProviderType(context, "federation")) {
       context.contributeFilter( service, resource, "federation", null, null );
     }
+    addRateLimitFilter( context, service, resource );
     context.contributeFilter( service, resource, "identity-assertion", null, null );
   }
 
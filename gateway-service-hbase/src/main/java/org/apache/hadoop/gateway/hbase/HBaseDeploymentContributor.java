@@ -114,6 +114,7 @@ public class HBaseDeploymentContributor extends ServiceDeploymentContributorBase
 
   private void addDispatchFilter(
     DeploymentContext context, Service service, ResourceDescriptor resource ) {
+    addPreDispatchFilters( context, service, resource );
     context.contributeFilter( service, resource, "dispatch", "hbase", null );
   }
 
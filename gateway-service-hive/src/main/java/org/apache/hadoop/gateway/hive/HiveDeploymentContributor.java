@@ -79,6 +79,7 @@ public class HiveDeploymentContributor extends ServiceDeploymentContributorBase
   }
 
   private void addDispatchFilter( DeploymentContext context, Service service, ResourceDescriptor resource ) {
+    addPreDispatchFilters( context, service, resource );
     context.contributeFilter( service, resource, "dispatch", "hive", null );
   }
 }
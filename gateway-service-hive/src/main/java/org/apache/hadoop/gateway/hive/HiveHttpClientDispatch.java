@@ -18,7 +18,7 @@
 package org.apache.hadoop.gateway.hive;
 
 import org.apache.hadoop.gateway.dispatch.HttpClientDispatch;
-import org.apache.hadoop.gateway.security.PrimaryPrincipal;
+import org.apache.hadoop.gateway.security.SecurityContext;
 import org.apache.http.Header;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
@@ -33,12 +33,10 @@ import org.apache.http.impl.auth.SPNegoSchemeFactory;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.message.BasicHeader;
 
-import javax.security.auth.Subject;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 
 import java.io.IOException;
-import java.security.AccessController;
 import java.security.Principal;
 
 /**
@@ -62,9 +60,9 @@ public class HiveHttpClientDispatch extends HttpClientDispatch {
 
   protected Principal getPrimaryPrincipal() {
     Principal principal = null;
-    Subject subject = Subject.getSubject( AccessController.getContext());
-    if( subject != null ) {
-      principal = (Principal)subject.getPrincipals(PrimaryPrincipal.class).toArray()[0];
+    SecurityContext context = SecurityContext.current();
+    if( context != null ) {
+      principal = context.getPrimaryPrincipal();
     }
     return principal;
   }
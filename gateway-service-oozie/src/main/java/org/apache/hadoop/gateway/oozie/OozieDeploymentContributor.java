@@ -106,6 +106,7 @@ public class OozieDeploymentContributor extends ServiceDeploymentContributorBase
 
   private void addDispatchFilter(DeploymentContext context, Service service,
       ResourceDescriptor resource) {
+    addPreDispatchFilters(context, service, resource);
     context.contributeFilter(service, resource, "dispatch", "http-client", null );
   }
 
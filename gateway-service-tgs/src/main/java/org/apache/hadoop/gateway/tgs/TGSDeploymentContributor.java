@@ -19,17 +19,25 @@ package org.apache.hadoop.gateway.tgs;
 
 import org.apache.hadoop.gateway.deploy.DeploymentContext;
 import org.apache.hadoop.gateway.deploy.ServiceDeploymentContributorBase;
+import org.apache.hadoop.gateway.descriptor.FilterParamDescriptor;
 import org.apache.hadoop.gateway.descriptor.ResourceDescriptor;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteRuleDescriptor;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteRulesDescriptor;
 import org.apache.hadoop.gateway.filter.rewrite.ext.UrlRewriteActionRewriteDescriptorExt;
+import org.apache.hadoop.gateway.topology.Provider;
 import org.apache.hadoop.gateway.topology.Service;
 
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class TGSDeploymentContributor extends ServiceDeploymentContributorBase {
 
   private static final String TGS_EXTERNAL_PATH = "/tgs/api/v1";
+  private static final String TOKEN_ACTION_PARAM = "token.action";
+  private static final String REFRESH_ACTION = "refresh";
+  private static final String REVOKE_ACTION = "revoke";
+  private static final String ACCESS_TOKEN_ASSERTER = "JWTAccessTokenAsserter";
 
   @Override
   public String getRole() {
@@ -52,7 +60,30 @@ public class TGSDeploymentContributor extends ServiceDeploymentContributorBase {
     if (topologyContainsProviderType(context, "federation")) {
       context.contributeFilter( service, resource, "federation", null, null );
     }
+    addRateLimitFilter( context, service, resource );
     context.contributeFilter( service, resource, "identity-assertion", null, null );
+
+    if (isAccessTokenAsserter( getProviderByRole( context, "identity-assertion" ) )) {
+      contributeTokenActionResource( context, service, REFRESH_ACTION );
+      contributeTokenActionResource( context, service, REVOKE_ACTION );
+    }
+  }
+
+  private static boolean isAccessTokenAsserter( Provider provider ) {
+    return provider != null && provider.isEnabled() && ACCESS_TOKEN_ASSERTER.equals( provider.getName() );
+  }
+
+  // The presented access token is the credential for a refresh or revoke so these resources
+  // skip authentication and federation and go straight to the token asserter. Any other
+  // asserter would not check the token, so they are only contributed with the access token asserter.
+  private void contributeTokenActionResource( DeploymentContext context, Service service, String action ) {
+    ResourceDescriptor resource = context.getGatewayDescriptor().addResource();
+    resource.role( service.getRole() );
+    resource.pattern( TGS_EXTERNAL_PATH + "/" + action );
+    addRateLimitFilter( context, service, resource );
+    List<FilterParamDescriptor> params = new ArrayList<FilterParamDescriptor>();
+    params.add( resource.createFilterParam().name( TOKEN_ACTION_PARAM ).value( action ) );
+    context.contributeFilter( service, resource, "identity-assertion", null, params );
   }
 
 }
\ No newline at end of file
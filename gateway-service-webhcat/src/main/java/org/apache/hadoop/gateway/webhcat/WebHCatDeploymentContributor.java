@@ -90,6 +90,7 @@ public class WebHCatDeploymentContributor extends ServiceDeploymentContributorBa
 
   private void addDispatchFilter(
       DeploymentContext context, Service service, ResourceDescriptor resource ) {
+    addPreDispatchFilters( context, service, resource );
     context.contributeFilter( service, resource, "dispatch", "http-client", null );
   }
 }
@@ -19,8 +19,11 @@ package org.apache.hadoop.gateway.hdfs;
 
 import org.apache.hadoop.gateway.deploy.DeploymentContext;
 import org.apache.hadoop.gateway.deploy.ProviderDeploymentContributorBase;
+import org.apache.hadoop.gateway.descriptor.FilterDescriptor;
 import org.apache.hadoop.gateway.descriptor.FilterParamDescriptor;
 import org.apache.hadoop.gateway.descriptor.ResourceDescriptor;
+import org.apache.hadoop.gateway.dispatch.CircuitBreakerConfig;
+import org.apache.hadoop.gateway.dispatch.CoalescingConfig;
 import org.apache.hadoop.gateway.hdfs.dispatch.HdfsDispatch;
 import org.apache.hadoop.gateway.topology.Provider;
 import org.apache.hadoop.gateway.topology.Service;
@@ -41,7 +44,9 @@ public class WebHdfsDispatchDeploymentContributor extends ProviderDeploymentCont
 
   @Override
   public void contributeFilter( DeploymentContext context, Provider provider, Service service, ResourceDescriptor resource, List<FilterParamDescriptor> params ) {
-    resource.addFilter().role( getRole() ).name( getName() ).impl( HdfsDispatch.class ).params(params);
+    FilterDescriptor filter = resource.addFilter().role( getRole() ).name( getName() ).impl( HdfsDispatch.class ).params(params);
+    copyServiceParams( service, CircuitBreakerConfig.PARAM_PREFIX, filter );
+    copyServiceParams( service, CoalescingConfig.PARAM_PREFIX, filter );
   }
 
 }
@@ -17,6 +17,7 @@
  */
 package org.apache.hadoop.gateway.hdfs.dispatch;
 
+import org.apache.hadoop.gateway.dispatch.CircuitOpenException;
 import org.apache.hadoop.gateway.filter.AbstractGatewayFilter;
 import org.apache.hadoop.gateway.ha.provider.HaProvider;
 import org.apache.hadoop.gateway.ha.provider.HaServiceConfig;
@@ -91,6 +92,9 @@ public class WebHdfsHaHttpClientDispatch extends HdfsDispatch {
       } catch (SafeModeException e) {
          LOG.errorReceivedFromSafeModeNode(e);
          retryRequest(outboundRequest, inboundRequest, outboundResponse, inboundResponse, e);
+      } catch (CircuitOpenException e) {
+         LOG.circuitOpenForServer(outboundRequest.getURI().toString());
+         failoverRequest(outboundRequest, inboundRequest, outboundResponse, inboundResponse, e);
       } catch (IOException e) {
          LOG.errorConnectingToServer(outboundRequest.getURI().toString(), e);
          failoverRequest(outboundRequest, inboundRequest, outboundResponse, inboundResponse, e);
@@ -143,6 +147,9 @@ public class WebHdfsHaHttpClientDispatch extends HdfsDispatch {
          LOG.maxFailoverAttemptsReached(maxFailoverAttempts, resourceRole);
          if (inboundResponse != null) {
             writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
+         } else if (exception instanceof CircuitOpenException) {
+            // let the dispatch report the open circuit as unavailable to the client
+            throw (CircuitOpenException) exception;
          } else {
             throw new IOException(exception);
          }
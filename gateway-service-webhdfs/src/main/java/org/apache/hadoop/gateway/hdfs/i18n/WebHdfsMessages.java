@@ -34,6 +34,9 @@ public interface WebHdfsMessages {
    @Message(level = MessageLevel.INFO, text = "Could not connect to server: {0} {1}")
    void errorConnectingToServer(String uri, @StackTrace(level = MessageLevel.DEBUG) Exception e);
 
+   @Message(level = MessageLevel.INFO, text = "Circuit is open for server: {0}")
+   void circuitOpenForServer(String uri);
+
    @Message(level = MessageLevel.INFO, text = "Received an error from a node in SafeMode: {0}")
    void errorReceivedFromSafeModeNode(@StackTrace(level = MessageLevel.DEBUG) Exception e);
 
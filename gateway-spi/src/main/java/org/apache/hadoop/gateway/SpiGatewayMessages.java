@@ -48,4 +48,19 @@ public interface SpiGatewayMessages {
   
   @Message( level = MessageLevel.ERROR, text = "Failed Knox->Hadoop SPNegotiation authentication for URL: {0}" )
   void failedSPNegoAuthn(String uri);
+
+  @Message( level = MessageLevel.WARN, text = "Circuit for backend endpoint {0} changed from {1} to {2}" )
+  void circuitBreakerStateChanged( String endpoint, String from, String to );
+
+  @Message( level = MessageLevel.WARN, text = "Services sharing backend endpoint {0} configure different circuit breaker settings, the settings of the first one are used" )
+  void conflictingCircuitBreakerConfig( String endpoint );
+
+  @Message( level = MessageLevel.DEBUG, text = "Dispatch rejected, circuit open for: {0}" )
+  void dispatchRejectedCircuitOpen( URI uri );
+
+  @Message( level = MessageLevel.DEBUG, text = "Dispatch request coalesced with an identical request in flight: {0}" )
+  void dispatchCoalesced( URI uri );
+
+  @Message( level = MessageLevel.DEBUG, text = "Response too large to share with coalesced requests: {0}" )
+  void coalescedResponseNotShared( URI uri );
 }
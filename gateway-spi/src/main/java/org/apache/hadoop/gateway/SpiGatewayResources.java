@@ -32,4 +32,10 @@ public interface SpiGatewayResources {
   @Resource( text="Response status: {0}" )
   String responseStatus( int status );
 
+  @Resource( text="Service unavailable, circuit open." )
+  String dispatchCircuitOpen();
+
+  @Resource( text="Circuit state changed from {0} to {1}" )
+  String circuitStateChanged( String from, String to );
+
 }
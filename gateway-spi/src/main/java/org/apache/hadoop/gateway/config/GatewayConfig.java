@@ -85,4 +85,195 @@ public interface GatewayConfig {
   String getDefaultAppRedirectPath();
 
   String getFrontendUrl();
+
+  /**
+   * The lifetime given to tokens issued by the token service when the caller does not request one.
+   * @return The default token lifetime in milliseconds.
+   */
+  long getDefaultTokenLifetime();
+
+  /**
+   * Whether the token service journals its token sessions under the security directory
+   * so that revocations survive a restart.
+   * @return True if the token session store is persisted.
+   */
+  boolean isTokenSessionStorePersistent();
+
+  /**
+   * How long a topology deployment that has been replaced or removed may keep serving its in-flight requests
+   * before it is stopped.
+   * @return The deployment drain timeout in milliseconds.
+   */
+  long getDeploymentDrainTimeout();
+
+  /**
+   * The number of threads used to deploy topologies.  Different topologies are deployed in parallel.
+   * @return The number of deployment threads.
+   */
+  int getDeploymentThreads();
+
+  /**
+   * Determines if topologies are deployed straight from the generated descriptors
+   * instead of from a web archive exploded into the deployment directory.
+   * @return True if topologies are deployed in memory.
+   */
+  boolean isDeploymentInMemory();
+
+  /**
+   * Determines if deployments made in memory are also written to the deployment directory for inspection.
+   * @return True if in memory deployments are exported.
+   */
+  boolean isDeploymentExported();
+
+  /**
+   * How often the topology directory is checked for changes.
+   * @return The topology monitor interval in milliseconds.
+   */
+  long getTopologyMonitorInterval();
+
+  /**
+   * How long the topology directory must be free of changes before the topologies are reloaded.
+   * This keeps files that are still being written from being deployed.
+   * @return The topology monitor settle time in milliseconds.
+   */
+  long getTopologyMonitorSettleTime();
+
+  /**
+   * The minimum number of threads kept by the HTTP server to process requests.
+   * @return The minimum number of request threads.
+   */
+  int getHttpServerMinThreads();
+
+  /**
+   * The maximum number of threads used by the HTTP server to process requests.
+   * @return The maximum number of request threads.
+   */
+  int getHttpServerMaxThreads();
+
+  /**
+   * How many requests may wait for a request thread before new ones are rejected.
+   * @return The maximum number of queued requests or a negative value for no limit.
+   */
+  int getHttpServerMaxQueued();
+
+  /**
+   * The number of threads accepting connections.
+   * Each acceptor also has its own selector for the connections it accepted.
+   * @return The number of acceptors or a negative value to keep the connector's default.
+   */
+  int getHttpServerAcceptors();
+
+  /**
+   * The size of the queue of connections waiting to be accepted by the operating system.
+   * @return The accept queue size, zero for the operating system default or a negative value to keep the connector's default.
+   */
+  int getHttpServerAcceptQueueSize();
+
+  /**
+   * How long a connection may stay idle before it is closed.
+   * @return The idle timeout in milliseconds or a negative value to keep the connector's default.
+   */
+  int getHttpServerIdleTimeout();
+
+  /**
+   * @return The size in bytes of the buffer holding the headers of a request or a negative value to keep the
+   * connector's default.  This limits the size of the headers.
+   */
+  int getHttpServerRequestHeaderBuffer();
+
+  /**
+   * @return The size in bytes of the buffer holding the headers of a response or a negative value to keep the
+   * connector's default.  This limits the size of the headers.
+   */
+  int getHttpServerResponseHeaderBuffer();
+
+  /**
+   * @return The size in bytes of the buffer used to read request bodies or a negative value to keep the connector's default.
+   */
+  int getHttpServerRequestBuffer();
+
+  /**
+   * @return The size in bytes of the buffer used to write response bodies or a negative value to keep the connector's default.
+   */
+  int getHttpServerResponseBuffer();
+
+  /**
+   * @return The linger time of closed connections or a negative value to keep the connector's default.
+   */
+  int getHttpServerSoLingerTime();
+
+  /**
+   * Determines if the HTTP server keeps connection and request statistics.
+   * @return True if statistics are collected, false keeps the connector's default.
+   */
+  boolean isHttpServerStatsOn();
+
+  /**
+   * The number of TLS sessions kept so clients can resume them without a full handshake.
+   * @return The TLS session cache size or zero or less for the JVM default.
+   */
+  int getSSLSessionCacheSize();
+
+  /**
+   * How long a TLS session may be resumed after it was negotiated.
+   * @return The TLS session timeout in seconds or zero or less for the JVM default.
+   */
+  int getSSLSessionTimeout();
+
+  /**
+   * The cipher suites offered to clients, in order of preference.
+   * @return The included cipher suites or null to offer all the suites enabled by the JVM.
+   */
+  List<String> getIncludedSSLCiphers();
+
+  /**
+   * @return The cipher suites never offered to clients or null to exclude none.
+   */
+  List<String> getExcludedSSLCiphers();
+
+  /**
+   * Determines if the gateway picks the cipher suite according to its own order of preference
+   * instead of the client's.
+   * @return True if the server cipher suite order is used.
+   */
+  boolean isSSLServerCipherOrder();
+
+  /**
+   * @return True if clients may renegotiate an established TLS connection.
+   */
+  boolean isSSLRenegotiationAllowed();
+
+  /**
+   * The maximum time a stopping gateway waits for the requests in flight to complete
+   * before the remaining ones are aborted.
+   * @return The shutdown timeout in milliseconds.
+   */
+  long getGatewayShutdownTimeout();
+
+  /**
+   * The time a stopping gateway keeps serving requests after it starts reporting itself as not ready.
+   * This gives load balancers polling the readiness check the time to take the gateway out of rotation
+   * before its connectors are closed.
+   * @return The deregistration delay in milliseconds.
+   */
+  long getGatewayShutdownDeregistrationDelay();
+
+  /**
+   * Determines if the gateway answers liveness and readiness checks ahead of the topologies.
+   * @return True if the health check endpoints are enabled.
+   */
+  boolean isHealthCheckEnabled();
+
+  /**
+   * The path under which the liveness and readiness checks are answered,
+   * as {@code <path>/live} and {@code <path>/ready}.
+   * @return The health check path.
+   */
+  String getHealthCheckPath();
+
+  /**
+   * The number of audit events waiting to be forwarded above which the gateway reports itself as not ready.
+   * @return The maximum audit backlog or a negative value to ignore the backlog.
+   */
+  long getHealthCheckMaxAuditBacklog();
 }
@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.deploy;
+
+/**
+ * The deployment state of one topology.
+ * The state describes the most recent deployment activity while {@link #isReady()} reports whether the topology
+ * is currently being served, so a topology stays ready while a redeployment of it is in progress.
+ */
+public class DeploymentStatus {
+
+  public enum State { PENDING, DEPLOYING, DEPLOYED, FAILED, UNDEPLOYED }
+
+  private final String topology;
+  private volatile State state = State.PENDING;
+  private volatile boolean ready = false;
+  private volatile long startTime = 0;
+  private volatile long readyTime = 0;
+  private volatile long deployTime = 0;
+  private volatile long deployCount = 0;
+  private volatile long failureCount = 0;
+
+  public DeploymentStatus( String topology ) {
+    this.topology = topology;
+  }
+
+  public String getTopology() {
+    return topology;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  /**
+   * @return True if a deployment of the topology is serving requests.
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * @return The time the topology last became ready or zero if it has never been ready.
+   */
+  public long getReadyTime() {
+    return readyTime;
+  }
+
+  /**
+   * @return The time in milliseconds taken by the most recent deployment, successful or not.
+   */
+  public long getDeployTime() {
+    return deployTime;
+  }
+
+  public long getDeployCount() {
+    return deployCount;
+  }
+
+  public long getFailureCount() {
+    return failureCount;
+  }
+
+  public synchronized void pending() {
+    state = State.PENDING;
+  }
+
+  public synchronized void deploying() {
+    state = State.DEPLOYING;
+    startTime = System.currentTimeMillis();
+  }
+
+  public synchronized void deployed() {
+    long now = System.currentTimeMillis();
+    state = State.DEPLOYED;
+    deployTime = now - startTime;
+    deployCount++;
+    if( !ready ) {
+      readyTime = now;
+    }
+    ready = true;
+  }
+
+  /**
+   * Records a failed deployment.  A topology that was ready remains ready since its previous deployment is kept.
+   */
+  public synchronized void failed() {
+    state = State.FAILED;
+    deployTime = System.currentTimeMillis() - startTime;
+    failureCount++;
+  }
+
+  public synchronized void undeployed() {
+    state = State.UNDEPLOYED;
+    ready = false;
+  }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.deploy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Gateway wide index of the deployment status of every topology along with the gateway's startup metrics.
+ * This allows the admin service to report which topologies are ready.
+ */
+public abstract class DeploymentStatusRegistry {
+
+  private static final ConcurrentMap<String,DeploymentStatus> TOPOLOGIES = new ConcurrentHashMap<String,DeploymentStatus>();
+
+  private static volatile int startupTopologyCount = 0;
+  private static volatile long startupDeployTime = -1;
+
+  private DeploymentStatusRegistry() {
+  }
+
+  public static DeploymentStatus getStatus( String topology ) {
+    DeploymentStatus status = TOPOLOGIES.get( topology );
+    if( status == null ) {
+      status = new DeploymentStatus( topology );
+      DeploymentStatus existing = TOPOLOGIES.putIfAbsent( topology, status );
+      if( existing != null ) {
+        status = existing;
+      }
+    }
+    return status;
+  }
+
+  public static List<DeploymentStatus> getStatuses() {
+    return Collections.unmodifiableList( new ArrayList<DeploymentStatus>( TOPOLOGIES.values() ) );
+  }
+
+  public static boolean isReady( String topology ) {
+    DeploymentStatus status = TOPOLOGIES.get( topology );
+    return status != null && status.isReady();
+  }
+
+  public static void startupCompleted( int topologyCount, long deployTime ) {
+    startupTopologyCount = topologyCount;
+    startupDeployTime = deployTime;
+  }
+
+  /**
+   * @return The number of topologies deployed while the gateway was starting.
+   */
+  public static int getStartupTopologyCount() {
+    return startupTopologyCount;
+  }
+
+  /**
+   * @return The time in milliseconds it took to deploy the topologies present at startup or -1 if still starting.
+   */
+  public static long getStartupDeployTime() {
+    return startupDeployTime;
+  }
+
+  /**
+   * Forgets all topologies.  This is used when a gateway is started in the same process as a previous one.
+   */
+  public static void clear() {
+    TOPOLOGIES.clear();
+    startupTopologyCount = 0;
+    startupDeployTime = -1;
+  }
+
+}
@@ -0,0 +1,207 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.deploy;
+
+import org.apache.hadoop.gateway.i18n.GatewaySpiMessages;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gateway wide state of a graceful shutdown.
+ * The gateway registers the handler that performs its shutdown when it starts so the admin service can trigger one.
+ * The gateway reports itself as not ready as soon as the shutdown starts but keeps serving requests for the
+ * deregistration delay.  Then it stops accepting new requests and drains the ones in flight,
+ * and once they are drained it records how many of them completed and how many were aborted.
+ */
+public final class GatewayShutdown {
+
+  private static final GatewaySpiMessages LOG = MessagesFactory.get( GatewaySpiMessages.class );
+
+  public interface Handler {
+    void shutdown() throws Exception;
+  }
+
+  private static volatile Handler handler;
+  private static volatile long startTime = -1;
+  private static volatile long drainStartTime = -1;
+  private static volatile long drainTime = -1;
+  private static volatile long timeout = 0;
+  private static volatile Map<String,Integer> inFlightRequests = Collections.emptyMap();
+  private static volatile Map<String,Integer> abortedRequests = Collections.emptyMap();
+
+  private GatewayShutdown() {
+  }
+
+  public static void setHandler( Handler handler ) {
+    GatewayShutdown.handler = handler;
+  }
+
+  /**
+   * Runs the registered handler on a separate thread so the caller, typically a request, is not part of the drain.
+   * If the handler fails before the shutdown has started it is registered again so the shutdown can be retried.
+   *
+   * @return true if a shutdown was started, false if no gateway is running or it is already shutting down
+   */
+  public static synchronized boolean trigger() {
+    final Handler current = handler;
+    if( current == null || isShuttingDown() ) {
+      return false;
+    }
+    handler = null;
+    Thread thread = new Thread( "gateway-shutdown" ) {
+      @Override
+      public void run() {
+        try {
+          current.shutdown();
+        } catch( Exception e ) {
+          LOG.failedToShutdownGateway( e );
+          restore( current );
+        }
+      }
+    };
+    thread.start();
+    return true;
+  }
+
+  private static synchronized void restore( Handler current ) {
+    if( !isShuttingDown() && handler == null ) {
+      handler = current;
+    }
+  }
+
+  /**
+   * Marks the gateway as shutting down, from then on it is reported as not ready.
+   *
+   * @param timeout The maximum time in milliseconds the gateway waits for in flight requests
+   */
+  public static synchronized void started( long timeout ) {
+    GatewayShutdown.startTime = System.currentTimeMillis();
+    GatewayShutdown.timeout = timeout;
+  }
+
+  /**
+   * Marks the end of the deregistration delay, from then on new requests are refused and the ones in flight drain.
+   */
+  public static synchronized void draining() {
+    GatewayShutdown.drainStartTime = System.currentTimeMillis();
+  }
+
+  /**
+   * Records the outcome of the drain.
+   *
+   * @param inFlight The number of requests in flight for each topology when the gateway stopped accepting new ones
+   * @param aborted The number of requests still in flight for each topology when the drain ended
+   */
+  public static synchronized void drained( Map<String,Integer> inFlight, Map<String,Integer> aborted ) {
+    GatewayShutdown.inFlightRequests = Collections.unmodifiableMap( new HashMap<String,Integer>( inFlight ) );
+    GatewayShutdown.abortedRequests = Collections.unmodifiableMap( new HashMap<String,Integer>( aborted ) );
+    GatewayShutdown.drainTime = System.currentTimeMillis() - ( drainStartTime >= 0 ? drainStartTime : startTime );
+  }
+
+  public static boolean isShuttingDown() {
+    return startTime >= 0;
+  }
+
+  /**
+   * @return true once the deregistration delay is over and new requests are refused
+   */
+  public static boolean isDraining() {
+    return drainStartTime >= 0;
+  }
+
+  /**
+   * @return true once the in flight requests have either completed or been given up on
+   */
+  public static boolean isDrained() {
+    return drainTime >= 0;
+  }
+
+  public static long getStartTime() {
+    return startTime;
+  }
+
+  public static long getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * @return The time in milliseconds the drain took or -1 if it is still in progress.
+   */
+  public static long getDrainTime() {
+    return drainTime;
+  }
+
+  /**
+   * @return The number of requests in flight for each topology when the shutdown started.
+   */
+  public static Map<String,Integer> getInFlightRequests() {
+    return inFlightRequests;
+  }
+
+  /**
+   * @return The number of requests each topology completed during the drain.
+   */
+  public static Map<String,Integer> getDrainedRequests() {
+    Map<String,Integer> drained = new HashMap<String,Integer>();
+    for( Map.Entry<String,Integer> entry : inFlightRequests.entrySet() ) {
+      Integer aborted = abortedRequests.get( entry.getKey() );
+      drained.put( entry.getKey(), Math.max( 0, entry.getValue() - ( aborted == null ? 0 : aborted ) ) );
+    }
+    return drained;
+  }
+
+  /**
+   * @return The number of requests each topology still had in flight when the drain ended, these are aborted.
+   */
+  public static Map<String,Integer> getAbortedRequests() {
+    return abortedRequests;
+  }
+
+  public static int getDrainedRequestCount() {
+    return sum( getDrainedRequests() );
+  }
+
+  public static int getAbortedRequestCount() {
+    return sum( abortedRequests );
+  }
+
+  /**
+   * Forgets the previous shutdown.  This is used when a gateway is started in the same process as a previous one.
+   */
+  public static synchronized void clear() {
+    handler = null;
+    startTime = -1;
+    drainStartTime = -1;
+    drainTime = -1;
+    timeout = 0;
+    inFlightRequests = Collections.emptyMap();
+    abortedRequests = Collections.emptyMap();
+  }
+
+  private static int sum( Map<String,Integer> requests ) {
+    int sum = 0;
+    for( Integer count : requests.values() ) {
+      sum += count;
+    }
+    return sum;
+  }
+
+}
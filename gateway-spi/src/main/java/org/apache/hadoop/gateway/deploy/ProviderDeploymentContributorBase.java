@@ -17,7 +17,11 @@
  */
 package org.apache.hadoop.gateway.deploy;
 
+import org.apache.hadoop.gateway.descriptor.FilterDescriptor;
 import org.apache.hadoop.gateway.topology.Provider;
+import org.apache.hadoop.gateway.topology.Service;
+
+import java.util.Map;
 
 public abstract class ProviderDeploymentContributorBase extends DeploymentContributorBase implements ProviderDeploymentContributor {
 
@@ -33,4 +37,17 @@ public abstract class ProviderDeploymentContributorBase extends DeploymentContri
     // Noop.
   }
 
+  /**
+   * Copies the params of the service whose names start with the prefix to the filter as init params.
+   */
+  protected static void copyServiceParams( Service service, String prefix, FilterDescriptor filter ) {
+    if( service != null ) {
+      for( Map.Entry<String,String> serviceParam : service.getParams().entrySet() ) {
+        if( serviceParam.getKey().startsWith( prefix ) ) {
+          filter.param().name( serviceParam.getKey() ).value( serviceParam.getValue() );
+        }
+      }
+    }
+  }
+
 }
@@ -66,6 +66,13 @@ public abstract class ServiceDeploymentContributorBase extends DeploymentContrib
     if (topologyContainsProviderType(context, "federation")) {
       context.contributeFilter( service, resource, "federation", null, null );
     }
+    addRateLimitFilter( context, service, resource );
+  }
+
+  protected void addRateLimitFilter(DeploymentContext context, Service service, ResourceDescriptor resource) {
+    if (topologyContainsProviderType(context, "ratelimit")) {
+      context.contributeFilter( service, resource, "ratelimit", null, null );
+    }
   }
 
   protected void addIdentityAssertionFilter(DeploymentContext context, Service service, ResourceDescriptor resource) {
@@ -86,10 +93,32 @@ public abstract class ServiceDeploymentContributorBase extends DeploymentContrib
     context.contributeFilter( service, resource, "rewrite", null, params );
   }
 
+  protected void addCacheFilter(DeploymentContext context, Service service, ResourceDescriptor resource) {
+    if (topologyContainsProviderType(context, "cache")) {
+      context.contributeFilter( service, resource, "cache", null, null );
+    }
+  }
+
+  protected void addBulkheadFilter(DeploymentContext context, Service service, ResourceDescriptor resource) {
+    if (topologyContainsProviderType(context, "bulkhead")) {
+      context.contributeFilter( service, resource, "bulkhead", null, null );
+    }
+  }
+
+  /**
+   * Adds the filters that must see the rewritten request directly in front of the dispatch.
+   * Cache hits are served before a bulkhead slot is taken.
+   */
+  protected void addPreDispatchFilters(DeploymentContext context, Service service, ResourceDescriptor resource) {
+    addCacheFilter( context, service, resource );
+    addBulkheadFilter( context, service, resource );
+  }
+
   protected void addDispatchFilter(DeploymentContext context, Service service, ResourceDescriptor resource, String role, String name ) {
     if (name == null) {
       name = "http-client";
     }
+    addPreDispatchFilters( context, service, resource );
     context.contributeFilter( service, resource, role, name, null );
   }
 
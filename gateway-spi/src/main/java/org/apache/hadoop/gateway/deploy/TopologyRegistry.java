@@ -0,0 +1,61 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.deploy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Gateway wide index of an object a provider keeps for each deployed topology, for example its caches.
+ * This allows the admin service to report on every topology.
+ * A redeployed topology's new context is started before the previous one is stopped,
+ * so unregistering removes an object only if it has not already been replaced by a newer deployment.
+ */
+public class TopologyRegistry<T> {
+
+  private final ConcurrentMap<String,T> topologies = new ConcurrentHashMap<String,T>();
+
+  public void register( String topology, T value ) {
+    topologies.put( topology, value );
+  }
+
+  public void unregister( String topology, T value ) {
+    topologies.remove( topology, value );
+  }
+
+  public T get( String topology ) {
+    return topologies.get( topology );
+  }
+
+  public List<T> getAll() {
+    return Collections.unmodifiableList( new ArrayList<T>( topologies.values() ) );
+  }
+
+  /**
+   * @return A snapshot of the registered objects keyed by topology name.
+   */
+  public Map<String,T> getEntries() {
+    return Collections.unmodifiableMap( new HashMap<String,T>( topologies ) );
+  }
+
+}
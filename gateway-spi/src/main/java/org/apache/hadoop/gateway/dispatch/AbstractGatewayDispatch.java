@@ -42,6 +42,7 @@ public abstract class AbstractGatewayDispatch extends AbstractGatewayFilter impl
 
   private static Map<String,Adapter> METHOD_ADAPTERS = createMethodAdapters();
   private static int STREAM_COPY_BUFFER_SIZE = 4096;
+  protected static final String RETRY_AFTER = "Retry-After";
   private static final List<String> EXCLUDE_HEADERS = Arrays.asList( "Host", "Authorization", "Content-Length", "Transfer-Encoding" );
 
   private static Map<String,Adapter> createMethodAdapters() {
@@ -62,6 +63,9 @@ public abstract class AbstractGatewayDispatch extends AbstractGatewayFilter impl
     if( adapter != null ) {
       try {
         adapter.doMethod( this, request, response );
+      } catch( CircuitOpenException e ) {
+        response.setHeader( RETRY_AFTER, Long.toString( e.getRetryAfterSeconds() ) );
+        response.sendError( HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage() );
       } catch( URISyntaxException e ) {
         throw new ServletException( e );
       }
@@ -0,0 +1,263 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the health of a single backend endpoint.
+ * The breaker keeps the call outcomes of a rolling time window split into buckets.
+ * When either the failure rate or the slow call rate of the window reaches its threshold the circuit opens
+ * and calls are rejected until the open duration has elapsed.
+ * The circuit then goes half open and lets a limited number of probe calls through.
+ * If all the probes succeed the circuit closes again, otherwise it re-opens.
+ */
+public class CircuitBreaker {
+
+  public enum State { CLOSED, OPEN, HALF_OPEN }
+
+  public interface Listener {
+    void stateChanged( CircuitBreaker breaker, State from, State to );
+  }
+
+  private static final int BUCKET_COUNT = 10;
+
+  private final String endpoint;
+  private final CircuitBreakerConfig config;
+  private final Listener listener;
+  private final long bucketDuration;
+  private final Bucket[] buckets = new Bucket[ BUCKET_COUNT ];
+
+  private State state = State.CLOSED;
+  private long openedAt = 0;
+  private int probesIssued = 0;
+  private int probesSucceeded = 0;
+
+  private final AtomicLong callCount = new AtomicLong();
+  private final AtomicLong failureCount = new AtomicLong();
+  private final AtomicLong slowCallCount = new AtomicLong();
+  private final AtomicLong rejectedCount = new AtomicLong();
+  private final AtomicLong openCount = new AtomicLong();
+
+  public CircuitBreaker( String endpoint, CircuitBreakerConfig config, Listener listener ) {
+    this.endpoint = endpoint;
+    this.config = config;
+    this.listener = listener;
+    this.bucketDuration = Math.max( 1, config.getWindowDuration() / BUCKET_COUNT );
+    for( int i = 0; i < BUCKET_COUNT; i++ ) {
+      buckets[ i ] = new Bucket();
+    }
+  }
+
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  public CircuitBreakerConfig getConfig() {
+    return config;
+  }
+
+  /**
+   * Determines if a call to the endpoint may proceed.
+   * Every permitted call must be followed by exactly one call to {@link #recordResult(long, boolean)}.
+   *
+   * @return true if the call is permitted, false if it must be rejected
+   */
+  public boolean allowRequest() {
+    return allowRequest( System.currentTimeMillis() );
+  }
+
+  /**
+   * Records the outcome of a permitted call.
+   *
+   * @param duration The time taken by the call in milliseconds
+   * @param failed True if the call failed to connect or the backend reported itself unavailable
+   */
+  public void recordResult( long duration, boolean failed ) {
+    recordResult( System.currentTimeMillis(), duration, failed );
+  }
+
+  /**
+   * @return The number of seconds a rejected client should wait before trying again.
+   */
+  public long getRetryAfterSeconds() {
+    return getRetryAfterSeconds( System.currentTimeMillis() );
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  public long getCallCount() {
+    return callCount.get();
+  }
+
+  public long getFailureCount() {
+    return failureCount.get();
+  }
+
+  public long getSlowCallCount() {
+    return slowCallCount.get();
+  }
+
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
+  public long getOpenCount() {
+    return openCount.get();
+  }
+
+  boolean allowRequest( long now ) {
+    State from;
+    synchronized( this ) {
+      from = state;
+      switch( state ) {
+        case CLOSED:
+          return true;
+        case OPEN:
+          if( now - openedAt < config.getOpenDuration() ) {
+            rejectedCount.incrementAndGet();
+            return false;
+          }
+          state = State.HALF_OPEN;
+          probesIssued = 1;
+          probesSucceeded = 0;
+          break;
+        case HALF_OPEN:
+          if( probesIssued >= config.getHalfOpenProbes() ) {
+            rejectedCount.incrementAndGet();
+            return false;
+          }
+          probesIssued++;
+          return true;
+      }
+    }
+    notifyListener( from, State.HALF_OPEN );
+    return true;
+  }
+
+  void recordResult( long now, long duration, boolean failed ) {
+    boolean slow = duration >= config.getSlowCallDuration();
+    callCount.incrementAndGet();
+    if( failed ) {
+      failureCount.incrementAndGet();
+    }
+    if( slow ) {
+      slowCallCount.incrementAndGet();
+    }
+    State from;
+    State to;
+    synchronized( this ) {
+      from = state;
+      if( state == State.HALF_OPEN ) {
+        if( failed || slow ) {
+          open( now );
+        } else if( ++probesSucceeded >= config.getHalfOpenProbes() ) {
+          close();
+        }
+      } else {
+        Bucket bucket = currentBucket( now );
+        bucket.calls++;
+        if( failed ) {
+          bucket.failures++;
+        }
+        if( slow ) {
+          bucket.slowCalls++;
+        }
+        if( state == State.CLOSED && isThresholdExceeded( now ) ) {
+          open( now );
+        }
+      }
+      to = state;
+    }
+    if( from != to ) {
+      notifyListener( from, to );
+    }
+  }
+
+  synchronized long getRetryAfterSeconds( long now ) {
+    long remaining = config.getOpenDuration();
+    if( state == State.OPEN ) {
+      remaining = Math.max( 0, openedAt + config.getOpenDuration() - now );
+    }
+    return Math.max( 1, ( remaining + 999 ) / 1000 );
+  }
+
+  private void open( long now ) {
+    state = State.OPEN;
+    openedAt = now;
+    openCount.incrementAndGet();
+  }
+
+  private void close() {
+    state = State.CLOSED;
+    for( Bucket bucket : buckets ) {
+      bucket.reset( 0 );
+    }
+  }
+
+  private boolean isThresholdExceeded( long now ) {
+    int calls = 0;
+    int failures = 0;
+    int slowCalls = 0;
+    long windowStart = now - config.getWindowDuration();
+    for( Bucket bucket : buckets ) {
+      if( bucket.start > windowStart ) {
+        calls += bucket.calls;
+        failures += bucket.failures;
+        slowCalls += bucket.slowCalls;
+      }
+    }
+    if( calls == 0 || calls < config.getMinimumCalls() ) {
+      return false;
+    }
+    return failures * 100 >= config.getFailureRateThreshold() * calls
+        || slowCalls * 100 >= config.getSlowCallRateThreshold() * calls;
+  }
+
+  private Bucket currentBucket( long now ) {
+    long start = now - ( now % bucketDuration );
+    Bucket bucket = buckets[ (int)( ( now / bucketDuration ) % BUCKET_COUNT ) ];
+    if( bucket.start != start ) {
+      bucket.reset( start );
+    }
+    return bucket;
+  }
+
+  private void notifyListener( State from, State to ) {
+    if( listener != null ) {
+      listener.stateChanged( this, from, to );
+    }
+  }
+
+  private static class Bucket {
+    long start;
+    int calls;
+    int failures;
+    int slowCalls;
+
+    void reset( long start ) {
+      this.start = start;
+      calls = 0;
+      failures = 0;
+      slowCalls = 0;
+    }
+  }
+
+}
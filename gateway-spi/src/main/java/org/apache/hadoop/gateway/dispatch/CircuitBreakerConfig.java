@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+import javax.servlet.FilterConfig;
+
+/**
+ * Settings for a dispatch {@link CircuitBreaker}.
+ * Values are read from dispatch filter init params which are populated from the service params in the topology.
+ * All params share the {@link #PARAM_PREFIX} prefix, for example <code>circuitBreaker.enabled</code>.
+ */
+public class CircuitBreakerConfig {
+
+  public static final String PARAM_PREFIX = "circuitBreaker.";
+
+  public static final String ENABLED_PARAM = PARAM_PREFIX + "enabled";
+  public static final String FAILURE_RATE_THRESHOLD_PARAM = PARAM_PREFIX + "failureRateThreshold";
+  public static final String SLOW_CALL_RATE_THRESHOLD_PARAM = PARAM_PREFIX + "slowCallRateThreshold";
+  public static final String SLOW_CALL_DURATION_PARAM = PARAM_PREFIX + "slowCallDuration";
+  public static final String MINIMUM_CALLS_PARAM = PARAM_PREFIX + "minimumCalls";
+  public static final String WINDOW_DURATION_PARAM = PARAM_PREFIX + "windowDuration";
+  public static final String OPEN_DURATION_PARAM = PARAM_PREFIX + "openDuration";
+  public static final String HALF_OPEN_PROBES_PARAM = PARAM_PREFIX + "halfOpenProbes";
+
+  public static final int DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+  public static final int DEFAULT_SLOW_CALL_RATE_THRESHOLD = 100;
+  public static final long DEFAULT_SLOW_CALL_DURATION = 60000L;
+  public static final int DEFAULT_MINIMUM_CALLS = 20;
+  public static final long DEFAULT_WINDOW_DURATION = 10000L;
+  public static final long DEFAULT_OPEN_DURATION = 30000L;
+  public static final int DEFAULT_HALF_OPEN_PROBES = 3;
+
+  private boolean enabled = false;
+  private int failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+  private int slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+  private long slowCallDuration = DEFAULT_SLOW_CALL_DURATION;
+  private int minimumCalls = DEFAULT_MINIMUM_CALLS;
+  private long windowDuration = DEFAULT_WINDOW_DURATION;
+  private long openDuration = DEFAULT_OPEN_DURATION;
+  private int halfOpenProbes = DEFAULT_HALF_OPEN_PROBES;
+
+  public static CircuitBreakerConfig load( FilterConfig filterConfig ) {
+    CircuitBreakerConfig config = new CircuitBreakerConfig();
+    config.setEnabled( Boolean.parseBoolean( filterConfig.getInitParameter( ENABLED_PARAM ) ) );
+    config.setFailureRateThreshold( getInt( filterConfig, FAILURE_RATE_THRESHOLD_PARAM, DEFAULT_FAILURE_RATE_THRESHOLD ) );
+    config.setSlowCallRateThreshold( getInt( filterConfig, SLOW_CALL_RATE_THRESHOLD_PARAM, DEFAULT_SLOW_CALL_RATE_THRESHOLD ) );
+    config.setSlowCallDuration( getLong( filterConfig, SLOW_CALL_DURATION_PARAM, DEFAULT_SLOW_CALL_DURATION ) );
+    config.setMinimumCalls( getInt( filterConfig, MINIMUM_CALLS_PARAM, DEFAULT_MINIMUM_CALLS ) );
+    config.setWindowDuration( getLong( filterConfig, WINDOW_DURATION_PARAM, DEFAULT_WINDOW_DURATION ) );
+    config.setOpenDuration( getLong( filterConfig, OPEN_DURATION_PARAM, DEFAULT_OPEN_DURATION ) );
+    config.setHalfOpenProbes( getInt( filterConfig, HALF_OPEN_PROBES_PARAM, DEFAULT_HALF_OPEN_PROBES ) );
+    return config;
+  }
+
+  private static int getInt( FilterConfig filterConfig, String name, int defaultValue ) {
+    String value = filterConfig.getInitParameter( name );
+    return value == null ? defaultValue : Integer.parseInt( value.trim() );
+  }
+
+  private static long getLong( FilterConfig filterConfig, String name, long defaultValue ) {
+    String value = filterConfig.getInitParameter( name );
+    return value == null ? defaultValue : Long.parseLong( value.trim() );
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled( boolean enabled ) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * @return The percentage of failed calls in the window at or above which the circuit opens.
+   */
+  public int getFailureRateThreshold() {
+    return failureRateThreshold;
+  }
+
+  public void setFailureRateThreshold( int failureRateThreshold ) {
+    this.failureRateThreshold = failureRateThreshold;
+  }
+
+  /**
+   * @return The percentage of slow calls in the window at or above which the circuit opens.
+   */
+  public int getSlowCallRateThreshold() {
+    return slowCallRateThreshold;
+  }
+
+  public void setSlowCallRateThreshold( int slowCallRateThreshold ) {
+    this.slowCallRateThreshold = slowCallRateThreshold;
+  }
+
+  /**
+   * @return The duration in milliseconds above which a call is counted as slow.
+   */
+  public long getSlowCallDuration() {
+    return slowCallDuration;
+  }
+
+  public void setSlowCallDuration( long slowCallDuration ) {
+    this.slowCallDuration = slowCallDuration;
+  }
+
+  /**
+   * @return The number of calls that must be recorded in the window before the rates are evaluated.
+   */
+  public int getMinimumCalls() {
+    return minimumCalls;
+  }
+
+  public void setMinimumCalls( int minimumCalls ) {
+    this.minimumCalls = minimumCalls;
+  }
+
+  /**
+   * @return The length in milliseconds of the rolling window.
+   */
+  public long getWindowDuration() {
+    return windowDuration;
+  }
+
+  public void setWindowDuration( long windowDuration ) {
+    this.windowDuration = windowDuration;
+  }
+
+  /**
+   * @return The time in milliseconds an open circuit rejects calls before allowing probes.
+   */
+  public long getOpenDuration() {
+    return openDuration;
+  }
+
+  public void setOpenDuration( long openDuration ) {
+    this.openDuration = openDuration;
+  }
+
+  /**
+   * @return The number of successful probe calls required in the half open state to close the circuit.
+   */
+  public int getHalfOpenProbes() {
+    return halfOpenProbes;
+  }
+
+  public void setHalfOpenProbes( int halfOpenProbes ) {
+    this.halfOpenProbes = halfOpenProbes;
+  }
+
+  @Override
+  public boolean equals( Object object ) {
+    if( this == object ) {
+      return true;
+    }
+    if( !( object instanceof CircuitBreakerConfig ) ) {
+      return false;
+    }
+    CircuitBreakerConfig that = (CircuitBreakerConfig)object;
+    return enabled == that.enabled
+        && failureRateThreshold == that.failureRateThreshold
+        && slowCallRateThreshold == that.slowCallRateThreshold
+        && slowCallDuration == that.slowCallDuration
+        && minimumCalls == that.minimumCalls
+        && windowDuration == that.windowDuration
+        && openDuration == that.openDuration
+        && halfOpenProbes == that.halfOpenProbes;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = enabled ? 1 : 0;
+    hash = 31 * hash + failureRateThreshold;
+    hash = 31 * hash + slowCallRateThreshold;
+    hash = 31 * hash + (int)( slowCallDuration ^ ( slowCallDuration >>> 32 ) );
+    hash = 31 * hash + minimumCalls;
+    hash = 31 * hash + (int)( windowDuration ^ ( windowDuration >>> 32 ) );
+    hash = 31 * hash + (int)( openDuration ^ ( openDuration >>> 32 ) );
+    hash = 31 * hash + halfOpenProbes;
+    return hash;
+  }
+
+}
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+import org.apache.hadoop.gateway.SpiGatewayMessages;
+import org.apache.hadoop.gateway.SpiGatewayResources;
+import org.apache.hadoop.gateway.audit.api.Action;
+import org.apache.hadoop.gateway.audit.api.ActionOutcome;
+import org.apache.hadoop.gateway.audit.api.AuditServiceFactory;
+import org.apache.hadoop.gateway.audit.api.Auditor;
+import org.apache.hadoop.gateway.audit.api.ResourceType;
+import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
+import org.apache.hadoop.gateway.deploy.TopologyRegistry;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.i18n.resources.ResourcesFactory;
+import org.apache.hadoop.gateway.services.GatewayServices;
+
+import javax.servlet.ServletContext;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the {@link CircuitBreaker}s of a deployed topology keyed by backend endpoint (scheme://host:port).
+ * A single registry is shared by all the dispatch filters of a topology via a servlet context attribute
+ * so that every resource of a service, and every service using the same backend, sees the same circuit state.
+ * A shared breaker uses the settings of the service that first called the endpoint, a warning is logged
+ * once per endpoint when another service configures different settings.
+ */
+public class CircuitBreakerRegistry implements CircuitBreaker.Listener {
+
+  public static final String REGISTRY_ATTRIBUTE_NAME = CircuitBreakerRegistry.class.getName();
+
+  /**
+   * The circuit breaker registries of every deployed topology.
+   */
+  public static final TopologyRegistry<CircuitBreakerRegistry> REGISTRY = new TopologyRegistry<CircuitBreakerRegistry>();
+
+  private static final SpiGatewayMessages LOG = MessagesFactory.get( SpiGatewayMessages.class );
+  private static final SpiGatewayResources RES = ResourcesFactory.get( SpiGatewayResources.class );
+  private static final Auditor auditor = AuditServiceFactory.getAuditService().getAuditor( AuditConstants.DEFAULT_AUDITOR_NAME,
+      AuditConstants.KNOX_SERVICE_NAME, AuditConstants.KNOX_COMPONENT_NAME );
+
+  private final String topology;
+  private final ConcurrentMap<String,CircuitBreaker> breakers = new ConcurrentHashMap<String,CircuitBreaker>();
+  private final ConcurrentMap<String,Boolean> conflicts = new ConcurrentHashMap<String,Boolean>();
+
+  public CircuitBreakerRegistry( String topology ) {
+    this.topology = topology;
+  }
+
+  public static CircuitBreakerRegistry getRegistry( ServletContext context ) {
+    synchronized( context ) {
+      CircuitBreakerRegistry registry = (CircuitBreakerRegistry)context.getAttribute( REGISTRY_ATTRIBUTE_NAME );
+      if( registry == null ) {
+        String topology = (String)context.getAttribute( GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE );
+        registry = new CircuitBreakerRegistry( topology );
+        context.setAttribute( REGISTRY_ATTRIBUTE_NAME, registry );
+        if( topology != null ) {
+          REGISTRY.register( topology, registry );
+        }
+      }
+      return registry;
+    }
+  }
+
+  /**
+   * Removes the registry of a topology from the gateway wide index once the topology is undeployed.
+   */
+  public static void releaseRegistry( ServletContext context ) {
+    synchronized( context ) {
+      CircuitBreakerRegistry registry = (CircuitBreakerRegistry)context.getAttribute( REGISTRY_ATTRIBUTE_NAME );
+      if( registry != null ) {
+        context.removeAttribute( REGISTRY_ATTRIBUTE_NAME );
+        if( registry.getTopology() != null ) {
+          REGISTRY.unregister( registry.getTopology(), registry );
+        }
+      }
+    }
+  }
+
+  public static String getEndpoint( URI uri ) {
+    int port = uri.getPort();
+    if( port < 0 ) {
+      port = "https".equalsIgnoreCase( uri.getScheme() ) ? 443 : 80;
+    }
+    return uri.getScheme() + "://" + uri.getHost() + ":" + port;
+  }
+
+  public String getTopology() {
+    return topology;
+  }
+
+  public CircuitBreaker getBreaker( URI uri, CircuitBreakerConfig config ) {
+    String endpoint = getEndpoint( uri );
+    CircuitBreaker breaker = breakers.get( endpoint );
+    if( breaker == null ) {
+      breaker = new CircuitBreaker( endpoint, config, this );
+      CircuitBreaker existing = breakers.putIfAbsent( endpoint, breaker );
+      if( existing != null ) {
+        breaker = existing;
+      }
+    }
+    if( breaker.getConfig() != config && !breaker.getConfig().equals( config )
+        && conflicts.putIfAbsent( endpoint, Boolean.TRUE ) == null ) {
+      LOG.conflictingCircuitBreakerConfig( endpoint );
+    }
+    return breaker;
+  }
+
+  /**
+   * @return A snapshot of all the breakers in the registry which can be used to report circuit metrics.
+   */
+  public List<CircuitBreaker> getBreakers() {
+    return Collections.unmodifiableList( new ArrayList<CircuitBreaker>( breakers.values() ) );
+  }
+
+  @Override
+  public void stateChanged( CircuitBreaker breaker, CircuitBreaker.State from, CircuitBreaker.State to ) {
+    LOG.circuitBreakerStateChanged( breaker.getEndpoint(), from.name(), to.name() );
+    String outcome = to == CircuitBreaker.State.OPEN ? ActionOutcome.UNAVAILABLE : ActionOutcome.SUCCESS;
+    auditor.audit( Action.DISPATCH, breaker.getEndpoint(), ResourceType.URI, outcome,
+        RES.circuitStateChanged( from.name(), to.name() ) );
+  }
+
+}
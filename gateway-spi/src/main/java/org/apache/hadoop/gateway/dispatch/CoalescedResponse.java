@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.message.BasicHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+/**
+ * A fully buffered backend response that can be written to any number of clients.
+ */
+public class CoalescedResponse {
+
+  private final StatusLine statusLine;
+  private final Header[] headers;
+  private final Header contentType;
+  private final Header contentEncoding;
+  private final byte[] body;
+
+  CoalescedResponse( StatusLine statusLine, Header[] headers, Header contentType, Header contentEncoding, byte[] body ) {
+    this.statusLine = statusLine;
+    this.headers = headers;
+    this.contentType = contentType;
+    this.contentEncoding = contentEncoding;
+    this.body = body;
+  }
+
+  /**
+   * Reads the entity of a backend response into memory.
+   * If the entity turns out to be larger than the limit the response cannot be shared.
+   * In that case the bytes read so far are pushed back in front of the rest of the stream
+   * so that the response can still be streamed to the one client that made the request.
+   *
+   * @param response The backend response, its entity is consumed
+   * @param maxBufferSize The largest entity in bytes that is buffered
+   * @return The buffered response or null if the entity is too large to buffer
+   */
+  public static CoalescedResponse buffer( HttpResponse response, int maxBufferSize ) throws IOException {
+    HttpEntity entity = response.getEntity();
+    byte[] body = null;
+    Header contentType = null;
+    Header contentEncoding = null;
+    if( entity != null ) {
+      long length = entity.getContentLength();
+      contentType = entity.getContentType();
+      contentEncoding = entity.getContentEncoding();
+      if( length > maxBufferSize ) {
+        return null;
+      }
+      InputStream stream = entity.getContent();
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream( length < 0 ? 4096 : (int)length );
+      byte[] chunk = new byte[ 4096 ];
+      int count;
+      while( ( count = stream.read( chunk ) ) >= 0 ) {
+        buffer.write( chunk, 0, count );
+        if( buffer.size() > maxBufferSize ) {
+          InputStream replay = new SequenceInputStream( new ByteArrayInputStream( buffer.toByteArray() ), stream );
+          InputStreamEntity replayEntity = new InputStreamEntity( replay, -1 );
+          replayEntity.setContentType( contentType );
+          replayEntity.setContentEncoding( contentEncoding );
+          response.setEntity( replayEntity );
+          return null;
+        }
+      }
+      stream.close();
+      body = buffer.toByteArray();
+    }
+    return new CoalescedResponse( response.getStatusLine(), response.getAllHeaders(), contentType, contentEncoding, body );
+  }
+
+  /**
+   * @return A new response with its own entity stream over the shared body.
+   */
+  public HttpResponse toHttpResponse() {
+    BasicHttpResponse response = new BasicHttpResponse( statusLine );
+    response.setHeaders( headers );
+    if( body != null ) {
+      ByteArrayEntity entity = new ByteArrayEntity( body );
+      entity.setContentType( contentType );
+      entity.setContentEncoding( contentEncoding );
+      response.setEntity( entity );
+    }
+    return response;
+  }
+
+  public int getStatusCode() {
+    return statusLine.getStatusCode();
+  }
+
+  public int getBodyLength() {
+    return body == null ? 0 : body.length;
+  }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+import javax.servlet.FilterConfig;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Settings for coalescing identical concurrent GET requests into a single backend request.
+ * Values are read from dispatch filter init params which are populated from the service params in the topology.
+ * All params share the {@link #PARAM_PREFIX} prefix, for example <code>coalesce.enabled</code>.
+ * The <code>coalesce.patterns</code> param is a comma separated list of regular expressions matched against
+ * the path of the target URL, when absent every GET of the service may be coalesced.
+ */
+public class CoalescingConfig {
+
+  public static final String PARAM_PREFIX = "coalesce.";
+
+  public static final String ENABLED_PARAM = PARAM_PREFIX + "enabled";
+  public static final String PATTERNS_PARAM = PARAM_PREFIX + "patterns";
+  public static final String MAX_BUFFER_SIZE_PARAM = PARAM_PREFIX + "maxBufferSize";
+  public static final String MAX_WAIT_PARAM = PARAM_PREFIX + "maxWait";
+
+  public static final int DEFAULT_MAX_BUFFER_SIZE = 1024 * 1024;
+  public static final long DEFAULT_MAX_WAIT = 60000L;
+
+  private boolean enabled = false;
+  private List<Pattern> patterns = new ArrayList<Pattern>();
+  private int maxBufferSize = DEFAULT_MAX_BUFFER_SIZE;
+  private long maxWait = DEFAULT_MAX_WAIT;
+
+  public static CoalescingConfig load( FilterConfig filterConfig ) {
+    CoalescingConfig config = new CoalescingConfig();
+    config.setEnabled( Boolean.parseBoolean( filterConfig.getInitParameter( ENABLED_PARAM ) ) );
+    String patterns = filterConfig.getInitParameter( PATTERNS_PARAM );
+    if( patterns != null ) {
+      for( String pattern : patterns.split( "," ) ) {
+        pattern = pattern.trim();
+        if( pattern.length() > 0 ) {
+          config.addPattern( Pattern.compile( pattern ) );
+        }
+      }
+    }
+    String maxBufferSize = filterConfig.getInitParameter( MAX_BUFFER_SIZE_PARAM );
+    if( maxBufferSize != null ) {
+      config.setMaxBufferSize( Integer.parseInt( maxBufferSize.trim() ) );
+    }
+    String maxWait = filterConfig.getInitParameter( MAX_WAIT_PARAM );
+    if( maxWait != null ) {
+      config.setMaxWait( Long.parseLong( maxWait.trim() ) );
+    }
+    return config;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled( boolean enabled ) {
+    this.enabled = enabled;
+  }
+
+  public List<Pattern> getPatterns() {
+    return patterns;
+  }
+
+  public void addPattern( Pattern pattern ) {
+    patterns.add( pattern );
+  }
+
+  /**
+   * @param path The path of a target URL
+   * @return True if GET requests for the path may be coalesced.
+   */
+  public boolean matches( String path ) {
+    if( patterns.isEmpty() ) {
+      return true;
+    }
+    if( path == null ) {
+      path = "";
+    }
+    for( Pattern pattern : patterns ) {
+      if( pattern.matcher( path ).matches() ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return The largest response body in bytes that is buffered to be shared with waiting requests.
+   */
+  public int getMaxBufferSize() {
+    return maxBufferSize;
+  }
+
+  public void setMaxBufferSize( int maxBufferSize ) {
+    this.maxBufferSize = maxBufferSize;
+  }
+
+  /**
+   * @return The time in milliseconds a waiting request waits for the shared response before dispatching itself.
+   */
+  public long getMaxWait() {
+    return maxWait;
+  }
+
+  public void setMaxWait( long maxWait ) {
+    this.maxWait = maxWait;
+  }
+
+}
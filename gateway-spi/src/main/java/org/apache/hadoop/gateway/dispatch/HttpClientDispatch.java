@@ -38,6 +38,7 @@ import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
 import org.apache.hadoop.gateway.config.GatewayConfig;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.hadoop.gateway.i18n.resources.ResourcesFactory;
+import org.apache.hadoop.gateway.security.SecurityContext;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
@@ -69,6 +70,9 @@ public class HttpClientDispatch extends AbstractGatewayDispatch {
    protected static final String SET_COOKIE = "Set-Cookie";
    protected static final String WWW_AUTHENTICATE = "WWW-Authenticate";
    protected static final String NEGOTIATE = "Negotiate";
+   protected static final String RANGE = "Range";
+   // request headers that can change the content of a response, they are part of the coalescing key
+   private static final String[] COALESCING_KEY_HEADERS = { "Accept", "Accept-Encoding", "Accept-Language", COOKIE };
 
    protected static SpiGatewayMessages LOG = MessagesFactory.get(SpiGatewayMessages.class);
    protected static SpiGatewayResources RES = ResourcesFactory.get(SpiGatewayResources.class);
@@ -81,6 +85,14 @@ public class HttpClientDispatch extends AbstractGatewayDispatch {
 
    private int replayBufferSize = 0;
 
+   private CircuitBreakerConfig circuitBreakerConfig;
+
+   private CircuitBreakerRegistry circuitBreakerRegistry;
+
+   private CoalescingConfig coalescingConfig;
+
+   private RequestCoalescer requestCoalescer;
+
    @Override
    public void init(FilterConfig filterConfig) throws ServletException {
       this.init(filterConfig, new AppCookieManager());
@@ -93,6 +105,22 @@ public class HttpClientDispatch extends AbstractGatewayDispatch {
       if (replayBufferSizeString != null) {
          setReplayBufferSize(Integer.valueOf(replayBufferSizeString));
       }
+      circuitBreakerConfig = CircuitBreakerConfig.load(filterConfig);
+      if (circuitBreakerConfig.isEnabled()) {
+         circuitBreakerRegistry = CircuitBreakerRegistry.getRegistry(filterConfig.getServletContext());
+      }
+      coalescingConfig = CoalescingConfig.load(filterConfig);
+      if (coalescingConfig.isEnabled()) {
+         requestCoalescer = new RequestCoalescer();
+      }
+   }
+
+   @Override
+   public void destroy() {
+      if (circuitBreakerRegistry != null) {
+         CircuitBreakerRegistry.releaseRegistry(getConfig().getServletContext());
+      }
+      super.destroy();
    }
 
    protected void executeRequest(
@@ -104,10 +132,98 @@ public class HttpClientDispatch extends AbstractGatewayDispatch {
       writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
    }
 
+   /**
+    * Executes a request that may be shared with identical requests in flight at the same time.
+    * The first request dispatches to the backend and buffers the response for the others.
+    * If the response is too large to buffer, or the wait for it times out, the others dispatch themselves.
+    */
+   protected void executeCoalescedRequest(
+         HttpUriRequest outboundRequest,
+         HttpServletRequest inboundRequest,
+         HttpServletResponse outboundResponse)
+         throws IOException {
+      String key = getCoalescingKey(outboundRequest, inboundRequest);
+      RequestCoalescer.Flight flight = requestCoalescer.join(key);
+      if (flight != null) {
+         LOG.dispatchCoalesced(outboundRequest.getURI());
+         CoalescedResponse shared = flight.await(coalescingConfig.getMaxWait());
+         if (shared != null) {
+            writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, shared.toHttpResponse());
+         } else {
+            executeRequest(outboundRequest, inboundRequest, outboundResponse);
+         }
+         return;
+      }
+      HttpResponse inboundResponse;
+      CoalescedResponse shared = null;
+      try {
+         inboundResponse = executeOutboundRequest(outboundRequest);
+         shared = CoalescedResponse.buffer(inboundResponse, coalescingConfig.getMaxBufferSize());
+         if (shared == null) {
+            LOG.coalescedResponseNotShared(outboundRequest.getURI());
+         }
+      } catch (IOException e) {
+         requestCoalescer.fail(key, e);
+         throw e;
+      } catch (RuntimeException e) {
+         requestCoalescer.fail(key, new IOException(RES.dispatchConnectionError()));
+         throw e;
+      }
+      requestCoalescer.complete(key, shared);
+      writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse,
+            shared != null ? shared.toHttpResponse() : inboundResponse);
+   }
+
+   /**
+    * Determines if a GET request may be coalesced with identical requests in flight.
+    * Range requests are never coalesced.
+    */
+   protected boolean isCoalescable(URI url, HttpServletRequest inboundRequest) {
+      return requestCoalescer != null
+            && inboundRequest.getHeader(RANGE) == null
+            && coalescingConfig.matches(url.getPath());
+   }
+
+   /**
+    * Builds the key identifying requests whose responses are interchangeable.
+    * The target URL already carries the user.name or doAs param added by identity assertion.
+    * The authenticated and impersonated principals are added as well so that two users
+    * can never share a response even when the backend identifies them some other way.
+    */
+   protected String getCoalescingKey(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest) {
+      StringBuilder key = new StringBuilder();
+      key.append(outboundRequest.getMethod()).append(' ').append(outboundRequest.getURI().toString());
+      SecurityContext context = SecurityContext.current();
+      if (context != null) {
+         if (context.getPrimaryPrincipal() != null) {
+            key.append("\nprimary:").append(context.getPrimaryPrincipal().getName());
+         }
+         if (context.getImpersonatedPrincipal() != null) {
+            key.append("\nimpersonated:").append(context.getImpersonatedPrincipal().getName());
+         }
+      } else if (inboundRequest.getUserPrincipal() != null) {
+         key.append("\nprimary:").append(inboundRequest.getUserPrincipal().getName());
+      }
+      for (String name : COALESCING_KEY_HEADERS) {
+         Header header = outboundRequest.getFirstHeader(name);
+         if (header != null) {
+            key.append('\n').append(name).append(':').append(header.getValue());
+         }
+      }
+      return key.toString();
+   }
+
    protected HttpResponse executeOutboundRequest(HttpUriRequest outboundRequest) throws IOException {
       LOG.dispatchRequest(outboundRequest.getMethod(), outboundRequest.getURI());
+      CircuitBreaker breaker = getCircuitBreaker(outboundRequest.getURI());
+      if (breaker != null && !breaker.allowRequest()) {
+         LOG.dispatchRejectedCircuitOpen(outboundRequest.getURI());
+         auditor.audit(Action.DISPATCH, outboundRequest.getURI().toString(), ResourceType.URI, ActionOutcome.UNAVAILABLE, RES.dispatchCircuitOpen());
+         throw new CircuitOpenException(RES.dispatchCircuitOpen(), breaker.getEndpoint(), breaker.getRetryAfterSeconds());
+      }
       HttpResponse inboundResponse = null;
       DefaultHttpClient client = new DefaultHttpClient();
+      long startTime = System.currentTimeMillis();
 
       try {
          String query = outboundRequest.getURI().getQuery();
@@ -129,6 +245,9 @@ public class HttpClientDispatch extends AbstractGatewayDispatch {
          auditor.audit(Action.DISPATCH, outboundRequest.getURI().toString(), ResourceType.URI, ActionOutcome.FAILURE);
          throw new IOException(RES.dispatchConnectionError());
       } finally {
+         if (breaker != null) {
+            breaker.recordResult(System.currentTimeMillis() - startTime, isBackendFailure(inboundResponse));
+         }
          if (inboundResponse != null) {
             int statusCode = inboundResponse.getStatusLine().getStatusCode();
             if (statusCode != 201) {
@@ -150,6 +269,31 @@ public class HttpClientDispatch extends AbstractGatewayDispatch {
       return inboundResponse;
    }
 
+   /**
+    * Returns the circuit breaker guarding the endpoint of the given URI or null if circuit breaking
+    * is not enabled for this dispatch.
+    */
+   protected CircuitBreaker getCircuitBreaker(URI uri) {
+      if (circuitBreakerRegistry == null) {
+         return null;
+      }
+      return circuitBreakerRegistry.getBreaker(uri, circuitBreakerConfig);
+   }
+
+   /**
+    * Determines if a backend response counts as a failure for circuit breaking purposes.
+    * A missing response means the request could not be completed at all.
+    */
+   protected boolean isBackendFailure(HttpResponse inboundResponse) {
+      if (inboundResponse == null) {
+         return true;
+      }
+      int statusCode = inboundResponse.getStatusLine().getStatusCode();
+      return statusCode == HttpStatus.SC_BAD_GATEWAY
+            || statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE
+            || statusCode == HttpStatus.SC_GATEWAY_TIMEOUT;
+   }
+
    protected void writeOutboundResponse(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse, HttpResponse inboundResponse) throws IOException {
       // Copy the client respond header to the server respond.
       outboundResponse.setStatus(inboundResponse.getStatusLine().getStatusCode());
@@ -260,7 +404,11 @@ public class HttpClientDispatch extends AbstractGatewayDispatch {
       // https://issues.apache.org/jira/browse/KNOX-107 - Service URLs not rewritten for WebHDFS GET redirects
       method.getParams().setBooleanParameter("http.protocol.handle-redirects", false);
       copyRequestHeaderFields(method, request);
-      executeRequest(method, request, response);
+      if (isCoalescable(url, request)) {
+         executeCoalescedRequest(method, request, response);
+      } else {
+         executeRequest(method, request, response);
+      }
    }
 
    @Override
@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the backend requests in flight by key so that identical concurrent requests share a single response.
+ * The first request to {@link #join(String)} a key becomes the leader, it must dispatch to the backend and then
+ * call either {@link #complete(String, CoalescedResponse)} or {@link #fail(String, IOException)}.
+ * Requests joining while the leader is in progress {@link Flight#await(long)} its outcome instead.
+ * The key must capture everything that can make two responses differ, in particular the effective user.
+ */
+public class RequestCoalescer {
+
+  private final ConcurrentMap<String,Flight> flights = new ConcurrentHashMap<String,Flight>();
+
+  private final AtomicLong leaderCount = new AtomicLong();
+  private final AtomicLong followerCount = new AtomicLong();
+
+  /**
+   * @param key The key of the request
+   * @return Null if the caller is the leader, otherwise the flight to wait for
+   */
+  public Flight join( String key ) {
+    Flight flight = flights.get( key );
+    if( flight == null ) {
+      flight = flights.putIfAbsent( key, new Flight() );
+      if( flight == null ) {
+        leaderCount.incrementAndGet();
+        return null;
+      }
+    }
+    followerCount.incrementAndGet();
+    return flight;
+  }
+
+  /**
+   * Publishes the leader's response to the waiting requests.
+   *
+   * @param key The key passed to {@link #join(String)}
+   * @param response The shared response or null if the response could not be shared
+   */
+  public void complete( String key, CoalescedResponse response ) {
+    // Late arrivals must start a new flight rather than see a response that is already complete.
+    Flight flight = flights.remove( key );
+    if( flight != null ) {
+      flight.response = response;
+      flight.done.countDown();
+    }
+  }
+
+  /**
+   * Publishes the failure of the leader's backend request to the waiting requests.
+   */
+  public void fail( String key, IOException failure ) {
+    Flight flight = flights.remove( key );
+    if( flight != null ) {
+      flight.failure = failure;
+      flight.done.countDown();
+    }
+  }
+
+  /**
+   * @return The number of requests that were dispatched to the backend.
+   */
+  public long getLeaderCount() {
+    return leaderCount.get();
+  }
+
+  /**
+   * @return The number of requests that waited for the response of another request.
+   */
+  public long getFollowerCount() {
+    return followerCount.get();
+  }
+
+  int getFlightCount() {
+    return flights.size();
+  }
+
+  public static class Flight {
+
+    private final CountDownLatch done = new CountDownLatch( 1 );
+    private volatile CoalescedResponse response;
+    private volatile IOException failure;
+
+    /**
+     * Waits for the leader of the flight.
+     *
+     * @param timeout The maximum time to wait in milliseconds
+     * @return The shared response or null if the caller must dispatch the request itself
+     * @throws IOException The failure of the leader's backend request
+     */
+    public CoalescedResponse await( long timeout ) throws IOException {
+      try {
+        if( !done.await( timeout, TimeUnit.MILLISECONDS ) ) {
+          return null;
+        }
+      } catch( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+      if( failure != null ) {
+        throw failure;
+      }
+      return response;
+    }
+
+  }
+
+}
@@ -31,14 +31,16 @@ import org.apache.hadoop.gateway.i18n.resources.ResourcesFactory;
 import org.apache.hadoop.gateway.security.GroupPrincipal;
 import org.apache.hadoop.gateway.security.ImpersonatedPrincipal;
 import org.apache.hadoop.gateway.security.PrimaryPrincipal;
+import org.apache.hadoop.gateway.security.SecurityContext;
+import org.apache.hadoop.gateway.security.SubjectUtils;
 import org.apache.hadoop.gateway.security.principal.PrincipalMapper;
 import org.apache.hadoop.gateway.security.principal.PrincipalMappingException;
 import org.apache.hadoop.gateway.security.principal.SimplePrincipalMapper;
 
 import javax.security.auth.Subject;
 
+import java.io.File;
 import java.io.IOException;
-import java.security.AccessController;
 import java.security.Principal;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
@@ -64,13 +66,18 @@ public abstract class AbstractIdentityAssertionFilter extends AbstractIdentityAs
       AuditConstants.KNOX_COMPONENT_NAME );
   protected PrincipalMapper mapper = new SimplePrincipalMapper();
 
+  public static final String PRINCIPAL_MAPPING_PARAM = "principal.mapping";
+  public static final String GROUP_PRINCIPAL_MAPPING_PARAM = "group.principal.mapping";
+  public static final String PRINCIPAL_MAPPING_FILE_PARAM = "principal.mapping.file";
+  public static final String PRINCIPAL_MAPPING_FILE_CHECK_INTERVAL_PARAM = "principal.mapping.file.check.interval";
+
   public AbstractIdentityAssertionFilter() {
     super();
   }
 
   protected void loadPrincipalMappings(FilterConfig filterConfig) {
-    String principalMapping = filterConfig.getServletContext().getInitParameter("principal.mapping");
-    String groupMapping = filterConfig.getServletContext().getInitParameter("group.principal.mapping");
+    String principalMapping = filterConfig.getServletContext().getInitParameter(PRINCIPAL_MAPPING_PARAM);
+    String groupMapping = filterConfig.getServletContext().getInitParameter(GROUP_PRINCIPAL_MAPPING_PARAM);
     if (principalMapping != null && !principalMapping.isEmpty() || groupMapping != null && !groupMapping.isEmpty()) {
       try {
         mapper.loadMappingTable(principalMapping, groupMapping);
@@ -79,6 +86,17 @@ public abstract class AbstractIdentityAssertionFilter extends AbstractIdentityAs
         LOG.failedToLoadPrincipalMappingTable( pme );
       }
     }
+    String mappingFile = filterConfig.getServletContext().getInitParameter(PRINCIPAL_MAPPING_FILE_PARAM);
+    if (mappingFile != null && !mappingFile.isEmpty() && mapper instanceof SimplePrincipalMapper) {
+      String interval = filterConfig.getServletContext().getInitParameter(PRINCIPAL_MAPPING_FILE_CHECK_INTERVAL_PARAM);
+      try {
+        ((SimplePrincipalMapper)mapper).loadMappingFile(new File(mappingFile),
+            interval == null ? SimplePrincipalMapper.DEFAULT_CHECK_INTERVAL : Long.parseLong(interval.trim()));
+      }
+      catch (PrincipalMappingException pme) {
+        LOG.failedToLoadPrincipalMappingTable( pme );
+      }
+    }
   }
 
   @Override
@@ -95,12 +113,20 @@ public abstract class AbstractIdentityAssertionFilter extends AbstractIdentityAs
    * Recreate the current Subject based upon the provided mappedPrincipal
    * and look for the groups that should be associated with the new Subject.
    * Upon finding groups mapped to the principal - add them to the new Subject.
+   * When the request has an established security context it is updated in place
+   * instead and no new Subject is created.
    * @param mappedPrincipalName
    * @throws ServletException 
    * @throws IOException 
    */
   protected void continueChainAsPrincipal(final ServletRequest request, final ServletResponse response, 
       final FilterChain chain, String mappedPrincipalName) throws IOException, ServletException {
+    SecurityContext context = SecurityContext.get(request);
+    if (context != null && context.isEstablished()) {
+      continueChainInContext(request, response, chain, context, mappedPrincipalName);
+      return;
+    }
+
     Subject subject = null;
     Principal impersonationPrincipal = null;
     Principal primaryPrincipal = null;
@@ -111,7 +137,7 @@ public abstract class AbstractIdentityAssertionFilter extends AbstractIdentityAs
     boolean groupsMapped = false;
     
     // look up the current Java Subject and assosciated group principals
-    Subject currentSubject = Subject.getSubject(AccessController.getContext());
+    Subject currentSubject = SubjectUtils.getCurrentSubject();
     Set<?> currentGroups = currentSubject.getPrincipals(GroupPrincipal.class);
     
     primaryPrincipal = (PrimaryPrincipal) currentSubject.getPrincipals(PrimaryPrincipal.class).toArray()[0];
@@ -130,7 +156,8 @@ public abstract class AbstractIdentityAssertionFilter extends AbstractIdentityAs
       primaryPrincipal = new PrimaryPrincipal(((HttpServletRequest) request).getUserPrincipal().getName());
     }
     
-    groupsMapped = areGroupsMappedForPrincipal(mappedPrincipalName) || !currentGroups.isEmpty();
+    String[] mappedGroups = mapGroups(mappedPrincipalName);
+    groupsMapped = mappedGroups != null || !currentGroups.isEmpty();
     
     if (impersonationNeeded || groupsMapped) {
       // gonna need a new subject and doAs
@@ -147,9 +174,10 @@ public abstract class AbstractIdentityAssertionFilter extends AbstractIdentityAs
         impersonationPrincipal = new ImpersonatedPrincipal(mappedPrincipalName);
         subject.getPrincipals().add(impersonationPrincipal);
       }
-      if (groupsMapped) {
-        addMappedGroupsToSubject(mappedPrincipalName, subject);
-        addMappedGroupsToSubject("*", subject);
+      if (mappedGroups != null) {
+        for (int i = 0; i < mappedGroups.length; i++) {
+          principals.add(new GroupPrincipal(mappedGroups[i]));
+        }
       }
       doAs(request, response, chain, subject);
     }
@@ -158,6 +186,23 @@ public abstract class AbstractIdentityAssertionFilter extends AbstractIdentityAs
     }
   }
 
+  private void continueChainInContext(ServletRequest request, ServletResponse response,
+      FilterChain chain, SecurityContext context, String mappedPrincipalName) throws IOException, ServletException {
+    Principal primaryPrincipal = context.getPrimaryPrincipal();
+    if (!primaryPrincipal.getName().equals(mappedPrincipalName)) {
+      auditService.getContext().setProxyUsername( mappedPrincipalName );
+      auditor.audit( Action.IDENTITY_MAPPING, primaryPrincipal.getName(), ResourceType.PRINCIPAL, ActionOutcome.SUCCESS );
+      context.setImpersonatedPrincipal(new ImpersonatedPrincipal(mappedPrincipalName));
+    }
+    String[] mappedGroups = mapGroups(mappedPrincipalName);
+    if (mappedGroups != null) {
+      for (int i = 0; i < mappedGroups.length; i++) {
+        context.addGroup(new GroupPrincipal(mappedGroups[i]));
+      }
+    }
+    doFilterInternal(request, response, chain);
+  }
+
   private void doAs(final ServletRequest request,
       final ServletResponse response, final FilterChain chain, Subject subject)
       throws IOException, ServletException {
@@ -186,25 +231,18 @@ public abstract class AbstractIdentityAssertionFilter extends AbstractIdentityAs
     }
   }
 
-  private void addMappedGroupsToSubject(String mappedPrincipalName, Subject subject) {
-    String[] groups = mapper.mapGroupPrincipal(mappedPrincipalName);
+  /**
+   * Looks up the groups mapped to the principal together with those mapped to all principals
+   * and audits them as a single identity mapping event.
+   */
+  private String[] mapGroups(String mappedPrincipalName) {
+    String[] groups = mapper.mapAllGroupPrincipals(mappedPrincipalName);
     if (groups != null) {
       auditor.audit( Action.IDENTITY_MAPPING, mappedPrincipalName, ResourceType.PRINCIPAL, ActionOutcome.SUCCESS, RES.groupsList( Arrays.toString( groups ) ) );
-      for (int i = 0; i < groups.length; i++) {
-        subject.getPrincipals().add(new GroupPrincipal(groups[i]));
-      }
     }
+    return groups;
   }
   
-  private boolean areGroupsMappedForPrincipal(String principalName) {
-    boolean mapped = false;
-    mapped = (mapper.mapGroupPrincipal(principalName) != null ? true : false);
-    if (!mapped) {
-      mapped = (mapper.mapGroupPrincipal("*") != null ? true : false);
-    }
-    return mapped;
-  }
-
   private void doFilterInternal(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
     chain.doFilter(request, response);
   }
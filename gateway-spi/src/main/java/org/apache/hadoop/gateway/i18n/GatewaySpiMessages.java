@@ -28,6 +28,15 @@ public interface GatewaySpiMessages {
   @Message( level = MessageLevel.ERROR, text = "Failed to load the internal principal mapping table: {0}" )
   void failedToLoadPrincipalMappingTable( @StackTrace( level = MessageLevel.DEBUG ) Exception e );
 
+  @Message( level = MessageLevel.INFO, text = "Reloaded the principal mapping file: {0}" )
+  void reloadedPrincipalMappingFile( String fileName );
+
+  @Message( level = MessageLevel.ERROR, text = "Failed to reload the principal mapping file {0}, keeping the previous mappings: {1}" )
+  void failedToReloadPrincipalMappingFile( String fileName, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+  @Message( level = MessageLevel.ERROR, text = "Failed to shut down the gateway: {0}" )
+  void failedToShutdownGateway( @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
   @Message( level = MessageLevel.ERROR, text = "Failed to execute filter: {0}" )
   void failedToExecuteFilter( @StackTrace( level = MessageLevel.DEBUG ) Throwable t );
   
@@ -0,0 +1,236 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.security;
+
+import javax.security.auth.Subject;
+import javax.servlet.ServletRequest;
+import java.security.AccessController;
+import java.security.Principal;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The security state of a single request.
+ * It carries the primary principal established by authentication or federation, the impersonated principal
+ * asserted by identity assertion and the group principals of the user.
+ * The gateway opens one context per request and providers read and update it in place instead of nesting
+ * further Subject.doAs calls, a JAAS Subject is only materialized for code that asks for one.
+ * The context is available as a request attribute and, for code without access to the request, through a
+ * thread local that is bound between {@link #open(ServletRequest)} and {@link #close(ServletRequest)}.
+ * A context is confined to the thread processing its request and is not thread safe.
+ */
+public class SecurityContext {
+
+  public static final String REQUEST_ATTRIBUTE_NAME = SecurityContext.class.getName();
+
+  private static final ThreadLocal<SecurityContext> BOUND = new ThreadLocal<SecurityContext>();
+
+  private final SecurityContext previous;
+  private Subject established;
+  private Principal primaryPrincipal;
+  private ImpersonatedPrincipal impersonatedPrincipal;
+  private final Set<GroupPrincipal> groupPrincipals = new LinkedHashSet<GroupPrincipal>();
+  private final Set<String> groupNames = new HashSet<String>();
+  private Subject subject;
+
+  private SecurityContext( SecurityContext previous ) {
+    this.previous = previous;
+  }
+
+  /**
+   * Opens a new, not yet established, context for the request and binds it to the current thread.
+   * Every call must be paired with a call to {@link #close(ServletRequest)} in a finally block.
+   */
+  public static SecurityContext open( ServletRequest request ) {
+    SecurityContext context = new SecurityContext( BOUND.get() );
+    request.setAttribute( REQUEST_ATTRIBUTE_NAME, context );
+    BOUND.set( context );
+    return context;
+  }
+
+  /**
+   * Removes the context of the request and restores whatever context was bound to the thread before it.
+   */
+  public static void close( ServletRequest request ) {
+    SecurityContext context = get( request );
+    request.removeAttribute( REQUEST_ATTRIBUTE_NAME );
+    if( context != null && context.previous != null ) {
+      BOUND.set( context.previous );
+    } else {
+      BOUND.remove();
+    }
+  }
+
+  /**
+   * @return The context opened for the request or null if the request is not processed within one
+   */
+  public static SecurityContext get( ServletRequest request ) {
+    Object context = request.getAttribute( REQUEST_ATTRIBUTE_NAME );
+    return context instanceof SecurityContext ? (SecurityContext)context : null;
+  }
+
+  /**
+   * Returns the security state of the request processed by the current thread.
+   * When no established context is bound, for example when a provider still runs the chain within its
+   * own Subject.doAs, a detached context is derived from the Subject of the access control context.
+   *
+   * @return The current security context or null if the caller is not authenticated
+   */
+  public static SecurityContext current() {
+    SecurityContext context = bound();
+    if( context != null ) {
+      return context;
+    }
+    Subject subject = Subject.getSubject( AccessController.getContext() );
+    if( subject == null ) {
+      return null;
+    }
+    context = new SecurityContext( null );
+    context.establish( subject );
+    return context;
+  }
+
+  /**
+   * Continues processing as the subject established by an authentication or federation provider.
+   * Within a request context the subject is recorded in the context and the action runs directly,
+   * otherwise the action runs within Subject.doAs.
+   * Exceptions are reported the same way Subject.doAs reports them.
+   */
+  public static <T> T doAs( ServletRequest request, Subject subject, PrivilegedExceptionAction<T> action )
+      throws PrivilegedActionException {
+    SecurityContext context = get( request );
+    if( context == null ) {
+      return Subject.doAs( subject, action );
+    }
+    context.establish( subject );
+    try {
+      return action.run();
+    } catch( RuntimeException e ) {
+      throw e;
+    } catch( Exception e ) {
+      throw new PrivilegedActionException( e );
+    }
+  }
+
+  static SecurityContext bound() {
+    SecurityContext context = BOUND.get();
+    return context != null && context.isEstablished() ? context : null;
+  }
+
+  /**
+   * Replaces the principals of the context with those of the subject.
+   * The primary principal is the {@link PrimaryPrincipal} of the subject or, as in {@link SubjectUtils},
+   * the first principal found if there is none.
+   */
+  public void establish( Subject subject ) {
+    this.established = subject;
+    primaryPrincipal = null;
+    impersonatedPrincipal = null;
+    groupPrincipals.clear();
+    groupNames.clear();
+    for( Principal principal : subject.getPrincipals() ) {
+      if( principal instanceof PrimaryPrincipal ) {
+        primaryPrincipal = principal;
+      } else if( principal instanceof ImpersonatedPrincipal ) {
+        impersonatedPrincipal = (ImpersonatedPrincipal)principal;
+      } else if( principal instanceof GroupPrincipal ) {
+        addGroup( (GroupPrincipal)principal );
+      }
+    }
+    if( primaryPrincipal == null ) {
+      Set<Principal> principals = subject.getPrincipals();
+      if( !principals.isEmpty() ) {
+        primaryPrincipal = principals.iterator().next();
+      }
+    }
+    // Grouping the principals above does not change the subject, so it can be handed out as is.
+    this.subject = subject;
+  }
+
+  public boolean isEstablished() {
+    return established != null;
+  }
+
+  public Principal getPrimaryPrincipal() {
+    return primaryPrincipal;
+  }
+
+  public ImpersonatedPrincipal getImpersonatedPrincipal() {
+    return impersonatedPrincipal;
+  }
+
+  public void setImpersonatedPrincipal( ImpersonatedPrincipal impersonatedPrincipal ) {
+    this.impersonatedPrincipal = impersonatedPrincipal;
+    subject = null;
+  }
+
+  /**
+   * @return The impersonated principal if there is one, the primary principal otherwise
+   */
+  public Principal getEffectivePrincipal() {
+    return impersonatedPrincipal != null ? impersonatedPrincipal : primaryPrincipal;
+  }
+
+  public Set<GroupPrincipal> getGroupPrincipals() {
+    return Collections.unmodifiableSet( groupPrincipals );
+  }
+
+  public Set<String> getGroupNames() {
+    return Collections.unmodifiableSet( groupNames );
+  }
+
+  /**
+   * Adds a group unless a group with the same name is already present.
+   */
+  public void addGroup( GroupPrincipal group ) {
+    if( groupNames.add( group.getName() ) ) {
+      groupPrincipals.add( group );
+      subject = null;
+    }
+  }
+
+  /**
+   * Returns a Subject holding the principals of the context.
+   * The subject established by the provider is returned as long as the context has not been changed since,
+   * otherwise a read only Subject is built once with its credentials and the current principals.
+   *
+   * @return The subject or null if the context has not been established
+   */
+  public Subject getSubject() {
+    if( subject == null && established != null ) {
+      Set<Principal> principals = new LinkedHashSet<Principal>();
+      for( Principal principal : established.getPrincipals() ) {
+        if( !( principal instanceof ImpersonatedPrincipal ) && !( principal instanceof GroupPrincipal ) ) {
+          principals.add( principal );
+        }
+      }
+      if( impersonatedPrincipal != null ) {
+        principals.add( impersonatedPrincipal );
+      }
+      principals.addAll( groupPrincipals );
+      subject = new Subject( true, principals,
+          established.getPublicCredentials(), established.getPrivateCredentials() );
+    }
+    return subject;
+  }
+
+}
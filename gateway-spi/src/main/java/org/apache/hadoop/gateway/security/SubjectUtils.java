@@ -27,7 +27,15 @@ import java.util.Set;
  */
 public class SubjectUtils {
   
+  /**
+   * @return The subject of the request security context bound to the current thread if there is one,
+   * the subject of the access control context otherwise
+   */
   public static Subject getCurrentSubject() {
+    SecurityContext context = SecurityContext.bound();
+    if( context != null ) {
+      return context.getSubject();
+    }
     return Subject.getSubject( AccessController.getContext() );
   }
 
@@ -0,0 +1,185 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.security.principal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * An immutable set of name to values rules.
+ * Names are matched exactly first, then against the prefix and regular expression rules in the
+ * order they were declared.
+ * A name is a prefix rule when it ends with '*' and is otherwise literal, for example <code>svc_*</code>,
+ * and a regular expression that must match the whole name when it contains any other regular expression
+ * metacharacter, for example <code>svc_.*</code>.
+ * The lone name <code>*</code> stays a literal key as it denotes the mappings for all principals.
+ * Results of the ordered rules are remembered in a bounded memo.
+ */
+class MappingRules {
+
+  private static final String PATTERN_CHARS = "*+?[](){}|^$\\";
+  private static final String[] NO_MATCH = new String[0];
+
+  private final Map<String, String[]> exact;
+  private final Rule[] rules;
+  private final Map<String, String[]> memo;
+
+  private MappingRules(Map<String, String[]> exact, Rule[] rules, final int memoSize) {
+    this.exact = exact;
+    this.rules = rules;
+    if (rules.length > 0 && memoSize > 0) {
+      memo = new LinkedHashMap<String, String[]>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String[]> eldest) {
+          return size() > memoSize;
+        }
+      };
+    } else {
+      memo = null;
+    }
+  }
+
+  /**
+   * @param entries The rules in declaration order
+   * @param memoSize The maximum number of ordered rule results to remember
+   */
+  static MappingRules compile(Map<String, String[]> entries, int memoSize) {
+    Map<String, String[]> exact = new HashMap<String, String[]>();
+    List<Rule> rules = new ArrayList<Rule>();
+    for (Map.Entry<String, String[]> entry : entries.entrySet()) {
+      String name = entry.getKey();
+      if (!isPattern(name)) {
+        exact.put(name, entry.getValue());
+      } else if (isPrefix(name)) {
+        rules.add(new Rule(name.substring(0, name.length() - 1), null, entry.getValue()));
+      } else {
+        rules.add(new Rule(null, Pattern.compile(name), entry.getValue()));
+      }
+    }
+    return new MappingRules(exact, rules.toArray(new Rule[rules.size()]), memoSize);
+  }
+
+  /**
+   * @return The values of the first rule matching the name or null if none does.
+   * The returned array is shared and must not be modified.
+   */
+  String[] lookup(String name) {
+    if (name == null) {
+      return null;
+    }
+    String[] values = exact.get(name);
+    if (values != null || rules.length == 0) {
+      return values;
+    }
+    if (memo != null) {
+      synchronized (memo) {
+        values = memo.get(name);
+      }
+      if (values != null) {
+        return values == NO_MATCH ? null : values;
+      }
+    }
+    values = NO_MATCH;
+    for (Rule rule : rules) {
+      if (rule.matches(name)) {
+        values = rule.values;
+        break;
+      }
+    }
+    if (memo != null) {
+      synchronized (memo) {
+        memo.put(name, values);
+      }
+    }
+    return values == NO_MATCH ? null : values;
+  }
+
+  /**
+   * @return A copy of these rules with the additional values appended to the values of every rule,
+   * duplicates removed
+   */
+  MappingRules withAdditionalValues(String[] additional, int memoSize) {
+    Map<String, String[]> merged = new HashMap<String, String[]>();
+    for (Map.Entry<String, String[]> entry : exact.entrySet()) {
+      merged.put(entry.getKey(), merge(entry.getValue(), additional));
+    }
+    Rule[] mergedRules = new Rule[rules.length];
+    for (int i = 0; i < rules.length; i++) {
+      Rule rule = rules[i];
+      mergedRules[i] = new Rule(rule.prefix, rule.pattern, merge(rule.values, additional));
+    }
+    return new MappingRules(merged, mergedRules, memoSize);
+  }
+
+  private static String[] merge(String[] values, String[] additional) {
+    if (additional == null) {
+      return values;
+    }
+    Set<String> merged = new LinkedHashSet<String>();
+    for (String value : values) {
+      merged.add(value);
+    }
+    for (String value : additional) {
+      merged.add(value);
+    }
+    return merged.toArray(new String[merged.size()]);
+  }
+
+  private static boolean isPattern(String name) {
+    return !"*".equals(name) && containsPatternChars(name);
+  }
+
+  private static boolean isPrefix(String name) {
+    int last = name.length() - 1;
+    return last > 0 && name.charAt(last) == '*' && name.charAt(last - 1) != '.'
+        && !containsPatternChars(name.substring(0, last));
+  }
+
+  private static boolean containsPatternChars(String name) {
+    for (int i = 0; i < name.length(); i++) {
+      if (PATTERN_CHARS.indexOf(name.charAt(i)) >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static class Rule {
+    private final String prefix;
+    private final Pattern pattern;
+    private final String[] values;
+
+    Rule(String prefix, Pattern pattern, String[] values) {
+      this.prefix = prefix;
+      this.pattern = pattern;
+      this.values = values;
+    }
+
+    boolean matches(String name) {
+      return prefix != null ? name.startsWith(prefix) : pattern.matcher(name).matches();
+    }
+  }
+
+}
@@ -44,4 +44,13 @@ public interface PrincipalMapper {
    * @return group principal names to be used in the assertion
    */
   public abstract String[] mapGroupPrincipal(String principalName);
+
+  /**
+   * Acquire array of group principal names mapped to the principal
+   * followed by those mapped to all principals with "*", without
+   * duplicates. Otherwise, return null.
+   * @param principalName
+   * @return group principal names to be used in the assertion
+   */
+  public abstract String[] mapAllGroupPrincipals(String principalName);
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.security.principal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+/**
+ * The principal and group mappings compiled into immutable {@link MappingRules}.
+ * The groups mapped for all principals, the <code>*</code> entry, are merged into every group rule
+ * at compile time so that the complete groups of a principal take a single lookup.
+ */
+class PrincipalMappingTable {
+
+  static final String ALL_PRINCIPALS = "*";
+  static final int MEMO_SIZE = 4096;
+
+  static final PrincipalMappingTable EMPTY = new PrincipalMappingTable(
+      new LinkedHashMap<String, String[]>(), new LinkedHashMap<String, String[]>());
+
+  private final MappingRules users;
+  private final MappingRules groups;
+  private final MappingRules allGroups;
+  private final String[] wildcardGroups;
+
+  private PrincipalMappingTable(Map<String, String[]> userEntries, Map<String, String[]> groupEntries) {
+    users = MappingRules.compile(userEntries, MEMO_SIZE);
+    groups = MappingRules.compile(groupEntries, MEMO_SIZE);
+    wildcardGroups = groupEntries.get(ALL_PRINCIPALS);
+    allGroups = groups.withAdditionalValues(wildcardGroups, MEMO_SIZE);
+  }
+
+  /**
+   * Compiles mappings in the semicolon delimited format actual[,another-actual]=mapped;...
+   * Each part may be null or empty.
+   */
+  static PrincipalMappingTable compile(String principalMapping, String groupMapping)
+      throws PrincipalMappingException {
+    Map<String, String[]> userEntries = new LinkedHashMap<String, String[]>();
+    Map<String, String[]> groupEntries = new LinkedHashMap<String, String[]>();
+    parseMapping(principalMapping, userEntries);
+    parseMapping(groupMapping, groupEntries);
+    try {
+      return new PrincipalMappingTable(userEntries, groupEntries);
+    }
+    catch (IllegalArgumentException e) {
+      throw new PrincipalMappingException("Invalid principal mapping pattern: " + e.getMessage(), e);
+    }
+  }
+
+  private static void parseMapping(String mappings, Map<String, String[]> table)
+      throws PrincipalMappingException {
+    if (mappings == null) {
+      return;
+    }
+    try {
+      StringTokenizer t = new StringTokenizer(mappings, ";");
+      while (t.hasMoreTokens()) {
+        String mapping = t.nextToken().trim();
+        if (mapping.length() == 0) {
+          continue;
+        }
+        String principals = mapping.substring(0, mapping.indexOf('='));
+        String value = mapping.substring(mapping.indexOf('=')+1);
+        String[] v = value.split(",");
+        String[] p = principals.split(",");
+        for (int i = 0; i < p.length; i++) {
+          table.put(p[i], v);
+        }
+      }
+    }
+    catch (Exception e) {
+      throw new PrincipalMappingException("Unable to load mappings from provided string: " + mappings + " - no principal mapping will be provided.", e);
+    }
+  }
+
+  String mapUserPrincipal(String principalName) {
+    String[] p = users.lookup(principalName);
+    return p == null ? principalName : p[0];
+  }
+
+  String[] mapGroupPrincipal(String principalName) {
+    return groups.lookup(principalName);
+  }
+
+  String[] mapAllGroupPrincipals(String principalName) {
+    String[] mapped = allGroups.lookup(principalName);
+    return mapped == null ? wildcardGroups : mapped;
+  }
+
+}
@@ -17,12 +17,40 @@
  */
 package org.apache.hadoop.gateway.security.principal;
 
-import java.util.HashMap;
-import java.util.StringTokenizer;
+import org.apache.hadoop.gateway.i18n.GatewaySpiMessages;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Maps principals through a {@link PrincipalMappingTable} compiled from the inline mappings and,
+ * optionally, a mapping file.
+ * The mapping file is a properties file with the same principal.mapping and group.principal.mapping
+ * entries as the provider params.
+ * Its rules follow the inline ones so an exact entry in the file replaces the inline one.
+ * The file is checked for changes at most once per check interval while mapping and a changed file
+ * is compiled into a new table that replaces the current one atomically.
+ * If the changed file cannot be loaded the current table stays in use.
+ */
 public class SimplePrincipalMapper implements PrincipalMapper {
-  public HashMap<String, String[]> principalMappings = null;
-  public HashMap<String, String[]> groupMappings = null;
+  private static final GatewaySpiMessages LOG = MessagesFactory.get( GatewaySpiMessages.class );
+
+  public static final String PRINCIPAL_MAPPING = "principal.mapping";
+  public static final String GROUP_PRINCIPAL_MAPPING = "group.principal.mapping";
+  public static final long DEFAULT_CHECK_INTERVAL = 5000L;
+
+  private volatile PrincipalMappingTable table = PrincipalMappingTable.EMPTY;
+  private String principalMapping = null;
+  private String groupMapping = null;
+  private File mappingFile = null;
+  private long checkInterval = DEFAULT_CHECK_INTERVAL;
+  private volatile long nextCheck = Long.MAX_VALUE;
+  private long fileModified = 0;
+  private long fileLength = -1;
 
   public SimplePrincipalMapper() {
   }
@@ -31,61 +59,102 @@ public class SimplePrincipalMapper implements PrincipalMapper {
    * @see org.apache.hadoop.gateway.filter.PrincipalMapper#loadMappingTable(java.lang.String)
    */
   @Override
-  public void loadMappingTable(String principalMapping, String groupMapping) throws PrincipalMappingException {
-//    System.out.println("+++++++++++++ Loading the Mapping Table");
-    if (principalMapping != null) {
-      principalMappings = parseMapping(principalMapping);
-      groupMappings = parseMapping(groupMapping);
+  public synchronized void loadMappingTable(String principalMapping, String groupMapping) throws PrincipalMappingException {
+    this.principalMapping = principalMapping;
+    this.groupMapping = groupMapping;
+    try {
+      table = compile();
+    }
+    catch (PrincipalMappingException e) {
+      // do not leave table in an unknown state - clear it instead
+      // no principal mapping will occur
+      table = PrincipalMappingTable.EMPTY;
+      throw e;
     }
   }
 
-  private HashMap<String, String[]> parseMapping(String mappings)
-      throws PrincipalMappingException {
-    if (mappings == null) {
-      return null;
+  /**
+   * Adds the mappings of the file to the inline mappings and watches the file for changes.
+   * @param file The mapping properties file
+   * @param checkInterval The minimum time in milliseconds between checks of the file for changes
+   */
+  public synchronized void loadMappingFile(File file, long checkInterval) throws PrincipalMappingException {
+    this.mappingFile = file;
+    this.checkInterval = checkInterval;
+    fileModified = file.lastModified();
+    fileLength = file.length();
+    try {
+      table = compile();
     }
-    HashMap<String, String[]> table = new HashMap<String, String[]>();
+    finally {
+      nextCheck = System.currentTimeMillis() + checkInterval;
+    }
+  }
+
+  private PrincipalMappingTable compile() throws PrincipalMappingException {
+    if (mappingFile == null) {
+      return PrincipalMappingTable.compile(principalMapping, groupMapping);
+    }
+    Properties properties = new Properties();
     try {
-      StringTokenizer t = new StringTokenizer(mappings, ";");
-      if (t.hasMoreTokens()) {
-        do {
-          String mapping = t.nextToken();
-   //        System.out.println("+++++++++++++ Mapping: " + mapping);
-          String principals = mapping.substring(0, mapping.indexOf('='));
-   //        System.out.println("+++++++++++++ Principals: " + principals);
-          String value = mapping.substring(mapping.indexOf('=')+1);
-          String[] v = value.split(",");
-          String[] p = principals.split(",");
-          for(int i = 0; i < p.length; i++) {
-            table.put(p[i], v);
-   //          System.out.println("+++++++++++++ Mapping into Table: " + p[i] + "->" + value);
-          }
-        } while(t.hasMoreTokens());
+      InputStream input = new FileInputStream(mappingFile);
+      try {
+        properties.load(input);
+      }
+      finally {
+        input.close();
       }
-      return table;
     }
-    catch (Exception e) {
-      // do not leave table in an unknown state - clear it instead
-      // no principal mapping will occur
-      table.clear();
-      throw new PrincipalMappingException("Unable to load mappings from provided string: " + mappings + " - no principal mapping will be provided.", e);
+    catch (IOException e) {
+      throw new PrincipalMappingException("Unable to load mappings from file: " + mappingFile, e);
     }
+    return PrincipalMappingTable.compile(
+        join(principalMapping, properties.getProperty(PRINCIPAL_MAPPING)),
+        join(groupMapping, properties.getProperty(GROUP_PRINCIPAL_MAPPING)));
   }
-  
+
+  private static String join(String inline, String file) {
+    if (inline == null) {
+      return file;
+    }
+    return file == null ? inline : inline + ";" + file;
+  }
+
+  private PrincipalMappingTable current() {
+    if (System.currentTimeMillis() >= nextCheck) {
+      reloadIfModified();
+    }
+    return table;
+  }
+
+  private synchronized void reloadIfModified() {
+    long now = System.currentTimeMillis();
+    if (now < nextCheck) {
+      return;
+    }
+    nextCheck = now + checkInterval;
+    long modified = mappingFile.lastModified();
+    long length = mappingFile.length();
+    if (modified == fileModified && length == fileLength) {
+      return;
+    }
+    fileModified = modified;
+    fileLength = length;
+    try {
+      table = compile();
+      LOG.reloadedPrincipalMappingFile(mappingFile.getAbsolutePath());
+    }
+    catch (PrincipalMappingException e) {
+      LOG.failedToReloadPrincipalMappingFile(mappingFile.getAbsolutePath(), e);
+    }
+  }
+
   /* (non-Javadoc)
    * @see org.apache.hadoop.gateway.filter.PrincipalMapper#mapPrincipal(java.lang.String)
    */
   @Override
   public String mapUserPrincipal(String principalName) {
-    String[] p = null;
-    if (principalMappings != null) {
-      p = principalMappings.get(principalName);
-    }
-    if (p == null) {
-      return principalName;
-    }
-    
-    return p[0];
+    return current().mapUserPrincipal(principalName);
   }
 
   /* (non-Javadoc)
@@ -93,12 +162,14 @@ public class SimplePrincipalMapper implements PrincipalMapper {
    */
   @Override
   public String[] mapGroupPrincipal(String principalName) {
-    String[] groups = null;
-    
-    if (groupMappings != null) {
-      groups = groupMappings.get(principalName);
-    }
-    
-    return groups;
+    return current().mapGroupPrincipal(principalName);
+  }
+
+  /* (non-Javadoc)
+   * @see org.apache.hadoop.gateway.filter.PrincipalMapper#mapAllGroupPrincipals(java.lang.String)
+   */
+  @Override
+  public String[] mapAllGroupPrincipals(String principalName) {
+    return current().mapAllGroupPrincipals(principalName);
   }
 }
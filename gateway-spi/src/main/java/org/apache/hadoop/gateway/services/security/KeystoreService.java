@@ -45,4 +45,7 @@ public interface KeystoreService {
   public void removeCredentialForCluster(String clusterName, String alias);
 
   public char[] getCredentialForCluster(String clusterName, String alias) throws KeystoreServiceException;
+
+  // the latest modification time of the gateway keystore and the gateway credential store files
+  public long getLastModifiedForGateway();
 }
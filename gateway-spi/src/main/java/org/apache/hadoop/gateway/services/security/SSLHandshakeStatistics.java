@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gateway wide counts of the TLS handshakes made by clients of the gateway.
+ * A handshake is resumed when the client reuses a session negotiated on an earlier connection,
+ * which avoids the public key operations of a full handshake.
+ * The rates are averaged over the last minute.
+ */
+public abstract class SSLHandshakeStatistics {
+
+  private static final int BUCKET_COUNT = 60;
+  private static final long BUCKET_DURATION = 1000;
+
+  private static final AtomicLong FULL_HANDSHAKES = new AtomicLong();
+  private static final AtomicLong RESUMED_HANDSHAKES = new AtomicLong();
+
+  private static final long[] BUCKET_STARTS = new long[ BUCKET_COUNT ];
+  private static final int[] BUCKET_FULL_HANDSHAKES = new int[ BUCKET_COUNT ];
+  private static final int[] BUCKET_RESUMED_HANDSHAKES = new int[ BUCKET_COUNT ];
+
+  private SSLHandshakeStatistics() {
+  }
+
+  public static void recordHandshake( boolean resumed ) {
+    recordHandshake( System.currentTimeMillis(), resumed );
+  }
+
+  public static long getFullHandshakeCount() {
+    return FULL_HANDSHAKES.get();
+  }
+
+  public static long getResumedHandshakeCount() {
+    return RESUMED_HANDSHAKES.get();
+  }
+
+  /**
+   * @return The fraction of all handshakes that were resumed or 0 if there has been no handshake.
+   */
+  public static double getResumptionRatio() {
+    long resumed = RESUMED_HANDSHAKES.get();
+    long total = resumed + FULL_HANDSHAKES.get();
+    return total == 0 ? 0 : (double)resumed / total;
+  }
+
+  /**
+   * @return The number of full handshakes per second over the last minute.
+   */
+  public static double getFullHandshakeRate() {
+    return getRate( System.currentTimeMillis(), false );
+  }
+
+  /**
+   * @return The number of resumed handshakes per second over the last minute.
+   */
+  public static double getResumedHandshakeRate() {
+    return getRate( System.currentTimeMillis(), true );
+  }
+
+  /**
+   * Forgets all handshakes.  This is used when a gateway is started in the same process as a previous one.
+   */
+  public static synchronized void clear() {
+    FULL_HANDSHAKES.set( 0 );
+    RESUMED_HANDSHAKES.set( 0 );
+    for( int i = 0; i < BUCKET_COUNT; i++ ) {
+      resetBucket( i, 0 );
+    }
+  }
+
+  static synchronized void recordHandshake( long now, boolean resumed ) {
+    int bucket = currentBucket( now );
+    if( resumed ) {
+      RESUMED_HANDSHAKES.incrementAndGet();
+      BUCKET_RESUMED_HANDSHAKES[ bucket ]++;
+    } else {
+      FULL_HANDSHAKES.incrementAndGet();
+      BUCKET_FULL_HANDSHAKES[ bucket ]++;
+    }
+  }
+
+  static synchronized double getRate( long now, boolean resumed ) {
+    long windowStart = now - BUCKET_COUNT * BUCKET_DURATION;
+    long count = 0;
+    for( int i = 0; i < BUCKET_COUNT; i++ ) {
+      if( BUCKET_STARTS[ i ] > windowStart ) {
+        count += resumed ? BUCKET_RESUMED_HANDSHAKES[ i ] : BUCKET_FULL_HANDSHAKES[ i ];
+      }
+    }
+    return count * 1000.0 / ( BUCKET_COUNT * BUCKET_DURATION );
+  }
+
+  private static int currentBucket( long now ) {
+    long start = now - ( now % BUCKET_DURATION );
+    int bucket = (int)( ( now / BUCKET_DURATION ) % BUCKET_COUNT );
+    if( BUCKET_STARTS[ bucket ] != start ) {
+      resetBucket( bucket, start );
+    }
+    return bucket;
+  }
+
+  private static void resetBucket( int bucket, long start ) {
+    BUCKET_STARTS[ bucket ] = start;
+    BUCKET_FULL_HANDSHAKES[ bucket ] = 0;
+    BUCKET_RESUMED_HANDSHAKES[ bucket ] = 0;
+  }
+
+}
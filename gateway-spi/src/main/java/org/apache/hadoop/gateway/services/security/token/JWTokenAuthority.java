@@ -36,4 +36,19 @@ public interface JWTokenAuthority {
 
   JWTToken issueToken(Principal p, String audience, String algorithm,
       long expires);
+
+  /**
+   * Issues a replacement for a token that is still valid and revokes the original.
+   * @param token The token to refresh.
+   * @param expires The expiration time of the new token in milliseconds since the epoch or -1 for the default lifetime.
+   * @return The new token or null if the original is not valid, has expired or was revoked.
+   */
+  JWTToken refreshToken(JWTToken token, long expires);
+
+  /**
+   * Revokes a token so that it no longer verifies.
+   * @param token The token to revoke.
+   * @return True if the token was valid and is now revoked.
+   */
+  boolean revokeToken(JWTToken token);
 }
\ No newline at end of file
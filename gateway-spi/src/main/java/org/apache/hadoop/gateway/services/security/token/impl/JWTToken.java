@@ -117,6 +117,11 @@ public class JWTToken {
     return claim;
   }
 
+  public String getAlgorithm() {
+    String alg = JsonPath.read(header, "$.alg");
+    return alg;
+  }
+
   public String getPrincipal() {
     return getClaim(JWTToken.PRINCIPAL);
   }
@@ -0,0 +1,213 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+import org.apache.hadoop.gateway.services.GatewayServices;
+import org.apache.hadoop.test.mock.MockServletContext;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class CircuitBreakerTest {
+
+  private static CircuitBreakerConfig createConfig() {
+    CircuitBreakerConfig config = new CircuitBreakerConfig();
+    config.setEnabled( true );
+    config.setFailureRateThreshold( 50 );
+    config.setSlowCallRateThreshold( 100 );
+    config.setSlowCallDuration( 1000 );
+    config.setMinimumCalls( 4 );
+    config.setWindowDuration( 10000 );
+    config.setOpenDuration( 5000 );
+    config.setHalfOpenProbes( 2 );
+    return config;
+  }
+
+  @Test
+  public void testOpensWhenFailureRateExceeded() {
+    RecordingListener listener = new RecordingListener();
+    CircuitBreaker breaker = new CircuitBreaker( "http://host:80", createConfig(), listener );
+    long now = 100000;
+
+    breaker.recordResult( now, 10, false );
+    breaker.recordResult( now, 10, true );
+    breaker.recordResult( now, 10, false );
+    assertThat( breaker.getState(), is( CircuitBreaker.State.CLOSED ) );
+    breaker.recordResult( now, 10, true );
+    assertThat( breaker.getState(), is( CircuitBreaker.State.OPEN ) );
+    assertThat( breaker.allowRequest( now + 1000 ), is( false ) );
+    assertThat( breaker.getRejectedCount(), is( 1L ) );
+    assertThat( breaker.getRetryAfterSeconds( now + 1000 ), is( 4L ) );
+    assertThat( listener.transitions.size(), is( 1 ) );
+    assertThat( listener.transitions.get( 0 ), is( "CLOSED->OPEN" ) );
+  }
+
+  @Test
+  public void testMinimumCallsRequiredBeforeOpening() {
+    CircuitBreaker breaker = new CircuitBreaker( "http://host:80", createConfig(), null );
+    long now = 100000;
+    breaker.recordResult( now, 10, true );
+    breaker.recordResult( now, 10, true );
+    breaker.recordResult( now, 10, true );
+    assertThat( breaker.getState(), is( CircuitBreaker.State.CLOSED ) );
+    assertThat( breaker.allowRequest( now ), is( true ) );
+  }
+
+  @Test
+  public void testOpensWhenSlowCallRateExceeded() {
+    CircuitBreaker breaker = new CircuitBreaker( "http://host:80", createConfig(), null );
+    long now = 100000;
+    for( int i = 0; i < 4; i++ ) {
+      breaker.recordResult( now, 2000, false );
+    }
+    assertThat( breaker.getState(), is( CircuitBreaker.State.OPEN ) );
+    assertThat( breaker.getSlowCallCount(), is( 4L ) );
+  }
+
+  @Test
+  public void testOldCallsExpireFromWindow() {
+    CircuitBreaker breaker = new CircuitBreaker( "http://host:80", createConfig(), null );
+    long now = 100000;
+    breaker.recordResult( now, 10, true );
+    breaker.recordResult( now, 10, true );
+    breaker.recordResult( now, 10, true );
+    now += 20000;
+    breaker.recordResult( now, 10, true );
+    assertThat( breaker.getState(), is( CircuitBreaker.State.CLOSED ) );
+  }
+
+  @Test
+  public void testHalfOpenProbesCloseCircuit() {
+    RecordingListener listener = new RecordingListener();
+    CircuitBreaker breaker = new CircuitBreaker( "http://host:80", createConfig(), listener );
+    long now = 100000;
+    for( int i = 0; i < 4; i++ ) {
+      breaker.recordResult( now, 10, true );
+    }
+    now += 5000;
+    assertThat( breaker.allowRequest( now ), is( true ) );
+    assertThat( breaker.getState(), is( CircuitBreaker.State.HALF_OPEN ) );
+    assertThat( breaker.allowRequest( now ), is( true ) );
+    assertThat( breaker.allowRequest( now ), is( false ) );
+    breaker.recordResult( now, 10, false );
+    assertThat( breaker.getState(), is( CircuitBreaker.State.HALF_OPEN ) );
+    breaker.recordResult( now, 10, false );
+    assertThat( breaker.getState(), is( CircuitBreaker.State.CLOSED ) );
+    assertThat( breaker.allowRequest( now ), is( true ) );
+    assertThat( listener.transitions.toString(), is( "[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->CLOSED]" ) );
+  }
+
+  @Test
+  public void testFailedProbeReopensCircuit() {
+    CircuitBreaker breaker = new CircuitBreaker( "http://host:80", createConfig(), null );
+    long now = 100000;
+    for( int i = 0; i < 4; i++ ) {
+      breaker.recordResult( now, 10, true );
+    }
+    now += 5000;
+    assertThat( breaker.allowRequest( now ), is( true ) );
+    breaker.recordResult( now, 10, true );
+    assertThat( breaker.getState(), is( CircuitBreaker.State.OPEN ) );
+    assertThat( breaker.getOpenCount(), is( 2L ) );
+    assertThat( breaker.allowRequest( now + 1 ), is( false ) );
+  }
+
+  private static class RecordingListener implements CircuitBreaker.Listener {
+    List<String> transitions = new ArrayList<String>();
+
+    @Override
+    public void stateChanged( CircuitBreaker breaker, CircuitBreaker.State from, CircuitBreaker.State to ) {
+      transitions.add( from + "->" + to );
+    }
+  }
+
+  @Test
+  public void testRegistryIndexedByTopologyUntilReleased() throws Exception {
+    AttributeServletContext oldContext = new AttributeServletContext( "sandbox" );
+    CircuitBreakerRegistry oldRegistry = CircuitBreakerRegistry.getRegistry( oldContext );
+    oldRegistry.getBreaker( new URI( "http://host/path" ), createConfig() );
+    assertThat( CircuitBreakerRegistry.REGISTRY.get( "sandbox" ), sameInstance( oldRegistry ) );
+    assertThat( oldRegistry.getTopology(), is( "sandbox" ) );
+    assertThat( oldRegistry.getBreakers().get( 0 ).getEndpoint(), is( "http://host:80" ) );
+
+    // A redeployed topology replaces the old registry which must not remove the new one when released.
+    AttributeServletContext newContext = new AttributeServletContext( "sandbox" );
+    CircuitBreakerRegistry newRegistry = CircuitBreakerRegistry.getRegistry( newContext );
+    CircuitBreakerRegistry.releaseRegistry( oldContext );
+    assertThat( CircuitBreakerRegistry.REGISTRY.get( "sandbox" ), sameInstance( newRegistry ) );
+
+    CircuitBreakerRegistry.releaseRegistry( newContext );
+    assertThat( CircuitBreakerRegistry.REGISTRY.get( "sandbox" ), nullValue() );
+  }
+
+  @Test
+  public void testServicesSharingEndpointShareBreaker() throws Exception {
+    CircuitBreakerRegistry registry = new CircuitBreakerRegistry( "sandbox" );
+    CircuitBreakerConfig first = createConfig();
+    CircuitBreaker breaker = registry.getBreaker( new URI( "http://host/webhdfs/v1" ), first );
+    assertThat( registry.getBreaker( new URI( "http://host:80/templeton/v1" ), createConfig() ), sameInstance( breaker ) );
+    assertThat( createConfig(), is( first ) );
+    assertThat( createConfig().hashCode(), is( first.hashCode() ) );
+
+    // A service with different settings still gets the shared breaker, which keeps the first settings.
+    CircuitBreakerConfig second = createConfig();
+    second.setOpenDuration( 60000 );
+    assertThat( second.equals( first ), is( false ) );
+    assertThat( registry.getBreaker( new URI( "http://host/oozie" ), second ), sameInstance( breaker ) );
+    assertThat( registry.getBreaker( new URI( "http://host/oozie" ), second ), sameInstance( breaker ) );
+    assertThat( breaker.getConfig(), sameInstance( first ) );
+
+    assertThat( registry.getBreaker( new URI( "https://host/webhdfs/v1" ), second ).getConfig(), sameInstance( second ) );
+    assertThat( registry.getBreakers().size(), is( 2 ) );
+  }
+
+  private static class AttributeServletContext extends MockServletContext {
+
+    private final Map<String,Object> attributes = new HashMap<String,Object>();
+
+    AttributeServletContext( String topology ) {
+      attributes.put( GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE, topology );
+    }
+
+    @Override
+    public Object getAttribute( String name ) {
+      return attributes.get( name );
+    }
+
+    @Override
+    public void setAttribute( String name, Object value ) {
+      attributes.put( name, value );
+    }
+
+    @Override
+    public void removeAttribute( String name ) {
+      attributes.remove( name );
+    }
+
+  }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RequestCoalescerTest {
+
+  @Test
+  public void testFollowersShareLeaderResponse() throws Exception {
+    final RequestCoalescer coalescer = new RequestCoalescer();
+    assertThat( coalescer.join( "GET http://host/ws/v1/cluster/metrics" ), nullValue() );
+    ExecutorService executor = Executors.newFixedThreadPool( 3 );
+    try {
+      Future<?>[] futures = new Future<?>[ 3 ];
+      for( int i = 0; i < futures.length; i++ ) {
+        final RequestCoalescer.Flight flight = coalescer.join( "GET http://host/ws/v1/cluster/metrics" );
+        assertThat( flight == null, is( false ) );
+        futures[ i ] = executor.submit( new Callable<String>() {
+          @Override
+          public String call() throws Exception {
+            return EntityUtils.toString( flight.await( 10000 ).toHttpResponse().getEntity() );
+          }
+        } );
+      }
+      coalescer.complete( "GET http://host/ws/v1/cluster/metrics", CoalescedResponse.buffer( createResponse( "metrics" ), 1024 ) );
+      for( Future<?> future : futures ) {
+        assertThat( (String)future.get(), is( "metrics" ) );
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat( coalescer.getLeaderCount(), is( 1L ) );
+    assertThat( coalescer.getFollowerCount(), is( 3L ) );
+    assertThat( coalescer.getFlightCount(), is( 0 ) );
+    // Once complete the next request starts a new flight.
+    assertThat( coalescer.join( "GET http://host/ws/v1/cluster/metrics" ), nullValue() );
+  }
+
+  @Test
+  public void testDifferentKeysAreNotCoalesced() {
+    RequestCoalescer coalescer = new RequestCoalescer();
+    assertThat( coalescer.join( "GET http://host/webhdfs/v1/tmp?op=GETFILESTATUS&user.name=alice" ), nullValue() );
+    assertThat( coalescer.join( "GET http://host/webhdfs/v1/tmp?op=GETFILESTATUS&user.name=bob" ), nullValue() );
+  }
+
+  @Test
+  public void testFollowersSeeLeaderFailure() throws Exception {
+    RequestCoalescer coalescer = new RequestCoalescer();
+    assertThat( coalescer.join( "key" ), nullValue() );
+    RequestCoalescer.Flight flight = coalescer.join( "key" );
+    coalescer.fail( "key", new IOException( "unreachable" ) );
+    try {
+      flight.await( 1000 );
+      fail( "Expected IOException" );
+    } catch( IOException e ) {
+      assertThat( e.getMessage(), is( "unreachable" ) );
+    }
+  }
+
+  @Test
+  public void testFollowerTimesOut() throws Exception {
+    RequestCoalescer coalescer = new RequestCoalescer();
+    assertThat( coalescer.join( "key" ), nullValue() );
+    assertThat( coalescer.join( "key" ).await( 10 ), nullValue() );
+  }
+
+  @Test
+  public void testLargeResponseIsNotBufferedButStillReadable() throws Exception {
+    byte[] body = new byte[ 100 ];
+    for( int i = 0; i < body.length; i++ ) {
+      body[ i ] = (byte)i;
+    }
+    HttpResponse response = new BasicHttpResponse( HttpVersion.HTTP_1_1, 200, "OK" );
+    response.setEntity( new InputStreamEntity( new ByteArrayInputStream( body ), -1 ) );
+    assertThat( CoalescedResponse.buffer( response, 10 ), nullValue() );
+    assertThat( EntityUtils.toByteArray( response.getEntity() ), is( body ) );
+  }
+
+  private static HttpResponse createResponse( String body ) {
+    HttpResponse response = new BasicHttpResponse( HttpVersion.HTTP_1_1, 200, "OK" );
+    response.setEntity( new ByteArrayEntity( body.getBytes() ) );
+    return response;
+  }
+
+}
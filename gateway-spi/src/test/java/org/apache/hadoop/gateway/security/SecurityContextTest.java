@@ -0,0 +1,162 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.security;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.security.auth.Subject;
+import javax.servlet.ServletRequest;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.security.Principal;
+import java.security.PrivilegedExceptionAction;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class SecurityContextTest {
+
+  private ServletRequest request = createRequest();
+
+  @After
+  public void tearDown() {
+    SecurityContext.close( request );
+  }
+
+  @Test
+  public void testNoContext() throws Exception {
+    assertThat( SecurityContext.get( request ), nullValue() );
+    assertThat( SecurityContext.current(), nullValue() );
+    assertThat( SubjectUtils.getCurrentSubject(), nullValue() );
+  }
+
+  @Test
+  public void testDoAsWithoutContextUsesJaas() throws Exception {
+    final Subject subject = createSubject( "guest", "users" );
+    SecurityContext.doAs( request, subject, new PrivilegedExceptionAction<Object>() {
+      @Override
+      public Object run() throws Exception {
+        SecurityContext context = SecurityContext.current();
+        assertThat( context.getPrimaryPrincipal().getName(), is( "guest" ) );
+        assertTrue( context.getGroupNames().contains( "users" ) );
+        assertThat( SubjectUtils.getCurrentSubject(), sameInstance( subject ) );
+        return null;
+      }
+    } );
+  }
+
+  @Test
+  public void testDoAsWithinContextSkipsJaas() throws Exception {
+    final SecurityContext context = SecurityContext.open( request );
+    final Subject subject = createSubject( "guest", "users" );
+    SecurityContext.doAs( request, subject, new PrivilegedExceptionAction<Object>() {
+      @Override
+      public Object run() throws Exception {
+        assertThat( SecurityContext.current(), sameInstance( context ) );
+        assertTrue( context.isEstablished() );
+        assertThat( context.getEffectivePrincipal().getName(), is( "guest" ) );
+        // The established subject is handed out as is while the context is unchanged.
+        assertThat( SubjectUtils.getCurrentSubject(), sameInstance( subject ) );
+        return null;
+      }
+    } );
+  }
+
+  @Test
+  public void testUpdatesMaterializeSubject() throws Exception {
+    SecurityContext context = SecurityContext.open( request );
+    Subject subject = createSubject( "guest", "users" );
+    context.establish( subject );
+    context.setImpersonatedPrincipal( new ImpersonatedPrincipal( "bob" ) );
+    context.addGroup( new GroupPrincipal( "admins" ) );
+    context.addGroup( new GroupPrincipal( "users" ) );
+
+    assertThat( context.getEffectivePrincipal().getName(), is( "bob" ) );
+    assertThat( context.getGroupPrincipals().size(), is( 2 ) );
+
+    Subject materialized = SubjectUtils.getCurrentSubject();
+    assertThat( materialized, notNullValue() );
+    assertThat( SubjectUtils.getPrimaryPrincipalName( materialized ), is( "guest" ) );
+    assertThat( SubjectUtils.getEffectivePrincipalName( materialized ), is( "bob" ) );
+    assertThat( materialized.getPrincipals( GroupPrincipal.class ).size(), is( 2 ) );
+    assertThat( subject.getPrincipals( ImpersonatedPrincipal.class ).size(), is( 0 ) );
+    assertThat( SubjectUtils.getCurrentSubject(), sameInstance( materialized ) );
+  }
+
+  @Test
+  public void testPrimaryPrincipalWithoutPrimaryPrincipalClass() throws Exception {
+    Subject subject = new Subject();
+    subject.getPrincipals().add( new Principal() {
+      @Override
+      public String getName() {
+        return "guest";
+      }
+    } );
+    SecurityContext context = SecurityContext.open( request );
+    context.establish( subject );
+    assertThat( context.getPrimaryPrincipal().getName(), is( "guest" ) );
+  }
+
+  @Test
+  public void testCloseRestoresPreviousContext() throws Exception {
+    SecurityContext outer = SecurityContext.open( request );
+    outer.establish( createSubject( "guest" ) );
+    ServletRequest inner = createRequest();
+    SecurityContext.open( inner ).establish( createSubject( "bob" ) );
+    assertThat( SecurityContext.current().getPrimaryPrincipal().getName(), is( "bob" ) );
+    SecurityContext.close( inner );
+    assertThat( SecurityContext.get( inner ), nullValue() );
+    assertThat( SecurityContext.current(), sameInstance( outer ) );
+  }
+
+  private static Subject createSubject( String user, String... groups ) {
+    Subject subject = new Subject();
+    subject.getPrincipals().add( new PrimaryPrincipal( user ) );
+    for( String group : groups ) {
+      subject.getPrincipals().add( new GroupPrincipal( group ) );
+    }
+    return subject;
+  }
+
+  private static ServletRequest createRequest() {
+    final Map<String, Object> attributes = new HashMap<String, Object>();
+    return (ServletRequest)Proxy.newProxyInstance( SecurityContextTest.class.getClassLoader(),
+        new Class<?>[]{ ServletRequest.class }, new InvocationHandler() {
+          @Override
+          public Object invoke( Object proxy, Method method, Object[] args ) throws Throwable {
+            if( method.getName().equals( "getAttribute" ) ) {
+              return attributes.get( args[ 0 ] );
+            } else if( method.getName().equals( "setAttribute" ) ) {
+              attributes.put( (String)args[ 0 ], args[ 1 ] );
+            } else if( method.getName().equals( "removeAttribute" ) ) {
+              attributes.remove( args[ 0 ] );
+            }
+            return null;
+          }
+        } );
+  }
+
+}
@@ -23,6 +23,16 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -170,4 +180,97 @@ public class PrincipalMapperTest {
 
     assertTrue(mapper.mapUserPrincipal("stink").equals("stink"));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testPatternPrincipalMapping() throws Exception {
+    String principalMapping = "svc_hive=hive;svc_*=hdfs;app-[0-9]+=mapred;john.doe=jdoe";
+    String groupMapping = "hdfs=admins;sys.*=system";
+    mapper.loadMappingTable(principalMapping, groupMapping);
+
+    // exact entries win over the ordered rules
+    assertEquals("hive", mapper.mapUserPrincipal("svc_hive"));
+    assertEquals("hdfs", mapper.mapUserPrincipal("svc_yarn"));
+    assertEquals("mapred", mapper.mapUserPrincipal("app-42"));
+    assertEquals("app-x", mapper.mapUserPrincipal("app-x"));
+    // dots in plain names are literal
+    assertEquals("jdoe", mapper.mapUserPrincipal("john.doe"));
+    assertEquals("johnxdoe", mapper.mapUserPrincipal("johnxdoe"));
+
+    assertArrayEquals(new String[] { "system" }, mapper.mapGroupPrincipal("sysadmin"));
+    // results of the ordered rules are memoized, repeat to use the memo
+    assertArrayEquals(new String[] { "system" }, mapper.mapGroupPrincipal("sysadmin"));
+    assertNull(mapper.mapGroupPrincipal("guest"));
+    assertNull(mapper.mapGroupPrincipal("guest"));
+  }
+
+  @Test
+  public void testAllGroupPrincipals() throws Exception {
+    mapper.loadMappingTable(null, "hdfs=admins,users;svc_*=services;*=users,everyone");
+    assertEquals(Arrays.asList("admins", "users", "everyone"), Arrays.asList(mapper.mapAllGroupPrincipals("hdfs")));
+    assertEquals(Arrays.asList("services", "users", "everyone"), Arrays.asList(mapper.mapAllGroupPrincipals("svc_hive")));
+    assertEquals(Arrays.asList("users", "everyone"), Arrays.asList(mapper.mapAllGroupPrincipals("guest")));
+    assertEquals(Arrays.asList("admins", "users"), Arrays.asList(mapper.mapGroupPrincipal("hdfs")));
+
+    mapper.loadMappingTable(null, "hdfs=admins");
+    assertEquals(Arrays.asList("admins"), Arrays.asList(mapper.mapAllGroupPrincipals("hdfs")));
+    assertNull(mapper.mapAllGroupPrincipals("guest"));
+  }
+
+  @Test
+  public void testInvalidPatternPrincipalMapping() {
+    try {
+      mapper.loadMappingTable("lmccay=hdfs;svc_(=hdfs", null);
+      fail();
+    }
+    catch (PrincipalMappingException pme) {
+      // expected
+    }
+    assertEquals("lmccay", mapper.mapUserPrincipal("lmccay"));
+  }
+
+  @Test
+  public void testMappingFileReload() throws Exception {
+    File file = File.createTempFile("principal-mapping", ".properties");
+    try {
+      writeMappingFile(file, "svc_*=hdfs", "hdfs=admins");
+      SimplePrincipalMapper simple = new SimplePrincipalMapper();
+      simple.loadMappingTable("lmccay=hdfs", null);
+      simple.loadMappingFile(file, 0);
+      assertEquals("hdfs", simple.mapUserPrincipal("lmccay"));
+      assertEquals("hdfs", simple.mapUserPrincipal("svc_hive"));
+      assertArrayEquals(new String[] { "admins" }, simple.mapGroupPrincipal("hdfs"));
+
+      writeMappingFile(file, "svc_*=yarn;lmccay=mapred", null);
+      assertEquals("mapred", simple.mapUserPrincipal("lmccay"));
+      assertEquals("yarn", simple.mapUserPrincipal("svc_hive"));
+      assertNull(simple.mapGroupPrincipal("hdfs"));
+
+      // a broken file keeps the previous mappings
+      writeMappingFile(file, "svc_(=broken;and-longer", null);
+      assertEquals("yarn", simple.mapUserPrincipal("svc_hive"));
+    }
+    finally {
+      file.delete();
+    }
+  }
+
+  private static void writeMappingFile(File file, String principalMapping, String groupMapping) throws IOException {
+    Properties properties = new Properties();
+    if (principalMapping != null) {
+      properties.setProperty(SimplePrincipalMapper.PRINCIPAL_MAPPING, principalMapping);
+    }
+    if (groupMapping != null) {
+      properties.setProperty(SimplePrincipalMapper.GROUP_PRINCIPAL_MAPPING, groupMapping);
+    }
+    // make sure the change is visible even on file systems with a coarse modification time
+    long modified = file.lastModified();
+    OutputStream output = new FileOutputStream(file);
+    try {
+      properties.store(output, null);
+    }
+    finally {
+      output.close();
+    }
+    file.setLastModified(modified + 2000);
+  }
+}
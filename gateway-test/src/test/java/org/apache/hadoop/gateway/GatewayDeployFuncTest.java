@@ -23,6 +23,7 @@ import com.mycila.xmltool.XMLTag;
 import org.apache.commons.io.FileUtils;
 import org.apache.directory.server.protocol.shared.transport.TcpTransport;
 import org.apache.hadoop.gateway.config.GatewayConfig;
+import org.apache.hadoop.gateway.deploy.DeploymentStatusRegistry;
 import org.apache.hadoop.gateway.security.ldap.SimpleLdapDirectoryServer;
 import org.apache.hadoop.gateway.services.DefaultGatewayServices;
 import org.apache.hadoop.gateway.services.ServiceLifecycleException;
@@ -226,6 +227,7 @@ public class GatewayDeployFuncTest {
       waitForFiles( webInfDir, ".*", 4, 0, sleep );
     }
     waitForAccess( serviceUrl, username, password, sleep );
+    waitForDeployCount( "test-cluster", 1, sleep );
 
     // Wait to make sure a second has passed to ensure the the file timestamps are different.
     waitForElapsed( writeTime, 1000, 100 );
@@ -237,11 +239,12 @@ public class GatewayDeployFuncTest {
     topoTimestampAfter = descriptor.lastModified();
     assertThat( topoTimestampAfter, greaterThan( topoTimestampBefore ) );
 
-    // Check to make sure there are two war directories with the same root.
-    warDir = waitForFiles( deployDir, "test-cluster.war\\.[0-9A-Fa-f]+", 2, 1, sleep );
+    // Check to make sure the topology was deployed again and the unchanged topology reused its existing war directory.
+    assertThat( waitForFiles( deployDir, "test-cluster.war\\.[0-9A-Fa-f]+", 1, 0, sleep ), is( warDir ) );
     for( File webInfDir : warDir.listFiles() ) {
       waitForFiles( webInfDir, ".*", 4, 0, sleep );
     }
+    waitForDeployCount( "test-cluster", 2, sleep );
     waitForAccess( serviceUrl, username, password, sleep );
 
     // Wait to make sure a second has passed to ensure the the file timestamps are different.
@@ -254,11 +257,12 @@ public class GatewayDeployFuncTest {
     topoTimestampAfter = descriptor.lastModified();
     assertThat( topoTimestampAfter, greaterThan( topoTimestampBefore ) );
 
-    // Check to make sure there are two war directories with the same root.
-    warDir = waitForFiles( deployDir, "test-cluster.war\\.[0-9A-Fa-f]+", 3, 2, sleep );
+    // Check to make sure the topology was deployed again and the unchanged topology reused its existing war directory.
+    assertThat( waitForFiles( deployDir, "test-cluster.war\\.[0-9A-Fa-f]+", 1, 0, sleep ), is( warDir ) );
     for( File webInfDir : warDir.listFiles() ) {
       waitForFiles( webInfDir, ".*", 4, 0, sleep );
     }
+    waitForDeployCount( "test-cluster", 3, sleep );
     waitForAccess( serviceUrl, username, password, sleep );
 
     // Delete the test topology.
@@ -310,6 +314,12 @@ public class GatewayDeployFuncTest {
     }
   }
 
+  private void waitForDeployCount( String topology, long count, long sleep ) throws InterruptedException {
+    while( DeploymentStatusRegistry.getStatus( topology ).getDeployCount() < count ) {
+      Thread.sleep( sleep );
+    }
+  }
+
   private void waitForAccess( String url, String username, String password, long sleep ) throws InterruptedException {
     while( true ) {
       Response response = given()
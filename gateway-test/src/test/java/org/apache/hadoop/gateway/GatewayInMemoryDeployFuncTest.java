@@ -0,0 +1,182 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway;
+
+import com.jayway.restassured.response.Response;
+import com.mycila.xmltool.XMLDoc;
+import com.mycila.xmltool.XMLTag;
+import org.apache.hadoop.test.category.FunctionalTests;
+import org.apache.hadoop.test.category.MediumTests;
+import org.apache.hadoop.test.log.NoOpLogger;
+import org.apache.http.HttpStatus;
+import org.eclipse.jetty.util.log.Log;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.anyOf;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Runs requests through a topology deployed with gateway.deployment.in.memory=true, so the Shiro and rewrite
+ * filters are configured from the archive held in memory instead of an exploded WAR directory.
+ */
+@Category( { FunctionalTests.class, MediumTests.class } )
+public class GatewayInMemoryDeployFuncTest {
+
+  private static final String TEST_HOST = "vm.local";
+
+  private static GatewayFuncTestDriver driver = new GatewayFuncTestDriver();
+
+  private static int findFreePort() throws IOException {
+    ServerSocket socket = new ServerSocket(0);
+    int port = socket.getLocalPort();
+    socket.close();
+    return port;
+  }
+
+  @BeforeClass
+  public static void setupSuite() throws Exception {
+    Log.setLog( new NoOpLogger() );
+    GatewayTestConfig config = new GatewayTestConfig();
+    config.setGatewayPath( "gateway" );
+    config.setDeploymentInMemory( true );
+    driver.setResourceBase( GatewayInMemoryDeployFuncTest.class );
+    driver.setupLdap( findFreePort() );
+    driver.setupService( "WEBHDFS", "http://" + TEST_HOST + ":50070/webhdfs", "/cluster/webhdfs", true );
+    driver.setupService( "DATANODE", "http://" + TEST_HOST + ":50075/webhdfs", "/cluster/webhdfs/data", true );
+    driver.setupGateway( config, "cluster", createTopology(), true );
+  }
+
+  @AfterClass
+  public static void cleanupSuite() throws Exception {
+    driver.cleanup();
+  }
+
+  @After
+  public void cleanupTest() {
+    driver.reset();
+  }
+
+  private static XMLTag createTopology() {
+    XMLTag xml = XMLDoc.newDocument( true )
+        .addRoot( "topology" )
+          .addTag( "gateway" )
+            .addTag( "provider" )
+              .addTag( "role" ).addText( "authentication" )
+              .addTag( "name" ).addText( "ShiroProvider" )
+              .addTag( "enabled" ).addText( "true" )
+              .addTag( "param" )
+                .addTag( "name" ).addText( "main.ldapRealm" )
+                .addTag( "value" ).addText( "org.apache.hadoop.gateway.shirorealm.KnoxLdapRealm" ).gotoParent()
+              .addTag( "param" )
+                .addTag( "name" ).addText( "main.ldapRealm.userDnTemplate" )
+                .addTag( "value" ).addText( "uid={0},ou=people,dc=hadoop,dc=apache,dc=org" ).gotoParent()
+              .addTag( "param" )
+                .addTag( "name" ).addText( "main.ldapRealm.contextFactory.url" )
+                .addTag( "value" ).addText( driver.getLdapUrl() ).gotoParent()
+              .addTag( "param" )
+                .addTag( "name" ).addText( "main.ldapRealm.contextFactory.authenticationMechanism" )
+                .addTag( "value" ).addText( "simple" ).gotoParent()
+              .addTag( "param" )
+                .addTag( "name" ).addText( "urls./**" )
+                .addTag( "value" ).addText( "authcBasic" ).gotoParent().gotoParent()
+            .addTag( "provider" )
+              .addTag( "role" ).addText( "identity-assertion" )
+              .addTag( "enabled" ).addText( "true" )
+              .addTag( "name" ).addText( "Default" ).gotoParent()
+          .gotoRoot()
+          .addTag( "service" )
+            .addTag( "role" ).addText( "WEBHDFS" )
+            .addTag( "url" ).addText( driver.getRealUrl( "WEBHDFS" ) ).gotoParent()
+          .gotoRoot();
+    return xml;
+  }
+
+  @Test
+  public void testNothingExported() {
+    File deployDir = new File( driver.config.getGatewayDeploymentDir() );
+    String[] files = deployDir.list();
+    assertThat( files == null || files.length == 0, is( true ) );
+  }
+
+  @Test
+  public void testShiroRejectsUnauthenticatedRequest() {
+    given()
+        .queryParam( "op", "LISTSTATUS" )
+        .expect()
+        .statusCode( HttpStatus.SC_UNAUTHORIZED )
+        .when().get( driver.getUrl( "WEBHDFS" ) + "/v1/" );
+    given()
+        .auth().preemptive().basic( "hdfs", "wrong-password" )
+        .queryParam( "op", "LISTSTATUS" )
+        .expect()
+        .statusCode( HttpStatus.SC_UNAUTHORIZED )
+        .when().get( driver.getUrl( "WEBHDFS" ) + "/v1/" );
+  }
+
+  @Test
+  public void testRewriteAppliedToRequestAndRedirect() throws IOException {
+    String root = "/tmp/GatewayInMemoryDeployFuncTest/testRewriteAppliedToRequestAndRedirect";
+    String username = "hdfs";
+    String password = "hdfs-password";
+    InetSocketAddress gatewayAddress = driver.gateway.getAddresses()[0];
+    String gatewayHostName = gatewayAddress.getHostName();
+    String gatewayAddrName = InetAddress.getByName( gatewayHostName ).getHostAddress();
+
+    // The inbound rules map the gateway path to the service and the identity asserter adds user.name.
+    driver.getMock( "WEBHDFS" )
+        .expect()
+        .method( "PUT" )
+        .pathInfo( "/v1" + root + "/dir/file" )
+        .queryParam( "op", "CREATE" )
+        .queryParam( "user.name", username )
+        .respond()
+        .status( HttpStatus.SC_TEMPORARY_REDIRECT )
+        .header( "Location", driver.getRealUrl( "DATANODE" ) + "/v1" + root + "/dir/file?op=CREATE&user.name=hdfs" );
+    Response response = given()
+        .auth().preemptive().basic( username, password )
+        .queryParam( "op", "CREATE" )
+        .expect()
+        .statusCode( HttpStatus.SC_TEMPORARY_REDIRECT )
+        .when().put( driver.getUrl( "WEBHDFS" ) + "/v1" + root + "/dir/file" );
+
+    // The outbound rules point the data node redirect back at the gateway.
+    String location = response.getHeader( "Location" );
+    assertThat( location, anyOf(
+        startsWith( "http://" + gatewayHostName + ":" + gatewayAddress.getPort() + "/" ),
+        startsWith( "http://" + gatewayAddrName + ":" + gatewayAddress.getPort() + "/" ) ) );
+    assertThat( location, containsString( "?_=" ) );
+    assertThat( location, not( containsString( "host=" ) ) );
+    driver.assertComplete();
+  }
+
+}
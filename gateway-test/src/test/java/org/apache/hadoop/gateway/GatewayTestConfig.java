@@ -36,6 +36,35 @@ public class GatewayTestConfig implements GatewayConfig {
   private boolean kerberosDebugEnabled = false;
   private String kerberosLoginConfig = "/etc/knox/conf/krb5JAASLogin.conf";
   private String frontendUrl = null;
+  private long deploymentDrainTimeout = 30000;
+  private int deploymentThreads = 4;
+  private boolean deploymentInMemory = false;
+  private boolean deploymentExported = false;
+  private long topologyMonitorInterval = 1000;
+  private long topologyMonitorSettleTime = 1000;
+  private int httpServerMinThreads = 8;
+  private int httpServerMaxThreads = 254;
+  private int httpServerMaxQueued = -1;
+  private int httpServerAcceptors = 1;
+  private int httpServerAcceptQueueSize = -1;
+  private int httpServerIdleTimeout = -1;
+  private int httpServerRequestHeaderBuffer = -1;
+  private int httpServerResponseHeaderBuffer = -1;
+  private int httpServerRequestBuffer = -1;
+  private int httpServerResponseBuffer = -1;
+  private int httpServerSoLingerTime = -1;
+  private boolean httpServerStatsOn = false;
+  private int sslSessionCacheSize = -1;
+  private int sslSessionTimeout = -1;
+  private List<String> includedSSLCiphers = null;
+  private List<String> excludedSSLCiphers = null;
+  private boolean sslServerCipherOrder = false;
+  private boolean sslRenegotiationAllowed = true;
+  private long gatewayShutdownTimeout = 30000;
+  private long gatewayShutdownDeregistrationDelay = 0;
+  private boolean healthCheckEnabled = true;
+  private String healthCheckPath = "/health";
+  private long healthCheckMaxAuditBacklog = 10000;
 
   public void setGatewayHomeDir( String gatewayHomeDir ) {
     this.gatewayHomeDir = gatewayHomeDir;
@@ -182,6 +211,277 @@ public class GatewayTestConfig implements GatewayConfig {
     return protocols;
   }
 
+  @Override
+  public long getDefaultTokenLifetime() {
+    return 30000;
+  }
+
+  @Override
+  public boolean isTokenSessionStorePersistent() {
+    return false;
+  }
+
+  @Override
+  public long getDeploymentDrainTimeout() {
+    return deploymentDrainTimeout;
+  }
+
+  public void setDeploymentDrainTimeout( long deploymentDrainTimeout ) {
+    this.deploymentDrainTimeout = deploymentDrainTimeout;
+  }
+
+  @Override
+  public int getDeploymentThreads() {
+    return deploymentThreads;
+  }
+
+  public void setDeploymentThreads( int deploymentThreads ) {
+    this.deploymentThreads = deploymentThreads;
+  }
+
+  @Override
+  public boolean isDeploymentInMemory() {
+    return deploymentInMemory;
+  }
+
+  public void setDeploymentInMemory( boolean deploymentInMemory ) {
+    this.deploymentInMemory = deploymentInMemory;
+  }
+
+  @Override
+  public boolean isDeploymentExported() {
+    return deploymentExported;
+  }
+
+  public void setDeploymentExported( boolean deploymentExported ) {
+    this.deploymentExported = deploymentExported;
+  }
+
+  @Override
+  public long getTopologyMonitorInterval() {
+    return topologyMonitorInterval;
+  }
+
+  public void setTopologyMonitorInterval( long topologyMonitorInterval ) {
+    this.topologyMonitorInterval = topologyMonitorInterval;
+  }
+
+  @Override
+  public long getTopologyMonitorSettleTime() {
+    return topologyMonitorSettleTime;
+  }
+
+  public void setTopologyMonitorSettleTime( long topologyMonitorSettleTime ) {
+    this.topologyMonitorSettleTime = topologyMonitorSettleTime;
+  }
+
+  @Override
+  public int getHttpServerMinThreads() {
+    return httpServerMinThreads;
+  }
+
+  public void setHttpServerMinThreads( int httpServerMinThreads ) {
+    this.httpServerMinThreads = httpServerMinThreads;
+  }
+
+  @Override
+  public int getHttpServerMaxThreads() {
+    return httpServerMaxThreads;
+  }
+
+  public void setHttpServerMaxThreads( int httpServerMaxThreads ) {
+    this.httpServerMaxThreads = httpServerMaxThreads;
+  }
+
+  @Override
+  public int getHttpServerMaxQueued() {
+    return httpServerMaxQueued;
+  }
+
+  public void setHttpServerMaxQueued( int httpServerMaxQueued ) {
+    this.httpServerMaxQueued = httpServerMaxQueued;
+  }
+
+  @Override
+  public int getHttpServerAcceptors() {
+    return httpServerAcceptors;
+  }
+
+  public void setHttpServerAcceptors( int httpServerAcceptors ) {
+    this.httpServerAcceptors = httpServerAcceptors;
+  }
+
+  @Override
+  public int getHttpServerAcceptQueueSize() {
+    return httpServerAcceptQueueSize;
+  }
+
+  public void setHttpServerAcceptQueueSize( int httpServerAcceptQueueSize ) {
+    this.httpServerAcceptQueueSize = httpServerAcceptQueueSize;
+  }
+
+  @Override
+  public int getHttpServerIdleTimeout() {
+    return httpServerIdleTimeout;
+  }
+
+  public void setHttpServerIdleTimeout( int httpServerIdleTimeout ) {
+    this.httpServerIdleTimeout = httpServerIdleTimeout;
+  }
+
+  @Override
+  public int getHttpServerRequestHeaderBuffer() {
+    return httpServerRequestHeaderBuffer;
+  }
+
+  public void setHttpServerRequestHeaderBuffer( int httpServerRequestHeaderBuffer ) {
+    this.httpServerRequestHeaderBuffer = httpServerRequestHeaderBuffer;
+  }
+
+  @Override
+  public int getHttpServerResponseHeaderBuffer() {
+    return httpServerResponseHeaderBuffer;
+  }
+
+  public void setHttpServerResponseHeaderBuffer( int httpServerResponseHeaderBuffer ) {
+    this.httpServerResponseHeaderBuffer = httpServerResponseHeaderBuffer;
+  }
+
+  @Override
+  public int getHttpServerRequestBuffer() {
+    return httpServerRequestBuffer;
+  }
+
+  public void setHttpServerRequestBuffer( int httpServerRequestBuffer ) {
+    this.httpServerRequestBuffer = httpServerRequestBuffer;
+  }
+
+  @Override
+  public int getHttpServerResponseBuffer() {
+    return httpServerResponseBuffer;
+  }
+
+  public void setHttpServerResponseBuffer( int httpServerResponseBuffer ) {
+    this.httpServerResponseBuffer = httpServerResponseBuffer;
+  }
+
+  @Override
+  public int getHttpServerSoLingerTime() {
+    return httpServerSoLingerTime;
+  }
+
+  public void setHttpServerSoLingerTime( int httpServerSoLingerTime ) {
+    this.httpServerSoLingerTime = httpServerSoLingerTime;
+  }
+
+  @Override
+  public boolean isHttpServerStatsOn() {
+    return httpServerStatsOn;
+  }
+
+  public void setHttpServerStatsOn( boolean httpServerStatsOn ) {
+    this.httpServerStatsOn = httpServerStatsOn;
+  }
+
+  @Override
+  public int getSSLSessionCacheSize() {
+    return sslSessionCacheSize;
+  }
+
+  public void setSSLSessionCacheSize( int sslSessionCacheSize ) {
+    this.sslSessionCacheSize = sslSessionCacheSize;
+  }
+
+  @Override
+  public int getSSLSessionTimeout() {
+    return sslSessionTimeout;
+  }
+
+  public void setSSLSessionTimeout( int sslSessionTimeout ) {
+    this.sslSessionTimeout = sslSessionTimeout;
+  }
+
+  @Override
+  public List<String> getIncludedSSLCiphers() {
+    return includedSSLCiphers;
+  }
+
+  public void setIncludedSSLCiphers( List<String> includedSSLCiphers ) {
+    this.includedSSLCiphers = includedSSLCiphers;
+  }
+
+  @Override
+  public List<String> getExcludedSSLCiphers() {
+    return excludedSSLCiphers;
+  }
+
+  public void setExcludedSSLCiphers( List<String> excludedSSLCiphers ) {
+    this.excludedSSLCiphers = excludedSSLCiphers;
+  }
+
+  @Override
+  public boolean isSSLServerCipherOrder() {
+    return sslServerCipherOrder;
+  }
+
+  public void setSSLServerCipherOrder( boolean sslServerCipherOrder ) {
+    this.sslServerCipherOrder = sslServerCipherOrder;
+  }
+
+  @Override
+  public boolean isSSLRenegotiationAllowed() {
+    return sslRenegotiationAllowed;
+  }
+
+  public void setSSLRenegotiationAllowed( boolean sslRenegotiationAllowed ) {
+    this.sslRenegotiationAllowed = sslRenegotiationAllowed;
+  }
+
+  @Override
+  public long getGatewayShutdownTimeout() {
+    return gatewayShutdownTimeout;
+  }
+
+  public void setGatewayShutdownTimeout( long gatewayShutdownTimeout ) {
+    this.gatewayShutdownTimeout = gatewayShutdownTimeout;
+  }
+
+  @Override
+  public long getGatewayShutdownDeregistrationDelay() {
+    return gatewayShutdownDeregistrationDelay;
+  }
+
+  public void setGatewayShutdownDeregistrationDelay( long gatewayShutdownDeregistrationDelay ) {
+    this.gatewayShutdownDeregistrationDelay = gatewayShutdownDeregistrationDelay;
+  }
+
+  @Override
+  public boolean isHealthCheckEnabled() {
+    return healthCheckEnabled;
+  }
+
+  public void setHealthCheckEnabled( boolean healthCheckEnabled ) {
+    this.healthCheckEnabled = healthCheckEnabled;
+  }
+
+  @Override
+  public String getHealthCheckPath() {
+    return healthCheckPath;
+  }
+
+  public void setHealthCheckPath( String healthCheckPath ) {
+    this.healthCheckPath = healthCheckPath;
+  }
+
+  @Override
+  public long getHealthCheckMaxAuditBacklog() {
+    return healthCheckMaxAuditBacklog;
+  }
+
+  public void setHealthCheckMaxAuditBacklog( long healthCheckMaxAuditBacklog ) {
+    this.healthCheckMaxAuditBacklog = healthCheckMaxAuditBacklog;
+  }
+
   public void setFrontendUrl( String frontendUrl ) {
     this.frontendUrl = frontendUrl;
   }
@@ -531,6 +531,66 @@ public class DeploymentFactoryFuncTest {
     FileUtils.deleteQuietly( deployDir );
   }
 
+  @Test
+  public void testTokenActionsOnlyWithAccessTokenAsserter() throws Exception {
+    GatewayConfig config = new GatewayTestConfig();
+    File targetDir = new File(System.getProperty("user.dir"), "target");
+    File gatewayDir = new File(targetDir, "gateway-home-" + UUID.randomUUID());
+    gatewayDir.mkdirs();
+    ((GatewayTestConfig) config).setGatewayHomeDir(gatewayDir.getAbsolutePath());
+    File deployDir = new File(config.getGatewayDeploymentDir());
+    deployDir.mkdirs();
+
+    DefaultGatewayServices srvcs = new DefaultGatewayServices();
+    Map<String, String> options = new HashMap<String, String>();
+    options.put("persist-master", "false");
+    options.put("master", "password");
+    try {
+      DeploymentFactory.setGatewayServices(srvcs);
+      srvcs.init(config, options);
+    } catch (ServiceLifecycleException e) {
+      e.printStackTrace(); // I18N not required.
+    }
+
+    Topology topology = new Topology();
+    topology.setName( "test-cluster" );
+    Service service = new Service();
+    service.setRole( "TGS" );
+    service.addUrl( "https://localhost:8443/gateway/test-cluster/tgs/api/v1/accesstoken" );
+    topology.addService( service );
+    Provider provider = new Provider();
+    provider.setRole( "authentication" );
+    provider.setName( "ShiroProvider" );
+    provider.setEnabled( true );
+    Param param = new Param();
+    param.setName( "contextConfigLocation" );
+    param.setValue( "classpath:app-context-security.xml" );
+    provider.addParam( param );
+    topology.addProvider( provider );
+    Provider asserter = new Provider();
+    asserter.setRole( "identity-assertion" );
+    asserter.setName( "Default" );
+    asserter.setEnabled( true );
+    topology.addProvider( asserter );
+
+    // With another asserter nothing would check the presented token, so there are no token actions.
+    WebArchive war = DeploymentFactory.createDeployment( config, topology );
+    Document doc = parse( war.get( "WEB-INF/gateway.xml" ).getAsset().openStream() );
+    assertThat( node( doc, "gateway/resource[pattern/text()='/tgs/api/v1/accesstoken']" ), is(not(nullValue())));
+    assertThat( node( doc, "gateway/resource[pattern/text()='/tgs/api/v1/refresh']" ), is(nullValue()));
+    assertThat( node( doc, "gateway/resource[pattern/text()='/tgs/api/v1/revoke']" ), is(nullValue()));
+
+    asserter.setName( "JWTAccessTokenAsserter" );
+    war = DeploymentFactory.createDeployment( config, topology );
+    doc = parse( war.get( "WEB-INF/gateway.xml" ).getAsset().openStream() );
+    Node resourceNode = node( doc, "gateway/resource[pattern/text()='/tgs/api/v1/refresh']" );
+    assertThat( resourceNode, is(not(nullValue())));
+    assertThat( value( resourceNode, "filter[role/text()='identity-assertion']/name/text()" ), is( "JWTAccessTokenAsserter" ) );
+    assertThat( node( doc, "gateway/resource[pattern/text()='/tgs/api/v1/revoke']" ), is(not(nullValue())));
+
+    FileUtils.deleteQuietly( deployDir );
+  }
+
   private Document parse( InputStream stream ) throws IOException, SAXException, ParserConfigurationException {
     DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
     DocumentBuilder builder = factory.newDocumentBuilder();
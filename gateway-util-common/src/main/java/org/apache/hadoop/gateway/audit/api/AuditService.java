@@ -74,4 +74,21 @@ public interface AuditService {
    */
   <T> T execute( AuditContext context, Callable<T> callable ) throws Exception;
 
-}
\ No newline at end of file
+  /**
+   * Waits for the audit events recorded so far to reach their final destination.
+   * This is used when the gateway stops so events buffered by store and forward appenders are not left behind.
+   *
+   * @param timeout The maximum time to wait in milliseconds.
+   * @return True if every buffered event was delivered within the timeout.
+   * @throws InterruptedException Thrown if the calling thread is interrupted while waiting.
+   */
+  boolean flush( long timeout ) throws InterruptedException;
+
+  /**
+   * Determines how far the delivery of audit events is lagging behind.
+   *
+   * @return The number of audit events recorded but not yet delivered to their final destination.
+   */
+  long getBacklog();
+
+}
@@ -73,6 +73,10 @@ public class JdbmQueue<E> {
         }
         s = getStat();
       }
+      // A stopped queue hands out what is left and then null instead of reading past the last entry.
+      if( s.size() == 0 ) {
+        return null;
+      }
       s.nextDequeue++;
       Long key = Long.valueOf( s.nextDequeue );
       @SuppressWarnings("unchecked")
@@ -112,6 +116,13 @@ public class JdbmQueue<E> {
     return committed;
   }
 
+  /**
+   * @return The number of entries that have not been dequeued yet.
+   */
+  public synchronized long size() throws IOException {
+    return getStat().size();
+  }
+
   public synchronized void stop() {
     open = false;
     notifyAll();
@@ -20,6 +20,7 @@ package org.apache.hadoop.gateway.audit.log4j.appender;
 import java.io.File;
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.AppenderSkeleton;
 import org.apache.log4j.Logger;
@@ -27,11 +28,15 @@ import org.apache.log4j.spi.LoggingEvent;
 
 public class JdbmStoreAndForwardAppender extends AppenderSkeleton {
 
+  private static final long FLUSH_POLL_INTERVAL = 10;
+
   private File file;
   private Thread forwarder;
   private JdbmQueue<LoggingEvent> queue;
   private Logger forward;
   private boolean fetchLocationInfo = true;
+  // Kept apart from the queue so it can be read without waiting for the queue's lock.
+  private final AtomicLong backlog = new AtomicLong();
 
   @Override
   public boolean requiresLayout() {
@@ -54,6 +59,7 @@ public class JdbmStoreAndForwardAppender extends AppenderSkeleton {
   public void activateOptions() {
     try {
       queue = new JdbmQueue<LoggingEvent>( file );
+      backlog.set( queue.size() );
     } catch ( IOException e ) {
       throw new IllegalStateException( e );
     }
@@ -71,11 +77,38 @@ public class JdbmStoreAndForwardAppender extends AppenderSkeleton {
         event.getLocationInformation();
       }
       queue.enqueue( event );
+      backlog.incrementAndGet();
     } catch ( IOException e ) {
       throw new RuntimeException( e );
     }
   }
 
+  /**
+   * @return The number of stored events that have not been forwarded yet.
+   */
+  public long getBacklog() {
+    return backlog.get();
+  }
+
+  /**
+   * Waits for the events stored so far to be forwarded.
+   * The queue's lock is held by the forwarder while it forwards an event,
+   * so an empty queue means the last event has been handed to the forward appenders.
+   *
+   * @param timeout The maximum time to wait in milliseconds
+   * @return true if every stored event has been forwarded
+   */
+  public boolean flush( long timeout ) throws IOException, InterruptedException {
+    if( queue == null ) {
+      return true;
+    }
+    long deadline = System.currentTimeMillis() + timeout;
+    while( queue.size() > 0 && System.currentTimeMillis() < deadline ) {
+      Thread.sleep( FLUSH_POLL_INTERVAL );
+    }
+    return queue.size() == 0;
+  }
+
   @Override
   public void close() {
     try {
@@ -103,6 +136,7 @@ public class JdbmStoreAndForwardAppender extends AppenderSkeleton {
                   done.set( true );
                 } else {
                   forward.callAppenders( event );
+                  backlog.decrementAndGet();
                 }
                 return true;
               } catch ( Exception e ) {
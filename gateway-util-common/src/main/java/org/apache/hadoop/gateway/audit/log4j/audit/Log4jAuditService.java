@@ -17,13 +17,20 @@
  */
 package org.apache.hadoop.gateway.audit.log4j.audit;
 
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.hadoop.gateway.audit.api.AuditContext;
 import org.apache.hadoop.gateway.audit.api.AuditService;
 import org.apache.hadoop.gateway.audit.api.Auditor;
+import org.apache.hadoop.gateway.audit.log4j.appender.JdbmStoreAndForwardAppender;
+import org.apache.log4j.Category;
+import org.apache.log4j.LogManager;
 import org.apache.log4j.MDC;
 
 public class Log4jAuditService implements AuditService {
@@ -81,4 +88,47 @@ public class Log4jAuditService implements AuditService {
     return auditor;
   }
 
+  @Override
+  public boolean flush( long timeout ) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeout;
+    boolean flushed = true;
+    for( JdbmStoreAndForwardAppender appender : getStoreAndForwardAppenders() ) {
+      try {
+        flushed &= appender.flush( Math.max( 0, deadline - System.currentTimeMillis() ) );
+      } catch( IOException e ) {
+        flushed = false;
+      }
+    }
+    return flushed;
+  }
+
+  @Override
+  public long getBacklog() {
+    long backlog = 0;
+    for( JdbmStoreAndForwardAppender appender : getStoreAndForwardAppenders() ) {
+      backlog += appender.getBacklog();
+    }
+    return backlog;
+  }
+
+  private static Set<JdbmStoreAndForwardAppender> getStoreAndForwardAppenders() {
+    Set<JdbmStoreAndForwardAppender> appenders = new LinkedHashSet<JdbmStoreAndForwardAppender>();
+    addStoreAndForwardAppenders( LogManager.getRootLogger(), appenders );
+    Enumeration<?> loggers = LogManager.getCurrentLoggers();
+    while( loggers.hasMoreElements() ) {
+      addStoreAndForwardAppenders( (Category)loggers.nextElement(), appenders );
+    }
+    return appenders;
+  }
+
+  private static void addStoreAndForwardAppenders( Category logger, Set<JdbmStoreAndForwardAppender> appenders ) {
+    Enumeration<?> enumeration = logger.getAllAppenders();
+    while( enumeration.hasMoreElements() ) {
+      Object appender = enumeration.nextElement();
+      if( appender instanceof JdbmStoreAndForwardAppender ) {
+        appenders.add( (JdbmStoreAndForwardAppender)appender );
+      }
+    }
+  }
+
 }
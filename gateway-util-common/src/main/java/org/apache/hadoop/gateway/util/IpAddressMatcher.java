@@ -0,0 +1,308 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.util;
+
+/**
+ * Matches IPv4 and IPv6 addresses against a set of address blocks.
+ * Blocks are given as single addresses, in CIDR notation (<code>10.0.0.0/8</code>, <code>fe80::/10</code>)
+ * or as wildcards that end on a whole octet or group (<code>192.168.*</code>, <code>0:0:0:0:0:0:*</code>).
+ * Addresses are compared in numeric form, so different spellings of the same IPv6 address match, and
+ * IPv4-mapped IPv6 addresses match IPv4 blocks.
+ * The blocks are kept in a binary trie per address family, so a lookup takes at most one step per address bit.
+ * Host names are never resolved.
+ */
+public class IpAddressMatcher {
+
+  private final Node ipv4 = new Node();
+  private final Node ipv6 = new Node();
+  private boolean empty = true;
+
+  /**
+   * Adds an address block.
+   *
+   * @param block A single address, a CIDR block or an octet/group aligned wildcard
+   * @return false if the block could not be understood as a numeric address block
+   */
+  public boolean add( String block ) {
+    if( block == null ) {
+      return false;
+    }
+    block = block.trim();
+    byte[] address;
+    int prefix;
+    int slash = block.indexOf( '/' );
+    if( slash > 0 ) {
+      address = parseAddress( block.substring( 0, slash ) );
+      try {
+        prefix = Integer.parseInt( block.substring( slash + 1 ).trim() );
+      } catch( NumberFormatException e ) {
+        return false;
+      }
+      if( address != null && address.length == 4 && isIpv4Mapped( block.substring( 0, slash ) ) ) {
+        prefix -= 96;
+      }
+    } else if( block.endsWith( "*" ) ) {
+      return addWildcard( block );
+    } else {
+      address = parseAddress( block );
+      prefix = address == null ? 0 : address.length * 8;
+    }
+    if( address == null || prefix < 0 || prefix > address.length * 8 ) {
+      return false;
+    }
+    insert( address.length == 4 ? ipv4 : ipv6, address, prefix );
+    return true;
+  }
+
+  /**
+   * @return true if no block has been added
+   */
+  public boolean isEmpty() {
+    return empty;
+  }
+
+  /**
+   * @param address A literal IPv4 or IPv6 address
+   * @return true if the address lies within any of the blocks, false if not or if it isn't an address literal
+   */
+  public boolean matches( String address ) {
+    byte[] bytes = parseAddress( address );
+    return bytes != null && matches( bytes );
+  }
+
+  public boolean matches( byte[] address ) {
+    Node node = address.length == 4 ? ipv4 : ipv6;
+    int bits = address.length * 8;
+    for( int i = 0; ; i++ ) {
+      if( node.terminal ) {
+        return true;
+      }
+      if( i == bits ) {
+        return false;
+      }
+      node = node.children[ bit( address, i ) ];
+      if( node == null ) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Parses a literal IPv4 or IPv6 address without any name resolution.
+   * IPv6 addresses may be compressed, enclosed in brackets, carry a zone id or end in dotted IPv4 form.
+   * IPv4-mapped IPv6 addresses are returned as IPv4.
+   *
+   * @return 4 bytes for IPv4, 16 bytes for IPv6 or null if the value isn't an address literal
+   */
+  public static byte[] parseAddress( String address ) {
+    if( address == null ) {
+      return null;
+    }
+    address = address.trim();
+    if( address.startsWith( "[" ) && address.endsWith( "]" ) ) {
+      address = address.substring( 1, address.length() - 1 );
+    }
+    if( address.indexOf( ':' ) < 0 ) {
+      return parseIpv4( address );
+    }
+    byte[] bytes = parseIpv6( address );
+    if( bytes != null && isIpv4Mapped( bytes ) ) {
+      byte[] ipv4 = new byte[ 4 ];
+      System.arraycopy( bytes, 12, ipv4, 0, 4 );
+      return ipv4;
+    }
+    return bytes;
+  }
+
+  private boolean addWildcard( String block ) {
+    if( block.equals( "*" ) ) {
+      insert( ipv4, new byte[ 4 ], 0 );
+      insert( ipv6, new byte[ 16 ], 0 );
+      return true;
+    }
+    String prefix = block.substring( 0, block.length() - 1 );
+    if( prefix.indexOf( '*' ) >= 0 || prefix.indexOf( "::" ) >= 0 ) {
+      return false;
+    }
+    if( prefix.endsWith( "." ) && prefix.indexOf( ':' ) < 0 ) {
+      String[] octets = prefix.substring( 0, prefix.length() - 1 ).split( "\\.", -1 );
+      if( octets.length > 3 ) {
+        return false;
+      }
+      byte[] address = new byte[ 4 ];
+      for( int i = 0; i < octets.length; i++ ) {
+        int octet = parseNumber( octets[ i ], 10, 255 );
+        if( octet < 0 ) {
+          return false;
+        }
+        address[ i ] = (byte)octet;
+      }
+      insert( ipv4, address, octets.length * 8 );
+      return true;
+    }
+    if( prefix.endsWith( ":" ) ) {
+      String[] groups = prefix.substring( 0, prefix.length() - 1 ).split( ":", -1 );
+      if( groups.length > 7 ) {
+        return false;
+      }
+      byte[] address = new byte[ 16 ];
+      for( int i = 0; i < groups.length; i++ ) {
+        int group = parseNumber( groups[ i ], 16, 0xFFFF );
+        if( group < 0 ) {
+          return false;
+        }
+        address[ i * 2 ] = (byte)( group >> 8 );
+        address[ i * 2 + 1 ] = (byte)group;
+      }
+      insert( ipv6, address, groups.length * 16 );
+      return true;
+    }
+    return false;
+  }
+
+  private void insert( Node root, byte[] address, int prefix ) {
+    Node node = root;
+    for( int i = 0; i < prefix && !node.terminal; i++ ) {
+      int bit = bit( address, i );
+      if( node.children[ bit ] == null ) {
+        node.children[ bit ] = new Node();
+      }
+      node = node.children[ bit ];
+    }
+    // A shorter block already covers everything below this node.
+    node.terminal = true;
+    node.children[ 0 ] = null;
+    node.children[ 1 ] = null;
+    empty = false;
+  }
+
+  private static int bit( byte[] address, int index ) {
+    return ( address[ index >> 3 ] >> ( 7 - ( index & 7 ) ) ) & 1;
+  }
+
+  private static byte[] parseIpv4( String address ) {
+    String[] octets = address.split( "\\.", -1 );
+    if( octets.length != 4 ) {
+      return null;
+    }
+    byte[] bytes = new byte[ 4 ];
+    for( int i = 0; i < 4; i++ ) {
+      int octet = parseNumber( octets[ i ], 10, 255 );
+      if( octet < 0 ) {
+        return null;
+      }
+      bytes[ i ] = (byte)octet;
+    }
+    return bytes;
+  }
+
+  private static byte[] parseIpv6( String address ) {
+    int zone = address.indexOf( '%' );
+    if( zone >= 0 ) {
+      address = address.substring( 0, zone );
+    }
+    byte[] ipv4 = null;
+    int lastColon = address.lastIndexOf( ':' );
+    if( address.indexOf( '.', lastColon ) > 0 ) {
+      ipv4 = parseIpv4( address.substring( lastColon + 1 ) );
+      if( ipv4 == null ) {
+        return null;
+      }
+      address = address.substring( 0, lastColon + 1 ) + "0:0";
+    }
+    int gap = address.indexOf( "::" );
+    if( gap >= 0 && address.indexOf( "::", gap + 1 ) >= 0 ) {
+      return null;
+    }
+    String[] head;
+    String[] tail;
+    if( gap >= 0 ) {
+      head = split( address.substring( 0, gap ) );
+      tail = split( address.substring( gap + 2 ) );
+      if( head.length + tail.length > 7 ) {
+        return null;
+      }
+    } else {
+      head = split( address );
+      tail = new String[ 0 ];
+      if( head.length != 8 ) {
+        return null;
+      }
+    }
+    byte[] bytes = new byte[ 16 ];
+    if( !putGroups( bytes, head, 0 ) || !putGroups( bytes, tail, 8 - tail.length ) ) {
+      return null;
+    }
+    if( ipv4 != null ) {
+      System.arraycopy( ipv4, 0, bytes, 12, 4 );
+    }
+    return bytes;
+  }
+
+  private static String[] split( String groups ) {
+    return groups.length() == 0 ? new String[ 0 ] : groups.split( ":", -1 );
+  }
+
+  private static boolean putGroups( byte[] bytes, String[] groups, int offset ) {
+    for( int i = 0; i < groups.length; i++ ) {
+      int group = parseNumber( groups[ i ], 16, 0xFFFF );
+      if( group < 0 ) {
+        return false;
+      }
+      bytes[ ( offset + i ) * 2 ] = (byte)( group >> 8 );
+      bytes[ ( offset + i ) * 2 + 1 ] = (byte)group;
+    }
+    return true;
+  }
+
+  private static int parseNumber( String value, int radix, int max ) {
+    int length = value.length();
+    if( length == 0 || length > ( radix == 10 ? 3 : 4 ) ) {
+      return -1;
+    }
+    int number = 0;
+    for( int i = 0; i < length; i++ ) {
+      int digit = Character.digit( value.charAt( i ), radix );
+      if( digit < 0 ) {
+        return -1;
+      }
+      number = number * radix + digit;
+    }
+    return number > max ? -1 : number;
+  }
+
+  private static boolean isIpv4Mapped( String address ) {
+    byte[] bytes = address.indexOf( ':' ) < 0 ? null : parseIpv6( address.trim() );
+    return bytes != null && isIpv4Mapped( bytes );
+  }
+
+  private static boolean isIpv4Mapped( byte[] bytes ) {
+    for( int i = 0; i < 10; i++ ) {
+      if( bytes[ i ] != 0 ) {
+        return false;
+      }
+    }
+    return bytes[ 10 ] == (byte)0xFF && bytes[ 11 ] == (byte)0xFF;
+  }
+
+  private static class Node {
+    final Node[] children = new Node[ 2 ];
+    boolean terminal;
+  }
+
+}
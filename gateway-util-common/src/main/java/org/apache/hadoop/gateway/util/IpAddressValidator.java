@@ -19,9 +19,14 @@ package org.apache.hadoop.gateway.util;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Validate a given IP Address against a list of comma separated list of addresses.
+ * Entries may be single addresses, CIDR blocks such as <code>10.0.0.0/8</code> or wildcards such as
+ * <code>192.168.*</code>. Entries that are not numeric address blocks, for example <code>29*</code>,
+ * keep their historical meaning of a plain string prefix or exact string match.
  */
 public class IpAddressValidator {
   
@@ -31,7 +36,18 @@ public class IpAddressValidator {
   private ArrayList<String> ipaddr = new ArrayList<String>();
   
   /**
-   * IP addresses from the ipaddr list that contain a wildcard character '*'
+   * The numeric address blocks from the ipaddr list
+   */
+  private IpAddressMatcher matcher = new IpAddressMatcher();
+
+  /**
+   * Entries from the ipaddr list that are not address blocks and are compared as strings
+   */
+  private Set<String> literalIPs = new HashSet<String>();
+
+  /**
+   * Prefixes of entries from the ipaddr list that contain a wildcard character '*'
+   * but are not aligned to an octet or group
    */
   private ArrayList<String> wildCardIPs = new ArrayList<String>();
   
@@ -62,10 +78,15 @@ public class IpAddressValidator {
     Collections.addAll(ipaddr, ips);
     if (!ipaddr.contains("*")) {
       anyIP = false;
-      // check whether there are any wildcarded ip's - example: 192.* or 192.168.* or 192.168.1.*
       for (String addr : ipaddr) {
+        if (addr.length() == 0 || matcher.add(addr)) {
+          continue;
+        }
         if (addr.contains("*")) {
+          // wildcards that don't end on a whole octet - example: 19* or 192.16*
           wildCardIPs.add(addr.substring(0, addr.lastIndexOf('*')));
+        } else {
+          literalIPs.add(addr);
         }
       }
     }
@@ -82,7 +103,7 @@ public class IpAddressValidator {
       valid = true;
     }
     else {
-      if (ipaddr.contains(addr)) {
+      if (matcher.matches(addr) || literalIPs.contains(addr)) {
         valid = true;
       }
       else {
@@ -35,6 +35,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 
@@ -164,6 +165,18 @@ public class JdbmQueueTest {
         humanReadableSize( ( ( dbFile.length() + lgFile.length() ) / writeCount ) ) ) );
   }
 
+  @Test
+  public void testStoppedQueueDrainsThenReturnsNull() throws IOException, InterruptedException {
+    System.out.println( "Running " + Thread.currentThread().getStackTrace()[1].getClassName() + "#" + Thread.currentThread().getStackTrace()[1].getMethodName() );
+    String one = UUID.randomUUID().toString();
+    queue.enqueue( one );
+    assertThat( queue.size(), is( 1L ) );
+    queue.stop();
+    assertThat( queue.dequeue(), is( one ) );
+    assertThat( queue.dequeue(), nullValue() );
+    assertThat( queue.size(), is( 0L ) );
+  }
+
   @Test( timeout = 120000 )
   public void testConcurrentConsumer() throws InterruptedException, IOException {
     System.out.println( "Running " + Thread.currentThread().getStackTrace()[1].getClassName() + "#" + Thread.currentThread().getStackTrace()[1].getMethodName() );
@@ -17,6 +17,7 @@
  */
 package org.apache.hadoop.gateway.audit;
 
+import org.apache.hadoop.gateway.audit.api.AuditServiceFactory;
 import org.apache.hadoop.test.log.CollectAppender;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
@@ -41,6 +42,7 @@ public class StoreAndForwardAppenderTest {
   @After
   public void cleanup() throws IOException {
     LogManager.shutdown();
+    CollectAppender.queue.clear();
     String absolutePath = "target/audit";
     File db = new File( absolutePath + ".db" );
     if( db.exists() ) {
@@ -68,4 +70,18 @@ public class StoreAndForwardAppenderTest {
     assertThat( CollectAppender.queue.size(), is( iterations ) );
   }
 
-}
\ No newline at end of file
+  @Test(timeout = 500000)
+  public void testFlush() throws Exception {
+    System.out.println( "Running " + Thread.currentThread().getStackTrace()[1].getClassName() + "#" + Thread.currentThread().getStackTrace()[1].getMethodName() );
+
+    int iterations = 1000;
+    Logger logger = Logger.getLogger( "audit.store" );
+    for( int i = 1; i <= iterations; i++ ) {
+      logger.info( Integer.toString( i ) );
+    }
+    assertThat( AuditServiceFactory.getAuditService().flush( 400000 ), is( true ) );
+    assertThat( CollectAppender.queue.size(), is( iterations ) );
+    assertThat( AuditServiceFactory.getAuditService().getBacklog(), is( 0L ) );
+  }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.util;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class IpAddressMatcherTest extends TestCase {
+
+  @Test
+  public void testParseAddress() throws Exception {
+    assertTrue(Arrays.equals(new byte[] { 10, 1, 2, 3 }, IpAddressMatcher.parseAddress("10.1.2.3")));
+    assertTrue(Arrays.equals(IpAddressMatcher.parseAddress("0:0:0:0:0:0:0:1"), IpAddressMatcher.parseAddress("::1")));
+    assertTrue(Arrays.equals(IpAddressMatcher.parseAddress("fe80::1"), IpAddressMatcher.parseAddress("[FE80:0::1%eth0]")));
+    assertTrue(Arrays.equals(new byte[] { 10, 1, 2, 3 }, IpAddressMatcher.parseAddress("::ffff:10.1.2.3")));
+    assertEquals(16, IpAddressMatcher.parseAddress("64:ff9b::10.1.2.3").length);
+
+    assertNull(IpAddressMatcher.parseAddress("10.1.2"));
+    assertNull(IpAddressMatcher.parseAddress("10.1.2.256"));
+    assertNull(IpAddressMatcher.parseAddress("1::2::3"));
+    assertNull(IpAddressMatcher.parseAddress("1:2:3:4:5:6:7:8:9"));
+    assertNull(IpAddressMatcher.parseAddress("localhost"));
+  }
+
+  @Test
+  public void testCidrBlocks() throws Exception {
+    IpAddressMatcher matcher = new IpAddressMatcher();
+    assertTrue(matcher.isEmpty());
+    assertTrue(matcher.add("10.1.0.0/16"));
+    assertTrue(matcher.add("2001:db8::/32"));
+    assertTrue(matcher.add("192.168.1.7"));
+    assertFalse(matcher.isEmpty());
+
+    assertTrue(matcher.matches("10.1.255.1"));
+    assertFalse(matcher.matches("10.10.0.1"));
+    assertTrue(matcher.matches("2001:DB8:0:0:1::1"));
+    assertFalse(matcher.matches("2001:db9::1"));
+    assertTrue(matcher.matches("192.168.1.7"));
+    assertTrue(matcher.matches("::ffff:192.168.1.7"));
+    assertFalse(matcher.matches("192.168.1.8"));
+    assertFalse(matcher.matches("not-an-address"));
+
+    assertFalse(matcher.add("10.0.0.0/33"));
+    assertFalse(matcher.add("10.0.0.0/x"));
+  }
+
+  @Test
+  public void testWildcardBlocks() throws Exception {
+    IpAddressMatcher matcher = new IpAddressMatcher();
+    assertTrue(matcher.add("10.1.*"));
+    assertTrue(matcher.add("0:0:0:0:0:0:*"));
+    assertFalse(matcher.add("29*"));
+    assertFalse(matcher.add("192.168.*.1"));
+
+    assertTrue(matcher.matches("10.1.2.3"));
+    assertFalse(matcher.matches("10.10.0.1"));
+    assertTrue(matcher.matches("::2"));
+    assertFalse(matcher.matches("0:0:0:0:0:2:2:2"));
+  }
+
+  @Test
+  public void testShorterBlockCoversLongerBlock() throws Exception {
+    IpAddressMatcher matcher = new IpAddressMatcher();
+    matcher.add("10.1.2.3");
+    matcher.add("10.0.0.0/8");
+    matcher.add("10.2.0.0/16");
+    assertTrue(matcher.matches("10.1.2.3"));
+    assertTrue(matcher.matches("10.200.0.1"));
+  }
+
+}
@@ -75,4 +75,22 @@ public class IpAddressValidatorTest extends TestCase {
     assertTrue("Should have validated 293.168.1.1", ipv.validateIpAddress("293.168.1.1"));
   }
 
+  @Test
+  public void testCidrIpAddress() throws Exception {
+    IpAddressValidator ipv = new IpAddressValidator("10.1.0.0/16,fe80::/10");
+
+    assertTrue("Should have validated 10.1.2.3", ipv.validateIpAddress("10.1.2.3"));
+    assertFalse("Should not have validated 10.10.2.3", ipv.validateIpAddress("10.10.2.3"));
+    assertTrue("Should have validated fe80::1", ipv.validateIpAddress("fe80::1"));
+    assertFalse("Should not have validated fec0::1", ipv.validateIpAddress("fec0::1"));
+  }
+
+  @Test
+  public void testNormalizedIpAddress() throws Exception {
+    IpAddressValidator ipv = new IpAddressValidator(test);
+
+    assertTrue("Should have validated ::1", ipv.validateIpAddress("::1"));
+    assertTrue("Should have validated ::ffff:127.0.0.1", ipv.validateIpAddress("::ffff:127.0.0.1"));
+  }
+
 }